@@ -51,6 +51,8 @@ import org.apache.commons.collections.IteratorUtils;
 import org.apache.commons.collections.Transformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.webharvest.Cache;
+import org.webharvest.LruCache;
 import org.webharvest.definition.Config;
 import org.webharvest.definition.FunctionDef;
 import org.webharvest.exception.VariableException;
@@ -83,6 +85,10 @@ public class ScraperContext10 implements DynamicScopeContext {
     @Deprecated
     private final Map<String, FunctionDef> functionDefs = new HashMap<String, FunctionDef>();
 
+    // results of memoized functions registered in this context
+    private final Map<FunctionDef, Cache<String, Variable>> functionMemos =
+        new HashMap<FunctionDef, Cache<String, Variable>>();
+
     @Deprecated
     private ScriptingLanguage scriptingLanguage;
 
@@ -226,7 +232,21 @@ public class ScraperContext10 implements DynamicScopeContext {
     @Override
     @Deprecated
     public void addFunctionDef(final FunctionDef funcDef) {
-        functionDefs.put(funcDef.getName(), funcDef);
+        final FunctionDef previous = functionDefs.put(funcDef.getName(), funcDef);
+        if (previous != null) {
+            functionMemos.remove(previous);
+        }
+        if (funcDef.isMemoized()) {
+            functionMemos.put(funcDef, new LruCache<String, Variable>(FunctionDef.MEMO_SIZE));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cache<String, Variable> getFunctionMemo(final FunctionDef funcDef) {
+        return functionMemos.get(funcDef);
     }
 
     /**
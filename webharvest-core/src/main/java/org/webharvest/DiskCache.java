@@ -0,0 +1,374 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.exception.FileException;
+
+/**
+ * Size-bounded {@link ExpiringCache} implementation storing its mappings in
+ * files of the given directory, so they survive restarts of the application.
+ * Every mapping is kept in a separate file named after SHA-1 digest of the
+ * key's string representation; values are stored using Java serialization,
+ * optionally gzip compressed. Once the cache is full, storing new mapping
+ * evicts the least recently used one. Recency of use is tracked by
+ * modification time of the files, so it is preserved between runs as well.
+ * <p/>
+ * Entries which can not be read (e.g. corrupted or written by incompatible
+ * version of the application) are discarded and reported as misses. Failure
+ * to store an entry results in {@link FileException}.
+ * <p/>
+ * The cache is thread-safe. Files are read and written under a lock of the
+ * key (one of a fixed set of lock stripes), so accesses of different keys
+ * proceed concurrently; the index of entries is locked only to look up or
+ * update the mapping. The same directory should not be shared by multiple
+ * instances.
+ *
+ * @see Cache
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class DiskCache<K, V extends Serializable> implements
+        ExpiringCache<K, V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiskCache.class);
+
+    private static final String SUFFIX = ".entry";
+
+    private static final String COMPRESSED_SUFFIX = ".entry.gz";
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final File directory;
+
+    private final boolean compress;
+
+    // guarded by itself
+    private final Map<String, File> index;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    /**
+     * Opens the cache, creating its directory if it does not exist yet.
+     * Entries already present in the directory are available in the cache.
+     *
+     * @param directory
+     *            directory the entries are stored in
+     * @param maxSize
+     *            maximum number of mappings held by the cache
+     * @param compress
+     *            whether the stored entries should be gzip compressed
+     */
+    public DiskCache(final File directory, final int maxSize,
+            final boolean compress) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(
+                    "Cache size must be positive: " + maxSize);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new FileException("Can not create cache directory "
+                    + directory);
+        }
+        this.directory = directory;
+        this.compress = compress;
+        this.index = new LinkedHashMap<String, File>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<String, File> eldest) {
+                if (size() > maxSize) {
+                    eldest.getValue().delete();
+                    statistics.recordEviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        loadIndex();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final K key, final V value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final K key, final V value, final long ttl) {
+        final String name = digest(key);
+        final File file = new File(directory, name
+                + (compress ? COMPRESSED_SUFFIX : SUFFIX));
+        final File tmpFile = new File(directory, name + ".tmp");
+        synchronized (lockFor(name)) {
+            ObjectOutputStream out = null;
+            try {
+                OutputStream stream = new BufferedOutputStream(
+                        new FileOutputStream(tmpFile));
+                if (compress) {
+                    stream = new GZIPOutputStream(stream);
+                }
+                out = new ObjectOutputStream(stream);
+                out.writeObject(String.valueOf(key));
+                out.writeLong((ttl > 0) ? System.currentTimeMillis() + ttl : 0);
+                out.writeObject(value);
+                out.close();
+                out = null;
+                final File previous;
+                synchronized (index) {
+                    previous = index.remove(name);
+                }
+                if (previous != null) {
+                    previous.delete();
+                }
+                if (!tmpFile.renameTo(file)) {
+                    throw new IOException("Can not rename " + tmpFile + " to "
+                            + file);
+                }
+                synchronized (index) {
+                    index.put(name, file);
+                }
+            } catch (IOException e) {
+                IOUtils.closeQuietly(out);
+                tmpFile.delete();
+                throw new FileException("Error storing cache entry in " + file, e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(final K key) {
+        return read(key) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V lookup(final K key) {
+        final V value = read(key);
+        if (value == null) {
+            statistics.recordMiss();
+        } else {
+            statistics.recordHit();
+        }
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(final K key) {
+        final String name = digest(key);
+        synchronized (lockFor(name)) {
+            final File file;
+            synchronized (index) {
+                file = index.remove(name);
+            }
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns number of mappings held by the cache, including expired ones
+     * which have not been discarded yet.
+     *
+     * @return number of mappings in the cache
+     */
+    public int size() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    private void loadIndex() {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        // oldest first, so the least recently used entries are evicted first
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File file1, final File file2) {
+                final long modified1 = file1.lastModified();
+                final long modified2 = file2.lastModified();
+                return (modified1 < modified2) ? -1
+                        : (modified1 == modified2) ? 0 : 1;
+            }
+        });
+        for (File file : files) {
+            final String fileName = file.getName();
+            if (fileName.endsWith(COMPRESSED_SUFFIX)) {
+                index.put(fileName.substring(0, fileName.length()
+                        - COMPRESSED_SUFFIX.length()), file);
+            } else if (fileName.endsWith(SUFFIX)) {
+                index.put(fileName.substring(0, fileName.length()
+                        - SUFFIX.length()), file);
+            } else if (fileName.endsWith(".tmp")) {
+                // left by an interrupted write
+                file.delete();
+            }
+        }
+    }
+
+    private Object lockFor(final String name) {
+        return locks[(name.hashCode() & Integer.MAX_VALUE) % locks.length];
+    }
+
+    private V read(final K key) {
+        final String name = digest(key);
+        synchronized (lockFor(name)) {
+            return read(key, name);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V read(final K key, final String name) {
+        final File file;
+        synchronized (index) {
+            file = index.get(name);
+        }
+        if (file == null) {
+            return null;
+        }
+        FileInputStream fileIn = null;
+        try {
+            fileIn = new FileInputStream(file);
+            InputStream stream = new BufferedInputStream(fileIn);
+            if (file.getName().endsWith(COMPRESSED_SUFFIX)) {
+                stream = new GZIPInputStream(stream);
+            }
+            final ObjectInputStream in = new ObjectInputStream(stream);
+            if (!String.valueOf(key).equals(in.readObject())) {
+                // digest collision
+                return null;
+            }
+            final long expiresAt = in.readLong();
+            if (expiresAt > 0 && System.currentTimeMillis() >= expiresAt) {
+                IOUtils.closeQuietly(fileIn);
+                discard(name, file);
+                statistics.recordExpiration();
+                return null;
+            }
+            final V value = (V) in.readObject();
+            file.setLastModified(System.currentTimeMillis());
+            return value;
+        } catch (IOException e) {
+            LOG.warn("Discarding unreadable cache entry " + file, e);
+            IOUtils.closeQuietly(fileIn);
+            discard(name, file);
+            return null;
+        } catch (ClassNotFoundException e) {
+            LOG.warn("Discarding unreadable cache entry " + file, e);
+            IOUtils.closeQuietly(fileIn);
+            discard(name, file);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(fileIn);
+        }
+    }
+
+    private void discard(final String name, final File file) {
+        synchronized (index) {
+            index.remove(name);
+        }
+        file.delete();
+    }
+
+    private static String digest(final Object key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(
+                    String.valueOf(key).getBytes("UTF-8"));
+            final StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16));
+                name.append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
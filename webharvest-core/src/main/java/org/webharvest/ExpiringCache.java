@@ -0,0 +1,74 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest;
+
+/**
+ * {@link Cache} whose mappings may expire after the given time to live. Once
+ * expired, mapping is no longer available in the cache, exactly as if it has
+ * been invalidated. Mappings stored with {@link #put(Object, Object)} never
+ * expire, though they still may be evicted by size-bounded implementations.
+ *
+ * @param <K>
+ *            type of cache mapping key
+ * @param <V>
+ *            type of values stored in cache
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public interface ExpiringCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Associates the specified value with the specified key in the cache for
+     * at most the given time. If cache previously contained a mapping for the
+     * specified key, the old value is replaced by the new one.
+     *
+     * @param key
+     *            key under which value will be stored in cache
+     * @param value
+     *            value to be stored in cache
+     * @param ttl
+     *            time to live of the mapping in milliseconds; mapping never
+     *            expires if it is not positive
+     */
+    void put(K key, V value, long ttl);
+
+    /**
+     * Returns statistics of usage of the cache.
+     *
+     * @return statistics of the cache; never {@code null}
+     */
+    CacheStatistics getStatistics();
+
+}
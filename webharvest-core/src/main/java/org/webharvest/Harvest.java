@@ -78,6 +78,16 @@ public interface Harvest {
      */
     void addEventHandler(EventHandler<?> handler);
 
+    /**
+     * Unregister event handler registered with
+     * {@link #addEventHandler(EventHandler)}. Handler stops receiving events
+     * of scrapings started afterwards.
+     *
+     * @param handler
+     *            reference to {@link EventHandler}.
+     */
+    void removeEventHandler(EventHandler<?> handler);
+
     /**
      * Post an event with hope it will be routed to target scope. An event
      * object needs to implement or be an ancestor of {@link HarvesterEvent}.
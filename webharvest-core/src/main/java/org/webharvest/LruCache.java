@@ -0,0 +1,172 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded, in-memory {@link ExpiringCache} implementation. Once the
+ * cache is full, storing new mapping evicts the least recently used one.
+ * Expired mappings are discarded lazily, when looked up. All cache bindings
+ * are shared by all threads, so the cache is thread-safe as long as the
+ * cached values are.
+ *
+ * @see Cache
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class LruCache<K, V> implements ExpiringCache<K, V> {
+
+    private final Map<K, CacheEntry<V>> storage;
+
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    /**
+     * @param maxSize
+     *            maximum number of mappings held by the cache
+     */
+    public LruCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(
+                    "Cache size must be positive: " + maxSize);
+        }
+        this.storage = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > maxSize) {
+                    statistics.recordEviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final K key, final V value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void put(final K key, final V value, final long ttl) {
+        storage.put(key, new CacheEntry<V>(value, ttl));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean contains(final K key) {
+        return getEntry(key) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized V lookup(final K key) {
+        final CacheEntry<V> entry = getEntry(key);
+        if (entry == null) {
+            statistics.recordMiss();
+            return null;
+        }
+        statistics.recordHit();
+        return entry.value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void invalidate(final K key) {
+        storage.remove(key);
+    }
+
+    /**
+     * Returns number of mappings held by the cache, including expired ones
+     * which have not been discarded yet.
+     *
+     * @return number of mappings in the cache
+     */
+    public synchronized int size() {
+        return storage.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    private CacheEntry<V> getEntry(final K key) {
+        final CacheEntry<V> entry = storage.get(key);
+        if (entry != null && entry.isExpired()) {
+            storage.remove(key);
+            statistics.recordExpiration();
+            return null;
+        }
+        return entry;
+    }
+
+    private static final class CacheEntry<V> {
+
+        private final V value;
+
+        private final long expiresAt;
+
+        CacheEntry(final V value, final long ttl) {
+            this.value = value;
+            this.expiresAt = (ttl > 0) ? System.currentTimeMillis() + ttl : 0;
+        }
+
+        boolean isExpired() {
+            return expiresAt > 0 && System.currentTimeMillis() >= expiresAt;
+        }
+
+    }
+
+}
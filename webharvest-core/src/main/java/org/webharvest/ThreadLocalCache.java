@@ -58,11 +58,9 @@ public final class ThreadLocalCache<K, V> implements Cache<K, V> {
     private final ThreadLocal<Map<K, V>> storage;
 
     public ThreadLocalCache() {
-        this.storage = new ThreadLocal<Map<K, V>>() {
-            protected java.util.Map<K, V> initialValue() {
-                return new HashMap<K, V>();
-            }
-        };
+        // No initial value: lookups do not create bindings for threads which
+        // never put anything (e.g. short-lived virtual threads)
+        this.storage = new ThreadLocal<Map<K, V>>();
     }
 
     /**
@@ -70,7 +68,8 @@ public final class ThreadLocalCache<K, V> implements Cache<K, V> {
      */
     @Override
     public boolean contains(final K key) {
-        return storage.get().containsKey(key);
+        final Map<K, V> bindings = storage.get();
+        return bindings != null && bindings.containsKey(key);
     }
 
     /**
@@ -78,7 +77,12 @@ public final class ThreadLocalCache<K, V> implements Cache<K, V> {
      */
     @Override
     public void put(final K key, final V value) {
-        storage.get().put(key, value);
+        Map<K, V> bindings = storage.get();
+        if (bindings == null) {
+            bindings = new HashMap<K, V>();
+            storage.set(bindings);
+        }
+        bindings.put(key, value);
     }
 
     /**
@@ -86,14 +90,23 @@ public final class ThreadLocalCache<K, V> implements Cache<K, V> {
      */
     @Override
     public V lookup(final K key) {
-        return storage.get().get(key);
+        final Map<K, V> bindings = storage.get();
+        return bindings == null ? null : bindings.get(key);
     }
 
     /**
      * {@inheritDoc}
+     * <p/>
+     * Thread's binding is released once its last entry is invalidated.
      */
     @Override
     public void invalidate(final K key) {
-        storage.get().remove(key);
+        final Map<K, V> bindings = storage.get();
+        if (bindings != null) {
+            bindings.remove(key);
+            if (bindings.isEmpty()) {
+                storage.remove();
+            }
+        }
     }
 }
@@ -90,12 +90,12 @@ public final class ElementInfoFactory {
     private static String getAttributeDesc(final Definition definition) {
         final String[] validAtts = definition.validAttributes();
         if (validAtts.length < 1) {
-            return "id";
+            return "id,timeout";
         }
 
         final String requiredAtts[] = definition.requiredAttributes();
 
-        final StringBuilder result = new StringBuilder("id,");
+        final StringBuilder result = new StringBuilder("id,timeout,");
         for (String attr : validAtts) {
             if (CommonUtil.existsInStringArray(requiredAtts, attr, true)) {
                 result.append('!');
@@ -49,6 +49,14 @@ public abstract class AbstractElementDef implements IElementDef {
         return xmlNode.getAttribute("id");
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getTimeout() {
+        return xmlNode.getAttribute("timeout");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,109 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.definition;
+
+import org.webharvest.runtime.processors.Processor;
+
+/**
+ * Definition of cache element, which memoizes result of its body.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public class CacheDef extends WebHarvestPluginDef {
+
+    private final String key;
+
+    private final String ttl;
+
+    private final String store;
+
+    private final String name;
+
+    private final String size;
+
+    private final String compress;
+
+    private final String dir;
+
+    public CacheDef(final XmlNode xmlNode,
+            final Class<? extends Processor> processorClass) {
+        super(xmlNode, processorClass);
+
+        this.key = xmlNode.getAttribute("key");
+        this.ttl = xmlNode.getAttribute("ttl");
+        this.store = xmlNode.getAttribute("store");
+        this.name = xmlNode.getAttribute("name");
+        this.size = xmlNode.getAttribute("size");
+        this.compress = xmlNode.getAttribute("compress");
+        this.dir = xmlNode.getAttribute("dir");
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getTtl() {
+        return ttl;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSize() {
+        return size;
+    }
+
+    public String getCompress() {
+        return compress;
+    }
+
+    public String getDir() {
+        return dir;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getShortElementName() {
+        return "cache";
+    }
+
+}
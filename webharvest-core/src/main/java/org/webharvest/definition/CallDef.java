@@ -45,16 +45,27 @@ public class CallDef extends WebHarvestPluginDef {
 
     private String name;
 
+    private boolean templatedName;
+
     public CallDef(XmlNode xmlNode, Class<? extends Processor> processorClass) {
         super(xmlNode, processorClass);
 
         this.name = xmlNode.getAttribute("name");
+        this.templatedName = name != null && name.indexOf("${") >= 0;
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * @return {@code true} if name of the called function is a template,
+     *         which has to be evaluated on every call
+     */
+    public boolean isTemplatedName() {
+        return templatedName;
+    }
+
     public String getShortElementName() {
         return "call";
     }
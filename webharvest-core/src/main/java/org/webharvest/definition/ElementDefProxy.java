@@ -53,6 +53,11 @@ public class ElementDefProxy implements IElementDef {
          return node.getAttribute("id");
     }
 
+    @Override
+    public String getTimeout() {
+         return node.getAttribute("timeout");
+    }
+
     @Override
     public int getLineNumber() {
         return node.getLineNumber();
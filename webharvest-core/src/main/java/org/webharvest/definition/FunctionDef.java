@@ -37,24 +37,42 @@
 package org.webharvest.definition;
 
 import org.webharvest.runtime.processors.Processor;
+import org.webharvest.utils.CommonUtil;
 
 /**
  * Definition of user-defined function.
  */
 public class FunctionDef extends WebHarvestPluginDef {
 
+    /**
+     * Maximum number of results memoized for a single function.
+     */
+    public static final int MEMO_SIZE = 1000;
+
     private String name;
 
+    private boolean memoized;
+
     public FunctionDef(XmlNode xmlNode, Class<? extends Processor> processorClass) {
         super(xmlNode, processorClass);
 
         this.name = xmlNode.getAttribute("name");
+        this.memoized = CommonUtil.getBooleanValue(xmlNode.getAttribute("memoize"), false);
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * @return whether the function is declared with {@code memoize="true"};
+     *         its results are cached by the context it is registered in
+     * @see org.webharvest.runtime.DynamicScopeContext#getFunctionMemo(FunctionDef)
+     */
+    public boolean isMemoized() {
+        return memoized;
+    }
+
     public String getShortElementName() {
         return "function";
     }
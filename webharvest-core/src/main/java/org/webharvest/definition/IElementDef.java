@@ -56,6 +56,15 @@ public interface IElementDef extends PluginDef {
     // TODO Decide to keep it as a part of this interface or move somewhere else (associated with XmlNode)
     String getId();
 
+    /**
+     * Returns value of the {@code timeout} attribute, common to all elements,
+     * which limits execution time of the element in milliseconds. The value
+     * may contain templates.
+     *
+     * @return unevaluated timeout or {@code null} if not specified
+     */
+    String getTimeout();
+
     // TODO Add javadoc
     // TODO Associated with element definition
     boolean hasOperations();
@@ -50,8 +50,10 @@ public class LoopDef extends WebHarvestPluginDef {
     private String index;
     private String filter;
     private String empty;
+    private String parallel;
     private IElementDef loopValueDef;
     private IElementDef loopBodyDef;
+    private SinkDef sinkDef;
 
     public LoopDef(XmlNode xmlNode, Class<? extends Processor> processorClass) {
         super(xmlNode, processorClass);
@@ -62,11 +64,15 @@ public class LoopDef extends WebHarvestPluginDef {
         XmlNode loopBodyDefNode = xmlNode.getFirstSubnode(new ElementName("body", xmlNode.getUri()));
         this.loopBodyDef = loopBodyDefNode == null ? null : new ElementDefProxy(loopBodyDefNode);
 
+        XmlNode sinkDefNode = xmlNode.getFirstSubnode(new ElementName("sink", xmlNode.getUri()));
+        this.sinkDef = sinkDefNode == null ? null : (SinkDef) definitionResolver.createElementDefinition(sinkDefNode);
+
         this.maxloops = xmlNode.getAttribute("maxloops");
         this.item = xmlNode.getAttribute("item");
         this.index = xmlNode.getAttribute("index");
         this.filter = xmlNode.getAttribute("filter");
         this.empty = xmlNode.getAttribute("empty");
+        this.parallel = xmlNode.getAttribute("parallel");
     }
 
     public String getMaxloops() {
@@ -89,6 +95,10 @@ public class LoopDef extends WebHarvestPluginDef {
         return empty;
     }
 
+    public String getParallel() {
+        return parallel;
+    }
+
     public IElementDef getLoopValueDef() {
         return loopValueDef;
     }
@@ -97,6 +107,10 @@ public class LoopDef extends WebHarvestPluginDef {
         return loopBodyDef;
     }
 
+    public SinkDef getSinkDef() {
+        return sinkDef;
+    }
+
     public IElementDef[] getOperationDefs() {
         return new IElementDef[] {this.loopValueDef, this.loopBodyDef};
     }
@@ -0,0 +1,122 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.definition;
+
+import java.util.List;
+
+import org.webharvest.runtime.processors.Processor;
+
+/**
+ * Definition of pipeline element, which streams items of the list through a
+ * chain of concurrently running stages.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see StageDef
+ */
+public class PipelineDef extends WebHarvestPluginDef {
+
+    private final String queue;
+
+    private final String empty;
+
+    private final String onError;
+
+    private final IElementDef listDef;
+
+    private final StageDef[] stageDefs;
+
+    public PipelineDef(final XmlNode xmlNode,
+            final Class<? extends Processor> processorClass) {
+        super(xmlNode, processorClass);
+
+        final XmlNode listDefNode = xmlNode.getFirstSubnode(
+                new ElementName("list", xmlNode.getUri()));
+        this.listDef = (listDefNode == null) ? null
+                : new ElementDefProxy(listDefNode);
+
+        final List<XmlNode> stageNodes = xmlNode.getSubnodes(
+                new ElementName("stage", xmlNode.getUri()));
+        this.stageDefs = new StageDef[(stageNodes == null) ? 0
+                : stageNodes.size()];
+        for (int i = 0; i < stageDefs.length; i++) {
+            stageDefs[i] = (StageDef) DefinitionResolver.INSTANCE
+                    .createElementDefinition(stageNodes.get(i));
+        }
+
+        this.queue = xmlNode.getAttribute("queue");
+        this.empty = xmlNode.getAttribute("empty");
+        this.onError = xmlNode.getAttribute("on-error");
+    }
+
+    public String getQueue() {
+        return queue;
+    }
+
+    public String getEmpty() {
+        return empty;
+    }
+
+    public String getOnError() {
+        return onError;
+    }
+
+    public IElementDef getListDef() {
+        return listDef;
+    }
+
+    public StageDef[] getStageDefs() {
+        return stageDefs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IElementDef[] getOperationDefs() {
+        final IElementDef[] result = new IElementDef[stageDefs.length + 1];
+        result[0] = listDef;
+        System.arraycopy(stageDefs, 0, result, 1, stageDefs.length);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getShortElementName() {
+        return "pipeline";
+    }
+
+}
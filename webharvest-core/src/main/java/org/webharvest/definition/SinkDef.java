@@ -0,0 +1,139 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.definition;
+
+import org.webharvest.runtime.processors.Processor;
+
+/**
+ * Definition of sink element of a loop, describing destination results of
+ * the loop are streamed to.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see LoopDef
+ */
+public class SinkDef extends WebHarvestPluginDef {
+
+    private final String path;
+
+    private final String format;
+
+    private final String compress;
+
+    private final String charset;
+
+    private final String delimiter;
+
+    private final String jdbcclass;
+
+    private final String connection;
+
+    private final String username;
+
+    private final String password;
+
+    private final String sql;
+
+    private final String batch;
+
+    public SinkDef(final XmlNode xmlNode,
+            final Class<? extends Processor> processorClass) {
+        super(xmlNode, processorClass);
+
+        this.path = xmlNode.getAttribute("path");
+        this.format = xmlNode.getAttribute("format");
+        this.compress = xmlNode.getAttribute("compress");
+        this.charset = xmlNode.getAttribute("charset");
+        this.delimiter = xmlNode.getAttribute("delimiter");
+        this.jdbcclass = xmlNode.getAttribute("jdbcclass");
+        this.connection = xmlNode.getAttribute("connection");
+        this.username = xmlNode.getAttribute("username");
+        this.password = xmlNode.getAttribute("password");
+        this.sql = xmlNode.getAttribute("sql");
+        this.batch = xmlNode.getAttribute("batch");
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getCompress() {
+        return compress;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    public String getJdbcclass() {
+        return jdbcclass;
+    }
+
+    public String getConnection() {
+        return connection;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getBatch() {
+        return batch;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getShortElementName() {
+        return "sink";
+    }
+
+}
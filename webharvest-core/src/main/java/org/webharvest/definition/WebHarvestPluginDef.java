@@ -14,6 +14,9 @@ public class WebHarvestPluginDef extends AbstractElementDef {
 
     private Class<? extends Processor> pluginClass;
 
+    // Ready to run processor compiled from this definition, if shareable
+    private volatile Processor compiledProcessor;
+
     public WebHarvestPluginDef(final XmlNode xmlNode,
             Class<? extends Processor> pluginClass) {
         super(xmlNode);
@@ -57,4 +60,27 @@ public class WebHarvestPluginDef extends AbstractElementDef {
         throw new PluginException("Cannot create plugin!");
     }
 
+    /**
+     * Returns processor previously compiled from this definition and shared
+     * by all its executions, or {@code null} if there is none.
+     *
+     * @see org.webharvest.runtime.processors.Stateless
+     */
+    public Processor getCompiledProcessor() {
+        return compiledProcessor;
+    }
+
+    /**
+     * Stores processor compiled from this definition, which is going to be
+     * shared by all its subsequent executions. The processor lives as long
+     * as the definition (thus the configuration) does.
+     *
+     * @param processor
+     *            ready to run processor
+     * @see org.webharvest.runtime.processors.Stateless
+     */
+    public void setCompiledProcessor(final Processor processor) {
+        this.compiledProcessor = processor;
+    }
+
 }
\ No newline at end of file
@@ -36,7 +36,7 @@
 */
 package org.webharvest.definition;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.webharvest.WHConstants;
@@ -49,17 +49,27 @@ import org.webharvest.runtime.processors.Processor;
 public class XPathDef extends WebHarvestPluginDef {
 
     private String expression;
-    private Map<String, String> variableMap = new HashMap<String, String>();
+    private String rows;
+    // keeps declaration order, which is the order of record fields
+    private Map<String, String> variableMap = new LinkedHashMap<String, String>();
 
     public XPathDef(XmlNode xmlNode, Class<? extends Processor> processorClass) {
         super(xmlNode, processorClass);
 
         this.expression = xmlNode.getAttribute("expression");
+        this.rows = xmlNode.getAttribute("rows");
         for (Map.Entry<String, String> attEntry : xmlNode.getAttributes(WHConstants.XMLNS_VAR).entrySet()) {
             variableMap.put(attEntry.getKey(), attEntry.getValue());
         }
 
-        if (this.expression == null && variableMap.size() == 0) {
+        if (this.rows != null) {
+            if (this.expression != null) {
+                throw new ConfigurationException("XPath \"rows\" cannot be combined with \"expression\"!");
+            }
+            if (variableMap.size() == 0) {
+                throw new ConfigurationException("XPath \"rows\" requires at least one variable-based attribute defining record field!");
+            }
+        } else if (this.expression == null && variableMap.size() == 0) {
             throw new ConfigurationException("XPath requires \"expression\" or at least one variable-based attribute!");
         }
     }
@@ -68,6 +78,10 @@ public class XPathDef extends WebHarvestPluginDef {
         return expression;
     }
 
+    public String getRows() {
+        return rows;
+    }
+
     public Map<String, String> getVariableMap() {
         return variableMap;
     }
@@ -39,6 +39,7 @@ package org.webharvest.definition;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
@@ -142,7 +143,7 @@ public class XmlNode implements Serializable {
     public void addAttribute(String name, String uri, String value) {
         Map<String, String> attsForUri = attributes.get(uri);
         if (attsForUri == null) {
-            attsForUri = new HashMap<String, String>();
+            attsForUri = new LinkedHashMap<String, String>();
             attributes.put(uri, attsForUri);
         }
 
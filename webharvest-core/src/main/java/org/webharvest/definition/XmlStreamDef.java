@@ -0,0 +1,96 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.definition;
+
+import org.webharvest.exception.ConfigurationException;
+import org.webharvest.runtime.processors.Processor;
+import org.webharvest.utils.CommonUtil;
+
+/**
+ * Definition of xml-stream element, which matches repeating elements of XML
+ * stream read from file, URL or its body.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public class XmlStreamDef extends WebHarvestPluginDef {
+
+    private final String path;
+
+    private final String file;
+
+    private final String url;
+
+    private final String charset;
+
+    public XmlStreamDef(final XmlNode xmlNode,
+            final Class<? extends Processor> processorClass) {
+        super(xmlNode, processorClass);
+
+        this.path = xmlNode.getAttribute("path");
+        this.file = CommonUtil.adaptFilename(xmlNode.getAttribute("file"));
+        this.url = xmlNode.getAttribute("url");
+        this.charset = xmlNode.getAttribute("charset");
+
+        if (this.file != null && this.url != null) {
+            throw new ConfigurationException(
+                    "XML stream cannot be read from both \"file\" and \"url\"!");
+        }
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getShortElementName() {
+        return "xml-stream";
+    }
+
+}
@@ -1,7 +1,7 @@
 package org.webharvest.events;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,8 +45,9 @@ public final class DefaultHandlerHolder implements HandlerHolder,
     private static final Logger LOG = LoggerFactory
             .getLogger(DefaultHandlerHolder.class);
 
+    // copy on write, as handlers may be unregistered while scraping is running
     private final List<EventHandler<?>> handlers =
-            new LinkedList<EventHandler<?>>();
+            new CopyOnWriteArrayList<EventHandler<?>>();
 
     /**
      * Registry storing current scope's based event bus objects. The binding is
@@ -92,6 +93,17 @@ public final class DefaultHandlerHolder implements HandlerHolder,
         handlers.add(handler);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean unregister(final EventHandler<?> handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler is required");
+        }
+        return handlers.remove(handler);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -36,7 +36,7 @@ package org.webharvest.events;
 /**
  * Represents an object that serves purpose as storage of {@link EventHandler}
  * (supporting different types of events).
- * Handlers can be registered but not unregistered.
+ * Handlers can be registered and unregistered again.
  *
  * @author Robert Bala
  * @since 2.1.0-SNAPSHOT
@@ -50,7 +50,16 @@ public interface HandlerHolder {
      *
      * @param handler event handler to register.
      */
-    // FIXME rbala Do we need a registration handler with unregister method?
     void register(EventHandler<?> handler);
 
+    /**
+     * Unregister event handler previously registered with
+     * {@link #register(EventHandler)}. Scrapings already running keep
+     * delivering events to the handler until they finish.
+     *
+     * @param handler event handler to unregister.
+     * @return {@code true} if the handler has been registered.
+     */
+    boolean unregister(EventHandler<?> handler);
+
 }
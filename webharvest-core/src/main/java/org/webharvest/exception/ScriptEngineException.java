@@ -43,6 +43,10 @@ package org.webharvest.exception;
  */
 public class ScriptEngineException extends BaseException {
 
+    public ScriptEngineException(String message) {
+        super(message);
+    }
+
     public ScriptEngineException(Throwable cause) {
         super(cause);
     }
@@ -78,7 +78,9 @@ public interface AttributeHolder {
 
     /**
      * Returns an object on which to lock when access to multiple methods of
-     * the {@code AttributeHolder} are to be made atomic.
+     * the {@code AttributeHolder} are to be made atomic. Single reads
+     * ({@link #getAttribute(Object)}) are made without holding the lock, so
+     * implementations have to make them safe for concurrent use.
      *
      * @return the {@code Object} to synchronize on
      */
@@ -56,12 +56,10 @@ import com.google.inject.Scope;
 public class AttributeHolderScope<AHT extends AttributeHolder>
         implements Scope, Provider<AHT> {
 
+    // No initial value: threads out of scope (e.g. pooled threads between
+    // tasks, or short-lived virtual threads) keep no stack at all
     private final ThreadLocal<Stack<AHT>> holder =
-        new ThreadLocal<Stack<AHT>>() {
-            protected java.util.Stack<AHT> initialValue() {
-                return new Stack<AHT>();
-            };
-    };
+        new ThreadLocal<Stack<AHT>>();
 
     /**
      * Lets the current {@code Thread} enter this {@code Scope}.
@@ -74,7 +72,12 @@ public class AttributeHolderScope<AHT extends AttributeHolder>
             throw new IllegalArgumentException();
         }
 
-        this.holder.get().add(holder);
+        Stack<AHT> stack = this.holder.get();
+        if (stack == null) {
+            stack = new Stack<AHT>();
+            this.holder.set(stack);
+        }
+        stack.add(holder);
     }
 
     /**
@@ -84,8 +87,11 @@ public class AttributeHolderScope<AHT extends AttributeHolder>
      *      this {@code Scope}
      */
     public void exit() throws OutOfScopeException {
-        assertInScope();
-        this.holder.get().pop();
+        final Stack<AHT> stack = assertInScope();
+        stack.pop();
+        if (stack.isEmpty()) {
+            this.holder.remove();
+        }
     }
 
     /**
@@ -97,8 +103,7 @@ public class AttributeHolderScope<AHT extends AttributeHolder>
      */
     @Override
     public AHT get() throws OutOfScopeException {
-        assertInScope();
-        return this.holder.get().peek();
+        return assertInScope().peek();
     }
 
     /**
@@ -112,9 +117,13 @@ public class AttributeHolderScope<AHT extends AttributeHolder>
 
             @Override
             public T get() {
-                assertInScope();
+                final AttributeHolder ah = assertInScope().peek();
 
-                final AttributeHolder ah = holder.get().peek();
+                // Fast path: already scoped instance, no locking needed
+                final T existing = (T) ah.getAttribute(key);
+                if (existing != null) {
+                    return existing;
+                }
 
                 synchronized (ah.getAttributeLock()) {
                     T current = (T) ah.getAttribute(key);
@@ -138,11 +147,13 @@ public class AttributeHolderScope<AHT extends AttributeHolder>
         };
     }
 
-    private void assertInScope() throws OutOfScopeException {
-        if (holder.get().isEmpty()) {
+    private Stack<AHT> assertInScope() throws OutOfScopeException {
+        final Stack<AHT> stack = holder.get();
+        if (stack == null || stack.isEmpty()) {
             throw new OutOfScopeException("not in "
                     + getClass().getSimpleName()); //NOI18N
         }
+        return stack;
     }
 
 }
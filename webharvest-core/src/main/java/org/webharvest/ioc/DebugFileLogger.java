@@ -41,7 +41,7 @@ import java.lang.annotation.Target;
 import com.google.inject.BindingAnnotation;
 
 @Retention(RetentionPolicy.RUNTIME)
-@Target({ElementType.FIELD})
+@Target({ElementType.FIELD, ElementType.PARAMETER})
 @BindingAnnotation
 public @interface DebugFileLogger {
 
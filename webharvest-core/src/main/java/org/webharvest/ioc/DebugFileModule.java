@@ -0,0 +1,73 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.ioc;
+
+import org.webharvest.runtime.debug.DebugSink;
+import org.webharvest.runtime.debug.StreamingDebugSink;
+
+import com.google.inject.AbstractModule;
+
+/**
+ * Google Guice module directing debug output to specified
+ * {@link StreamingDebugSink}. Use it to override {@link DebugSink} binding of
+ * {@link ScraperModule}, e.g. with
+ * {@link com.google.inject.util.Modules#override(com.google.inject.Module...)}.
+ * The sink is owned by the caller, which is responsible for closing it.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see DebugSink
+ */
+public final class DebugFileModule extends AbstractModule {
+
+    private final StreamingDebugSink sink;
+
+    /**
+     * Creates module binding specified sink.
+     *
+     * @param sink
+     *            reference to debug sink; must not be {@code null}
+     */
+    public DebugFileModule(final StreamingDebugSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Debug sink is required");
+        }
+        this.sink = sink;
+    }
+
+    @Override
+    protected void configure() {
+        bind(DebugSink.class).toInstance(sink);
+    }
+}
@@ -33,12 +33,14 @@
 
 package org.webharvest.ioc;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents an object that implements {@link AttributeHolder} and is intended
- * to serve purpose as container for Guice scope's beans.
+ * to serve purpose as container for Guice scope's beans. Attributes are kept
+ * in a concurrent map, so they may be read without holding the
+ * {@link #getAttributeLock() attribute lock}.
  *
  * @author Robert Bala
  * @since 2.1.0-SNAPSHOT
@@ -47,15 +49,19 @@ import java.util.Map;
  */
 public final class ScopeAttributeHolder implements AttributeHolder {
 
+    // ConcurrentHashMap does not accept null values
+    private static final Object NULL = new Object();
+
     private final Map<Object, Object> attributes =
-            new HashMap<Object, Object>();
+            new ConcurrentHashMap<Object, Object>();
 
     /**
      * {@inheritDoc}
      */
     @Override
     public Object getAttribute(final Object key) {
-        return attributes.get(key);
+        final Object value = attributes.get(key);
+        return (value == NULL) ? null : value;
     }
 
     /**
@@ -71,7 +77,7 @@ public final class ScopeAttributeHolder implements AttributeHolder {
      */
     @Override
     public void putAttribute(final Object key, final Object value) {
-        attributes.put(key, value);
+        attributes.put(key, (value == null) ? NULL : value);
     }
 
     /**
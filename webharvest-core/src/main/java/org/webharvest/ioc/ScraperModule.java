@@ -29,6 +29,9 @@ import org.webharvest.ioc.ScrapingInterceptor.ScrapingAwareHelper;
 import org.webharvest.runtime.DefaultHarvest;
 import org.webharvest.runtime.DynamicScopeContext;
 import org.webharvest.runtime.EventBasedStatusHolder;
+import org.webharvest.runtime.ExecutionBackend;
+import org.webharvest.runtime.PlatformThreadBackend;
+import org.webharvest.runtime.ProcessorInstrumentation;
 import org.webharvest.runtime.RunningStatusGuard;
 import org.webharvest.runtime.RuntimeConfig;
 import org.webharvest.runtime.Scraper;
@@ -36,11 +39,17 @@ import org.webharvest.runtime.ScraperContext;
 import org.webharvest.runtime.ScrapingHarvester;
 import org.webharvest.runtime.StatusHolder;
 import org.webharvest.runtime.WebScraper;
+import org.webharvest.runtime.checkpoint.Checkpointer;
+import org.webharvest.runtime.checkpoint.NoCheckpointer;
 import org.webharvest.runtime.database.ConnectionFactory;
 import org.webharvest.runtime.database.JNDIConnectionFactory;
 import org.webharvest.runtime.database.StandaloneConnectionPool;
+import org.webharvest.runtime.debug.DebugSink;
+import org.webharvest.runtime.debug.LoggerDebugSink;
 import org.webharvest.runtime.scripting.ScriptEngineFactory;
 import org.webharvest.runtime.scripting.jsr.JSRScriptEngineFactory;
+import org.webharvest.runtime.scripting.jsr.ScriptEngineLease;
+import org.webharvest.runtime.scripting.jsr.ScriptEnginePool;
 import org.webharvest.runtime.templaters.BaseTemplater;
 
 import com.google.common.eventbus.EventBus;
@@ -121,12 +130,13 @@ public final class ScraperModule extends AbstractModule {
         bindScraperContext();
         bindDebugFileLogger();
         bindStatusHolder();
+        bindScriptEngineFactory();
+        bindExecutionBackend();
+        bindCheckpointer();
 
-        // FIXME rbala Moved from ConfigModule
-        bind(ScriptEngineFactory.class).to(JSRScriptEngineFactory.class).in(
-                Singleton.class);
         requestStaticInjection(BaseTemplater.class);
         bind(RuntimeConfig.class).in(Singleton.class);
+        bind(ProcessorInstrumentation.class).in(Singleton.class);
     }
 
     protected void bindDBConnectionFactory() {
@@ -157,6 +167,7 @@ public final class ScraperModule extends AbstractModule {
     protected void bindDebugFileLogger() {
         bind(Logger.class).annotatedWith(DebugFileLogger.class).toInstance(
                 LoggerFactory.getLogger(DebugFileLogger.NAME));
+        bind(DebugSink.class).to(LoggerDebugSink.class).in(Singleton.class);
     }
 
     protected void bindStatusHolder() {
@@ -167,6 +178,23 @@ public final class ScraperModule extends AbstractModule {
             .in(ScrapingScope.class);
     }
 
+    protected void bindScriptEngineFactory() {
+        // FIXME rbala Moved from ConfigModule
+        bind(ScriptEngineFactory.class).to(JSRScriptEngineFactory.class).in(
+                Singleton.class);
+        bind(ScriptEnginePool.class).in(Singleton.class);
+        bind(ScriptEngineLease.class).in(ScrapingScope.class);
+    }
+
+    protected void bindExecutionBackend() {
+        bind(ExecutionBackend.class).to(PlatformThreadBackend.class).in(
+                Singleton.class);
+    }
+
+    protected void bindCheckpointer() {
+        bind(Checkpointer.class).to(NoCheckpointer.class).in(Singleton.class);
+    }
+
     // FIXME rbala Plain old approach to guice's factory binding. Please consider it as temporary workaround. Can stay longer then actual work on 2.1 version.
     // TODO rbala Untested code
     @Provides
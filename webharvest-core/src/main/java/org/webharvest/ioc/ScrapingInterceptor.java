@@ -33,8 +33,8 @@
 
 package org.webharvest.ioc;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
@@ -156,10 +156,11 @@ public final class ScrapingInterceptor implements MethodInterceptor {
     public static class ScrapingAwareHelper {
 
         /**
-         * Collection of {@link ScrapingAware} listeners.
+         * Collection of {@link ScrapingAware} listeners. Copy on write, as
+         * listeners are notified by all concurrently executed harvests.
          */
         private final List<ScrapingAware> listeners =
-                new ArrayList<ScrapingAware>();
+                new CopyOnWriteArrayList<ScrapingAware>();
 
         /**
          * Register {@link ScrapingAware} listener.
@@ -167,8 +168,6 @@ public final class ScrapingInterceptor implements MethodInterceptor {
          * @param listener
          *            reference to listener object.
          */
-        // FIXME rbala Not thread safe
-        // TODO Synchronize listener's registration
         public void addListener(final ScrapingAware listener) {
             if (listener == null) {
                 throw new IllegalArgumentException("Listener is required");
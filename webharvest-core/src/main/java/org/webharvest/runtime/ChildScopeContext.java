@@ -0,0 +1,205 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.webharvest.Cache;
+import org.webharvest.definition.FunctionDef;
+import org.webharvest.runtime.variables.EmptyVariable;
+import org.webharvest.runtime.variables.ScriptingVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.KeyValuePair;
+import org.webharvest.utils.SystemUtilities;
+
+/**
+ * Context of a branch of work executed concurrently with other branches (e.g.
+ * single iteration of parallel loop). Variables of the parent context are
+ * visible, but the parent is never modified: new variables are local to the
+ * child and assignments to the parent's variables are recorded and visible to
+ * the child only. Recorded assignments can be applied to the parent with
+ * {@link #mergeInto()} once the branch has finished, on the parent's thread.
+ * <p/>
+ * Child context is confined to the thread executing the branch; the parent is
+ * only read, so it may be shared by many children as long as nobody else
+ * modifies it in the meantime. For that reason scripting utilities
+ * ({@code sys} and {@code http}) defined by the parent are bound again in the
+ * child, so scripts access variables of the branch rather than of the parent.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class ChildScopeContext extends ScraperContext {
+
+    private final DynamicScopeContext parent;
+
+    // Assignments to variables of the parent context, in order of first write
+    private final Map<String, Variable> parentWrites =
+        new LinkedHashMap<String, Variable>();
+
+    /**
+     * Creates context nested in specified parent context.
+     *
+     * @param parent
+     *            parent context reference (must not be {@code null})
+     */
+    public ChildScopeContext(final DynamicScopeContext parent) {
+        if (parent == null) {
+            throw new IllegalArgumentException(
+                    "Parent context must not be null");
+        }
+        this.parent = parent;
+        setConfig(parent.getConfig());
+        setCharset(parent.getCharset());
+        setScriptingLanguage(parent.getScriptingLanguage());
+        bindScriptingUtilities(parent);
+    }
+
+    // Binds the same utilities as ScraperContext.initContext(), working on
+    // this context; HTTP info belongs to the scraping, so it is shared
+    private void bindScriptingUtilities(final DynamicScopeContext parent) {
+        if (parent.getVar("sys") != null) {
+            setLocalVar("sys", new ScriptingVariable(new SystemUtilities(this)));
+        }
+        final Variable http = parent.getVar("http");
+        if (http != null) {
+            setLocalVar("http", http);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Variable getVar(final String name) {
+        final Variable local = super.getVar(name);
+        if (local != null) {
+            return local;
+        }
+        final Variable written = parentWrites.get(name);
+        return written != null ? written : parent.getVar(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Variable replaceExistingVar(final String name,
+            final Variable variable) {
+        if (super.getVar(name) != null) {
+            return super.replaceExistingVar(name, variable);
+        }
+        final Variable previous = getVar(name);
+        if (previous == null) {
+            // fails with the usual message
+            return super.replaceExistingVar(name, variable);
+        }
+        parentWrites.put(name, (Variable) ObjectUtils.defaultIfNull(variable,
+                EmptyVariable.INSTANCE));
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<KeyValuePair<Variable>> iterator() {
+        final Map<String, Variable> variables =
+            new LinkedHashMap<String, Variable>();
+        for (KeyValuePair<Variable> pair : parent) {
+            variables.put(pair.getKey(), pair.getValue());
+        }
+        variables.putAll(parentWrites);
+        final Iterator<KeyValuePair<Variable>> local = super.iterator();
+        while (local.hasNext()) {
+            final KeyValuePair<Variable> pair = local.next();
+            variables.put(pair.getKey(), pair.getValue());
+        }
+
+        final Iterator<Map.Entry<String, Variable>> entries =
+            variables.entrySet().iterator();
+        return new Iterator<KeyValuePair<Variable>>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public KeyValuePair<Variable> next() {
+                final Map.Entry<String, Variable> entry = entries.next();
+                return new KeyValuePair<Variable>(entry.getKey(),
+                        entry.getValue());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Deprecated
+    public FunctionDef getFunctionDef(final String name) {
+        final FunctionDef local = super.getFunctionDef(name);
+        return local != null ? local : parent.getFunctionDef(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cache<String, Variable> getFunctionMemo(final FunctionDef funcDef) {
+        final Cache<String, Variable> local = super.getFunctionMemo(funcDef);
+        return local != null ? local : parent.getFunctionMemo(funcDef);
+    }
+
+    /**
+     * Applies assignments of the parent context's variables made within this
+     * context to the parent. Must be called by the thread owning the parent.
+     */
+    public void mergeInto() {
+        for (Map.Entry<String, Variable> entry : parentWrites.entrySet()) {
+            parent.replaceExistingVar(entry.getKey(), entry.getValue());
+        }
+        parentWrites.clear();
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.webharvest.definition.Config;
+
+import com.google.inject.Inject;
+
+/**
+ * {@link HarvestWarmUp} performing all warm-ups available: preparation of
+ * script engines and compilation of XPath and XQuery expressions.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see ScriptWarmUp
+ * @see ExpressionWarmUp
+ */
+public final class CompositeWarmUp implements HarvestWarmUp {
+
+    private final List<HarvestWarmUp> warmUps;
+
+    /**
+     * Class constructor accepting all warm-ups to be performed.
+     *
+     * @param scriptWarmUp
+     *            reference to {@link ScriptWarmUp}
+     * @param expressionWarmUp
+     *            reference to {@link ExpressionWarmUp}
+     */
+    @Inject
+    public CompositeWarmUp(final ScriptWarmUp scriptWarmUp,
+            final ExpressionWarmUp expressionWarmUp) {
+        this.warmUps = Arrays.<HarvestWarmUp>asList(scriptWarmUp,
+                expressionWarmUp);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long warmUp(final Config config) {
+        long warmUpTime = 0;
+        for (HarvestWarmUp warmUp : warmUps) {
+            warmUpTime += warmUp.warmUp(config);
+        }
+        return warmUpTime;
+    }
+
+}
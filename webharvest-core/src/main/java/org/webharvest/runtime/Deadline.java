@@ -0,0 +1,374 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.exception.DeadlineExceededException;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Point in time by which execution of a part of configuration must finish.
+ * Deadlines are started for processors having the {@code timeout} attribute
+ * (the one of {@code config} element bounds the whole harvest) and form a
+ * per-thread stack: nested deadline never expires later than the enclosing
+ * one.
+ * <p/>
+ * Cancellation is cooperative. Once the deadline expires, the watchdog thread
+ * interrupts the thread which started it, which stops processors as soon as
+ * they check for interruption, and cancels all {@link Cancellable}s
+ * registered with the deadline (HTTP requests, database statements, FTP
+ * transfers). Long running computations which neither block nor check for
+ * interruption (e.g. regular expressions) are supposed to call
+ * {@link #check()} from time to time. The thread which started the deadline
+ * turns the resulting failure into {@link DeadlineExceededException} once it
+ * {@link #finish() finishes} the deadline.
+ * <p/>
+ * Threads executing branches of the configuration on behalf of another
+ * thread (see {@link ScrapingExecutor}) are {@link #attach(Deadline)
+ * attached} to its current deadline.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class Deadline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Deadline.class);
+
+    private static final ThreadLocal<Deadline> CURRENT =
+        new ThreadLocal<Deadline>();
+
+    private static final ScheduledThreadPoolExecutor WATCHDOG =
+        new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("webharvest-deadline-watchdog")
+                .setDaemon(true).build());
+
+    // cancelled expirations stay in the watchdog's queue until purged
+    private static final int PURGE_INTERVAL = 1024;
+
+    private static final AtomicInteger CANCELLED_EXPIRATIONS =
+        new AtomicInteger();
+
+    private final long expiresAt;
+
+    private final Deadline parent;
+
+    private final Thread thread;
+
+    private final List<Cancellable> cancellables =
+        new CopyOnWriteArrayList<Cancellable>();
+
+    private volatile boolean expired;
+
+    // guarded by this
+    private boolean finished;
+
+    // guarded by this
+    private ScheduledFuture<?> expiration;
+
+    private Deadline(final long expiresAt, final Deadline parent,
+            final Thread thread) {
+        this.expiresAt = expiresAt;
+        this.parent = parent;
+        this.thread = thread;
+    }
+
+    /**
+     * Returns the innermost deadline of the current thread.
+     *
+     * @return current deadline or {@code null} if execution is not bounded
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts new deadline on the current thread, expiring after the given
+     * time or together with the enclosing deadline, whichever comes first.
+     * Must be followed by {@link #finish()} on the same thread.
+     *
+     * @param timeout
+     *            time in milliseconds
+     * @return started deadline
+     */
+    public static Deadline start(final long timeout) {
+        final Deadline enclosing = CURRENT.get();
+        long expiresAt = System.nanoTime() + MILLISECONDS.toNanos(timeout);
+        if (enclosing != null && enclosing.expiresAt - expiresAt < 0) {
+            expiresAt = enclosing.expiresAt;
+        }
+        final Deadline deadline = new Deadline(expiresAt, enclosing,
+                Thread.currentThread());
+        CURRENT.set(deadline);
+        deadline.schedule();
+        return deadline;
+    }
+
+    /**
+     * Makes the given deadline current deadline of the current thread, which
+     * executes work on behalf of the thread owning the deadline.
+     *
+     * @param deadline
+     *            deadline to attach to; may be {@code null}
+     * @return deadline which was current before; to be passed to
+     *         {@link #detach(Deadline)}
+     */
+    public static Deadline attach(final Deadline deadline) {
+        final Deadline previous = CURRENT.get();
+        setCurrent(deadline);
+        return previous;
+    }
+
+    /**
+     * Restores deadline of the current thread replaced by
+     * {@link #attach(Deadline)}.
+     *
+     * @param previous
+     *            deadline returned by {@link #attach(Deadline)}
+     */
+    public static void detach(final Deadline previous) {
+        setCurrent(previous);
+    }
+
+    /**
+     * Registers the operation to be cancelled once the current deadline
+     * expires. The registration should be removed once the operation is over.
+     *
+     * @param cancellable
+     *            operation to be cancelled
+     * @return registration of the operation
+     */
+    public static Registration register(final Cancellable cancellable) {
+        final Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return Registration.NONE;
+        }
+        deadline.cancellables.add(cancellable);
+        if (deadline.expired) {
+            // expired in the meantime, cancellables may have been run already
+            cancellable.cancel();
+        }
+        return new Registration(deadline, cancellable);
+    }
+
+    /**
+     * Checks whether the current deadline has expired.
+     *
+     * @throws DeadlineExceededException
+     *             if the current deadline has expired
+     */
+    public static void check() {
+        final Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.expired) {
+            throw new DeadlineExceededException("Deadline exceeded");
+        }
+    }
+
+    /**
+     * @return {@code true} if the deadline has expired
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * @return time left to the expiration in milliseconds; {@code 0} if
+     *         the deadline has expired
+     */
+    public long getRemainingMillis() {
+        return Math.max(0, NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    /**
+     * Finishes the deadline, restoring the enclosing one as current deadline
+     * of the thread. If the deadline has expired, interrupted status of the
+     * thread set on expiration is cleared. May be called more than once.
+     *
+     * @return {@code true} if the deadline has expired
+     */
+    public synchronized boolean finish() {
+        if (!finished) {
+            finished = true;
+            if (expiration != null && expiration.cancel(false)
+                    && CANCELLED_EXPIRATIONS.incrementAndGet()
+                            % PURGE_INTERVAL == 0) {
+                WATCHDOG.purge();
+            }
+            if (CURRENT.get() == this) {
+                setCurrent(parent);
+            }
+            if (expired) {
+                Thread.interrupted();
+                // the enclosing deadline may have expired as well, its
+                // interruption must survive
+                if (parent != null && parent.expired) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return expired;
+    }
+
+    private synchronized void schedule() {
+        expiration = WATCHDOG.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expire();
+            }
+        }, expiresAt - System.nanoTime(), NANOSECONDS);
+    }
+
+    private void expire() {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            expired = true;
+            thread.interrupt();
+        }
+        for (Cancellable cancellable : cancellables) {
+            try {
+                cancellable.cancel();
+            } catch (RuntimeException e) {
+                LOG.warn("Error cancelling operation on deadline expiration", e);
+            }
+        }
+    }
+
+    /**
+     * Makes the given character sequence checking the current deadline while
+     * being read, so matching of a regular expression can be cancelled even
+     * if it never checks for interruption.
+     *
+     * @param sequence
+     *            sequence to be guarded
+     * @return guarded sequence or the given one if there is no current
+     *         deadline
+     */
+    public static CharSequence guard(final CharSequence sequence) {
+        final Deadline deadline = CURRENT.get();
+        return (deadline == null) ? sequence
+                : new GuardedCharSequence(sequence, deadline);
+    }
+
+    private static void setCurrent(final Deadline deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+
+    private static final class GuardedCharSequence implements CharSequence {
+
+        // volatile read of expiration on every character is not worth it
+        private static final int CHECK_INTERVAL = 4096;
+
+        private final CharSequence delegate;
+
+        private final Deadline deadline;
+
+        private int reads;
+
+        GuardedCharSequence(final CharSequence delegate,
+                final Deadline deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (++reads % CHECK_INTERVAL == 0 && deadline.expired) {
+                throw new DeadlineExceededException("Deadline exceeded");
+            }
+            return delegate.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return delegate.length();
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return delegate.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+
+    }
+
+    /**
+     * Registration of a {@link Cancellable} with a deadline.
+     */
+    public static final class Registration {
+
+        static final Registration NONE = new Registration(null, null);
+
+        private final Deadline deadline;
+
+        private final Cancellable cancellable;
+
+        private Registration(final Deadline deadline,
+                final Cancellable cancellable) {
+            this.deadline = deadline;
+            this.cancellable = cancellable;
+        }
+
+        /**
+         * Removes the registration, so the operation is not cancelled any
+         * longer.
+         */
+        public void remove() {
+            if (deadline != null) {
+                deadline.cancellables.remove(cancellable);
+            }
+        }
+
+    }
+
+}
@@ -35,6 +35,8 @@ package org.webharvest.runtime;
 
 import java.io.IOException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.webharvest.Harvest;
 import org.webharvest.HarvestLoadCallback;
 import org.webharvest.Harvester;
@@ -59,6 +61,9 @@ import com.google.inject.Inject;
  */
 public final class DefaultHarvest implements Harvest {
 
+    private static final Logger LOG = LoggerFactory
+            .getLogger(DefaultHarvest.class);
+
     private final ConfigFactory configFactory;
 
     private final HarvesterFactory harvestFactory;
@@ -67,6 +72,10 @@ public final class DefaultHarvest implements Harvest {
 
     private EventSink eventSink;
 
+    private HarvestWarmUp warmUp;
+
+    private ProcessorInstrumentation instrumentation;
+
     /**
      * Default class constructor specifying {@link HarvesterFactory},
      * {@link HandlerHolder} and {@link EventSink} that are expected to be Guice
@@ -92,6 +101,36 @@ public final class DefaultHarvest implements Harvest {
         this.configFactory = configFactory;
     }
 
+    /**
+     * Sets optional {@link HarvestWarmUp} performed on each loaded
+     * configuration before the {@link Harvester} is handed over to the client.
+     * Warm-up is disabled unless {@link HarvestWarmUp} is bound in the Guice
+     * injector.
+     *
+     * @param warmUp
+     *            reference to {@link HarvestWarmUp}; {@code null} disables
+     *            warm-up
+     */
+    @Inject(optional = true)
+    public void setWarmUp(final HarvestWarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    /**
+     * Sets {@link ProcessorInstrumentation} switch which is informed about
+     * registered and unregistered event handlers, so processor
+     * instrumentation is active as long as anybody is interested in processor
+     * events.
+     *
+     * @param instrumentation
+     *            reference to {@link ProcessorInstrumentation}
+     */
+    @Inject(optional = true)
+    public void setInstrumentation(
+            final ProcessorInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -101,6 +140,10 @@ public final class DefaultHarvest implements Harvest {
         final Config config = configFactory.create(source);
         final Harvester harvester = harvestFactory.create(config);
         config.reload();
+        if (warmUp != null) {
+            LOG.info("Harvest warm-up completed in {} ms",
+                    warmUp.warmUp(config));
+        }
         callback.onSuccess(config.getElementDef().getElementDefs());
 
         return harvester;
@@ -112,6 +155,19 @@ public final class DefaultHarvest implements Harvest {
     @Override
     public void addEventHandler(final EventHandler<?> handler) {
         handlerHolder.register(handler);
+        if (instrumentation != null) {
+            instrumentation.attach(handler);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeEventHandler(final EventHandler<?> handler) {
+        if (handlerHolder.unregister(handler) && instrumentation != null) {
+            instrumentation.detach(handler);
+        }
     }
 
     /**
@@ -42,6 +42,7 @@ import java.io.File;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
+import org.webharvest.Cache;
 import org.webharvest.definition.Config;
 import org.webharvest.definition.FunctionDef;
 import org.webharvest.definition.IElementDef;
@@ -77,6 +78,18 @@ public interface DynamicScopeContext extends Iterable<KeyValuePair<Variable>> {
     @Deprecated
     void addFunctionDef(FunctionDef funcDef);
 
+    /**
+     * Returns cache of results of the memoized function, kept as long as the
+     * function is registered in this context, so memoized results are never
+     * shared by different scraping runs of the same configuration.
+     *
+     * @param funcDef
+     *            function definition registered in this context
+     * @return cache of results of the function; {@code null} if the function
+     *         is not memoized or not registered in this context
+     */
+    Cache<String, Variable> getFunctionMemo(FunctionDef funcDef);
+
     @Deprecated
     ScriptingLanguage getScriptingLanguage();
 
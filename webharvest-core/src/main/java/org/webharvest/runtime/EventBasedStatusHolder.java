@@ -33,7 +33,8 @@ public class EventBasedStatusHolder implements StatusHolder {
 
     // TODO: ScraperState#STATUS_READY should be default status, but currently
     // ScraperExecutionStartEvent is not handled here.
-    private ScraperState status = ScraperState.RUNNING;
+    // volatile, as it is read on every processor run without any lock
+    private volatile ScraperState status = ScraperState.RUNNING;
 
     /**
      * Default class constructor which creates {@link Monitor.Guard} instances
@@ -113,7 +114,7 @@ public class EventBasedStatusHolder implements StatusHolder {
      */
     @Subscribe
     public void stop(final ScraperExecutionStoppedEvent event) {
-        status = ScraperState.STOPPED;
+        changeStatus(ScraperState.STOPPED);
     }
 
     /**
@@ -125,7 +126,18 @@ public class EventBasedStatusHolder implements StatusHolder {
      */
     @Subscribe
     public void exit(final ScraperExecutionExitEvent event) {
-        status = ScraperState.EXIT;
+        changeStatus(ScraperState.EXIT);
+    }
+
+    // Changes the status within the monitor, so guards of processors waiting
+    // while paused are re-evaluated once the monitor is left
+    private void changeStatus(final ScraperState newStatus) {
+        monitor.enter();
+        try {
+            status = newStatus;
+        } finally {
+            monitor.leave();
+        }
     }
 
     /**
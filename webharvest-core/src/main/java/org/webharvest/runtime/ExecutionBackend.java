@@ -0,0 +1,75 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Source of threads executing harvests and concurrently executed branches of
+ * configurations (parallel loop iterations, parallel blocks). Harvest
+ * execution is mostly blocking (HTTP, database, FTP, sleeps), so the backend
+ * decides how expensive a blocked task is: a platform thread each, or a
+ * virtual thread each, where supported by the JVM.
+ *
+ * @see PlatformThreadBackend
+ * @see VirtualThreadBackend
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public interface ExecutionBackend {
+
+    /**
+     * Creates executor running each submitted task as soon as possible,
+     * without limiting number of tasks executed at a time.
+     *
+     * @param name
+     *            name of the executor, used for naming its threads
+     * @return new executor service
+     */
+    ExecutorService newExecutor(String name);
+
+    /**
+     * Creates executor running at most {@code maxConcurrency} tasks at a
+     * time; remaining tasks wait in order of submission.
+     *
+     * @param name
+     *            name of the executor, used for naming its threads
+     * @param maxConcurrency
+     *            maximum number of tasks executed at a time
+     * @return new executor service
+     */
+    ExecutorService newExecutor(String name, int maxConcurrency);
+
+}
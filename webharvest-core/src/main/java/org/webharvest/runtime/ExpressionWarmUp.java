@@ -0,0 +1,182 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.transform.TransformerConfigurationException;
+
+import net.sf.saxon.trans.XPathException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.definition.Config;
+import org.webharvest.definition.ConstantDef;
+import org.webharvest.definition.IElementDef;
+import org.webharvest.definition.XPathDef;
+import org.webharvest.definition.XQueryDef;
+import org.webharvest.definition.XsltDef;
+import org.webharvest.runtime.processors.XQueryExpressionPool;
+import org.webharvest.runtime.processors.XsltTemplatesPool;
+
+import com.google.inject.Inject;
+
+/**
+ * {@link HarvestWarmUp} implementation compiling XPath and XQuery expressions
+ * and XSLT stylesheets known before execution, i.e. {@code xpath} expressions
+ * (including {@code v:*} ones) without templates, and {@code xquery}
+ * expressions and {@code xslt} stylesheets having plain text body only.
+ * Compiled expressions land in the {@link XQueryExpressionPool} and
+ * stylesheets in the {@link XsltTemplatesPool}, so the first evaluation is as
+ * fast as the following ones. Expressions which fail to compile are left to
+ * fail at execution time, exactly as without warm-up.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see XQueryExpressionPool
+ */
+public final class ExpressionWarmUp implements HarvestWarmUp {
+
+    private static final Logger LOG = LoggerFactory
+            .getLogger(ExpressionWarmUp.class);
+
+    private final RuntimeConfig runtimeConfig;
+
+    /**
+     * Default class constructor accepting {@link RuntimeConfig} holding the
+     * expression pool.
+     *
+     * @param runtimeConfig
+     *            reference to {@link RuntimeConfig}
+     */
+    @Inject
+    public ExpressionWarmUp(final RuntimeConfig runtimeConfig) {
+        this.runtimeConfig = runtimeConfig;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long warmUp(final Config config) {
+        final long startTime = System.currentTimeMillis();
+
+        final Set<String> expressions = new LinkedHashSet<String>();
+        final Set<String> stylesheets = new LinkedHashSet<String>();
+        collectExpressions(config.getElementDef(), expressions, stylesheets);
+        final XQueryExpressionPool pool =
+            runtimeConfig.getXQueryExpressionPool();
+        for (String expression : expressions) {
+            try {
+                pool.getCompiledExpression(expression);
+            } catch (XPathException e) {
+                LOG.debug("Expression not compiled: {}", expression);
+            }
+        }
+
+        final XsltTemplatesPool templatesPool =
+            runtimeConfig.getXsltTemplatesPool();
+        for (String stylesheet : stylesheets) {
+            try {
+                templatesPool.getTemplates(stylesheet);
+            } catch (TransformerConfigurationException e) {
+                LOG.debug("Stylesheet not compiled: {}", e.getMessage());
+            }
+        }
+
+        final long warmUpTime = System.currentTimeMillis() - startTime;
+        LOG.debug("Compiled {} expression(s) and {} stylesheet(s) in {} ms",
+                new Object[] {expressions.size(), stylesheets.size(),
+                        warmUpTime});
+        return warmUpTime;
+    }
+
+    private void collectExpressions(final IElementDef elementDef,
+            final Set<String> expressions, final Set<String> stylesheets) {
+        for (IElementDef def : elementDef.getElementDefs()) {
+            if (def instanceof XPathDef) {
+                final XPathDef xpathDef = (XPathDef) def;
+                addStatic(xpathDef.getExpression(), expressions);
+                addStatic(xpathDef.getRows(), expressions);
+                for (Map.Entry<String, String> entry
+                        : xpathDef.getVariableMap().entrySet()) {
+                    addStatic(entry.getValue(), expressions);
+                }
+            } else if (def instanceof XQueryDef) {
+                final IElementDef xqDef = ((XQueryDef) def).getXqDef();
+                if (xqDef != null) {
+                    addStatic(getText(xqDef), expressions);
+                }
+            } else if (def instanceof XsltDef) {
+                final IElementDef stylesheetDef =
+                    ((XsltDef) def).getStylesheetDef();
+                if (stylesheetDef != null) {
+                    addStatic(getText(stylesheetDef), stylesheets);
+                }
+            }
+            collectExpressions(def, expressions, stylesheets);
+        }
+    }
+
+    private static void addStatic(final String expression,
+            final Set<String> expressions) {
+        if (expression != null && !expression.contains("${")) {
+            expressions.add(expression);
+        }
+    }
+
+    /**
+     * Returns text of the body the same way xquery and xslt processors get
+     * it, or {@code null} if it is not known until execution.
+     */
+    private static String getText(final IElementDef xqDef) {
+        final StringBuilder text = new StringBuilder();
+        for (IElementDef def : xqDef.getElementDefs()) {
+            if (!(def instanceof ConstantDef)) {
+                return null;
+            }
+            final String constant = ((ConstantDef) def).getText();
+            if (constant.length() != 0) {
+                if (text.length() != 0) {
+                    text.append('\n');
+                }
+                text.append(constant);
+            }
+        }
+        return text.length() != 0 ? text.toString().trim() : null;
+    }
+
+}
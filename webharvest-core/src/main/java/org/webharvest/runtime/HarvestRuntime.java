@@ -0,0 +1,334 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.Harvester;
+import org.webharvest.Harvester.ContextInitCallback;
+
+/**
+ * Long-running runtime executing many harvests within a single JVM, so jobs
+ * do not pay for JVM startup, plugin scanning and script engines warm-up each
+ * time.
+ * <p/>
+ * Harvests are executed by an {@link ExecutionBackend} executor limited to
+ * the global number of concurrently executed harvests; harvests above the
+ * limit wait in order of submission. Additionally, number of concurrently executed harvests of
+ * the same job (e.g. the same configuration) is limited, so single job
+ * submitted many times does not starve the others. Harvests of a job above
+ * its limit wait for previous harvests of the job to finish, without
+ * occupying a thread.
+ * <p/>
+ * Each harvest has its own scraping scope (see
+ * {@link org.webharvest.ioc.ScraperScope}), while singletons of the injector
+ * the harvesters come from (runtime configuration, script engines pool,
+ * definition resolver) are shared by all of them. As events are routed by
+ * {@link Harvester}, the same {@link Harvester} instance must not be
+ * submitted again before its previous execution has finished; obtain a new
+ * one from {@link org.webharvest.Harvest} for each submission instead.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class HarvestRuntime {
+
+    private static final Logger LOG =
+        LoggerFactory.getLogger(HarvestRuntime.class);
+
+    /**
+     * Default global limit of concurrently executed harvests.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_HARVESTS =
+        Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Default limit of concurrently executed harvests of the same job.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_PER_JOB = 1;
+
+    private final ExecutorService executor;
+
+    private final int maxConcurrentPerJob;
+
+    private final ConcurrentMap<String, JobQueue> jobs =
+        new ConcurrentHashMap<String, JobQueue>();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // submitted but not finished yet, including the waiting ones
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private volatile boolean shutdown;
+
+    /**
+     * Creates runtime with default limits, running harvests on platform
+     * threads.
+     */
+    public HarvestRuntime() {
+        this(DEFAULT_MAX_CONCURRENT_HARVESTS, DEFAULT_MAX_CONCURRENT_PER_JOB);
+    }
+
+    /**
+     * Creates runtime with specified limits, running harvests on platform
+     * threads.
+     *
+     * @param maxConcurrentHarvests
+     *            maximum number of harvests executed at a time
+     * @param maxConcurrentPerJob
+     *            maximum number of harvests of the same job executed at a
+     *            time
+     */
+    public HarvestRuntime(final int maxConcurrentHarvests,
+            final int maxConcurrentPerJob) {
+        this(new PlatformThreadBackend(), maxConcurrentHarvests,
+                maxConcurrentPerJob);
+    }
+
+    /**
+     * Creates runtime with specified limits, running harvests on threads of
+     * specified {@link ExecutionBackend}.
+     *
+     * @param backend
+     *            execution backend reference
+     * @param maxConcurrentHarvests
+     *            maximum number of harvests executed at a time
+     * @param maxConcurrentPerJob
+     *            maximum number of harvests of the same job executed at a
+     *            time
+     */
+    public HarvestRuntime(final ExecutionBackend backend,
+            final int maxConcurrentHarvests, final int maxConcurrentPerJob) {
+        if (maxConcurrentHarvests < 1 || maxConcurrentPerJob < 1) {
+            throw new IllegalArgumentException(
+                    "Concurrency limits must be positive numbers");
+        }
+        this.executor = backend.newExecutor("webharvest-harvest",
+                maxConcurrentHarvests);
+        this.maxConcurrentPerJob = maxConcurrentPerJob;
+    }
+
+    /**
+     * Submits execution of specified {@link Harvester} on behalf of the
+     * given job.
+     *
+     * @param job
+     *            name of the job the harvest belongs to (e.g. configuration
+     *            path)
+     * @param harvester
+     *            harvester to be executed
+     * @param callback
+     *            callback initializing context of the execution
+     * @return future result of the execution, which is the context of the
+     *         execution
+     * @throws IllegalStateException
+     *             if the runtime has been shut down
+     */
+    public Future<DynamicScopeContext> submit(final String job,
+            final Harvester harvester, final ContextInitCallback callback) {
+        if (job == null) {
+            throw new IllegalArgumentException("Job name is required");
+        }
+        if (harvester == null) {
+            throw new IllegalArgumentException("Harvester is required");
+        }
+        if (shutdown) {
+            throw new IllegalStateException("Harvest runtime is shut down");
+        }
+        final FutureTask<DynamicScopeContext> task =
+            new FutureTask<DynamicScopeContext>(
+                    new Callable<DynamicScopeContext>() {
+                        @Override
+                        public DynamicScopeContext call() {
+                            return harvester.execute(callback);
+                        }
+                    });
+
+        outstanding.incrementAndGet();
+        waiting.incrementAndGet();
+        while (true) {
+            final JobQueue queue = queueOf(job);
+            final Admission admission = queue.admit(task);
+            if (admission == Admission.RUN) {
+                dispatch(queue, task);
+            }
+            if (admission != Admission.RETIRED) {
+                return task;
+            }
+        }
+    }
+
+    /**
+     * Returns number of harvests being executed at the moment.
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Returns number of submitted harvests waiting for execution.
+     */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    /**
+     * Stops accepting new harvests. Already submitted harvests, including the
+     * ones waiting for execution, are still executed.
+     */
+    public void shutdown() {
+        shutdown = true;
+        if (outstanding.get() == 0) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Blocks until all submitted harvests are executed after
+     * {@link #shutdown()}, or the timeout occurs.
+     *
+     * @return {@code true} if all harvests have been executed
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private JobQueue queueOf(final String job) {
+        final JobQueue queue = jobs.get(job);
+        if (queue != null) {
+            return queue;
+        }
+        final JobQueue created = new JobQueue(job);
+        final JobQueue existing = jobs.putIfAbsent(job, created);
+        return existing != null ? existing : created;
+    }
+
+    private void dispatch(final JobQueue queue,
+            final FutureTask<DynamicScopeContext> task) {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    waiting.decrementAndGet();
+                    active.incrementAndGet();
+                    try {
+                        task.run();
+                    } finally {
+                        active.decrementAndGet();
+                        next(queue);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Harvest execution rejected, cancelling it", e);
+            waiting.decrementAndGet();
+            task.cancel(false);
+            next(queue);
+        }
+    }
+
+    private void next(final JobQueue queue) {
+        final FutureTask<DynamicScopeContext> next = queue.release();
+        if (next != null) {
+            dispatch(queue, next);
+        }
+        if (outstanding.decrementAndGet() == 0 && shutdown) {
+            executor.shutdown();
+        }
+    }
+
+    private enum Admission {
+        RUN, WAIT, RETIRED
+    }
+
+    /**
+     * Harvests of single job: number of the running ones and the ones
+     * waiting for the per job limit. Queue of a job is discarded as soon as
+     * the job has no harvests.
+     */
+    private final class JobQueue {
+
+        private final String job;
+
+        private final Queue<FutureTask<DynamicScopeContext>> pending =
+            new LinkedList<FutureTask<DynamicScopeContext>>();
+
+        private int running;
+
+        private boolean retired;
+
+        JobQueue(final String job) {
+            this.job = job;
+        }
+
+        synchronized Admission admit(
+                final FutureTask<DynamicScopeContext> task) {
+            if (retired) {
+                return Admission.RETIRED;
+            }
+            if (running < maxConcurrentPerJob) {
+                running++;
+                return Admission.RUN;
+            }
+            pending.add(task);
+            return Admission.WAIT;
+        }
+
+        synchronized FutureTask<DynamicScopeContext> release() {
+            final FutureTask<DynamicScopeContext> next = pending.poll();
+            if (next == null && --running == 0) {
+                retired = true;
+                jobs.remove(job, this);
+            }
+            return next;
+        }
+
+    }
+
+}
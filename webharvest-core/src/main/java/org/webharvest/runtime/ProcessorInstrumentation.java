@@ -0,0 +1,154 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.lang.reflect.Method;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.events.EventHandler;
+import org.webharvest.events.ProcessorStartEvent;
+import org.webharvest.events.ProcessorStopEvent;
+
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Singleton;
+
+/**
+ * Switch controlling per-processor instrumentation: evaluation of processor
+ * ids, collecting of runtime properties, posting of
+ * {@link ProcessorStartEvent}/{@link ProcessorStopEvent} and per-processor
+ * INFO logging. With the instrumentation inactive processors run in
+ * zero-overhead mode, merely executing their logic (debug file output, if
+ * enabled, is still written).
+ * <p/>
+ * Instrumentation is active if it is enabled explicitly (the default) or as
+ * long as there is at least one attached {@link EventHandler} of processor
+ * events. Both can be changed at any time, also while scraping is running;
+ * processors check the switch every time they are executed.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+@Singleton
+public final class ProcessorInstrumentation {
+
+    private static final Logger LOG = LoggerFactory
+            .getLogger(ProcessorInstrumentation.class);
+
+    private boolean enabled = true;
+
+    private int listeners;
+
+    private volatile boolean active = true;
+
+    /**
+     * Returns {@code true} if processors should be instrumented.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Enables or disables instrumentation regardless of attached processor
+     * event handlers. Disabled instrumentation stays active as long as any
+     * such handler is attached.
+     *
+     * @param enabled
+     *            {@code false} to run processors in zero-overhead mode
+     */
+    public synchronized void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+        update();
+    }
+
+    /**
+     * Attaches specified {@link EventHandler}. Handlers subscribed to
+     * processor events activate instrumentation; other handlers are ignored.
+     *
+     * @param handler
+     *            reference to event handler
+     * @return {@code true} if the handler has activated instrumentation
+     */
+    public synchronized boolean attach(final EventHandler<?> handler) {
+        if (!handlesProcessorEvents(handler)) {
+            return false;
+        }
+        listeners++;
+        update();
+        return true;
+    }
+
+    /**
+     * Detaches specified {@link EventHandler} previously attached with
+     * {@link #attach(EventHandler)}.
+     *
+     * @param handler
+     *            reference to event handler
+     */
+    public synchronized void detach(final EventHandler<?> handler) {
+        if (handlesProcessorEvents(handler) && listeners > 0) {
+            listeners--;
+            update();
+        }
+    }
+
+    private void update() {
+        final boolean newActive = enabled || listeners > 0;
+        if (newActive != active) {
+            LOG.info("Processor instrumentation {}",
+                    newActive ? "activated" : "deactivated");
+        }
+        active = newActive;
+    }
+
+    private static boolean handlesProcessorEvents(
+            final EventHandler<?> handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler is required");
+        }
+        for (final Method method : handler.getClass().getMethods()) {
+            if (method.isBridge() || !method.isAnnotationPresent(Subscribe.class)
+                    || method.getParameterTypes().length != 1) {
+                continue;
+            }
+            final Class<?> type = method.getParameterTypes()[0];
+            if (type.isAssignableFrom(ProcessorStartEvent.class)
+                    || type.isAssignableFrom(ProcessorStopEvent.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -5,8 +5,11 @@ import com.google.common.util.concurrent.Monitor.Guard;
 import com.google.inject.Inject;
 
 /**
- * Implementation of {@link Guard} verifying that current status of
- * configuration's processing is 'running'.
+ * Implementation of {@link Guard} verifying that configuration's processing
+ * is not paused. Stopped or exited processing satisfies the guard too, so the
+ * paused processors wake up and find out they are not supposed to continue.
+ * The check is a single volatile read, so it may be (and is) consulted
+ * without entering the {@link Monitor} first.
  *
  * @see RunningStatusController
  *
@@ -35,7 +38,7 @@ public final class RunningStatusGuard extends Guard {
      */
     @Override
     public boolean isSatisfied() {
-        return statusHolder.getStatus() == ScraperState.RUNNING;
+        return statusHolder.getStatus() != ScraperState.PAUSED;
     }
 
 }
@@ -3,6 +3,7 @@ package org.webharvest.runtime;
 import net.sf.saxon.Configuration;
 import net.sf.saxon.query.StaticQueryContext;
 import org.webharvest.runtime.processors.XQueryExpressionPool;
+import org.webharvest.runtime.processors.XsltTemplatesPool;
 
 /**
  * Facade for runtime objects needed for specific processors' execution.
@@ -16,6 +17,8 @@ public class RuntimeConfig {
 
     private XQueryExpressionPool xQueryExpressionPool;
 
+    private XsltTemplatesPool xsltTemplatesPool;
+
     public synchronized StaticQueryContext getStaticQueryContext() {
         if (staticQueryContext == null) {
             Configuration config = new Configuration();
@@ -32,4 +35,12 @@ public class RuntimeConfig {
         return xQueryExpressionPool;
     }
 
+    public synchronized XsltTemplatesPool getXsltTemplatesPool() {
+        if (xsltTemplatesPool == null) {
+            xsltTemplatesPool = new XsltTemplatesPool(getStaticQueryContext().getConfiguration());
+        }
+
+        return xsltTemplatesPool;
+    }
+
 }
\ No newline at end of file
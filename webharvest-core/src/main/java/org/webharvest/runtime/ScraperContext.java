@@ -48,6 +48,8 @@ import javax.annotation.PostConstruct;
 import org.apache.commons.collections.IteratorUtils;
 import org.apache.commons.collections.Transformer;
 import org.apache.commons.lang.ObjectUtils;
+import org.webharvest.Cache;
+import org.webharvest.LruCache;
 import org.webharvest.definition.Config;
 import org.webharvest.definition.FunctionDef;
 import org.webharvest.runtime.scripting.ScriptingLanguage;
@@ -80,6 +82,10 @@ public class ScraperContext implements DynamicScopeContext {
     @Deprecated
     private final Map<String, FunctionDef> functionDefs = new HashMap<String, FunctionDef>();
 
+    // results of memoized functions registered in this context
+    private final Map<FunctionDef, Cache<String, Variable>> functionMemos =
+        new HashMap<FunctionDef, Cache<String, Variable>>();
+
     @Deprecated
     private ScriptingLanguage scriptingLanguage;
 
@@ -216,7 +222,21 @@ public class ScraperContext implements DynamicScopeContext {
     @Override
     @Deprecated
     public void addFunctionDef(final FunctionDef funcDef) {
-        functionDefs.put(funcDef.getName(), funcDef);
+        final FunctionDef previous = functionDefs.put(funcDef.getName(), funcDef);
+        if (previous != null) {
+            functionMemos.remove(previous);
+        }
+        if (funcDef.isMemoized()) {
+            functionMemos.put(funcDef, new LruCache<String, Variable>(FunctionDef.MEMO_SIZE));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cache<String, Variable> getFunctionMemo(final FunctionDef funcDef) {
+        return functionMemos.get(funcDef);
     }
 
     /**
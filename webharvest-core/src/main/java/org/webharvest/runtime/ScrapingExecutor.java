@@ -0,0 +1,269 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.exception.BaseException;
+import org.webharvest.ioc.AttributeHolder;
+import org.webharvest.ioc.ScraperScope;
+
+import com.google.inject.Inject;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * Executes branches of a configuration (e.g. iterations of parallel loop)
+ * concurrently. Worker threads are let into the scraping scope of the thread
+ * submitting the tasks, so scraping scoped components (HTTP client, event
+ * bus, status holder, script engines) are shared by the branches exactly as
+ * if they were executed sequentially.
+ * <p/>
+ * Results are always returned in order of submitted tasks, regardless of the
+ * order of their completion. No new task is started once the scraping has
+ * been stopped or exited.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+@Singleton
+public class ScrapingExecutor {
+
+    private static final Logger LOG =
+        LoggerFactory.getLogger(ScrapingExecutor.class);
+
+    private final ExecutorService executor;
+
+    @Inject private ScraperScope scope;
+
+    @Inject private Provider<StatusHolder> statusHolder;
+
+    /**
+     * Creates executor running the tasks on threads of specified
+     * {@link ExecutionBackend}.
+     *
+     * @param backend
+     *            execution backend reference
+     */
+    @Inject
+    public ScrapingExecutor(final ExecutionBackend backend) {
+        this(backend.newExecutor("webharvest-worker"));
+    }
+
+    /**
+     * Creates executor running the tasks on specified
+     * {@link ExecutorService}.
+     *
+     * @param executor
+     *            executor service reference (must not be {@code null})
+     */
+    public ScrapingExecutor(final ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException(
+                    "Executor service must not be null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Executes specified tasks, at most {@code parallelism} at a time, and
+     * waits for all of them to complete.
+     *
+     * @param tasks
+     *            tasks to be executed
+     * @param parallelism
+     *            maximum number of tasks executed at a time
+     * @param failFast
+     *            if {@code true}, the first failure cancels the remaining
+     *            tasks and is rethrown; otherwise failures are logged and
+     *            {@code null} is returned as result of the failed task
+     * @return results of the tasks in order of the tasks; {@code null} for
+     *         tasks which were not executed because the scraping has been
+     *         stopped
+     * @throws InterruptedException
+     *             if the current thread has been interrupted while waiting
+     */
+    public <T> List<T> invokeAll(final List<? extends Callable<T>> tasks,
+            final int parallelism, final boolean failFast)
+            throws InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "Parallelism must be a positive number");
+        }
+        return execute(tasks, parallelism, failFast, true);
+    }
+
+    /**
+     * Starts all specified tasks at once and waits for all of them to
+     * complete. Unlike {@link #invokeAll(List, int, boolean)}, the tasks are
+     * started even if the scraping has been stopped, as they may depend on
+     * each other (e.g. exchange data through queues); they are expected to
+     * finish on their own in such case. The first failure cancels
+     * (interrupts) the remaining tasks and is rethrown.
+     *
+     * @param tasks
+     *            tasks to be executed
+     * @return results of the tasks in order of the tasks
+     * @throws InterruptedException
+     *             if the current thread has been interrupted while waiting
+     */
+    public <T> List<T> invokeConcurrently(
+            final List<? extends Callable<T>> tasks)
+            throws InterruptedException {
+        return execute(tasks, Math.max(tasks.size(), 1), true, false);
+    }
+
+    /**
+     * Tells whether the scraping the current thread works for has been
+     * stopped or exited, e.g. for long running tasks of
+     * {@link #invokeConcurrently(List)} to finish early. Always {@code false}
+     * outside of the scraping scope.
+     *
+     * @return {@code true} if the scraping has been stopped or exited
+     */
+    public boolean isStopped() {
+        return !isRunning(currentHolder());
+    }
+
+    private <T> List<T> execute(final List<? extends Callable<T>> tasks,
+            final int parallelism, final boolean failFast,
+            final boolean stoppable) throws InterruptedException {
+        final List<T> results = new ArrayList<T>(
+                Collections.<T>nCopies(tasks.size(), null));
+        final AttributeHolder holder = currentHolder();
+        final Deadline deadline = Deadline.current();
+        final CompletionService<T> completion =
+            new ExecutorCompletionService<T>(executor);
+        final Map<Future<T>, Integer> pending =
+            new HashMap<Future<T>, Integer>();
+
+        int next = 0;
+        try {
+            while (next < tasks.size() || !pending.isEmpty()) {
+                while (next < tasks.size() && pending.size() < parallelism
+                        && (!stoppable || isRunning(holder))) {
+                    pending.put(completion.submit(
+                            scoped(tasks.get(next), holder, deadline)),
+                            next);
+                    next++;
+                }
+                if (pending.isEmpty()) {
+                    // scraping stopped, nothing more to wait for
+                    break;
+                }
+                final Future<T> done = completion.take();
+                final int index = pending.remove(done);
+                try {
+                    results.set(index, done.get());
+                } catch (ExecutionException e) {
+                    handleFailure(e.getCause(), index, failFast);
+                }
+            }
+        } finally {
+            for (Future<T> future : pending.keySet()) {
+                future.cancel(true);
+            }
+        }
+
+        return results;
+    }
+
+    private void handleFailure(final Throwable cause, final int index,
+            final boolean failFast) {
+        if (!failFast) {
+            LOG.error("Parallel task failed: " + index, cause);
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            throw new BaseException(cause);
+        }
+    }
+
+    private boolean isRunning(final AttributeHolder holder) {
+        if (holder == null) {
+            return true;
+        }
+        final ScraperState status = statusHolder.get().getStatus();
+        return status != ScraperState.STOPPED && status != ScraperState.EXIT;
+    }
+
+    private AttributeHolder currentHolder() {
+        try {
+            return scope.get();
+        } catch (OutOfScopeException e) {
+            return null;
+        }
+    }
+
+    private <T> Callable<T> scoped(final Callable<T> task,
+            final AttributeHolder holder, final Deadline deadline) {
+        if (holder == null && deadline == null) {
+            return task;
+        }
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                // branches are bounded by deadline of the submitting thread
+                final Deadline previous = Deadline.attach(deadline);
+                if (holder != null) {
+                    scope.enter(holder);
+                }
+                try {
+                    return task.call();
+                } finally {
+                    if (holder != null) {
+                        scope.exit();
+                    }
+                    Deadline.detach(previous);
+                }
+            }
+        };
+    }
+
+}
@@ -39,6 +39,8 @@ import org.webharvest.Harvester;
 import org.webharvest.definition.Config;
 import org.webharvest.ioc.ContextFactory;
 import org.webharvest.ioc.Scraping;
+import org.webharvest.runtime.checkpoint.Checkpointer;
+import org.webharvest.runtime.checkpoint.NoCheckpointer;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -78,10 +80,13 @@ public class ScrapingHarvester implements Harvester {
 
     private final ContextFactory contextFactory;
 
+    private final Checkpointer checkpointer;
+
     /**
      * Class constructor expecting Guice
      * {@link WebScraper} provider, {@link DynamicScopeContext} factory and
-     * {@link Config} as already loaded configuration.
+     * {@link Config} as already loaded configuration. Checkpointing is
+     * disabled.
      *
      * @param scraperProvider
      *            the {@link WebScraper} provider.
@@ -92,12 +97,35 @@ public class ScrapingHarvester implements Harvester {
      *            reference to the configuration {@link Config}.
      * @throws IOException
      */
+    public ScrapingHarvester(final Provider<WebScraper> scraperProvider,
+            final ContextFactory contextFactory,
+            final Config config) {
+        this(scraperProvider, contextFactory, new NoCheckpointer(), config);
+    }
+
+    /**
+     * Class constructor expecting Guice
+     * {@link WebScraper} provider, {@link DynamicScopeContext} factory,
+     * {@link Checkpointer} and {@link Config} as already loaded configuration.
+     *
+     * @param scraperProvider
+     *            the {@link WebScraper} provider.
+     * @param contextFactory
+     *            reference to a {@link DynamicScopeContext} factory.
+     * @param checkpointer
+     *            reference to a {@link Checkpointer} restoring progress of
+     *            interrupted execution.
+     * @param config
+     *            reference to the configuration {@link Config}.
+     */
     @Inject
     public ScrapingHarvester(final Provider<WebScraper> scraperProvider,
             final ContextFactory contextFactory,
+            final Checkpointer checkpointer,
             @Assisted final Config config) {
         this.scraperProvider = scraperProvider;
         this.contextFactory = contextFactory;
+        this.checkpointer = checkpointer;
         this.config = config;
     }
 
@@ -112,8 +140,15 @@ public class ScrapingHarvester implements Harvester {
         final DynamicScopeContext context =
                 contextFactory.create(config);
         callback.onSuccess(context);
+        if (checkpointer.isEnabled()) {
+            checkpointer.restore(context);
+        }
 
         scraper.execute(context);
+        // failed or interrupted execution is to be resumed from its checkpoint
+        if (checkpointer.isEnabled() && !Thread.currentThread().isInterrupted()) {
+            checkpointer.complete();
+        }
 
         return context;
     }
@@ -0,0 +1,166 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.definition.Config;
+import org.webharvest.definition.ConfigDef;
+import org.webharvest.definition.ConstantDef;
+import org.webharvest.definition.ElementDefProxy;
+import org.webharvest.definition.IElementDef;
+import org.webharvest.definition.ScriptDef;
+import org.webharvest.runtime.scripting.ScriptEngineFactory;
+import org.webharvest.runtime.scripting.ScriptSource;
+import org.webharvest.runtime.scripting.ScriptingLanguage;
+
+import com.google.inject.Inject;
+
+/**
+ * {@link HarvestWarmUp} implementation preparing script engines. Walks the
+ * whole definition tree of the configuration, finds out which scripting
+ * languages are actually used and hands over to {@link ScriptEngineFactory}
+ * all {@code script} elements whose source code is known before execution,
+ * i.e. scripts having plain text body only. The default scripting language of
+ * the configuration is always prepared, as it is used by templates.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see ScriptEngineFactory#prepare(java.util.Collection)
+ */
+public final class ScriptWarmUp implements HarvestWarmUp {
+
+    private static final Logger LOG = LoggerFactory
+            .getLogger(ScriptWarmUp.class);
+
+    private static final ScriptingLanguage DEFAULT_SCRIPTING_LANGUAGE =
+        ScriptingLanguage.BEANSHELL;
+
+    private final ScriptEngineFactory scriptEngineFactory;
+
+    /**
+     * Default class constructor accepting {@link ScriptEngineFactory} the
+     * engines are prepared with.
+     *
+     * @param scriptEngineFactory
+     *            reference to {@link ScriptEngineFactory}
+     */
+    @Inject
+    public ScriptWarmUp(final ScriptEngineFactory scriptEngineFactory) {
+        this.scriptEngineFactory = scriptEngineFactory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long warmUp(final Config config) {
+        final long startTime = System.currentTimeMillis();
+
+        final IElementDef root = config.getElementDef();
+        final ScriptingLanguage defaultLanguage = getDefaultLanguage(root);
+        final Set<ScriptSource> scripts = new LinkedHashSet<ScriptSource>();
+        scripts.add(new ScriptSource("", defaultLanguage));
+        collectScripts(root, defaultLanguage, scripts);
+        scriptEngineFactory.prepare(scripts);
+
+        final long warmUpTime = System.currentTimeMillis() - startTime;
+        LOG.debug("Prepared {} script(s) in {} ms", scripts.size() - 1,
+                warmUpTime);
+        return warmUpTime;
+    }
+
+    private ScriptingLanguage getDefaultLanguage(final IElementDef root) {
+        ScriptingLanguage language = null;
+        if (root instanceof ConfigDef) {
+            language = ((ConfigDef) root).getScriptingLanguage();
+        } else if (root instanceof ElementDefProxy) {
+            language = ScriptingLanguage.recognize(((ElementDefProxy) root)
+                    .getNode().getAttribute("scriptlang"));
+        }
+        return language != null ? language : DEFAULT_SCRIPTING_LANGUAGE;
+    }
+
+    private void collectScripts(final IElementDef elementDef,
+            final ScriptingLanguage defaultLanguage,
+            final Set<ScriptSource> scripts) {
+        for (IElementDef def : elementDef.getElementDefs()) {
+            if (def instanceof ScriptDef) {
+                scripts.add(createScriptSource((ScriptDef) def,
+                        defaultLanguage));
+            }
+            collectScripts(def, defaultLanguage, scripts);
+        }
+    }
+
+    /**
+     * Creates script source the same way the script processor does. If the
+     * source code is not known until execution, script source with empty code
+     * is created, which still makes the engine prepared.
+     */
+    private ScriptSource createScriptSource(final ScriptDef scriptDef,
+            final ScriptingLanguage defaultLanguage) {
+        final ScriptingLanguage recognized =
+            ScriptingLanguage.recognize(scriptDef.getLanguage());
+        final ScriptingLanguage language =
+            recognized != null ? recognized : defaultLanguage;
+
+        final StringBuilder sourceCode = new StringBuilder();
+        for (IElementDef def : scriptDef.getElementDefs()) {
+            if (!(def instanceof ConstantDef)) {
+                return new ScriptSource("", language);
+            }
+            final String text = ((ConstantDef) def).getText();
+            if (text.length() != 0) {
+                if (sourceCode.length() != 0) {
+                    sourceCode.append('\n');
+                }
+                sourceCode.append(text);
+            }
+        }
+
+        final String returnExpression = scriptDef.getReturnExpression();
+        if (returnExpression != null) {
+            if (returnExpression.contains("${")) {
+                return new ScriptSource("", language);
+            }
+            sourceCode.append("; ").append(returnExpression);
+        }
+        return new ScriptSource(sourceCode.toString(), language);
+    }
+
+}
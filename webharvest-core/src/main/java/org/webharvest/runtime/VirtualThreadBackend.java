@@ -0,0 +1,141 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link ExecutionBackend} running each task on its own virtual thread, so
+ * thousands of blocked harvests or parallel branches cost little memory.
+ * Virtual threads are looked up reflectively, as Web-Harvest is built for
+ * older JVMs; use {@link #isSupported()} to check whether the current JVM
+ * provides them.
+ * <p/>
+ * Limited executors do not pool threads: a new virtual thread is started for
+ * each task once the number of running tasks drops below the limit.
+ *
+ * @see ExecutionBackend
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class VirtualThreadBackend implements ExecutionBackend {
+
+    private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+
+    private static final Method NAME = method("java.lang.Thread$Builder",
+            "name", String.class, long.class);
+
+    private static final Method FACTORY = method("java.lang.Thread$Builder",
+            "factory");
+
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR = method(
+            Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    /**
+     * Tells whether the current JVM provides virtual threads.
+     *
+     * @return {@code true} if virtual threads are available
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && NAME != null && FACTORY != null
+                && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates backend; fails if the JVM does not provide virtual threads.
+     *
+     * @throws UnsupportedOperationException
+     *             if virtual threads are not available
+     */
+    public VirtualThreadBackend() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException(
+                    "Virtual threads are not supported by this JVM");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExecutorService newExecutor(final String name) {
+        return (ExecutorService) invoke(NEW_THREAD_PER_TASK_EXECUTOR, null,
+                invoke(FACTORY, invoke(NAME, invoke(OF_VIRTUAL, null),
+                        name + "-", 0L)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExecutorService newExecutor(final String name,
+            final int maxConcurrency) {
+        return new LimitedExecutorService(newExecutor(name), maxConcurrency);
+    }
+
+    private static Method method(final String className, final String name,
+            final Class<?>... parameterTypes) {
+        try {
+            return method(Class.forName(className), name, parameterTypes);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method method(final Class<?> type, final String name,
+            final Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Object invoke(final Method method, final Object target,
+            final Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
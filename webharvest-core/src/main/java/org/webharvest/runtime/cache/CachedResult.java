@@ -0,0 +1,113 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.webharvest.runtime.variables.EmptyVariable;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+
+/**
+ * Serializable snapshot of a {@link Variable}, used to store results in
+ * persistent caches. Binary items are kept as they are, any other item is
+ * kept as its text.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class CachedResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean list;
+
+    private final Serializable[] items;
+
+    private CachedResult(final boolean list, final Serializable[] items) {
+        this.list = list;
+        this.items = items;
+    }
+
+    /**
+     * Takes snapshot of the given variable.
+     *
+     * @param variable
+     *            variable to take snapshot of
+     * @return snapshot of the variable
+     */
+    public static CachedResult of(final Variable variable) {
+        if (variable == null || variable instanceof EmptyVariable) {
+            return new CachedResult(false, new Serializable[0]);
+        }
+        if (variable instanceof ListVariable) {
+            final List<Variable> variables = variable.toList();
+            final Serializable[] items = new Serializable[variables.size()];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = toItem(variables.get(i));
+            }
+            return new CachedResult(true, items);
+        }
+        return new CachedResult(false, new Serializable[] {toItem(variable)});
+    }
+
+    /**
+     * Recreates variable out of the snapshot.
+     *
+     * @return new variable equivalent to the one the snapshot was taken of
+     */
+    public Variable toVariable() {
+        if (items.length == 0) {
+            return EmptyVariable.INSTANCE;
+        }
+        if (!list) {
+            return new NodeVariable(items[0]);
+        }
+        final List<Variable> variables = new ArrayList<Variable>(items.length);
+        for (Serializable item : items) {
+            variables.add(new NodeVariable(item));
+        }
+        return new ListVariable(variables);
+    }
+
+    private static Serializable toItem(final Variable variable) {
+        final Object wrapped = variable.getWrappedObject();
+        return (wrapped instanceof byte[]) ? (byte[]) wrapped
+                : variable.toString();
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.cache;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.webharvest.DiskCache;
+import org.webharvest.ExpiringCache;
+import org.webharvest.LruCache;
+import org.webharvest.runtime.variables.Variable;
+
+import com.google.inject.Singleton;
+
+/**
+ * Registry of named caches memoizing results of {@code cache} elements.
+ * Caches are created on first use and live as long as the registry, so
+ * results are shared by all executions of configurations using the same
+ * cache. Size and compression of a cache are fixed once it has been created.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+@Singleton
+public class ResultCaches {
+
+    private final ConcurrentMap<String, ExpiringCache<String, Variable>> memoryCaches =
+        new ConcurrentHashMap<String, ExpiringCache<String, Variable>>();
+
+    private final ConcurrentMap<File, ExpiringCache<String, CachedResult>> diskCaches =
+        new ConcurrentHashMap<File, ExpiringCache<String, CachedResult>>();
+
+    /**
+     * Returns in-memory cache of the given name.
+     *
+     * @param name
+     *            name of the cache
+     * @param size
+     *            maximum number of results held by the cache
+     * @return cache of the given name
+     */
+    public ExpiringCache<String, Variable> memory(final String name,
+            final int size) {
+        ExpiringCache<String, Variable> cache = memoryCaches.get(name);
+        if (cache == null) {
+            final ExpiringCache<String, Variable> created =
+                new LruCache<String, Variable>(size);
+            cache = memoryCaches.putIfAbsent(name, created);
+            if (cache == null) {
+                cache = created;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns on-disk cache stored in the given directory.
+     *
+     * @param directory
+     *            directory of the cache
+     * @param size
+     *            maximum number of results held by the cache
+     * @param compress
+     *            whether results should be gzip compressed
+     * @return cache stored in the given directory
+     */
+    public synchronized ExpiringCache<String, CachedResult> disk(
+            final File directory, final int size, final boolean compress) {
+        final File key = directory.getAbsoluteFile();
+        ExpiringCache<String, CachedResult> cache = diskCaches.get(key);
+        if (cache == null) {
+            cache = new DiskCache<String, CachedResult>(key, size, compress);
+            diskCaches.put(key, cache);
+        }
+        return cache;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.checkpoint;
+
+import org.webharvest.definition.IElementDef;
+import org.webharvest.runtime.DynamicScopeContext;
+
+/**
+ * Facility recording progress of long-running harvests, so that interrupted
+ * harvest can be resumed instead of being restarted from scratch. Progress
+ * consists of positions of loops (number of completed iterations), values of
+ * selected variables and HTTP cookies. Implementations are expected to be
+ * cheap when disabled and not to stall scraping threads when enabled.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see LoopCheckpoint
+ */
+public interface Checkpointer {
+
+    /**
+     * Returns {@code true} if checkpointing is enabled. Callers should check it
+     * before calling any other method.
+     */
+    boolean isEnabled();
+
+    /**
+     * Restores variables and HTTP cookies of the last checkpoint, if any, in
+     * specified context. Invoked when harvest is about to be executed, within
+     * scraping scope.
+     *
+     * @param context
+     *            newly created context of the harvest
+     */
+    void restore(DynamicScopeContext context);
+
+    /**
+     * Returns checkpoint of the loop of specified definition that is about to
+     * be executed by the current thread. Loops are identified by their
+     * position in configuration, the iteration of enclosing loops and the
+     * number of previous executions within that iteration, so resumed harvest
+     * has to run the same (unchanged) configuration.
+     *
+     * @param loopDef
+     *            definition of the loop
+     * @return checkpoint of the loop; {@code null} if checkpointing is disabled
+     */
+    LoopCheckpoint enterLoop(IElementDef loopDef);
+
+    /**
+     * Notifies that harvest has been completed, so its checkpoint is not needed
+     * anymore.
+     */
+    void complete();
+
+}
@@ -0,0 +1,725 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.httpclient.Cookie;
+import org.apache.commons.httpclient.HttpState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.definition.IElementDef;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.ScraperState;
+import org.webharvest.runtime.StatusHolder;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.runtime.web.HttpClientManager;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * {@link Checkpointer} keeping the checkpoint in a local file. The file is a
+ * journal of changes: loop positions, values of selected variables (as text,
+ * or list of texts) and HTTP cookies. Scraping threads merely update the
+ * checkpoint kept in memory; changes made since the last write are appended
+ * to the journal periodically, on a background thread, and the journal is
+ * compacted once it grows. Record partially written when the process died is
+ * ignored, so the checkpoint is always the last one fully written.
+ * <p/>
+ * Existing file is loaded when the checkpointer is created, and is restored
+ * when the harvest is executed. The file is deleted once the harvest
+ * completes, unless it has been stopped. Single checkpointer serves single
+ * harvest; it must be {@link #close() closed} to write pending changes.
+ * <p/>
+ * Guice injects {@link HttpClientManager} and {@link StatusHolder} providers
+ * when the checkpointer is bound with {@link org.webharvest.ioc.CheckpointModule};
+ * without them cookies are not checkpointed.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class FileCheckpointer implements Checkpointer, Closeable {
+
+    private static final Logger LOG = LoggerFactory
+            .getLogger(FileCheckpointer.class);
+
+    /**
+     * Default interval, in milliseconds, between writes of checkpoint changes.
+     */
+    public static final long DEFAULT_INTERVAL = 5000;
+
+    // Number of journal records after which the journal is compacted
+    private static final int COMPACTION_THRESHOLD = 10000;
+
+    private static final int MAGIC = 0x57484350;
+    private static final int VERSION = 1;
+
+    private static final byte POSITION = 'P';
+    private static final byte REMOVAL = 'R';
+    private static final byte VARIABLE = 'V';
+    private static final byte COOKIES = 'C';
+
+    private static final byte UNDEFINED = 0;
+    private static final byte TEXT = 1;
+    private static final byte LIST = 2;
+
+    private final File file;
+
+    private final List<String> variableNames;
+
+    private final long interval;
+
+    private final Map<String, Integer> positions =
+        new ConcurrentHashMap<String, Integer>();
+
+    // String or List<String>
+    private final Map<String, Object> variables =
+        new ConcurrentHashMap<String, Object>();
+
+    private volatile List<List<String>> cookies = Collections.emptyList();
+
+    private final Object lock = new Object();
+
+    // Changes not written yet, guarded by lock
+    private Map<String, Record> pending = new LinkedHashMap<String, Record>();
+
+    private final ThreadLocal<Frame> frames = new ThreadLocal<Frame>();
+
+    private volatile Frame root = new Frame("");
+
+    @Inject(optional = true)
+    private Provider<HttpClientManager> httpClientManager;
+
+    @Inject(optional = true)
+    private Provider<StatusHolder> statusHolder;
+
+    // Used by the worker thread only
+    private FileOutputStream stream;
+    private DataOutputStream journal;
+    private int records;
+
+    private final Thread worker;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates checkpointer writing changes every {@link #DEFAULT_INTERVAL}
+     * milliseconds.
+     *
+     * @param file
+     *            checkpoint file; loaded if exists
+     * @param variableNames
+     *            names of variables to be checkpointed
+     * @throws IOException
+     *             if the file can not be read or written
+     */
+    public FileCheckpointer(final File file,
+            final Collection<String> variableNames) throws IOException {
+        this(file, variableNames, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Creates checkpointer writing changes with specified interval.
+     *
+     * @param file
+     *            checkpoint file; loaded if exists
+     * @param variableNames
+     *            names of variables to be checkpointed
+     * @param interval
+     *            interval, in milliseconds, between writes of changes
+     * @throws IOException
+     *             if the file can not be read or written
+     */
+    public FileCheckpointer(final File file,
+            final Collection<String> variableNames, final long interval)
+            throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Checkpoint file is required");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException(
+                    "Interval must be a positive number");
+        }
+        this.file = file;
+        this.variableNames = (variableNames == null)
+                ? Collections.<String>emptyList()
+                : new ArrayList<String>(variableNames);
+        this.interval = interval;
+
+        load();
+        // starts with compacted journal of the previous run
+        writeSnapshot();
+        openJournal();
+
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "webharvest-checkpoint-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Returns {@code true} if the checkpoint loaded from the file records any
+     * progress, i.e. the harvest is going to be resumed.
+     */
+    public boolean hasProgress() {
+        return !positions.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return !closed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restore(final DynamicScopeContext context) {
+        root = new Frame("");
+        frames.remove();
+        if (positions.isEmpty() && variables.isEmpty() && cookies.isEmpty()) {
+            return;
+        }
+        LOG.info("Resuming harvest from checkpoint {}", file);
+        for (Map.Entry<String, Object> var : variables.entrySet()) {
+            context.setLocalVar(var.getKey(), toVariable(var.getValue()));
+        }
+        if (httpClientManager != null && !cookies.isEmpty()) {
+            final HttpState state =
+                httpClientManager.get().getHttpClient().getState();
+            for (List<String> cookie : cookies) {
+                state.addCookie(toCookie(cookie));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LoopCheckpoint enterLoop(final IElementDef loopDef) {
+        final Frame outer = frames.get();
+        final String path = ((outer != null) ? outer : root).nextLoopPath(
+                "loop@" + loopDef.getLineNumber() + ":" //NOI18N
+                + loopDef.getColumnNumber());
+        final Integer completed = positions.get(path);
+        return new LoopCheckpoint(this, path, outer,
+                (completed != null) ? completed : 0);
+    }
+
+    /**
+     * Deletes the checkpoint file, unless the harvest has been stopped, and
+     * closes the checkpointer.
+     */
+    @Override
+    public void complete() {
+        if (isStopped()) {
+            LOG.info("Harvest stopped, checkpoint {} kept", file);
+            close();
+            return;
+        }
+        synchronized (lock) {
+            pending.clear();
+        }
+        close();
+        if (!file.delete() && file.exists()) {
+            LOG.warn("Cannot delete checkpoint {}", file);
+        }
+    }
+
+    /**
+     * Writes all pending changes and closes the checkpoint file. Blocks until
+     * it is done.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Sets frame of the current thread, returns the previous one
+    Frame setFrame(final Frame frame) {
+        final Frame previous = frames.get();
+        if (frame == null) {
+            frames.remove();
+        } else {
+            frames.set(frame);
+        }
+        return previous;
+    }
+
+    // Records loop position, dropping positions of loops with the nested
+    // prefix, along with current values of variables and cookies
+    void completed(final String loopPath, final int iterations,
+            final String nestedPrefix, final DynamicScopeContext context) {
+        // processors of stopped harvest finish immediately, without results
+        if (closed || isStopped()) {
+            return;
+        }
+        final Map<String, Object> values = new HashMap<String, Object>();
+        for (String name : variableNames) {
+            values.put(name, snapshot(context.getVar(name)));
+        }
+        final List<List<String>> currentCookies = snapshotCookies();
+
+        synchronized (lock) {
+            positions.put(loopPath, iterations);
+            enqueue(new Record(POSITION, loopPath, iterations));
+            removeNested(positions.keySet().iterator(), nestedPrefix, "");
+            removeNested(pending.keySet().iterator(), nestedPrefix,
+                    String.valueOf((char) POSITION));
+            enqueue(new Record(REMOVAL, nestedPrefix, null));
+
+            for (Map.Entry<String, Object> value : values.entrySet()) {
+                final String name = value.getKey();
+                final Object current = value.getValue();
+                if (current == null ? variables.containsKey(name)
+                        : !current.equals(variables.get(name))) {
+                    apply(new Record(VARIABLE, name, current));
+                    enqueue(new Record(VARIABLE, name, current));
+                }
+            }
+            if (currentCookies != null && !currentCookies.equals(cookies)) {
+                cookies = currentCookies;
+                enqueue(new Record(COOKIES, "", currentCookies));
+            }
+        }
+    }
+
+    private boolean isStopped() {
+        if (statusHolder == null) {
+            return false;
+        }
+        final ScraperState status = statusHolder.get().getStatus();
+        return status == ScraperState.STOPPED || status == ScraperState.EXIT;
+    }
+
+    private void enqueue(final Record record) {
+        final String key = record.getPendingKey();
+        pending.remove(key);
+        pending.put(key, record);
+    }
+
+    private static void removeNested(final Iterator<String> keys,
+            final String prefix, final String keyPrefix) {
+        final String nested = keyPrefix + prefix;
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(nested)) {
+                keys.remove();
+            }
+        }
+    }
+
+    private void apply(final Record record) {
+        switch (record.type) {
+        case POSITION:
+            positions.put(record.key, (Integer) record.value);
+            break;
+        case REMOVAL:
+            removeNested(positions.keySet().iterator(), record.key, "");
+            break;
+        case VARIABLE:
+            if (record.value == null) {
+                variables.remove(record.key);
+            } else {
+                variables.put(record.key, record.value);
+            }
+            break;
+        case COOKIES:
+            cookies = asCookies(record.value);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown record " + record.type);
+        }
+    }
+
+    private void drain() {
+        try {
+            boolean last = false;
+            while (!last) {
+                synchronized (lock) {
+                    if (!closed) {
+                        lock.wait(interval);
+                    }
+                    last = closed;
+                }
+                writePending();
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("Checkpoint writer interrupted, recent progress is lost");
+        } finally {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOG.error("Cannot close checkpoint " + file, e);
+            }
+        }
+    }
+
+    private void writePending() {
+        final Collection<Record> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending.values();
+            pending = new LinkedHashMap<String, Record>();
+        }
+        try {
+            for (Record record : batch) {
+                record.writeTo(journal);
+            }
+            journal.flush();
+            stream.getFD().sync();
+            records += batch.size();
+            if (records > COMPACTION_THRESHOLD) {
+                journal.close();
+                try {
+                    writeSnapshot();
+                } finally {
+                    openJournal();
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Cannot write checkpoint " + file, e);
+        }
+    }
+
+    private void load() throws IOException {
+        final File temp = getTempFile();
+        if (!file.exists() && temp.exists() && !temp.renameTo(file)) {
+            throw new IOException("Cannot restore checkpoint " + file);
+        }
+        if (!file.isFile() || file.length() == 0) {
+            return;
+        }
+        final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (file.length() < 8 || in.readInt() != MAGIC
+                    || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a checkpoint file");
+            }
+            int type;
+            while ((type = in.read()) >= 0) {
+                apply(Record.readFrom((byte) type, in));
+            }
+        } catch (EOFException e) {
+            LOG.warn("Incomplete record at the end of checkpoint {} ignored",
+                    file);
+        } finally {
+            in.close();
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        final File temp = getTempFile();
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Map.Entry<String, Integer> position : positions.entrySet()) {
+                new Record(POSITION, position.getKey(), position.getValue())
+                        .writeTo(out);
+            }
+            for (Map.Entry<String, Object> var : variables.entrySet()) {
+                new Record(VARIABLE, var.getKey(), var.getValue()).writeTo(out);
+            }
+            new Record(COOKIES, "", cookies).writeTo(out);
+        } finally {
+            out.close();
+        }
+        if ((!file.delete() && file.exists()) || !temp.renameTo(file)) {
+            throw new IOException("Cannot replace checkpoint " + file);
+        }
+        records = 0;
+    }
+
+    private void openJournal() throws IOException {
+        stream = new FileOutputStream(file, true);
+        journal = new DataOutputStream(new BufferedOutputStream(stream));
+    }
+
+    private File getTempFile() {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    private List<List<String>> snapshotCookies() {
+        if (httpClientManager == null) {
+            return null;
+        }
+        final Cookie[] current =
+            httpClientManager.get().getHttpClient().getState().getCookies();
+        final List<List<String>> result =
+            new ArrayList<List<String>>(current.length);
+        for (Cookie cookie : current) {
+            final Date expiry = cookie.getExpiryDate();
+            result.add(Arrays.asList(cookie.getDomain(), cookie.getName(),
+                    cookie.getValue(), cookie.getPath(),
+                    (expiry == null) ? null : String.valueOf(expiry.getTime()),
+                    String.valueOf(cookie.getSecure())));
+        }
+        return result;
+    }
+
+    private static Cookie toCookie(final List<String> cookie) {
+        final String expiry = cookie.get(4);
+        return new Cookie(cookie.get(0), cookie.get(1), cookie.get(2),
+                cookie.get(3),
+                (expiry == null) ? null : new Date(Long.parseLong(expiry)),
+                Boolean.parseBoolean(cookie.get(5)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<String>> asCookies(final Object value) {
+        return (List<List<String>>) value;
+    }
+
+    // Converts variable to text or list of texts
+    private static Object snapshot(final Variable variable) {
+        if (variable == null) {
+            return null;
+        }
+        if (variable instanceof ListVariable) {
+            final List<Variable> items = variable.toList();
+            final List<String> result = new ArrayList<String>(items.size());
+            for (Variable item : items) {
+                result.add(item.toString());
+            }
+            return result;
+        }
+        return variable.toString();
+    }
+
+    private static Variable toVariable(final Object snapshot) {
+        if (snapshot instanceof List) {
+            final List<Variable> items = new ArrayList<Variable>();
+            for (Object item : (List<?>) snapshot) {
+                items.add(new NodeVariable(item));
+            }
+            return new ListVariable(items);
+        }
+        return new NodeVariable(snapshot);
+    }
+
+    /**
+     * Loops executed within single iteration of enclosing loop (or outside of
+     * any loop), counting executions of every loop.
+     */
+    static final class Frame {
+
+        private final String path;
+
+        private final Map<String, Integer> executions =
+            new HashMap<String, Integer>();
+
+        Frame(final String path) {
+            this.path = path;
+        }
+
+        synchronized String nextLoopPath(final String loopKey) {
+            final Integer previous = executions.get(loopKey);
+            final int execution = (previous == null) ? 1 : previous + 1;
+            executions.put(loopKey, execution);
+            return path + "/" + loopKey + "#" + execution;
+        }
+
+    }
+
+    /**
+     * Single change of the checkpoint, as written to the journal.
+     */
+    private static final class Record {
+
+        private final byte type;
+
+        private final String key;
+
+        private final Object value;
+
+        Record(final byte type, final String key, final Object value) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+        }
+
+        String getPendingKey() {
+            return (char) type + key;
+        }
+
+        void writeTo(final DataOutputStream out) throws IOException {
+            out.writeByte(type);
+            writeString(out, key);
+            switch (type) {
+            case POSITION:
+                out.writeInt((Integer) value);
+                break;
+            case VARIABLE:
+                if (value == null) {
+                    out.writeByte(UNDEFINED);
+                } else if (value instanceof List) {
+                    out.writeByte(LIST);
+                    writeStrings(out, (List<?>) value);
+                } else {
+                    out.writeByte(TEXT);
+                    writeString(out, (String) value);
+                }
+                break;
+            case COOKIES:
+                final List<List<String>> cookies = asCookies(value);
+                out.writeInt(cookies.size());
+                for (List<String> cookie : cookies) {
+                    writeStrings(out, cookie);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        static Record readFrom(final byte type, final DataInputStream in)
+                throws IOException {
+            final String key = readString(in);
+            switch (type) {
+            case POSITION:
+                return new Record(type, key, in.readInt());
+            case REMOVAL:
+                return new Record(type, key, null);
+            case VARIABLE:
+                final byte kind = in.readByte();
+                return new Record(type, key, (kind == LIST) ? readStrings(in)
+                        : (kind == TEXT) ? readString(in) : null);
+            case COOKIES:
+                final int count = in.readInt();
+                final List<List<String>> cookies =
+                    new ArrayList<List<String>>(count);
+                for (int i = 0; i < count; i++) {
+                    cookies.add(readStrings(in));
+                }
+                return new Record(type, key, cookies);
+            default:
+                throw new IOException("Corrupted checkpoint record " + type);
+            }
+        }
+
+        private static void writeString(final DataOutputStream out,
+                final String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                final byte[] bytes = value.getBytes("UTF-8");
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private static String readString(final DataInputStream in)
+                throws IOException {
+            final int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, "UTF-8");
+        }
+
+        private static void writeStrings(final DataOutputStream out,
+                final List<?> values) throws IOException {
+            out.writeInt(values.size());
+            for (Object value : values) {
+                writeString(out, (String) value);
+            }
+        }
+
+        private static List<String> readStrings(final DataInputStream in)
+                throws IOException {
+            final int count = in.readInt();
+            final List<String> values = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString(in));
+            }
+            return values;
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.checkpoint;
+
+import java.util.concurrent.Callable;
+
+import org.webharvest.runtime.DynamicScopeContext;
+
+/**
+ * Checkpoint of single loop execution, obtained with
+ * {@link Checkpointer#enterLoop(org.webharvest.definition.IElementDef)}.
+ * Sequential loop skips {@link #getCompletedIterations() completed
+ * iterations}, marks the others with {@link #beginIteration(int)} and
+ * {@link #endIteration(int, DynamicScopeContext)}, and finally
+ * {@link #exit() exits} the checkpoint, also when it fails. Iterations of
+ * parallel loop are {@link #iteration(int, Callable) wrapped} instead, and the
+ * loop is {@link #complete(int, DynamicScopeContext) completed} as a whole,
+ * once all iteration results are merged.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class LoopCheckpoint {
+
+    private final FileCheckpointer checkpointer;
+
+    private final String path;
+
+    private final FileCheckpointer.Frame outer;
+
+    private final int completedIterations;
+
+    LoopCheckpoint(final FileCheckpointer checkpointer, final String path,
+            final FileCheckpointer.Frame outer, final int completedIterations) {
+        this.checkpointer = checkpointer;
+        this.path = path;
+        this.outer = outer;
+        this.completedIterations = completedIterations;
+    }
+
+    /**
+     * Returns number of iterations completed before the checkpoint was taken;
+     * they are to be skipped.
+     */
+    public int getCompletedIterations() {
+        return completedIterations;
+    }
+
+    /**
+     * Marks beginning of specified iteration in the current thread, so that
+     * loops nested in the iteration are told apart from the ones nested in
+     * other iterations.
+     *
+     * @param index
+     *            index of the iteration, starting from {@code 1}
+     */
+    public void beginIteration(final int index) {
+        checkpointer.setFrame(new FileCheckpointer.Frame(iterationPath(index)));
+    }
+
+    /**
+     * Records completion of specified iteration, together with current values
+     * of selected variables of specified context and HTTP cookies.
+     *
+     * @param index
+     *            index of the iteration, starting from {@code 1}
+     * @param context
+     *            context of the loop
+     */
+    public void endIteration(final int index,
+            final DynamicScopeContext context) {
+        checkpointer.setFrame(outer);
+        checkpointer.completed(path, index, iterationPath(index) + "/",
+                context);
+    }
+
+    /**
+     * Wraps task executing specified iteration in another thread, so that
+     * loops nested in the iteration are checkpointed as if it was executed
+     * by {@link #beginIteration(int)}.
+     *
+     * @param index
+     *            index of the iteration, starting from {@code 1}
+     * @param task
+     *            iteration task
+     * @return wrapped task
+     */
+    public <T> Callable<T> iteration(final int index, final Callable<T> task) {
+        final String iterationPath = iterationPath(index);
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                final FileCheckpointer.Frame previous =
+                    checkpointer.setFrame(
+                            new FileCheckpointer.Frame(iterationPath));
+                try {
+                    return task.call();
+                } finally {
+                    checkpointer.setFrame(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Records completion of all iterations of the loop up to the specified
+     * one, together with current values of selected variables of specified
+     * context and HTTP cookies.
+     *
+     * @param iterations
+     *            number of completed iterations
+     * @param context
+     *            context of the loop
+     */
+    public void complete(final int iterations,
+            final DynamicScopeContext context) {
+        checkpointer.setFrame(outer);
+        checkpointer.completed(path, iterations, path + "[", context);
+    }
+
+    /**
+     * Leaves the loop in the current thread.
+     */
+    public void exit() {
+        checkpointer.setFrame(outer);
+    }
+
+    private String iterationPath(final int index) {
+        return path + "[" + index + "]";
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.debug;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.saxon.trans.XPathException;
+
+import org.webharvest.exception.ScraperXQueryException;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.XmlNodeWrapper;
+
+/**
+ * Single debug entry: processor id and textual chunks of its result, limited
+ * to configured number of characters. Chunks are string representations of
+ * single list items, so the entry is prepared without concatenating the
+ * whole (list) variable; content beyond the limit is not even converted to
+ * text. XML items are serialized only up to the limit, so neither big pages
+ * nor lazily serialized trees are turned into text as a whole.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+final class DebugEntry {
+
+    private final String processorId;
+
+    private final List<String> chunks = new ArrayList<String>();
+
+    private int remaining;
+
+    private boolean truncated;
+
+    DebugEntry(final String processorId, final Variable value,
+            final int maxLength) {
+        this.processorId = processorId;
+        this.remaining = maxLength;
+        collect(value);
+    }
+
+    private void collect(final Variable value) {
+        if (value instanceof ListVariable) {
+            for (Variable item : value.toList()) {
+                if (truncated) {
+                    return;
+                }
+                collect(item);
+            }
+            return;
+        }
+        // one character over the limit tells the item has been truncated
+        final String text = read(value, Math.max(remaining, 0) + 1);
+        if (text.length() == 0) {
+            return;
+        }
+        if (remaining <= 0) {
+            truncated = true;
+            return;
+        }
+        // counting the new line delimiting list items
+        remaining -= chunks.isEmpty() ? text.length() : text.length() + 1;
+        chunks.add(text);
+        if (remaining < 0) {
+            truncated = true;
+        }
+    }
+
+    /**
+     * Returns at most {@code maxLength} leading characters of the value's
+     * text. Only the leading part of XML item is serialized, other values
+     * are converted to text as usual, but only its leading part is kept.
+     */
+    private static String read(final Variable value, final int maxLength) {
+        final Object wrapped = value.getWrappedObject();
+        if (wrapped instanceof XmlNodeWrapper) {
+            final LimitedWriter writer = new LimitedWriter(maxLength);
+            try {
+                ((XmlNodeWrapper) wrapped).writeTo(writer);
+            } catch (XPathException e) {
+                if (!writer.isFull()) {
+                    throw new ScraperXQueryException(
+                            "Error serializing XML item!", e);
+                }
+            } catch (IOException e) {
+                if (!writer.isFull()) {
+                    throw new ScraperXQueryException(
+                            "Error serializing XML item!", e);
+                }
+            }
+            return writer.toString();
+        }
+        final String text = value.toString();
+        // copied, so the whole text is not held by the entry
+        return (text.length() > maxLength)
+                ? new String(text.substring(0, maxLength)) : text;
+    }
+
+    /**
+     * Writes the entry in format "[id]\n&lt;content&gt;\n\n", where list items
+     * are delimited with new lines (as in {@link ListVariable#toString()}).
+     */
+    void writeTo(final Appendable out, final int maxLength)
+            throws IOException {
+        out.append('[').append(processorId).append("]\n");
+        int left = maxLength;
+        for (int i = 0; i < chunks.size() && left > 0; i++) {
+            final String chunk = chunks.get(i);
+            if (i > 0) {
+                out.append('\n');
+                left--;
+            }
+            final int length = Math.min(chunk.length(), Math.max(left, 0));
+            out.append(chunk, 0, length);
+            left -= length;
+        }
+        if (truncated) {
+            out.append("\n... [truncated at ").append(
+                    String.valueOf(maxLength)).append(" characters]");
+        }
+        out.append("\n\n");
+    }
+
+    /**
+     * Writer keeping up to given number of characters. Once it is full, any
+     * further write fails, which stops the serialization feeding it.
+     */
+    private static final class LimitedWriter extends Writer {
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        private final int maxLength;
+
+        private boolean full;
+
+        LimitedWriter(final int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(final char[] chars, final int offset,
+                final int length) throws IOException {
+            final int free = maxLength - buffer.length();
+            if (length > free) {
+                buffer.append(chars, offset, free);
+                full = true;
+                throw new IOException("Debug entry limit reached");
+            }
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        boolean isFull() {
+            return full;
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.debug;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.webharvest.ioc.DebugFileLogger;
+import org.webharvest.runtime.variables.Variable;
+
+import com.google.inject.Inject;
+
+/**
+ * {@link DebugSink} writing entries synchronously to the
+ * {@link DebugFileLogger}, enabled when the logger is at TRACE level. Every
+ * entry is limited to {@link #DEFAULT_MAX_ENTRY_LENGTH} characters.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see StreamingDebugSink
+ */
+public final class LoggerDebugSink implements DebugSink {
+
+    /**
+     * Default maximum number of characters of single entry content.
+     */
+    public static final int DEFAULT_MAX_ENTRY_LENGTH = 256 * 1024;
+
+    private final Logger logger;
+
+    /**
+     * Class constructor expecting the {@link DebugFileLogger} to be injected.
+     *
+     * @param logger
+     *            debug file logger
+     */
+    @Inject
+    public LoggerDebugSink(@DebugFileLogger final Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return logger.isTraceEnabled();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final String processorId, final Variable value) {
+        if (processorId == null || value == null || !isEnabled()) {
+            return;
+        }
+        final StringBuilder buffer = new StringBuilder();
+        try {
+            new DebugEntry(processorId, value, DEFAULT_MAX_ENTRY_LENGTH)
+                    .writeTo(buffer, DEFAULT_MAX_ENTRY_LENGTH);
+        } catch (IOException e) {
+            throw new AssertionError("This should never happen");
+        }
+        logger.trace(buffer.toString());
+    }
+
+}
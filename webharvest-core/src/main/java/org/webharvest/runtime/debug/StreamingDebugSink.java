@@ -0,0 +1,225 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.debug;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.runtime.variables.EmptyVariable;
+import org.webharvest.runtime.variables.Variable;
+
+/**
+ * {@link DebugSink} streaming entries to a {@link Writer} (usually the
+ * _DEBUG file) on a background thread. Scraping threads only collect
+ * references to textual chunks of the result (up to the entry length limit)
+ * and enqueue them; the content is written chunk by chunk, without building
+ * the whole entry in memory. When the queue is full, scraping threads wait
+ * for the writer, so no entries are lost.
+ * <p/>
+ * The sink must be {@link #close() closed} to flush pending entries.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class StreamingDebugSink implements DebugSink, Closeable {
+
+    private static final Logger LOG = LoggerFactory
+            .getLogger(StreamingDebugSink.class);
+
+    /**
+     * Default maximum number of characters of single entry content.
+     */
+    public static final int DEFAULT_MAX_ENTRY_LENGTH =
+        LoggerDebugSink.DEFAULT_MAX_ENTRY_LENGTH;
+
+    /**
+     * Default maximum number of entries waiting to be written.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private static final long OFFER_TIMEOUT = 100;
+
+    // Marks end of the stream
+    private static final DebugEntry END =
+        new DebugEntry(null, EmptyVariable.INSTANCE, 0);
+
+    private final Writer writer;
+
+    private final int maxEntryLength;
+
+    private final BlockingQueue<DebugEntry> queue;
+
+    private final Thread worker;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates sink overwriting specified file, with default limits.
+     *
+     * @param file
+     *            debug file
+     * @throws IOException
+     *             if the file can not be opened
+     */
+    public StreamingDebugSink(final File file) throws IOException {
+        this(new FileWriter(file), DEFAULT_MAX_ENTRY_LENGTH,
+                DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates sink writing to specified {@link Writer}.
+     *
+     * @param writer
+     *            destination of debug entries; closed with the sink
+     * @param maxEntryLength
+     *            maximum number of characters of single entry content
+     * @param queueCapacity
+     *            maximum number of entries waiting to be written
+     */
+    public StreamingDebugSink(final Writer writer, final int maxEntryLength,
+            final int queueCapacity) {
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer is required");
+        }
+        if (maxEntryLength <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Limits must be positive numbers");
+        }
+        this.writer = new BufferedWriter(writer);
+        this.maxEntryLength = maxEntryLength;
+        this.queue = new ArrayBlockingQueue<DebugEntry>(queueCapacity);
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "webharvest-debug-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return !closed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final String processorId, final Variable value) {
+        if (processorId == null || value == null || closed) {
+            return;
+        }
+        final DebugEntry entry =
+            new DebugEntry(processorId, value, maxEntryLength);
+        try {
+            while (!queue.offer(entry, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes all pending entries and closes the underlying writer. Blocks
+     * until it is done.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        boolean ended = false;
+        while (worker.isAlive()) {
+            try {
+                if (!ended) {
+                    queue.put(END);
+                    ended = true;
+                }
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                final DebugEntry entry = queue.take();
+                if (entry == END) {
+                    break;
+                }
+                try {
+                    entry.writeTo(writer, maxEntryLength);
+                    if (queue.isEmpty()) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    LOG.error("Cannot write debug entry", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("Debug writer interrupted, pending entries are lost");
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOG.error("Cannot close debug writer", e);
+            }
+        }
+    }
+
+}
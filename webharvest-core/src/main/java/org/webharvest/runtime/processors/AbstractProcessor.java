@@ -38,15 +38,21 @@ package org.webharvest.runtime.processors;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.apache.commons.lang.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.webharvest.WHConstants;
 import org.webharvest.definition.IElementDef;
 import org.webharvest.events.ProcessorStartEvent;
 import org.webharvest.events.ProcessorStopEvent;
-import org.webharvest.ioc.DebugFileLogger;
+import org.webharvest.exception.DeadlineExceededException;
+import org.webharvest.runtime.Deadline;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.ProcessorInstrumentation;
+import org.webharvest.runtime.debug.DebugSink;
 import org.webharvest.runtime.templaters.BaseTemplater;
 import org.webharvest.runtime.variables.EmptyVariable;
 import org.webharvest.runtime.variables.Variable;
@@ -55,6 +61,7 @@ import org.webharvest.utils.KeyValuePair;
 
 import com.google.common.eventbus.EventBus;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 
 /**
  * Base processor that contains common processor logic.
@@ -65,7 +72,7 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
     // TODO Consider making it a static logger
     protected static final Logger LOG = LoggerFactory.getLogger(AbstractProcessor.class);
 
-    @DebugFileLogger @Inject private Logger debugFileLogger;
+    @Inject private DebugSink debugSink;
 
     abstract protected Variable execute(DynamicScopeContext context) throws InterruptedException;
 
@@ -75,8 +82,17 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
 
     private Processor parentProcessor;
 
+    // Resolved on every run, since the processor may outlive single scraping
+    // (see Stateless)
     @Inject
-    private EventBus eventBus;
+    private Provider<EventBus> eventBus;
+
+    @Inject
+    private ProcessorInstrumentation instrumentation;
+
+    // Bodies executed on behalf of this processor, built (and injected) once
+    // per definition; created lazily, as most processors have no body
+    private volatile ConcurrentMap<IElementDef, BodyProcessor> bodies;
 
     protected AbstractProcessor() {
     }
@@ -91,9 +107,116 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
             throw new InterruptedException();
         }
 
+        final ExecutionFrame frame = ExecutionFrame.enter(this,
+                parentProcessor, properties);
+        try {
+            final long timeout = evaluateTimeout(context);
+            return (timeout < 0) ? runInFrame(context, frame)
+                    : runWithinDeadline(context, frame, timeout);
+        } finally {
+            frame.exit();
+        }
+    }
+
+    private Variable runInFrame(final DynamicScopeContext context,
+            final ExecutionFrame frame) throws InterruptedException {
+        return instrumentation.isActive() ? run(context, frame)
+                : runUninstrumented(context);
+    }
+
+    /**
+     * Executes processor within the deadline started for its timeout. Failure
+     * caused by expiration of the deadline (the thread is interrupted and
+     * pending I/O operations are cancelled) is reported as
+     * {@link DeadlineExceededException}, which can be handled by the
+     * enclosing try processor.
+     */
+    private Variable runWithinDeadline(final DynamicScopeContext context,
+            final ExecutionFrame frame, final long timeout)
+            throws InterruptedException {
+        final Deadline deadline = Deadline.start(timeout);
+        try {
+            final Variable result;
+            try {
+                result = runInFrame(context, frame);
+            } catch (InterruptedException e) {
+                if (deadline.finish()) {
+                    throw deadlineExceeded(timeout, e);
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                if (deadline.finish()) {
+                    throw deadlineExceeded(timeout, e);
+                }
+                throw e;
+            }
+            // operations cancelled on expiration may have produced partial
+            // results, which must not be taken for the complete ones
+            if (deadline.finish()) {
+                throw deadlineExceeded(timeout, null);
+            }
+            return result;
+        } finally {
+            deadline.finish();
+        }
+    }
+
+    private DeadlineExceededException deadlineExceeded(final long timeout,
+            final Exception cause) {
+        if (cause instanceof DeadlineExceededException) {
+            return (DeadlineExceededException) cause;
+        }
+        return new DeadlineExceededException(getClass().getSimpleName()
+                + " exceeded timeout of " + timeout + "ms", cause);
+    }
+
+    /**
+     * Returns timeout of the processor in milliseconds or negative value if
+     * its execution is not limited.
+     */
+    private long evaluateTimeout(final DynamicScopeContext context) {
+        if (elementDef == null || !isTimeoutSupported()) {
+            return -1;
+        }
+        final String timeout = elementDef.getTimeout();
+        if (timeout == null) {
+            return -1;
+        }
+        return NumberUtils.toLong(BaseTemplater.evaluateToString(timeout,
+                null, context), -1);
+    }
+
+    /**
+     * Tells whether the {@code timeout} attribute of the element definition
+     * applies to this processor. Processors which execute body on behalf of
+     * another processor (sharing its element definition) should not apply it
+     * twice.
+     *
+     * @return {@code true} by default
+     */
+    protected boolean isTimeoutSupported() {
+        return true;
+    }
+
+    /**
+     * Executes processor in zero-overhead mode: no events, no runtime
+     * properties and no per-processor logging. The id is evaluated only if
+     * debug file output is enabled.
+     */
+    private Variable runUninstrumented(final DynamicScopeContext context)
+            throws InterruptedException {
+        final String id = debugSink.isEnabled()
+                ? evaluateId(this.elementDef, context) : null;
+        final Variable result = execute(context);
+        writeDebugFile(id, result);
+        return result;
+    }
+
+    private Variable run(final DynamicScopeContext context,
+            final ExecutionFrame frame) throws InterruptedException {
         final long startTime = System.currentTimeMillis();
 
-        final String id = (this.elementDef != null) ? BaseTemplater.evaluateToString(this.elementDef.getId(), null, context) : null;
+        final String id = evaluateId(this.elementDef, context);
 
         setProperty("ID", id);
 
@@ -107,7 +230,7 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
                     id != null ? "[ID=" + id + "] " : ""});
         }
 
-        eventBus.post(new ProcessorStartEvent(this));
+        eventBus.get().post(new ProcessorStartEvent(this));
 
         final Variable result = execute(context);
         final long executionTime = System.currentTimeMillis() - startTime;
@@ -115,7 +238,7 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
         setProperty(WHConstants.EXECUTION_TIME_PROPERTY_NAME, executionTime);
         setProperty(WHConstants.VALUE_PROPERTY_NAME, result);
 
-        eventBus.post(new ProcessorStopEvent(this, properties));
+        eventBus.get().post(new ProcessorStopEvent(this, frame.getProperties()));
 
         writeDebugFile(id, result);
 
@@ -134,7 +257,9 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
     }
 
     /**
-     * Defines processor runtime property with specified name and value.
+     * Defines processor runtime property with specified name and value. While
+     * the processor is running, the property belongs to the current execution
+     * only.
      *
      * @param name
      *            name of the property
@@ -142,20 +267,26 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
      *            value of the property
      */
     protected void setProperty(String name, Object value) {
-        if (name != null && !"".equals(name) && value != null) {
-            this.properties.put(name, value);
+        if (name != null && !"".equals(name) && value != null
+                && instrumentation.isActive()) {
+            final ExecutionFrame frame = ExecutionFrame.find(this);
+            (frame != null ? frame.getProperties() : this.properties).put(
+                    name, value);
         }
     }
 
     protected Variable getBodyTextContent(IElementDef elementDef, DynamicScopeContext context,
                                           boolean registerExecution, KeyValuePair properties[]) throws InterruptedException {
         if (elementDef.hasOperations()) {
-            BodyProcessor bodyProcessor = new BodyProcessor.Builder(elementDef).
-                setParentProcessor(this).build();
+            final BodyProcessor bodyProcessor;
             if (properties != null) {
+                // properties belong to this execution only, so the body can't be shared
+                bodyProcessor = new BodyProcessor.Builder(elementDef).setParentProcessor(this).build();
                 for (KeyValuePair property : properties) {
                     bodyProcessor.setProperty(property.getKey(), property.getValue());
                 }
+            } else {
+                bodyProcessor = getBodyProcessor(elementDef);
             }
             return registerExecution ? bodyProcessor.run(context) : bodyProcessor.execute(context);
         }
@@ -171,6 +302,38 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
         return getBodyTextContent(elementDef, context, false);
     }
 
+    /**
+     * Returns processor executing body of the given definition on behalf of
+     * this processor. It is built once per definition and then reused by all
+     * executions of this processor, which saves creating and injecting it over
+     * and over (especially within loops). As the body is shared, runtime
+     * properties must not be set on it outside of its execution.
+     *
+     * @param bodyDef
+     *            definition which body is going to be executed; this
+     *            processor's definition or one of its parts
+     * @return body processor having this processor as a parent
+     */
+    protected BodyProcessor getBodyProcessor(final IElementDef bodyDef) {
+        ConcurrentMap<IElementDef, BodyProcessor> cached = bodies;
+        if (cached == null) {
+            synchronized (this) {
+                cached = bodies;
+                if (cached == null) {
+                    cached = new ConcurrentHashMap<IElementDef, BodyProcessor>(4, 0.75f, 1);
+                    bodies = cached;
+                }
+            }
+        }
+        final BodyProcessor body = cached.get(bodyDef);
+        if (body != null) {
+            return body;
+        }
+        final BodyProcessor built = new BodyProcessor.Builder(bodyDef).setParentProcessor(this).build();
+        final BodyProcessor previous = cached.putIfAbsent(bodyDef, built);
+        return (previous != null) ? previous : built;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -190,15 +353,20 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
     //TODO: can we remove elementDef parameter? (it is already accessible as a field)
     protected void debug(final IElementDef elementDef,
             final DynamicScopeContext context, final Variable variable) {
-        final String id = (elementDef != null) ? BaseTemplater.evaluateToString(
-                elementDef.getId(), null, context) : null;
-        writeDebugFile(id, variable);
+        if (debugSink.isEnabled()) {
+            writeDebugFile(evaluateId(elementDef, context), variable);
+        }
+    }
 
+    private static String evaluateId(final IElementDef elementDef,
+            final DynamicScopeContext context) {
+        return (elementDef != null) ? BaseTemplater.evaluateToString(
+                elementDef.getId(), null, context) : null;
     }
 
     private void writeDebugFile(final String processorId, final Variable var) {
         if (processorId != null && var != null) {
-            debugFileLogger.trace("[{}]\n{}\n\n", processorId, var.toString());
+            debugSink.write(processorId, var);
         }
     }
 
@@ -215,7 +383,8 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
      */
     @Override
     public Processor getParentProcessor() {
-        return parentProcessor;
+        final ExecutionFrame frame = ExecutionFrame.find(this);
+        return frame != null ? frame.getParentProcessor() : parentProcessor;
     }
 
     /**
@@ -223,8 +392,8 @@ public abstract class AbstractProcessor<TDef extends IElementDef> implements Pro
      */
     @Override
     public int getRunningLevel() {
-        return parentProcessor == null ? 1 :
-            parentProcessor.getRunningLevel() + 1;
+        final Processor parent = getParentProcessor();
+        return parent == null ? 1 : parent.getRunningLevel() + 1;
     }
 
 }
\ No newline at end of file
@@ -24,10 +24,7 @@ public class BodyProcessor extends AbstractProcessor<IElementDef> {
             return context.executeWithinNewContext(new Callable<Variable>() {
                 @Override
                 public Variable call() throws Exception {
-                    final Processor processor = ProcessorResolver
-                            .createProcessor(defs[0]);
-                    processor.setParentProcessor(getParentProcessor());
-                    return CommonUtil.createVariable(processor.run(context));
+                    return CommonUtil.createVariable(runChild(defs[0], context));
                 }
             });
         }
@@ -37,10 +34,7 @@ public class BodyProcessor extends AbstractProcessor<IElementDef> {
             public Variable call() throws Exception {
                 final ListVariable result = new ListVariable();
                 for (IElementDef def : defs) {
-                    final Processor processor = ProcessorResolver
-                            .createProcessor(def);
-                    processor.setParentProcessor(getParentProcessor());
-                    final Variable variable = processor.run(context);
+                    final Variable variable = runChild(def, context);
                     if (!variable.isEmpty()) {
                         result.addVariable(variable);
                     }
@@ -52,6 +46,32 @@ public class BodyProcessor extends AbstractProcessor<IElementDef> {
         });
     }
 
+    /**
+     * Body shares element definition with the processor it is executed for,
+     * which has already applied the timeout.
+     */
+    @Override
+    protected boolean isTimeoutSupported() {
+        return false;
+    }
+
+    /**
+     * Runs processor of the given child definition on behalf of this body's
+     * parent. The parent is passed through the execution frame rather than
+     * set on the processor, as the processor may be shared (see
+     * {@link Stateless}).
+     */
+    private Variable runChild(final IElementDef def,
+            final DynamicScopeContext context) throws InterruptedException {
+        final Processor processor = ProcessorResolver.createProcessor(def);
+        ExecutionFrame.setNextParent(getParentProcessor());
+        try {
+            return processor.run(context);
+        } finally {
+            ExecutionFrame.clearNextParent();
+        }
+    }
+
     /**
      * A builder responsible for creating instance of {@link BodyProcessor} and
      * completing it with appropriate {@link IElementDef}.
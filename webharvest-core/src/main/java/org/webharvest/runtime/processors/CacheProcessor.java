@@ -0,0 +1,182 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.processors;
+
+import static org.webharvest.WHConstants.XMLNS_CORE;
+
+import java.io.File;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.webharvest.ExpiringCache;
+import org.webharvest.annotation.Definition;
+import org.webharvest.definition.CacheDef;
+import org.webharvest.ioc.WorkingDir;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.cache.CachedResult;
+import org.webharvest.runtime.cache.ResultCaches;
+import org.webharvest.runtime.processors.plugins.Autoscanned;
+import org.webharvest.runtime.processors.plugins.TargetNamespace;
+import org.webharvest.runtime.templaters.BaseTemplater;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.CommonUtil;
+
+import com.google.inject.Inject;
+
+/**
+ * Memoizing processor. Result of its body is cached under the key evaluated
+ * from the {@code key} template and returned by subsequent executions of any
+ * {@code cache} element using the same cache and key, without executing the
+ * body again. Body executed on a cache miss may be executed concurrently by
+ * several threads looking up the same key; the last result wins.
+ * <p/>
+ * Results are held in memory by default, in the size-bounded cache of the
+ * given {@code name}, for as long as the application runs. With
+ * {@code store="disk"} they are stored in the given directory (by default
+ * subdirectory of the working directory named after the cache), so they
+ * survive restarts too. Only text and binary content of results is stored on
+ * disk. Results expire after {@code ttl} seconds, if given.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see ResultCaches
+ */
+@Autoscanned
+@TargetNamespace(XMLNS_CORE)
+@Definition(value = "cache", validAttributes = { "id", "key", "ttl",
+        "store(memory;disk)", "name", "size", "compress(false;true)", "dir" },
+        requiredAttributes = { "key" }, definitionClass = CacheDef.class)
+@Stateless
+public class CacheProcessor extends AbstractProcessor<CacheDef> {
+
+    /**
+     * Name of the cache used if not specified.
+     */
+    public static final String DEFAULT_NAME = "default";
+
+    /**
+     * Maximum number of results held by a cache, if not specified.
+     */
+    public static final int DEFAULT_SIZE = 1000;
+
+    private static final String CACHE_DIR = ".webharvest-cache";
+
+    @Inject
+    private ResultCaches caches;
+
+    @Inject(optional = true)
+    @WorkingDir
+    private String workingDir;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Variable execute(final DynamicScopeContext context)
+            throws InterruptedException {
+        final String key = evaluate(elementDef.getKey(), context);
+        final String store = evaluate(elementDef.getStore(), context);
+        final boolean disk = "disk".equalsIgnoreCase(store);
+        String name = evaluate(elementDef.getName(), context);
+        if (CommonUtil.isEmpty(name)) {
+            name = DEFAULT_NAME;
+        }
+        final int size = NumberUtils.toInt(
+                evaluate(elementDef.getSize(), context), DEFAULT_SIZE);
+        final long ttl = 1000L * NumberUtils.toLong(
+                evaluate(elementDef.getTtl(), context), 0);
+
+        this.setProperty("Key", key);
+        this.setProperty("Store", disk ? "disk" : "memory");
+        this.setProperty("Name", name);
+
+        if (disk) {
+            final ExpiringCache<String, CachedResult> cache = caches.disk(
+                    getDirectory(name, context), size,
+                    CommonUtil.getBooleanValue(
+                            evaluate(elementDef.getCompress(), context), false));
+            final CachedResult cached = cache.lookup(key);
+            this.setProperty("Hit", String.valueOf(cached != null));
+            if (cached != null) {
+                return cached.toVariable();
+            }
+            final Variable result = executeBody(context);
+            cache.put(key, CachedResult.of(result), ttl);
+            logStatistics(name, cache);
+            return result;
+        } else {
+            final ExpiringCache<String, Variable> cache = caches.memory(name,
+                    size);
+            final Variable cached = cache.lookup(key);
+            this.setProperty("Hit", String.valueOf(cached != null));
+            if (cached != null) {
+                return cached;
+            }
+            final Variable result = executeBody(context);
+            cache.put(key, result, ttl);
+            logStatistics(name, cache);
+            return result;
+        }
+    }
+
+    private Variable executeBody(final DynamicScopeContext context)
+            throws InterruptedException {
+        return getBodyProcessor(elementDef).execute(context);
+    }
+
+    private File getDirectory(final String name,
+            final DynamicScopeContext context) {
+        final String dir = evaluate(elementDef.getDir(), context);
+        if (!CommonUtil.isEmpty(dir)) {
+            return (workingDir == null) ? new File(dir)
+                    : new File(CommonUtil.getAbsoluteFilename(workingDir, dir));
+        }
+        final File base = (workingDir == null)
+                ? new File(System.getProperty("java.io.tmpdir"))
+                : new File(workingDir);
+        return new File(new File(base, CACHE_DIR), name);
+    }
+
+    private static void logStatistics(final String name,
+            final ExpiringCache<String, ?> cache) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Cache '" + name + "': " + cache.getStatistics());
+        }
+    }
+
+    private static String evaluate(final String template,
+            final DynamicScopeContext context) {
+        return BaseTemplater.evaluateToString(template, null, context);
+    }
+
+}
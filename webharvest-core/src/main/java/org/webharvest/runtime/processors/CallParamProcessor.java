@@ -56,12 +56,20 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "call-param", validAttributes = { "id", "name" },
         requiredAttributes = "name", definitionClass = CallParamDef.class)
+@Stateless
 public class CallParamProcessor extends AbstractProcessor<CallParamDef> {
 
+    // compiled on first use, see CallProcessor
+    private volatile BodyProcessor body;
+
     public Variable execute(DynamicScopeContext context) throws InterruptedException {
         String name = BaseTemplater.evaluateToString(elementDef.getName(), null, context);
-        Variable variable = new BodyProcessor.Builder(elementDef).setParentProcessor(this).build().
-            execute(context);
+        BodyProcessor bodyProcessor = body;
+        if (bodyProcessor == null) {
+            bodyProcessor = new BodyProcessor.Builder(elementDef).setParentProcessor(this).build();
+            body = bodyProcessor;
+        }
+        Variable variable = bodyProcessor.execute(context);
 
         final CallProcessor parentProcessor =
             (CallProcessor) getParentProcessor();
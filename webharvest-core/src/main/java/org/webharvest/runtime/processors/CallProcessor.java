@@ -38,10 +38,12 @@ package org.webharvest.runtime.processors;
 
 import static org.webharvest.WHConstants.XMLNS_CORE;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.Callable;
 
+import org.webharvest.Cache;
 import org.webharvest.annotation.Definition;
 import org.webharvest.definition.CallDef;
 import org.webharvest.definition.FunctionDef;
@@ -56,24 +58,40 @@ import org.webharvest.runtime.variables.Variable;
 
 /**
  * Function call processor.
- */
-/**
- * Function call processor.
+ * <p/>
+ * Processor is compiled once per call element and shared by all its
+ * executions, including recursive and concurrent ones. State of a single
+ * call - parameters, bound positionally in order of their evaluation, and
+ * the returned value - is kept in a call frame of the current thread. Bodies
+ * of the call and of the called function are compiled on first use, so a
+ * call does not create and inject any processors.
+ * <p/>
+ * Result of a function declared with {@code memoize="true"} is cached by the
+ * context the function is registered in, so only for the scraping run, under
+ * digest of the values of the call parameters; the function is supposed to
+ * be pure.
  */
 //TODO Add unit test
-//TODO Add javadoc
 @Autoscanned
 @TargetNamespace({ XMLNS_CORE })
 @Definition(value = "call", validAttributes = { "id", "name" },
         requiredAttributes = "name", definitionClass = CallDef.class)
+@Stateless
 public class CallProcessor extends AbstractProcessor<CallDef> {
 
-    private Map<String, Variable> functionParams =
-        new HashMap<String, Variable>();
-    private Variable functionResult = new NodeVariable("");
+    private static final Variable DEFAULT_RESULT = new NodeVariable("");
+
+    private static final ThreadLocal<CallFrame> CURRENT_FRAME =
+        new ThreadLocal<CallFrame>();
+
+    private volatile BodyProcessor callBody;
+
+    private volatile FunctionBinding functionBinding;
 
     public Variable execute(final DynamicScopeContext context) throws InterruptedException {
-        String functionName = BaseTemplater.evaluateToString(elementDef.getName(), null, context);
+        final String functionName = elementDef.isTemplatedName()
+                ? BaseTemplater.evaluateToString(elementDef.getName(), null, context)
+                : elementDef.getName();
         final FunctionDef functionDef = context.getFunctionDef(functionName);
 
         this.setProperty("Name", functionName);
@@ -82,27 +100,47 @@ public class CallProcessor extends AbstractProcessor<CallDef> {
             throw new FunctionException("Function \"" + functionName + "\" is undefined!");
         }
 
-        // executes body of call processor
-        new BodyProcessor.Builder(elementDef).setParentProcessor(this).
-            build().execute(context);
+        final CallFrame frame = new CallFrame(this, CURRENT_FRAME.get());
+        CURRENT_FRAME.set(frame);
+        try {
+            // executes body of call processor, which binds the parameters
+            getCallBody().execute(context);
 
-        doCall(context, new Callable<Object>() {
+            final Cache<String, Variable> memo = context.getFunctionMemo(functionDef);
+            final String memoKey = (memo != null) ? frame.getMemoKey() : null;
+            if (memo != null) {
+                final Variable memoized = memo.lookup(memoKey);
+                if (memoized != null) {
+                    return memoized;
+                }
+            }
+
+            final BodyProcessor functionBody = getFunctionBody(functionDef);
+            doCall(context, new Callable<Object>() {
 
-            @Override
-            public Object call() throws InterruptedException {
-                for (Map.Entry<String, Variable> entry : functionParams.entrySet()) {
-                    context.setLocalVar(entry.getKey(), entry.getValue());
+                @Override
+                public Object call() throws InterruptedException {
+                    for (int i = 0; i < frame.size; i++) {
+                        context.setLocalVar(frame.names[i], frame.values[i]);
+                    }
+
+                    // executes body of function using new context
+                    functionBody.execute(context);
+                    return null;
                 }
+            });
 
-                // executes body of function using new context
-                new BodyProcessor.Builder(functionDef).
-                    setParentProcessor(CallProcessor.this).build().
-                        execute(context);
-                return null;
+            if (memo != null) {
+                memo.put(memoKey, frame.result);
             }
-        });
-
-        return functionResult;
+            return frame.result;
+        } finally {
+            if (frame.previous == null) {
+                CURRENT_FRAME.remove();
+            } else {
+                CURRENT_FRAME.set(frame.previous);
+            }
+        }
     }
 
     protected void doCall(DynamicScopeContext context, Callable<Object> callable) throws InterruptedException {
@@ -119,8 +157,15 @@ public class CallProcessor extends AbstractProcessor<CallDef> {
         }
     }
 
+    /**
+     * Sets value returned by the call of this processor, which is in
+     * progress on the current thread.
+     *
+     * @param result
+     *            value returned by the function
+     */
     public void setFunctionResult(Variable result) {
-        this.functionResult = result;
+        findFrame().result = result;
     }
 
     /**
@@ -132,7 +177,126 @@ public class CallProcessor extends AbstractProcessor<CallDef> {
      *            value of the parameter
      */
     public void addFunctionParam(final String name, final Variable value) {
-        functionParams.put(name, value);
+        findFrame().bind(name, value);
+    }
+
+    private CallFrame findFrame() {
+        for (CallFrame frame = CURRENT_FRAME.get(); frame != null;
+                frame = frame.previous) {
+            if (frame.processor == this) {
+                return frame;
+            }
+        }
+        throw new IllegalStateException("No call of function \""
+                + elementDef.getName() + "\" in progress");
+    }
+
+    private BodyProcessor getCallBody() {
+        BodyProcessor body = callBody;
+        if (body == null) {
+            // benign race: concurrent first calls may compile it twice
+            body = new BodyProcessor.Builder(elementDef).
+                setParentProcessor(this).build();
+            callBody = body;
+        }
+        return body;
+    }
+
+    private BodyProcessor getFunctionBody(final FunctionDef functionDef) {
+        FunctionBinding binding = functionBinding;
+        if (binding == null || binding.functionDef != functionDef) {
+            binding = new FunctionBinding(functionDef,
+                    new BodyProcessor.Builder(functionDef).
+                        setParentProcessor(this).build());
+            functionBinding = binding;
+        }
+        return binding.body;
+    }
+
+    /**
+     * Function definition together with its compiled body, resolved by the
+     * last execution of the call.
+     */
+    private static final class FunctionBinding {
+
+        private final FunctionDef functionDef;
+
+        private final BodyProcessor body;
+
+        FunctionBinding(final FunctionDef functionDef, final BodyProcessor body) {
+            this.functionDef = functionDef;
+            this.body = body;
+        }
+
+    }
+
+    /**
+     * State of a single call: parameters in order of their binding and the
+     * returned value. Frames of the calls in progress form a per-thread stack.
+     */
+    private static final class CallFrame {
+
+        private final CallProcessor processor;
+
+        private final CallFrame previous;
+
+        private String[] names = new String[4];
+
+        private Variable[] values = new Variable[4];
+
+        private int size;
+
+        private Variable result = DEFAULT_RESULT;
+
+        CallFrame(final CallProcessor processor, final CallFrame previous) {
+            this.processor = processor;
+            this.previous = previous;
+        }
+
+        void bind(final String name, final Variable value) {
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(name)) {
+                    values[i] = value;
+                    return;
+                }
+            }
+            if (size == names.length) {
+                final String[] newNames = new String[size * 2];
+                final Variable[] newValues = new Variable[size * 2];
+                System.arraycopy(names, 0, newNames, 0, size);
+                System.arraycopy(values, 0, newValues, 0, size);
+                names = newNames;
+                values = newValues;
+            }
+            names[size] = name;
+            values[size] = value;
+            size++;
+        }
+
+        /**
+         * SHA-1 digest of the parameters, so large values are not kept as
+         * keys of the memoized results.
+         */
+        String getMemoKey() {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                for (int i = 0; i < size; i++) {
+                    digest.update((names[i] + '=' + values[i] + '\u0000')
+                            .getBytes("UTF-8"));
+                }
+                final StringBuilder key = new StringBuilder();
+                for (byte b : digest.digest()) {
+                    key.append(Character.forDigit((b >> 4) & 0xF, 16));
+                    key.append(Character.forDigit(b & 0xF, 16));
+                }
+                return key.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
     }
 
 }
\ No newline at end of file
@@ -61,6 +61,7 @@ import org.webharvest.utils.CommonUtil;
 @Definition(value = "case", validAttributes = { "id" },
         validSubprocessors = { "if", "else" }, requiredSubprocessors = "if",
         definitionClass = CaseDef.class)
+@Stateless
 public class CaseProcessor extends AbstractProcessor<CaseDef> {
 
     public Variable execute(DynamicScopeContext context) throws InterruptedException {
@@ -70,8 +71,7 @@ public class CaseProcessor extends AbstractProcessor<CaseDef> {
             for (IfDef ifDef : ifDefs) {
                 String condition = BaseTemplater.evaluateToString(ifDef.getCondition(), null, context);
                 if (CommonUtil.isBooleanTrue(condition)) {
-                    Variable ifResult = new BodyProcessor.Builder(ifDef).
-                        setParentProcessor(this).build().run(context);
+                    Variable ifResult = getBodyProcessor(ifDef).run(context);
                     debug(ifDef, context, ifResult);
                     return ifResult;
                 }
@@ -80,8 +80,7 @@ public class CaseProcessor extends AbstractProcessor<CaseDef> {
 
         IElementDef elseDef = elementDef.getElseDef();
         if (elseDef != null) {
-            Variable elseResult = new BodyProcessor.Builder(elseDef).
-                setParentProcessor(this).build().run(context);
+            Variable elseResult = getBodyProcessor(elseDef).run(context);
             debug(elseDef, context, elseResult);
             return elseResult;
         }
@@ -44,6 +44,7 @@ import org.webharvest.runtime.variables.Variable;
 /**
  * Constant processor.
  */
+@Stateless
 public class ConstantProcessor extends AbstractProcessor<ConstantDef> {
 
     public Variable execute(DynamicScopeContext context) {
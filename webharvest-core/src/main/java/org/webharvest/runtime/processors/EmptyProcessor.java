@@ -57,6 +57,7 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "empty", validAttributes = "id",
         definitionClass = EmptyDef.class)
+@Stateless
 public class EmptyProcessor extends AbstractProcessor<EmptyDef> {
 
     /**
@@ -65,8 +66,7 @@ public class EmptyProcessor extends AbstractProcessor<EmptyDef> {
     @Override
     public Variable execute(DynamicScopeContext context)
             throws InterruptedException {
-        new BodyProcessor.Builder(elementDef).
-            setParentProcessor(this).build().execute(context);
+        getBodyProcessor(elementDef).execute(context);
 
         return EmptyVariable.INSTANCE;
     }
@@ -0,0 +1,154 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.processors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lightweight holder of the state of a single processor execution: runtime
+ * properties reported with {@link org.webharvest.events.ProcessorStopEvent}
+ * and the parent processor. Frames of the executions in progress form a
+ * per-thread stack, so the same (stateless) processor instance can be
+ * executed recursively or by many threads at once.
+ *
+ * @see Stateless
+ * @see AbstractProcessor
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+final class ExecutionFrame {
+
+    private static final ThreadLocal<ExecutionFrame> CURRENT =
+        new ThreadLocal<ExecutionFrame>();
+
+    private static final ThreadLocal<Processor> NEXT_PARENT =
+        new ThreadLocal<Processor>();
+
+    private final Processor processor;
+
+    private final Processor parentProcessor;
+
+    private final ExecutionFrame previous;
+
+    // Created lazily, as uninstrumented executions do not need it
+    private Map<String, Object> properties;
+
+    private ExecutionFrame(final Processor processor,
+            final Processor parentProcessor, final ExecutionFrame previous,
+            final Map<String, Object> properties) {
+        this.processor = processor;
+        this.parentProcessor = parentProcessor;
+        this.previous = previous;
+        this.properties = properties;
+    }
+
+    /**
+     * Sets parent of the processor which is going to be executed next by the
+     * current thread. Used by {@link BodyProcessor}, which can not set parent
+     * on possibly shared child processor instances. Must be followed by
+     * {@link #clearNextParent()} once the child execution is over.
+     */
+    static void setNextParent(final Processor parentProcessor) {
+        NEXT_PARENT.set(parentProcessor);
+    }
+
+    static void clearNextParent() {
+        NEXT_PARENT.remove();
+    }
+
+    /**
+     * Starts new execution frame of the given processor on the current thread.
+     *
+     * @param processor
+     *            processor being executed
+     * @param defaultParent
+     *            parent used if no parent has been announced with
+     *            {@link #setNextParent(Processor)}
+     * @param initialProperties
+     *            properties set before the execution started; copied
+     * @return started frame; must be finished with {@link #exit()}
+     */
+    static ExecutionFrame enter(final Processor processor,
+            final Processor defaultParent,
+            final Map<String, Object> initialProperties) {
+        final Processor nextParent = NEXT_PARENT.get();
+        NEXT_PARENT.remove();
+        final ExecutionFrame frame = new ExecutionFrame(processor,
+                nextParent != null ? nextParent : defaultParent,
+                CURRENT.get(), initialProperties.isEmpty() ? null
+                        : new LinkedHashMap<String, Object>(initialProperties));
+        CURRENT.set(frame);
+        return frame;
+    }
+
+    /**
+     * Finds the innermost frame of the given processor on the current thread.
+     *
+     * @return frame or {@code null} if the processor is not being executed
+     */
+    static ExecutionFrame find(final Processor processor) {
+        for (ExecutionFrame frame = CURRENT.get(); frame != null;
+                frame = frame.previous) {
+            if (frame.processor == processor) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finishes this frame, restoring the previous one.
+     */
+    void exit() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    Processor getParentProcessor() {
+        return parentProcessor;
+    }
+
+    Map<String, Object> getProperties() {
+        if (properties == null) {
+            properties = new LinkedHashMap<String, Object>();
+        }
+        return properties;
+    }
+
+}
@@ -77,6 +77,7 @@ import com.google.inject.Inject;
 @Definition(value = "file", validAttributes = { "id", "path", "action(read;write;append;list)", "type(text;binary)",
         "charset(*charset)", "listfilter", "listfiles(true;false)", "listdirs(true;false)", "listrecursive(true;false)" },
         requiredAttributes="path", definitionClass = FileDef.class)
+@Stateless
 public class FileProcessor extends AbstractProcessor<FileDef> {
 
     @Inject
@@ -193,8 +194,7 @@ public class FileProcessor extends AbstractProcessor<FileDef> {
             byte[] data;
 
             if (Types.TYPE_BINARY.equalsIgnoreCase(type)) {
-                Variable bodyListVar = new BodyProcessor.Builder(elementDef).
-                    setParentProcessor(this).build().execute(context);
+                Variable bodyListVar = getBodyProcessor(elementDef).execute(context);
                 result = appendBinary(bodyListVar);
                 data = result.toBinary();
             } else {
@@ -54,12 +54,16 @@ import org.webharvest.runtime.variables.Variable;
 //TODO Add javadoc
 @Autoscanned
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
-@Definition(value = "function", validAttributes = { "id", "name" },
+@Definition(value = "function", validAttributes = { "id", "name", "memoize(false;true)" },
         requiredAttributes = "name", definitionClass = FunctionDef.class)
+@Stateless
 public class FunctionProcessor extends AbstractProcessor<FunctionDef> {
 
     public Variable execute(DynamicScopeContext context) {
-        context.addFunctionDef(elementDef);
+        // function is registered once per context, not on every execution
+        if (context.getFunctionDef(elementDef.getName()) != elementDef) {
+            context.addFunctionDef(elementDef);
+        }
 
         this.setProperty("Name", elementDef.getName());
 
@@ -41,24 +41,35 @@ import static org.webharvest.WHConstants.XMLNS_CORE_10;
 
 import java.io.IOException;
 
+import net.sf.saxon.om.NodeInfo;
+
 import org.apache.commons.lang.BooleanUtils;
 import org.htmlcleaner.BrowserCompactXmlSerializer;
 import org.htmlcleaner.CleanerProperties;
 import org.htmlcleaner.CompactXmlSerializer;
+import org.htmlcleaner.DefaultTagProvider;
 import org.htmlcleaner.HtmlCleaner;
+import org.htmlcleaner.ITagInfoProvider;
 import org.htmlcleaner.PrettyXmlSerializer;
 import org.htmlcleaner.SimpleXmlSerializer;
+import org.htmlcleaner.TagNode;
 import org.htmlcleaner.XmlSerializer;
 import org.webharvest.annotation.Definition;
 import org.webharvest.definition.HtmlToXmlDef;
 import org.webharvest.exception.ParserException;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.RuntimeConfig;
 import org.webharvest.runtime.processors.plugins.Autoscanned;
 import org.webharvest.runtime.processors.plugins.TargetNamespace;
 import org.webharvest.runtime.templaters.BaseTemplater;
 import org.webharvest.runtime.variables.NodeVariable;
 import org.webharvest.runtime.variables.Variable;
 import org.webharvest.utils.CommonUtil;
+import org.webharvest.utils.TagNodeTreeBuilder;
+import org.webharvest.utils.XmlNodeWrapper;
+import org.xml.sax.SAXException;
+
+import com.google.inject.Inject;
 
 /**
  * HTML to XML processor.
@@ -74,13 +85,75 @@ import org.webharvest.utils.CommonUtil;
         "omithtmlenvelope(true;false)", "useemptyelementtags(true;false)", "allowmultiwordattributes(true;false)",
         "allowhtmlinsideattributes(true;false)", "namespacesaware(true;false)", "hyphenreplacement",
         "prunetags", "booleanatts(self;empty;true)" }, definitionClass=HtmlToXmlDef.class)
+@Stateless
 public class HtmlToXmlProcessor extends AbstractProcessor<HtmlToXmlDef> {
 
+    @Inject
+    private RuntimeConfig runtimeConfig;
+
+    // cleaner settings of the definition, kept after the first execution if none of its attributes is templated
+    private volatile CleanerSettings constantSettings;
+
     public Variable execute(DynamicScopeContext context) throws InterruptedException {
         Variable body = getBodyTextContent(elementDef, context);
 
-        HtmlCleaner cleaner = new HtmlCleaner();
-        CleanerProperties properties = cleaner.getProperties();
+        final CleanerSettings settings = getSettings(context);
+        // cleaner itself is cheap to create and keeps per-document state, so only its configuration is shared
+        final HtmlCleaner cleaner = new HtmlCleaner(settings.tagInfoProvider, settings.properties);
+
+        try {
+            final TagNode html = cleaner.clean(body.toString());
+            final XmlSerializer xmlSerializer = settings.outputType.createSerializer(settings.properties);
+
+            if (settings.outputType == OutputType.SIMPLE) {
+                // simple output keeps the text as it is, so the tree can be built directly from cleaned HTML and
+                // processors querying it don't need to parse the text; text itself is produced only if needed
+                final NodeInfo document = new TagNodeTreeBuilder(settings.properties,
+                        runtimeConfig.getStaticQueryContext().getConfiguration(), settings.nbspToSp).build(html);
+                if (document != null) {
+                    return new NodeVariable(new CleanedHtml(document, xmlSerializer, html, settings.nbspToSp));
+                }
+            }
+
+            return new NodeVariable(serialize(xmlSerializer, html, settings.nbspToSp));
+        } catch (IOException e) {
+            throw new ParserException(e);
+        } catch (SAXException e) {
+            throw new ParserException(e);
+        }
+    }
+
+    private CleanerSettings getSettings(DynamicScopeContext context) {
+        CleanerSettings settings = constantSettings;
+        if (settings == null) {
+            settings = createSettings(context);
+            if (!isTemplated(elementDef.getOutputType(), elementDef.getAdvancedXmlEscape(),
+                    elementDef.getUseCdataForScriptAndStyle(), elementDef.getTranslateSpecialEntities(),
+                    elementDef.getRecognizeUnicodeChars(), elementDef.getReplaceNbspWithSp(),
+                    elementDef.getOmitUnknownTags(), elementDef.getUseEmptyElementTags(),
+                    elementDef.getTreatUnknownTagsAsContent(), elementDef.getOmitDeprecatedTags(),
+                    elementDef.getTreatDeprecatedTagsAsContent(), elementDef.getOmitXmlDecl(),
+                    elementDef.getOmitComments(), elementDef.getOmitHtmlEnvelope(),
+                    elementDef.getAllowMultiWordAttributes(), elementDef.getAllowHtmlInsideAttributes(),
+                    elementDef.getNamespacesAware(), elementDef.getHyphenReplacement(),
+                    elementDef.getPrunetags(), elementDef.getBooleanAtts())) {
+                constantSettings = settings;
+            }
+        }
+        return settings;
+    }
+
+    private static boolean isTemplated(String... attributes) {
+        for (String attribute : attributes) {
+            if (attribute != null && attribute.contains(BaseTemplater.VAR_START)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CleanerSettings createSettings(DynamicScopeContext context) {
+        CleanerProperties properties = new CleanerProperties();
 
         final String advancedXmlEscape = BaseTemplater.evaluateToString(elementDef.getAdvancedXmlEscape(), null, context);
         if (advancedXmlEscape != null) {
@@ -176,30 +249,124 @@ public class HtmlToXmlProcessor extends AbstractProcessor<HtmlToXmlDef> {
             properties.setBooleanAttributeValues(booleanAtts);
         }
 
-        String outputType = BaseTemplater.evaluateToString(elementDef.getOutputType(), null, context);
+        final String outputType = BaseTemplater.evaluateToString(elementDef.getOutputType(), null, context);
 
-        try {
-            XmlSerializer xmlSerializer;
-            if ("simple".equalsIgnoreCase(outputType)) {
-                xmlSerializer = new SimpleXmlSerializer(properties);
-            } else if ("pretty".equalsIgnoreCase(outputType)) {
-                xmlSerializer = new PrettyXmlSerializer(properties);
-            } else if ("browser-compact".equalsIgnoreCase(outputType)) {
-                xmlSerializer = new BrowserCompactXmlSerializer(properties);
-            } else {
-                xmlSerializer = new CompactXmlSerializer(properties);
+        return new CleanerSettings(properties, DefaultTagProvider.getInstance(), OutputType.forName(outputType),
+                BooleanUtils.toBoolean(replaceNbspWithSp));
+    }
+
+    private static String serialize(XmlSerializer xmlSerializer, TagNode html, boolean nbspToSp)
+            throws IOException {
+        final String xmlAsString = xmlSerializer.getAsString(html);
+        return nbspToSp ? xmlAsString.replace('\u00A0', ' ') : xmlAsString;
+    }
+
+    /**
+     * Output type of the processor, creating the HtmlCleaner's serializer producing it.
+     */
+    private static enum OutputType {
+
+        SIMPLE {
+            @Override
+            XmlSerializer createSerializer(CleanerProperties properties) {
+                return new SimpleXmlSerializer(properties);
+            }
+        },
+
+        PRETTY {
+            @Override
+            XmlSerializer createSerializer(CleanerProperties properties) {
+                return new PrettyXmlSerializer(properties);
             }
+        },
 
-            final String xmlAsString = xmlSerializer.getAsString(cleaner.clean(body.toString()));
+        BROWSER_COMPACT {
+            @Override
+            XmlSerializer createSerializer(CleanerProperties properties) {
+                return new BrowserCompactXmlSerializer(properties);
+            }
+        },
 
-            return new NodeVariable(
-                    BooleanUtils.toBoolean(replaceNbspWithSp)
-                            ? xmlAsString.replace('\u00A0', ' ')
-                            : xmlAsString);
+        COMPACT {
+            @Override
+            XmlSerializer createSerializer(CleanerProperties properties) {
+                return new CompactXmlSerializer(properties);
+            }
+        };
 
-        } catch (IOException e) {
-            throw new ParserException(e);
+        abstract XmlSerializer createSerializer(CleanerProperties properties);
+
+        static OutputType forName(String name) {
+            if ("simple".equalsIgnoreCase(name)) {
+                return SIMPLE;
+            } else if ("pretty".equalsIgnoreCase(name)) {
+                return PRETTY;
+            } else if ("browser-compact".equalsIgnoreCase(name)) {
+                return BROWSER_COMPACT;
+            }
+            return COMPACT;
         }
+
+    }
+
+    /**
+     * HtmlCleaner configuration evaluated from the processor's attributes. It is only read once created, so it
+     * can be shared by executions running concurrently.
+     */
+    private static final class CleanerSettings {
+
+        private final CleanerProperties properties;
+
+        private final ITagInfoProvider tagInfoProvider;
+
+        private final OutputType outputType;
+
+        private final boolean nbspToSp;
+
+        CleanerSettings(CleanerProperties properties, ITagInfoProvider tagInfoProvider, OutputType outputType,
+                boolean nbspToSp) {
+            this.properties = properties;
+            this.tagInfoProvider = tagInfoProvider;
+            this.outputType = outputType;
+            this.nbspToSp = nbspToSp;
+        }
+
+    }
+
+    /**
+     * XML tree built from cleaned HTML, serialized by the HtmlCleaner's serializer when its text is needed.
+     */
+    static final class CleanedHtml extends XmlNodeWrapper {
+
+        private final XmlSerializer xmlSerializer;
+
+        private final boolean nbspToSp;
+
+        private TagNode html;
+
+        private String xmlAsString;
+
+        CleanedHtml(NodeInfo document, XmlSerializer xmlSerializer, TagNode html, boolean nbspToSp) {
+            super(document, null);
+            this.xmlSerializer = xmlSerializer;
+            this.html = html;
+            this.nbspToSp = nbspToSp;
+        }
+
+        @Override
+        protected synchronized String serialize() {
+            if (xmlAsString == null) {
+                try {
+                    xmlAsString = HtmlToXmlProcessor.serialize(xmlSerializer, html, nbspToSp);
+                } catch (IOException e) {
+                    throw new ParserException(e);
+                }
+                // not needed any more, the text is kept instead
+                html = null;
+            }
+            return xmlAsString;
+        }
+
     }
 
 }
\ No newline at end of file
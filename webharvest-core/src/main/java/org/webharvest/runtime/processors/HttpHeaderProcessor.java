@@ -58,6 +58,7 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "http-header", validAttributes = { "id", "name" },
         requiredAttributes = "name", definitionClass = HttpHeaderDef.class)
+@Stateless
 public class HttpHeaderProcessor extends AbstractProcessor<HttpHeaderDef> {
 
     public Variable execute(DynamicScopeContext context)
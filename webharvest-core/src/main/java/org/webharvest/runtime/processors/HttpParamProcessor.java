@@ -60,6 +60,7 @@ import org.webharvest.utils.CommonUtil;
 @Definition(value = "http-param", validAttributes = { "id", "name", "isfile(true;false)",
         "filename", "contenttype(*mime)" }, requiredAttributes = "name",
         definitionClass = HttpParamDef.class)
+@Stateless
 public class HttpParamProcessor extends AbstractProcessor<HttpParamDef> {
 
     public Variable execute(DynamicScopeContext context)
@@ -82,8 +83,7 @@ public class HttpParamProcessor extends AbstractProcessor<HttpParamDef> {
                     isFile,
                     fileName,
                     contentType,
-                    new BodyProcessor.Builder(elementDef).
-                        setParentProcessor(this).build().execute(context));
+                    getBodyProcessor(elementDef).execute(context));
             this.setProperty("Name", name);
             this.setProperty("Is File", String.valueOf(isFile));
             this.setProperty("File Name", fileName);
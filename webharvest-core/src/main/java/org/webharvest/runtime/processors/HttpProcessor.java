@@ -131,8 +131,7 @@ public class HttpProcessor extends AbstractProcessor<HttpDef> {
         final String encodedUrl = CommonUtil.encodeUrl(url, charset);
 
         // executes body of HTTP processor
-        final Variable bodyContent = new BodyProcessor.Builder(elementDef).
-            setParentProcessor(this).build().execute(context);
+        final Variable bodyContent = getBodyProcessor(elementDef).execute(context);
 
         httpClientManager.setCookiePolicy(cookiePolicy);
 
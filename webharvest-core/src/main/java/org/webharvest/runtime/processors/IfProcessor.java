@@ -22,6 +22,7 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "if", validAttributes = { "condition", "id" },
         requiredAttributes = "condition", definitionClass = IfDef.class)
+@Stateless
 public final class IfProcessor extends WebHarvestPlugin {
 
     /**
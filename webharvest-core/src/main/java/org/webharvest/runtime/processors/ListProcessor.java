@@ -20,6 +20,7 @@ import org.webharvest.runtime.variables.Variable;
 @Autoscanned
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "list", validAttributes = "id")
+@Stateless
 public final class ListProcessor extends WebHarvestPlugin {
 
     /**
@@ -45,6 +45,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -55,9 +56,16 @@ import org.webharvest.WHConstants;
 import org.webharvest.annotation.Definition;
 import org.webharvest.definition.IElementDef;
 import org.webharvest.definition.LoopDef;
+import org.webharvest.definition.SinkDef;
+import org.webharvest.runtime.ChildScopeContext;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.ScrapingExecutor;
+import org.webharvest.runtime.checkpoint.Checkpointer;
+import org.webharvest.runtime.checkpoint.LoopCheckpoint;
 import org.webharvest.runtime.processors.plugins.Autoscanned;
 import org.webharvest.runtime.processors.plugins.TargetNamespace;
+import org.webharvest.runtime.sink.ResultSink;
+import org.webharvest.runtime.sink.ResultSinkFactory;
 import org.webharvest.runtime.templaters.BaseTemplater;
 import org.webharvest.runtime.variables.EmptyVariable;
 import org.webharvest.runtime.variables.ListVariable;
@@ -65,6 +73,8 @@ import org.webharvest.runtime.variables.NodeVariable;
 import org.webharvest.runtime.variables.Variable;
 import org.webharvest.utils.CommonUtil;
 
+import com.google.inject.Inject;
+
 /**
  * Loop list processor.
  */
@@ -74,27 +84,38 @@ import org.webharvest.utils.CommonUtil;
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "loop",
         validAttributes = { "id", "item", "index", "maxloops", "filter",
-        "empty(true;false)" }, validSubprocessors = { "list", "body" },
+        "empty(true;false)", "parallel" }, validSubprocessors = { "list", "body", "sink" },
         requiredSubprocessors = { "list", "body"},
         definitionClass = LoopDef.class )
+@Stateless
 public class LoopProcessor extends AbstractProcessor<LoopDef> {
 
+    @Inject
+    private ScrapingExecutor executor;
+
+    @Inject
+    private Checkpointer checkpointer;
+
+    @Inject
+    private ResultSinkFactory sinkFactory;
+
     public Variable execute(final DynamicScopeContext context) throws InterruptedException {
         final String item = BaseTemplater.evaluateToString(elementDef.getItem(), null, context);
         final String index = BaseTemplater.evaluateToString(elementDef.getIndex(), null, context);
         final String maxLoopsString = BaseTemplater.evaluateToString(elementDef.getMaxloops(), null, context);
         final String filter = BaseTemplater.evaluateToString(elementDef.getFilter(), null, context);
         final boolean isEmpty = CommonUtil.getBooleanValue(BaseTemplater.evaluateToString(elementDef.getEmpty(), null, context), false);
+        final String parallelString = BaseTemplater.evaluateToString(elementDef.getParallel(), null, context);
 
         this.setProperty("Item", item);
         this.setProperty("Index", index);
         this.setProperty("Max Loops", maxLoopsString);
         this.setProperty("Filter", filter);
         this.setProperty("Empty", String.valueOf(isEmpty));
+        this.setProperty("Parallel", parallelString);
 
         IElementDef loopValueDef = elementDef.getLoopValueDef();
-        Variable loopValue = new BodyProcessor.Builder(loopValueDef).
-            setParentProcessor(this).build().run(context);
+        Variable loopValue = getBodyProcessor(loopValueDef).run(context);
         debug(loopValueDef, context, loopValue);
 
 
@@ -104,33 +125,204 @@ public class LoopProcessor extends AbstractProcessor<LoopDef> {
             return EmptyVariable.INSTANCE;
 
         } else {
-            final List<Variable> resultList = new ArrayList<Variable>();
             final Iterator filteredIterator = filter != null ? createFilteredList(iter, filter) : iter;
 
             final double maxLoops = NumberUtils.toDouble(maxLoopsString, WHConstants.DEFAULT_MAX_LOOPS);
-            for (int i = 1; filteredIterator.hasNext() && i <= maxLoops; i++) {
-                Variable currElement = (Variable) filteredIterator.next();
+            // parallel execution is not supported by 1.0 configurations, where all variables are global
+            final int parallel = XMLNS_CORE_10.equals(elementDef.getUri()) ? 1 : NumberUtils.toInt(parallelString, 1);
+            final LoopCheckpoint checkpoint = checkpointer.isEnabled() ? checkpointer.enterLoop(elementDef) : null;
+            ResultSink sink = null;
+            boolean succeeded = false;
+            try {
+                final SinkDef sinkDef = elementDef.getSinkDef();
+                if (sinkDef != null) {
+                    // resumed loop appends to the output of its interrupted run
+                    final boolean resumed = checkpoint != null && checkpoint.getCompletedIterations() > 0;
+                    sink = sinkFactory.open(sinkDef, context, resumed);
+                }
+                final List<Variable> resultList = (parallel > 1)
+                        ? executeParallel(context, filteredIterator, maxLoops, item, index, isEmpty, parallel, checkpoint, sink)
+                        : executeSequential(context, filteredIterator, maxLoops, item, index, isEmpty, checkpoint, sink);
+                succeeded = true;
+                return (isEmpty || sink != null) ? EmptyVariable.INSTANCE : new ListVariable(resultList);
+            } finally {
+                try {
+                    // failed loop must neither commit its partial output nor be hidden by failure of the sink
+                    if (sink != null && succeeded) {
+                        sink.close();
+                    } else if (sink != null) {
+                        sink.abort();
+                    }
+                } finally {
+                    if (checkpoint != null) {
+                        checkpoint.exit();
+                    }
+                    // e.g. input of xml-stream not read up to its end due to maxloops
+                    CommonUtil.closeQuietly(loopValue);
+                }
+            }
 
-                // define current value of item variable
-                if (item != null && !"".equals(item)) {
-                    context.setLocalVar(item, currElement);
+        }
+    }
+
+    /**
+     * Executes iterations of the loop one by one. If the loop is checkpointed, iterations completed before the
+     * checkpoint was taken are skipped (they contribute no results) and every completed iteration is recorded.
+     * If the loop has a sink, results of every iteration are written to it instead of being collected, and the sink
+     * is flushed before the iteration is recorded as completed.
+     */
+    private List<Variable> executeSequential(final DynamicScopeContext context, final Iterator iterator, final double maxLoops,
+                                             final String item, final String index, final boolean isEmpty,
+                                             final LoopCheckpoint checkpoint, final ResultSink sink) throws InterruptedException {
+        final int completed = (checkpoint != null) ? checkpoint.getCompletedIterations() : 0;
+        final List<Variable> resultList = new ArrayList<Variable>();
+        for (int i = 1; iterator.hasNext() && i <= maxLoops; i++) {
+            final Variable currElement = (Variable) iterator.next();
+            if (i <= completed) {
+                continue;
+            }
+            defineLoopVariables(context, item, index, currElement, i);
+
+            // execute the loop body
+            if (checkpoint != null) {
+                checkpoint.beginIteration(i);
+            }
+            IElementDef bodyDef = elementDef.getLoopBodyDef();
+            Variable loopResult = (bodyDef != null) ? getBodyProcessor(bodyDef).run(context) : EmptyVariable.INSTANCE;
+            debug(bodyDef, context, loopResult);
+            if (sink != null) {
+                sink.write(loopResult);
+            } else if (!isEmpty) {
+                resultList.addAll(loopResult.toList());
+            }
+            if (checkpoint != null) {
+                if (sink != null) {
+                    sink.flush();
                 }
+                checkpoint.endIteration(i, context);
+            }
+        }
+        return resultList;
+    }
 
-                // define current value of index variable
-                if (index != null && !"".equals(index)) {
-                    context.setLocalVar(index, new NodeVariable(String.valueOf(i)));
+    /**
+     * Executes iterations of the loop concurrently, at most {@code parallel} at a time. Each iteration is executed
+     * within its own {@link ChildScopeContext}, so item and index variables, as well as any other variable defined
+     * in the loop body, are private to the iteration.
+     * <p/>
+     * Items are taken from the list lazily, in windows of {@code parallel} iterations, so the memory used by the
+     * loop doesn't grow with the number of items (which may be streamed, e.g. by xml-stream). Once all iterations of
+     * a window have finished, their assignments of the variables defined outside of the loop are applied in order
+     * of iterations, so the last iteration wins exactly as in sequential execution, and their results are emitted
+     * in order of iterations too: written to the sink of the loop, if any, which is then flushed. No new window is
+     * started once the scraping has been stopped.
+     * <p/>
+     * As variable assignments are applied only at the end of a window, checkpointed parallel loop records its
+     * position after every window (with the sink flushed first); loops nested in its iterations are checkpointed
+     * as usual.
+     */
+    private List<Variable> executeParallel(final DynamicScopeContext context, final Iterator iterator, final double maxLoops,
+                                           final String item, final String index, final boolean isEmpty, final int parallel,
+                                           final LoopCheckpoint checkpoint, final ResultSink sink)
+            throws InterruptedException {
+        final int completed = (checkpoint != null) ? checkpoint.getCompletedIterations() : 0;
+        final IElementDef bodyDef = elementDef.getLoopBodyDef();
+        final List<Variable> resultList = new ArrayList<Variable>();
+        final List<Iteration> window = new ArrayList<Iteration>(parallel);
+        final List<Callable<Variable>> tasks = new ArrayList<Callable<Variable>>(parallel);
+        Iteration last = null;
+        boolean stopped = false;
+        int next = 1;
+        while (!stopped && iterator.hasNext() && next <= maxLoops) {
+            final Iteration previousLast = last;
+            window.clear();
+            tasks.clear();
+            while (window.size() < parallel && iterator.hasNext() && next <= maxLoops) {
+                final Variable element = (Variable) iterator.next();
+                final int i = next++;
+                if (i <= completed) {
+                    continue;
                 }
+                final Iteration iteration = new Iteration(context, item, index, element, i, bodyDef);
+                window.add(iteration);
+                tasks.add((checkpoint != null) ? checkpoint.iteration(i, iteration) : iteration);
+            }
+
+            final List<Variable> results = executor.invokeAll(tasks, parallel, true);
 
-                // execute the loop body
-                IElementDef bodyDef = elementDef.getLoopBodyDef();
-                Variable loopResult = (bodyDef != null) ? new BodyProcessor.Builder(bodyDef).build().run(context) : EmptyVariable.INSTANCE;
-                debug(bodyDef, context, loopResult);
-                if (!isEmpty) {
+            for (int k = 0; k < window.size(); k++) {
+                final Variable loopResult = results.get(k);
+                // null if not executed as scraping has been stopped, so were all the following ones
+                if (loopResult == null) {
+                    stopped = true;
+                    break;
+                }
+                last = window.get(k);
+                last.context.mergeInto();
+                if (sink != null) {
+                    sink.write(loopResult);
+                } else if (!isEmpty) {
                     resultList.addAll(loopResult.toList());
                 }
             }
-            return isEmpty ? EmptyVariable.INSTANCE : new ListVariable(resultList);
 
+            if (last != previousLast) {
+                // leave loop variables as sequential execution does, also for the checkpoint
+                defineLoopVariables(context, item, index, last.element, last.index);
+                if (sink != null) {
+                    sink.flush();
+                }
+                if (checkpoint != null) {
+                    checkpoint.complete(last.index, context);
+                }
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * Single iteration of parallel loop, executed within its own context.
+     */
+    private final class Iteration implements Callable<Variable> {
+
+        private final ChildScopeContext context;
+
+        private final Variable element;
+
+        private final int index;
+
+        private final IElementDef bodyDef;
+
+        Iteration(final DynamicScopeContext parent, final String item, final String indexName,
+                  final Variable element, final int index, final IElementDef bodyDef) {
+            this.context = new ChildScopeContext(parent);
+            this.element = element;
+            this.index = index;
+            this.bodyDef = bodyDef;
+            defineLoopVariables(context, item, indexName, element, index);
+        }
+
+        @Override
+        public Variable call() throws InterruptedException {
+            final Variable loopResult = (bodyDef != null)
+                    ? getBodyProcessor(bodyDef).run(context)
+                    : EmptyVariable.INSTANCE;
+            debug(bodyDef, context, loopResult);
+            return loopResult;
+        }
+
+    }
+
+    private static void defineLoopVariables(final DynamicScopeContext context, final String item, final String index,
+                                            final Variable currElement, final int i) {
+        // define current value of item variable
+        if (item != null && !"".equals(item)) {
+            context.setLocalVar(item, currElement);
+        }
+
+        // define current value of index variable
+        if (index != null && !"".equals(index)) {
+            context.setLocalVar(index, new NodeVariable(String.valueOf(i)));
         }
     }
 
@@ -0,0 +1,157 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.processors;
+
+import static org.webharvest.WHConstants.XMLNS_CORE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.webharvest.annotation.Definition;
+import org.webharvest.definition.IElementDef;
+import org.webharvest.definition.ParallelDef;
+import org.webharvest.runtime.ChildScopeContext;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.ScrapingExecutor;
+import org.webharvest.runtime.processors.plugins.Autoscanned;
+import org.webharvest.runtime.processors.plugins.TargetNamespace;
+import org.webharvest.runtime.templaters.BaseTemplater;
+import org.webharvest.runtime.variables.EmptyVariable;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.CommonUtil;
+
+import com.google.inject.Inject;
+
+/**
+ * Fork/join processor executing its child elements concurrently. Result is
+ * a list with one item per child, in order of their declaration, so item of
+ * a child can be told by its position. Item of a child which produced no
+ * result, failed or has not been executed is empty.
+ * <p/>
+ * Each child is executed within its own {@link ChildScopeContext}. Variables
+ * defined by a child are private to it, while assignments of variables
+ * defined outside of this element are applied at the join, in order of
+ * declaration of the children, so the outcome does not depend on the order in
+ * which the children happened to finish.
+ * <p/>
+ * If {@code on-error} is {@code fail} (default), the first failure cancels
+ * the remaining children and is rethrown. If it is {@code collect}, failures
+ * are logged, the remaining children run to the end, and failed children
+ * contribute empty item and no variable assignments.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+@Autoscanned
+@TargetNamespace(XMLNS_CORE)
+@Definition(value = "parallel", validAttributes = { "id", "threads",
+        "on-error(fail;collect)" }, definitionClass = ParallelDef.class)
+@Stateless
+public class ParallelProcessor extends AbstractProcessor<ParallelDef> {
+
+    @Inject
+    private ScrapingExecutor executor;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Variable execute(final DynamicScopeContext context)
+            throws InterruptedException {
+        final String threadsString = BaseTemplater.evaluateToString(
+                elementDef.getThreads(), null, context);
+        final String onError = BaseTemplater.evaluateToString(
+                elementDef.getOnError(), null, context);
+        final boolean failFast = !"collect".equalsIgnoreCase(onError);
+
+        this.setProperty("Threads", threadsString);
+        this.setProperty("On Error", failFast ? "fail" : "collect");
+
+        final IElementDef[] defs = elementDef.getOperationDefs();
+        if (defs.length == 0) {
+            return new ListVariable();
+        }
+        final int threads = NumberUtils.toInt(threadsString, defs.length);
+
+        final List<ChildScopeContext> branchContexts =
+            new ArrayList<ChildScopeContext>(defs.length);
+        final List<Callable<Variable>> branches =
+            new ArrayList<Callable<Variable>>(defs.length);
+        for (final IElementDef def : defs) {
+            final ChildScopeContext branchContext =
+                new ChildScopeContext(context);
+            branchContexts.add(branchContext);
+            branches.add(new Callable<Variable>() {
+                @Override
+                public Variable call() throws InterruptedException {
+                    return runBranch(def, branchContext);
+                }
+            });
+        }
+
+        final List<Variable> results = executor.invokeAll(branches,
+                Math.max(threads, 1), failFast);
+
+        // items added directly, as addVariable() would flatten list results
+        final ListVariable result = new ListVariable();
+        for (int i = 0; i < defs.length; i++) {
+            final Variable variable = results.get(i);
+            // null if failed or not executed as scraping has been stopped
+            if (variable != null) {
+                branchContexts.get(i).mergeInto();
+                result.toList().add(variable);
+            } else {
+                result.toList().add(EmptyVariable.INSTANCE);
+            }
+        }
+
+        return result;
+    }
+
+    private Variable runBranch(final IElementDef def,
+            final DynamicScopeContext branchContext)
+            throws InterruptedException {
+        final Processor processor = ProcessorResolver.createProcessor(def);
+        ExecutionFrame.setNextParent(this);
+        try {
+            return CommonUtil.createVariable(processor.run(branchContext));
+        } finally {
+            ExecutionFrame.clearNextParent();
+        }
+    }
+
+}
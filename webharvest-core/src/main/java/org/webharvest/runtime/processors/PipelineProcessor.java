@@ -0,0 +1,299 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.processors;
+
+import static org.webharvest.WHConstants.XMLNS_CORE;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.webharvest.annotation.Definition;
+import org.webharvest.definition.IElementDef;
+import org.webharvest.definition.PipelineDef;
+import org.webharvest.definition.StageDef;
+import org.webharvest.runtime.ChildScopeContext;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.ScrapingExecutor;
+import org.webharvest.runtime.processors.plugins.Autoscanned;
+import org.webharvest.runtime.processors.plugins.TargetNamespace;
+import org.webharvest.runtime.templaters.BaseTemplater;
+import org.webharvest.runtime.variables.EmptyVariable;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.CommonUtil;
+
+import com.google.inject.Inject;
+
+/**
+ * Streaming processor passing items of the list through a chain of stages,
+ * e.g. URLs to fetchers, fetched pages to parsers and parsed data to file or
+ * database sinks. Every stage runs on its own threads (one by default) and
+ * receives items from the previous stage through a bounded queue, so all
+ * stages work at the same time and a fast stage waits for the slow one
+ * instead of buffering all the data. Every item of the result of a stage
+ * body is passed to the next stage; items of the last stage make the result
+ * of the pipeline, unless {@code empty} is {@code true}. Order of the result
+ * is preserved only if every stage runs on single thread.
+ * <p/>
+ * Body of a stage is executed within its own {@link ChildScopeContext} for
+ * every item, with the item defined as the variable named by the stage's
+ * {@code item} attribute. Variables defined outside of the pipeline are
+ * visible, but assignments to them are not applied outside of the item.
+ * <p/>
+ * If {@code on-error} is {@code fail} (default), the first failure cancels
+ * the pipeline and is rethrown. If it is {@code collect}, failures are logged
+ * and the failed items are dropped.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see StageProcessor
+ */
+@Autoscanned
+@TargetNamespace(XMLNS_CORE)
+@Definition(value = "pipeline", validAttributes = { "id", "queue",
+        "empty(true;false)", "on-error(fail;collect)" },
+        validSubprocessors = { "list", "stage" },
+        requiredSubprocessors = { "list", "stage" },
+        definitionClass = PipelineDef.class)
+@Stateless
+public class PipelineProcessor extends AbstractProcessor<PipelineDef> {
+
+    /**
+     * Default capacity of queues between stages.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    // Marks end of the stream of items
+    private static final Object END = new Object();
+
+    @Inject
+    private ScrapingExecutor executor;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Variable execute(final DynamicScopeContext context)
+            throws InterruptedException {
+        final String queueString = BaseTemplater.evaluateToString(
+                elementDef.getQueue(), null, context);
+        final boolean isEmpty = CommonUtil.getBooleanValue(
+                BaseTemplater.evaluateToString(elementDef.getEmpty(), null,
+                        context), false);
+        final String onError = BaseTemplater.evaluateToString(
+                elementDef.getOnError(), null, context);
+        final boolean failFast = !"collect".equalsIgnoreCase(onError);
+
+        this.setProperty("Queue", queueString);
+        this.setProperty("Empty", String.valueOf(isEmpty));
+        this.setProperty("On Error", failFast ? "fail" : "collect");
+
+        final IElementDef listDef = elementDef.getListDef();
+        final Variable list = getBodyProcessor(listDef).run(context);
+        debug(listDef, context, list);
+
+        final Iterator items = (list != null) ? list.toIterator() : null;
+        final StageDef[] stageDefs = elementDef.getStageDefs();
+        if (items == null || stageDefs.length == 0) {
+            return EmptyVariable.INSTANCE;
+        }
+
+        final int capacity = Math.max(1,
+                NumberUtils.toInt(queueString, DEFAULT_QUEUE_CAPACITY));
+        final Queue<Variable> results =
+            isEmpty ? null : new ConcurrentLinkedQueue<Variable>();
+
+        final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        // stages are built from the last one, each feeding the next one
+        BlockingQueue<Object> output = null;
+        int outputThreads = 0;
+        for (int i = stageDefs.length - 1; i >= 0; i--) {
+            final StageDef stageDef = stageDefs[i];
+            final int threads = Math.max(1, NumberUtils.toInt(
+                    BaseTemplater.evaluateToString(stageDef.getThreads(),
+                            null, context), 1));
+            final String item = BaseTemplater.evaluateToString(
+                    stageDef.getItem(), null, context);
+            final BlockingQueue<Object> input =
+                new ArrayBlockingQueue<Object>(capacity);
+            final Stage stage = new Stage(stageDef, item, context, input,
+                    output, outputThreads, threads, results, failFast);
+            for (int t = 0; t < threads; t++) {
+                tasks.add(stage);
+            }
+            output = input;
+            outputThreads = threads;
+        }
+        tasks.add(new Source(items, output, outputThreads, executor));
+
+        try {
+            executor.invokeConcurrently(tasks);
+        } finally {
+            // e.g. input of xml-stream not read up to its end due to failure
+            CommonUtil.closeQuietly(list);
+        }
+
+        return isEmpty ? EmptyVariable.INSTANCE
+                : new ListVariable(new ArrayList<Variable>(results));
+    }
+
+    /**
+     * Feeds the first stage with items of the list. Stops pulling the items
+     * once the scraping has been stopped or exited, ending the stream early,
+     * so the stages finish with the items already queued.
+     */
+    private static final class Source implements Callable<Object> {
+
+        private final Iterator items;
+
+        private final BlockingQueue<Object> output;
+
+        private final int outputThreads;
+
+        private final ScrapingExecutor executor;
+
+        Source(final Iterator items, final BlockingQueue<Object> output,
+                final int outputThreads, final ScrapingExecutor executor) {
+            this.items = items;
+            this.output = output;
+            this.outputThreads = outputThreads;
+            this.executor = executor;
+        }
+
+        @Override
+        public Object call() throws InterruptedException {
+            while (!executor.isStopped() && items.hasNext()) {
+                output.put(items.next());
+            }
+            for (int i = 0; i < outputThreads; i++) {
+                output.put(END);
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * Stage task, executed by every thread of the stage. The last thread to
+     * finish ends the stream of the next stage.
+     */
+    private final class Stage implements Callable<Object> {
+
+        private final StageDef stageDef;
+
+        private final String item;
+
+        private final DynamicScopeContext context;
+
+        private final BlockingQueue<Object> input;
+
+        private final BlockingQueue<Object> output;
+
+        private final int outputThreads;
+
+        private final AtomicInteger running;
+
+        private final Queue<Variable> results;
+
+        private final boolean failFast;
+
+        Stage(final StageDef stageDef, final String item,
+                final DynamicScopeContext context,
+                final BlockingQueue<Object> input,
+                final BlockingQueue<Object> output, final int outputThreads,
+                final int threads, final Queue<Variable> results,
+                final boolean failFast) {
+            this.stageDef = stageDef;
+            this.item = item;
+            this.context = context;
+            this.input = input;
+            this.output = output;
+            this.outputThreads = outputThreads;
+            this.running = new AtomicInteger(threads);
+            this.results = results;
+            this.failFast = failFast;
+        }
+
+        @Override
+        public Object call() throws InterruptedException {
+            Object next;
+            while ((next = input.take()) != END) {
+                process((Variable) next);
+            }
+            if (running.decrementAndGet() == 0 && output != null) {
+                for (int i = 0; i < outputThreads; i++) {
+                    output.put(END);
+                }
+            }
+            return null;
+        }
+
+        private void process(final Variable value)
+                throws InterruptedException {
+            final ChildScopeContext itemContext = new ChildScopeContext(context);
+            if (item != null && !"".equals(item)) {
+                itemContext.setLocalVar(item, value);
+            }
+            final Variable result;
+            try {
+                result = CommonUtil.createVariable(PipelineProcessor.this
+                        .getBodyProcessor(stageDef).run(itemContext));
+                debug(stageDef, itemContext, result);
+            } catch (RuntimeException e) {
+                if (failFast) {
+                    throw e;
+                }
+                LOG.error("Pipeline stage failed to process item", e);
+                return;
+            }
+            for (Variable produced : result.toList()) {
+                if (output != null) {
+                    output.put(produced);
+                } else if (results != null) {
+                    results.add(produced);
+                }
+            }
+        }
+
+    }
+
+}
@@ -38,11 +38,36 @@ package org.webharvest.runtime.processors;
 
 import org.webharvest.definition.IElementDef;
 import org.webharvest.definition.PluginDef;
+import org.webharvest.definition.WebHarvestPluginDef;
+import org.webharvest.ioc.InjectorHelper;
+import org.webharvest.runtime.StatusHolder;
+
+import com.google.common.util.concurrent.Monitor;
+import com.google.inject.Injector;
 
 public class ProcessorResolver {
 
+    /**
+     * Returns processor ready to execute specified element definition.
+     * Processors marked as {@link Stateless} are compiled (created, injected
+     * and decorated) only once per definition and then reused; all others
+     * are created on every call.
+     */
+    @SuppressWarnings("unchecked")
     public static <TDef extends IElementDef> Processor<TDef> createProcessor(TDef elementDef) {
-        if (elementDef instanceof PluginDef) {
+        if (elementDef instanceof WebHarvestPluginDef) {
+            final WebHarvestPluginDef pluginDef = (WebHarvestPluginDef) elementDef;
+            final Processor<TDef> compiled = pluginDef.getCompiledProcessor();
+            if (compiled != null) {
+                return compiled;
+            }
+            final Processor<TDef> plugin = elementDef.createPlugin();
+            final Processor<TDef> processor = decorate(plugin);
+            if (plugin.getClass().isAnnotationPresent(Stateless.class)) {
+                pluginDef.setCompiledProcessor(processor);
+            }
+            return processor;
+        } else if (elementDef instanceof PluginDef) {
             return new StoppedOrExitedProcessor<TDef>(
                     new RunningStatusController<TDef>(
                             elementDef.createPlugin()));
@@ -51,4 +76,14 @@ public class ProcessorResolver {
         }
     }
 
+    private static <TDef extends IElementDef> Processor<TDef> decorate(
+            final Processor<TDef> processor) {
+        final Injector injector = InjectorHelper.getInjector();
+        return new StoppedOrExitedProcessor<TDef>(
+                new RunningStatusController<TDef>(processor,
+                        injector.getProvider(Monitor.class),
+                        injector.getProvider(Monitor.Guard.class)),
+                injector.getProvider(StatusHolder.class));
+    }
+
 }
\ No newline at end of file
@@ -49,6 +49,7 @@ import org.webharvest.WHConstants;
 import org.webharvest.annotation.Definition;
 import org.webharvest.definition.IElementDef;
 import org.webharvest.definition.RegexpDef;
+import org.webharvest.runtime.Deadline;
 import org.webharvest.runtime.DynamicScopeContext;
 import org.webharvest.runtime.processors.plugins.Autoscanned;
 import org.webharvest.runtime.processors.plugins.TargetNamespace;
@@ -71,6 +72,7 @@ import org.webharvest.utils.CommonUtil;
         "regexp-pattern", "regexp-source", "regexp-result" },
         requiredSubprocessors = { "regexp-pattern", "regexp-source"},
         definitionClass = RegexpDef.class )
+@Stateless
 public class RegexpProcessor extends AbstractProcessor<RegexpDef> {
 
     public Variable execute(final DynamicScopeContext context) throws InterruptedException {
@@ -80,8 +82,7 @@ public class RegexpProcessor extends AbstractProcessor<RegexpDef> {
         debug(patternDef, context, patternVar);
 
         IElementDef sourceDef = elementDef.getRegexpSourceDef();
-        Variable source = new BodyProcessor.Builder(sourceDef).
-            setParentProcessor(this).build().run(context);
+        Variable source = getBodyProcessor(sourceDef).run(context);
         debug(sourceDef, context, source);
 
         String replace = BaseTemplater.evaluateToString(elementDef.getReplace(), null, context);
@@ -130,7 +131,7 @@ public class RegexpProcessor extends AbstractProcessor<RegexpDef> {
 
             String text = currVar.toString();
 
-            Matcher matcher = pattern.matcher(text);
+            Matcher matcher = pattern.matcher(Deadline.guard(text));
             int groupCount = matcher.groupCount();
 
             StringBuffer buffer = new StringBuffer();
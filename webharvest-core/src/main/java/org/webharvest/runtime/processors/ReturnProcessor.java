@@ -56,15 +56,24 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "return", validAttributes = "id",
         definitionClass = ReturnDef.class)
+@Stateless
 public class ReturnProcessor extends AbstractProcessor<ReturnDef> {
 
+    // compiled on first use, see CallProcessor
+    private volatile BodyProcessor body;
+
     public Variable execute(DynamicScopeContext context) throws InterruptedException {
         CallProcessor callProcessor =
             (CallProcessor) getParentProcessor();
 
         if (callProcessor != null) {
-            Variable returnValue = new BodyProcessor.Builder(elementDef).
-                setParentProcessor(this).build().execute(context);
+            BodyProcessor bodyProcessor = body;
+            if (bodyProcessor == null) {
+                bodyProcessor = new BodyProcessor.Builder(elementDef).
+                    setParentProcessor(this).build();
+                body = bodyProcessor;
+            }
+            Variable returnValue = bodyProcessor.execute(context);
             callProcessor.setFunctionResult(returnValue);
         }
 
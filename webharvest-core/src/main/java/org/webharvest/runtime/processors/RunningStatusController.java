@@ -8,13 +8,17 @@ import org.webharvest.runtime.variables.Variable;
 
 import com.google.common.util.concurrent.Monitor;
 import com.google.common.util.concurrent.Monitor.Guard;
+import com.google.inject.Provider;
+import com.google.inject.util.Providers;
 
 /**
  * {@link AbstractProcessorDecorator} implementation which decorates
  * {@link Processor#run(Scraper, DynamicScopeContext)} method in the way that it
- * enters to the {@link Monitor} using {@link Guard} verifying that processing
- * is not paused. Otherwise it wait until {@link Guard} allows to continue
- * processing.
+ * checks {@link Guard} verifying that processing is not paused. In the common
+ * case (not paused) it is a plain read, without entering the {@link Monitor},
+ * so concurrently running processors do not contend for it. Otherwise it
+ * enters the {@link Monitor} when the {@link Guard} allows to continue
+ * processing, i.e. waits until processing is resumed (or stopped).
  *
  * {@link Monitor} and {@link Guard} instances are retrieved using
  * {@link InjectorHelper}.
@@ -29,8 +33,8 @@ import com.google.common.util.concurrent.Monitor.Guard;
 public final class RunningStatusController<TDef extends IElementDef> extends
         AbstractProcessorDecorator<TDef> {
 
-    private final Monitor monitor;
-    private final Monitor.Guard runningGuard;
+    private final Provider<Monitor> monitor;
+    private final Provider<Monitor.Guard> runningGuard;
 
     /**
      * Default class constructor which accepts {@link Processor} instance which
@@ -41,10 +45,35 @@ public final class RunningStatusController<TDef extends IElementDef> extends
      *            decorated; must be not {@code null}.
      */
     public RunningStatusController(final Processor<TDef> decoratedProcessor) {
+        this(decoratedProcessor,
+                Providers.of(InjectorHelper.getInjector().getInstance(
+                        Monitor.class)),
+                Providers.of(InjectorHelper.getInjector().getInstance(
+                        Monitor.Guard.class)));
+    }
+
+    /**
+     * Class constructor which accepts {@link Processor} instance which is
+     * going to be decorated and providers of {@link Monitor} and its running
+     * {@link Monitor.Guard} consulted on every run. Suitable for decorators
+     * shared between scrapings.
+     *
+     * @param decoratedProcessor
+     *            an instance of {@link Processor} which is going to be
+     *            decorated; must be not {@code null}.
+     * @param monitor
+     *            provider of current {@link Monitor}; must be not
+     *            {@code null}.
+     * @param runningGuard
+     *            provider of current running {@link Monitor.Guard}; must be
+     *            not {@code null}.
+     */
+    public RunningStatusController(final Processor<TDef> decoratedProcessor,
+            final Provider<Monitor> monitor,
+            final Provider<Monitor.Guard> runningGuard) {
         super(decoratedProcessor);
-        this.monitor = InjectorHelper.getInjector().getInstance(Monitor.class);
-        this.runningGuard = InjectorHelper.getInjector().getInstance(
-                Monitor.Guard.class);
+        this.monitor = monitor;
+        this.runningGuard = runningGuard;
     }
 
     /**
@@ -52,9 +81,10 @@ public final class RunningStatusController<TDef extends IElementDef> extends
      */
     @Override
     public Variable run(final DynamicScopeContext context) throws InterruptedException {
-        try {
-            monitor.enterWhen(runningGuard);
-        } finally {
+        final Monitor.Guard guard = runningGuard.get();
+        if (!guard.isSatisfied()) {
+            final Monitor monitor = this.monitor.get();
+            monitor.enterWhen(guard);
             monitor.leave();
         }
         return this.decoratedProcessor.run(context);
@@ -60,8 +60,9 @@ import com.google.inject.Inject;
 //TODO Add javadoc
 @Autoscanned
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
-@Definition(value = "script", validAttributes = { "id", "language(beanshell;javascript;groovy)", "return" },
+@Definition(value = "script", validAttributes = { "id", "language(beanshell;javascript;groovy;groovy-static)", "return" },
         definitionClass = ScriptDef.class)
+@Stateless
 public class ScriptProcessor extends AbstractProcessor<ScriptDef> {
 
     @Inject
@@ -0,0 +1,74 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.processors;
+
+import static org.webharvest.WHConstants.XMLNS_CORE;
+
+import org.webharvest.annotation.Definition;
+import org.webharvest.definition.SinkDef;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.processors.plugins.Autoscanned;
+import org.webharvest.runtime.processors.plugins.TargetNamespace;
+import org.webharvest.runtime.variables.EmptyVariable;
+import org.webharvest.runtime.variables.Variable;
+
+/**
+ * Sink of a loop. Results of the loop are streamed to the sink by the
+ * enclosing {@link LoopProcessor}, so the processor itself does nothing.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see org.webharvest.runtime.sink.ResultSink
+ */
+@Autoscanned
+@TargetNamespace(XMLNS_CORE)
+@Definition(value = "sink", validAttributes = { "id", "path",
+        "format(text;csv;jsonl;database)", "compress(none;gzip)",
+        "charset(*charset)", "delimiter", "jdbcclass", "connection",
+        "username", "password", "sql", "batch" },
+        definitionClass = SinkDef.class)
+@Stateless
+public final class SinkProcessor extends WebHarvestPlugin {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Variable executePlugin(final DynamicScopeContext context)
+            throws InterruptedException {
+        // Do nothing
+        return EmptyVariable.INSTANCE;
+    }
+
+}
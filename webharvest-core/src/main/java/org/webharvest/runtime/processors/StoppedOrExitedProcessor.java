@@ -9,6 +9,9 @@ import org.webharvest.runtime.StatusHolder;
 import org.webharvest.runtime.variables.EmptyVariable;
 import org.webharvest.runtime.variables.Variable;
 
+import com.google.inject.Provider;
+import com.google.inject.util.Providers;
+
 /**
  * {@link AbstractProcessorDecorator} implementation which decorates
  * {@link Processor#run(Scraper, DynamicScopeContext)} method in the way that if
@@ -28,7 +31,7 @@ import org.webharvest.runtime.variables.Variable;
 public final class StoppedOrExitedProcessor<TDef extends IElementDef> extends
         AbstractProcessorDecorator<TDef> {
 
-    private final StatusHolder statusHolder;
+    private final Provider<StatusHolder> statusHolder;
 
     /**
      * Default class constructor which accepts {@link Processor} instance which
@@ -39,9 +42,27 @@ public final class StoppedOrExitedProcessor<TDef extends IElementDef> extends
      *            decorated; must be not {@code null}.
      */
     public StoppedOrExitedProcessor(final Processor<TDef> decoratedProcessor) {
+        this(decoratedProcessor, Providers.of(InjectorHelper.getInjector()
+                .getInstance(StatusHolder.class)));
+    }
+
+    /**
+     * Class constructor which accepts {@link Processor} instance which is
+     * going to be decorated and {@link Provider} of {@link StatusHolder}
+     * consulted on every run. Suitable for decorators shared between
+     * scrapings.
+     *
+     * @param decoratedProcessor
+     *            an instance of {@link Processor} which is going to be
+     *            decorated; must be not {@code null}.
+     * @param statusHolder
+     *            provider of current {@link StatusHolder}; must be not
+     *            {@code null}.
+     */
+    public StoppedOrExitedProcessor(final Processor<TDef> decoratedProcessor,
+            final Provider<StatusHolder> statusHolder) {
         super(decoratedProcessor);
-        statusHolder = InjectorHelper.getInjector().getInstance(
-                StatusHolder.class);
+        this.statusHolder = statusHolder;
     }
 
     /**
@@ -50,7 +71,7 @@ public final class StoppedOrExitedProcessor<TDef extends IElementDef> extends
     @Override
     public Variable run(final DynamicScopeContext context)
             throws InterruptedException {
-        final ScraperState status = statusHolder.getStatus();
+        final ScraperState status = statusHolder.get().getStatus();
 
         if (status == ScraperState.STOPPED
                 || status == ScraperState.EXIT) {
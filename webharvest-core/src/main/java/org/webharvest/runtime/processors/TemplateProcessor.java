@@ -59,6 +59,7 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "template", validAttributes = { "id", "language(beanshell;javascript;groovy)" },
         definitionClass = TemplateDef.class)
+@Stateless
 public class TemplateProcessor extends AbstractProcessor<TemplateDef> {
 
     public Variable execute(DynamicScopeContext context) throws InterruptedException {
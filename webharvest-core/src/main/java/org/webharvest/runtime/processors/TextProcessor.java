@@ -59,6 +59,7 @@ import org.webharvest.utils.CommonUtil;
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "text", validAttributes = { "id", "charset(*charset)", "delimiter" },
         definitionClass = TextDef.class)
+@Stateless
 public class TextProcessor extends AbstractProcessor<TextDef> {
 
     /**
@@ -78,8 +79,7 @@ public class TextProcessor extends AbstractProcessor<TextDef> {
             delimiter = "\n";
         }
 
-        Variable body = new BodyProcessor.Builder(elementDef).
-            setParentProcessor(this).build().execute(context);
+        Variable body = getBodyProcessor(elementDef).execute(context);
         return new NodeVariable(
                 body instanceof ListVariable ? ((ListVariable) body).toString(
                         charset, delimiter) : body.toString(charset));
@@ -62,13 +62,13 @@ import org.webharvest.utils.CommonUtil;
 @Definition(value = "try", validAttributes = { "id" },
         validSubprocessors = { "body", "catch" },
         requiredAttributes = { "body", "catch" }, definitionClass = TryDef.class )
+@Stateless
 public class TryProcessor extends AbstractProcessor<TryDef> {
 
     public Variable execute(final DynamicScopeContext context) throws InterruptedException {
         try {
             IElementDef tryBodyDef = elementDef.getTryBodyDef();
-            Variable result = new BodyProcessor.Builder(tryBodyDef).
-                setParentProcessor(this).build().run(context);
+            Variable result = getBodyProcessor(tryBodyDef).run(context);
             debug(tryBodyDef, context, result);
 
             return result;
@@ -101,7 +101,7 @@ public class TryProcessor extends AbstractProcessor<TryDef> {
                     context.setLocalVar("error", CommonUtil.createVariable(e));
                     final IElementDef catchValueDef = elementDef.getCatchValueDef();
                     final Variable res =
-                        new BodyProcessor.Builder(catchValueDef).build().
+                        getBodyProcessor(catchValueDef).
                             run(context);
                     debug(catchValueDef, context, res);
                     return res;
@@ -125,8 +125,7 @@ public abstract class WebHarvestPlugin extends AbstractProcessor<WebHarvestPlugi
      * @return Instance of Variable
      */
     protected Variable executeBody(DynamicScopeContext context) throws InterruptedException {
-        return new BodyProcessor.Builder(elementDef).setParentProcessor(this).
-            build().execute(context);
+        return getBodyProcessor(elementDef).execute(context);
     }
 
 }
\ No newline at end of file
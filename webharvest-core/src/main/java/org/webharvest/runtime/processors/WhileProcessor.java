@@ -64,6 +64,7 @@ import org.webharvest.utils.CommonUtil;
 @Autoscanned
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition(value = "while", validAttributes = { "id", "condition", "index", "maxloops", "empty(true;false)" }, requiredAttributes = "condition", definitionClass = WhileDef.class)
+@Stateless
 public class WhileProcessor extends AbstractProcessor<WhileDef> {
 
     public Variable execute(final DynamicScopeContext context) throws InterruptedException {
@@ -90,8 +91,7 @@ public class WhileProcessor extends AbstractProcessor<WhileDef> {
         // iterates while testing variable represents boolean true or loop limit is exceeded
         final double maxLoops = NumberUtils.toDouble(maxLoopsString, WHConstants.DEFAULT_MAX_LOOPS);
         while (CommonUtil.isBooleanTrue(condition) && (i <= maxLoops)) {
-            Variable loopResult = new BodyProcessor.Builder(elementDef).
-                setParentProcessor(this).build().execute(context);
+            Variable loopResult = getBodyProcessor(elementDef).execute(context);
             if (!isEmpty) {
                 resultList.addAll(loopResult.toList());
             }
@@ -39,13 +39,12 @@ package org.webharvest.runtime.processors;
 import static org.webharvest.WHConstants.XMLNS_CORE;
 import static org.webharvest.WHConstants.XMLNS_CORE_10;
 
-import java.io.StringReader;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-import javax.xml.transform.stream.StreamSource;
-
 import net.sf.saxon.Configuration;
+import net.sf.saxon.om.Item;
+import net.sf.saxon.om.SequenceIterator;
 import net.sf.saxon.query.DynamicQueryContext;
 import net.sf.saxon.query.StaticQueryContext;
 import net.sf.saxon.query.XQueryExpression;
@@ -61,20 +60,25 @@ import org.webharvest.runtime.processors.plugins.TargetNamespace;
 import org.webharvest.runtime.templaters.BaseTemplater;
 import org.webharvest.runtime.variables.EmptyVariable;
 import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.RecordVariable;
 import org.webharvest.runtime.variables.Variable;
 import org.webharvest.utils.XmlUtil;
 
 import com.google.inject.Inject;
 
 /**
- * XQuery processor.
+ * XPath processor. Besides plain evaluation of the "expression" it supports
+ * record extraction: if "rows" expression is specified, variable-based
+ * attributes are field expressions evaluated relative to every row, yielding
+ * list of {@link RecordVariable}s.
  */
 //TODO Add unit test
 //TODO Add javadoc
 @Autoscanned
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
-@Definition(value = "xpath", validAttributes = { "id", "expression", "v:*" },
+@Definition(value = "xpath", validAttributes = { "id", "expression", "rows", "v:*" },
         definitionClass = XPathDef.class )
+@Stateless
 public class XPathProcessor extends AbstractProcessor<XPathDef> {
 
     @Inject
@@ -86,9 +90,14 @@ public class XPathProcessor extends AbstractProcessor<XPathDef> {
         if (expression != null) {
             this.setProperty("Expression", expression);
         }
+        String rows = BaseTemplater.evaluateToString(elementDef.getRows(), null, context);
+        if (rows != null) {
+            this.setProperty("Rows", rows);
+        }
 
         Map<String, String> varMap = elementDef.getVariableMap();
-        Map<String, String> evaluatedVarMap = new HashMap<String, String>();
+        // keeps declaration order, which is the order of record fields
+        Map<String, String> evaluatedVarMap = new LinkedHashMap<String, String>();
         for ( Map.Entry<String, String> attEntry: varMap.entrySet() ) {
             String varName = attEntry.getKey();
             String varValue = BaseTemplater.evaluateToString(attEntry.getValue(), null, context);
@@ -103,9 +112,14 @@ public class XPathProcessor extends AbstractProcessor<XPathDef> {
             Configuration config = sqc.getConfiguration();
 
             DynamicQueryContext dynamicContext = new DynamicQueryContext(config);
-            StringReader reader = new StringReader(xml.toString());
 
-            dynamicContext.setContextItem(sqc.buildDocument(new StreamSource(reader)));
+            // tree carried by the body (e.g. result of html-to-xml) is queried without reparsing
+            dynamicContext.setContextItem(XmlUtil.buildDocument(xml, sqc));
+
+            if (rows != null) {
+                xpathExpression = rows;
+                return extractRecords(rows, evaluatedVarMap, dynamicContext, config);
+            }
 
             for ( Map.Entry<String, String> attEntry: evaluatedVarMap.entrySet() ) {
                 String varName = attEntry.getKey();
@@ -127,4 +141,41 @@ public class XPathProcessor extends AbstractProcessor<XPathDef> {
         }
     }
 
+    /**
+     * Evaluates rows expression once and then every field expression with the
+     * row as context item, so the document is traversed only once to find the
+     * rows, while fields touch just the row's subtree.
+     */
+    private ListVariable extractRecords(String rows, Map<String, String> fieldMap,
+                                        DynamicQueryContext dynamicContext, Configuration config) throws XPathException {
+        final XQueryExpressionPool pool = runtimeConfig.getXQueryExpressionPool();
+        final XQueryExpression rowsExp = pool.getCompiledExpression(rows);
+
+        final String[] names = new String[fieldMap.size()];
+        final XQueryExpression[] fields = new XQueryExpression[fieldMap.size()];
+        int index = 0;
+        for (Map.Entry<String, String> fieldEntry : fieldMap.entrySet()) {
+            names[index] = fieldEntry.getKey();
+            try {
+                fields[index] = pool.getCompiledExpression(fieldEntry.getValue());
+            } catch (XPathException e) {
+                throw new ScraperXPathException("Error parsing XPath expression (XPath = [" + fieldEntry.getValue() + "])!", e);
+            }
+            index++;
+        }
+
+        final ListVariable records = new ListVariable();
+        final DynamicQueryContext rowContext = new DynamicQueryContext(config);
+        final SequenceIterator rowIterator = rowsExp.iterator(dynamicContext);
+        for (Item row = rowIterator.next(); row != null; row = rowIterator.next()) {
+            rowContext.setContextItem(row);
+            final Variable[] values = new Variable[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = XmlUtil.createListOfXmlNodes(fields[i], rowContext);
+            }
+            records.addVariable(new RecordVariable(names, values));
+        }
+        return records;
+    }
+
 }
\ No newline at end of file
@@ -1,36 +1,81 @@
 package org.webharvest.runtime.processors;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
 import net.sf.saxon.query.StaticQueryContext;
 import net.sf.saxon.query.XQueryExpression;
 import net.sf.saxon.trans.XPathException;
 
-import java.util.Hashtable;
-import java.util.Map;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Class represnts simple pool for XQuery expressions.
  * Client obtains compiled query using method getCompiledExpression.
+ * <p/>
+ * Compiled expressions are shared by all threads without locking. The pool is
+ * bounded, least recently used expressions are evicted first, so expressions
+ * built at runtime (e.g. //a[@id='${id}']) don't make it grow without limit.
  *
  * @author Vladimir Nikic
  * Date: Jul 4, 2007
  */
 public class XQueryExpressionPool {
 
-    private StaticQueryContext sqc;
-    private Map pool = new Hashtable();
+    public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final StaticQueryContext sqc;
+
+    private final Cache<String, XQueryExpression> pool;
 
     public XQueryExpressionPool(StaticQueryContext sqc) {
+        this(sqc, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public XQueryExpressionPool(StaticQueryContext sqc, long maximumSize) {
         this.sqc = sqc;
+        this.pool = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
     }
 
-    public synchronized XQueryExpression getCompiledExpression(String query) throws XPathException {
-        if ( pool.containsKey(query) ) {
-            return (XQueryExpression) pool.get(query);
-        } else {
-            XQueryExpression exp = sqc.compileQuery(query);
-            pool.put(query, exp);
-            return exp;
+    public XQueryExpression getCompiledExpression(final String query) throws XPathException {
+        try {
+            return pool.get(query, new Callable<XQueryExpression>() {
+                @Override
+                public XQueryExpression call() throws XPathException {
+                    // static context is not thread safe, only compilation is serialized though
+                    synchronized (sqc) {
+                        return sqc.compileQuery(query);
+                    }
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof XPathException) {
+                throw (XPathException) e.getCause();
+            }
+            throw new XPathException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        } catch (ExecutionError e) {
+            throw (Error) e.getCause();
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * @return hit, miss and eviction statistics of the pool
+     */
+    public CacheStats getStatistics() {
+        return pool.stats();
+    }
+
+    /**
+     * @return number of compiled expressions in the pool
+     */
+    public long size() {
+        return pool.size();
+    }
+
+}
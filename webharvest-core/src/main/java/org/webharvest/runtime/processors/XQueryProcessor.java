@@ -39,14 +39,11 @@ package org.webharvest.runtime.processors;
 import static org.webharvest.WHConstants.XMLNS_CORE;
 import static org.webharvest.WHConstants.XMLNS_CORE_10;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
-import javax.xml.transform.stream.StreamSource;
-
 import net.sf.saxon.Configuration;
 import net.sf.saxon.query.DynamicQueryContext;
 import net.sf.saxon.query.StaticQueryContext;
@@ -81,6 +78,7 @@ import com.google.inject.Inject;
         validSubprocessors = { "xq-param", "xq-expression" },
         requiredSubprocessors = "xq-expression",
         definitionClass = XQueryDef.class)
+@Stateless
 public class XQueryProcessor extends AbstractProcessor<XQueryDef> {
 
     public static final Set<String> ALLOWED_PARAM_TYPES = new TreeSet<String>();
@@ -182,8 +180,7 @@ public class XQueryProcessor extends AbstractProcessor<XQueryDef> {
         type = type.toLowerCase();
 
         if (type.startsWith("node()")) {
-            StringReader reader = new StringReader(value.toString());
-            return sqc.buildDocument(new StreamSource(reader));
+            return XmlUtil.buildDocument(value, sqc);
         } else if (type.startsWith("integer")) {
             return new Integer(value.toString().trim());
         } else if (type.startsWith("long")) {
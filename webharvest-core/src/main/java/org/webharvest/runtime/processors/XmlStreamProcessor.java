@@ -0,0 +1,191 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.processors;
+
+import static org.webharvest.WHConstants.XMLNS_CORE;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+
+import org.webharvest.annotation.Definition;
+import org.webharvest.definition.XmlStreamDef;
+import org.webharvest.exception.FileException;
+import org.webharvest.exception.HttpException;
+import org.webharvest.ioc.InjectorHelper;
+import org.webharvest.ioc.WorkingDir;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.RuntimeConfig;
+import org.webharvest.runtime.processors.plugins.Autoscanned;
+import org.webharvest.runtime.processors.plugins.TargetNamespace;
+import org.webharvest.runtime.templaters.BaseTemplater;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.runtime.web.HttpClientManager;
+import org.webharvest.runtime.web.HttpParamInfo;
+import org.webharvest.runtime.web.HttpResponseWrapper;
+import org.webharvest.utils.CommonUtil;
+import org.webharvest.utils.XmlStreamIterator;
+
+import com.google.inject.Inject;
+
+/**
+ * Streaming XML extraction processor. Reads XML from the file, the URL
+ * (response body is read straight from the connection) or its body, and
+ * returns lazy sequence of elements matching the {@code path}, each being a
+ * small XML tree on its own, e.g.
+ * <pre>
+ * &lt;loop item="product" empty="true"&gt;
+ *     &lt;list&gt;&lt;xml-stream file="catalog.xml" path="/catalog/product"/&gt;&lt;/list&gt;
+ *     &lt;body&gt;...&lt;/body&gt;
+ * &lt;/loop&gt;
+ * </pre>
+ * Input is read as the sequence is consumed, so input of any size is
+ * processed in constant memory as long as the consumer does not collect the
+ * items (e.g. loop with {@code empty="true"} or with a sink). Only the subset
+ * of XPath described in {@link XmlStreamIterator} is supported as the path.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see XmlStreamIterator
+ */
+@Autoscanned
+@TargetNamespace(XMLNS_CORE)
+@Definition(value = "xml-stream", validAttributes = { "id", "path", "file",
+        "url", "charset(*charset)" }, requiredAttributes = { "path" },
+        definitionClass = XmlStreamDef.class)
+@Stateless
+public class XmlStreamProcessor extends AbstractProcessor<XmlStreamDef> {
+
+    @Inject
+    private RuntimeConfig runtimeConfig;
+
+    @Inject(optional = true)
+    @WorkingDir
+    private String workingDir;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Variable execute(final DynamicScopeContext context)
+            throws InterruptedException {
+        final String path = BaseTemplater.evaluateToString(
+                elementDef.getPath(), null, context);
+        final String file = BaseTemplater.evaluateToString(
+                elementDef.getFile(), null, context);
+        final String url = BaseTemplater.evaluateToString(
+                elementDef.getUrl(), null, context);
+        final String charset = BaseTemplater.evaluateToString(
+                elementDef.getCharset(), null, context);
+
+        this.setProperty("Path", path);
+        this.setProperty("File", file);
+        this.setProperty("URL", url);
+        this.setProperty("Charset", charset);
+
+        final InputStream input;
+        String streamCharset = charset;
+        if (file != null) {
+            input = openFile((workingDir != null)
+                    ? CommonUtil.getAbsoluteFilename(workingDir, file) : file);
+        } else if (url != null) {
+            input = openUrl(url, context);
+        } else {
+            // body is already text, which is encoded and decoded consistently
+            streamCharset = "UTF-8";
+            final Variable body = getBodyTextContent(elementDef, context);
+            try {
+                input = new ByteArrayInputStream(
+                        body.toString().getBytes(streamCharset));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        return new NodeVariable(new XmlStreamIterator(input, streamCharset,
+                path, runtimeConfig.getStaticQueryContext().getConfiguration()));
+    }
+
+    private static InputStream openFile(final String fullPath) {
+        try {
+            return new BufferedInputStream(new FileInputStream(fullPath));
+        } catch (FileNotFoundException e) {
+            throw new FileException("Error reading the file: " + fullPath, e);
+        }
+    }
+
+    /**
+     * Executes GET request and returns stream of the response body, which
+     * releases the connection when closed. HTTP client of the scraping is
+     * looked up only here, so reading files and bodies doesn't depend on it.
+     */
+    private InputStream openUrl(final String url,
+            final DynamicScopeContext context) throws InterruptedException {
+        final HttpClientManager httpClientManager = InjectorHelper
+                .getInjector().getInstance(HttpClientManager.class);
+        final HttpResponseWrapper response;
+        try {
+            response = httpClientManager.execute("get", true, null, url,
+                    context.getCharset(), null, null, null,
+                    new HashMap<String, HttpParamInfo>(), null, 0, 0, 1);
+        } catch (UnsupportedEncodingException e) {
+            throw new HttpException("Charset " + context.getCharset()
+                    + " is not supported!", e);
+        }
+        if (response.getStatusCode() >= 400) {
+            response.close();
+            throw new HttpException("HTTP Status: " + response.getStatusCode()
+                    + ", Url: " + url);
+        }
+        return new FilterInputStream(new BufferedInputStream(
+                response.getBodyAsInputStream())) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    response.close();
+                }
+            }
+        };
+    }
+
+}
@@ -46,7 +46,6 @@ import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -55,10 +54,14 @@ import org.webharvest.definition.IElementDef;
 import org.webharvest.definition.XsltDef;
 import org.webharvest.exception.XsltException;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.RuntimeConfig;
 import org.webharvest.runtime.processors.plugins.Autoscanned;
 import org.webharvest.runtime.processors.plugins.TargetNamespace;
 import org.webharvest.runtime.variables.NodeVariable;
 import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.XmlUtil;
+
+import com.google.inject.Inject;
 
 /**
  * XSLT processor.
@@ -71,8 +74,12 @@ import org.webharvest.runtime.variables.Variable;
         validSubprocessors = {"xml", "stylesheet"},
         requiredSubprocessors = { "xml", "stylesheet" },
         definitionClass = XsltDef.class)
+@Stateless
 public class XsltProcessor extends AbstractProcessor<XsltDef> {
 
+    @Inject
+    private RuntimeConfig runtimeConfig;
+
     public Variable execute(DynamicScopeContext context) throws InterruptedException {
         final IElementDef xsltElementDef = elementDef.getXmlDef();
         Variable xmlStr = getBodyTextContent(xsltElementDef, context, true);
@@ -83,10 +90,12 @@ public class XsltProcessor extends AbstractProcessor<XsltDef> {
         debug(stylesheetElementDef, context, stylesheetStr);
 
         try {
-            TransformerFactory xformFactory = TransformerFactory.newInstance();
-            Source xsl = new StreamSource(new StringReader(stylesheetStr.toString()));
-            Transformer stylesheet = xformFactory.newTransformer(xsl);
-            Source request = new StreamSource(new StringReader(xmlStr.toString()));
+            // compiled once per stylesheet, sharing configuration with xpath and xquery processors
+            Transformer stylesheet = runtimeConfig.getXsltTemplatesPool()
+                    .getTemplates(stylesheetStr.toString()).newTransformer();
+            Source request = (XmlUtil.getXmlNode(xmlStr) != null)
+                    ? XmlUtil.buildDocument(xmlStr, runtimeConfig.getStaticQueryContext())
+                    : new StreamSource(new StringReader(xmlStr.toString()));
             StringWriter writer = new StringWriter();
             Result response = new StreamResult(writer);
             stylesheet.transform(request, response);
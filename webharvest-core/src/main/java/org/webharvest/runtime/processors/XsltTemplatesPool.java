@@ -0,0 +1,139 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.processors;
+
+import java.io.StringReader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.TransformerFactoryImpl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Bounded pool of compiled XSLT stylesheets. Stylesheets are looked up by
+ * their content (its hash, confirmed by equality), so the same stylesheet
+ * used by many executions, e.g. in every iteration of a loop, is compiled
+ * once. Compiled {@link Templates} are thread safe and shared by all threads;
+ * least recently used ones are evicted first.
+ * <p/>
+ * Stylesheets are compiled by single {@link TransformerFactory} sharing
+ * Saxon configuration with the XPath and XQuery processors, so their trees
+ * can be transformed directly.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see XQueryExpressionPool
+ */
+public class XsltTemplatesPool {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 100;
+
+    private final TransformerFactory factory;
+
+    private final Cache<String, Templates> pool;
+
+    public XsltTemplatesPool(final Configuration config) {
+        this(config, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public XsltTemplatesPool(final Configuration config,
+            final long maximumSize) {
+        this.factory = new TransformerFactoryImpl(config);
+        this.pool = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .recordStats().build();
+    }
+
+    /**
+     * Returns compiled stylesheet, compiling it if it is not in the pool.
+     * Leading and trailing whitespace of the stylesheet is insignificant.
+     *
+     * @param stylesheet
+     *            text of XSLT stylesheet
+     * @return compiled stylesheet
+     * @throws TransformerConfigurationException
+     *             if the stylesheet cannot be compiled
+     */
+    public Templates getTemplates(final String stylesheet)
+            throws TransformerConfigurationException {
+        final String key = stylesheet.trim();
+        try {
+            return pool.get(key, new Callable<Templates>() {
+                @Override
+                public Templates call()
+                        throws TransformerConfigurationException {
+                    // factory is not guaranteed to be thread safe
+                    synchronized (factory) {
+                        return factory.newTemplates(new StreamSource(
+                                new StringReader(key)));
+                    }
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TransformerConfigurationException) {
+                throw (TransformerConfigurationException) e.getCause();
+            }
+            throw new TransformerConfigurationException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        } catch (ExecutionError e) {
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * @return hit, miss and eviction statistics of the pool
+     */
+    public CacheStats getStatistics() {
+        return pool.stats();
+    }
+
+    /**
+     * @return number of compiled stylesheets in the pool
+     */
+    public long size() {
+        return pool.size();
+    }
+
+}
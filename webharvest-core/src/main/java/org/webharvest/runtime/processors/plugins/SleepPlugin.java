@@ -42,6 +42,7 @@ import static org.webharvest.WHConstants.XMLNS_CORE;
 
 import org.webharvest.annotation.Definition;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.processors.Stateless;
 import org.webharvest.runtime.processors.WebHarvestPlugin;
 import org.webharvest.runtime.variables.EmptyVariable;
 import org.webharvest.runtime.variables.Variable;
@@ -50,6 +51,7 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace(XMLNS_CORE)
 @Definition(value="sleep",validAttributes="milliseconds",
         requiredAttributes="milliseconds", body=false)
+@Stateless
 public class SleepPlugin extends WebHarvestPlugin {
 
     private static final String MILLISECONDS_ATT_NAME = "milliseconds";
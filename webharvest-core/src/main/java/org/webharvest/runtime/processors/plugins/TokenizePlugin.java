@@ -5,6 +5,7 @@ import static org.webharvest.WHConstants.XMLNS_CORE_10;
 
 import org.webharvest.annotation.Definition;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.processors.Stateless;
 import org.webharvest.runtime.processors.WebHarvestPlugin;
 import org.webharvest.runtime.variables.ListVariable;
 import org.webharvest.runtime.variables.NodeVariable;
@@ -17,6 +18,7 @@ import org.webharvest.utils.CommonUtil;
 @Autoscanned
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition("tokenize")
+@Stateless
 public class TokenizePlugin extends WebHarvestPlugin {
 
     public String getName() {
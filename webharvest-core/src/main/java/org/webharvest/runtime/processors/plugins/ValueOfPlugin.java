@@ -42,6 +42,7 @@ import static org.webharvest.WHConstants.XMLNS_CORE;
 
 import org.webharvest.annotation.Definition;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.processors.Stateless;
 import org.webharvest.runtime.processors.WebHarvestPlugin;
 import org.webharvest.runtime.templaters.BaseTemplater;
 import org.webharvest.runtime.variables.Variable;
@@ -50,6 +51,7 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace(XMLNS_CORE)
 @Definition(value="value-of", validAttributes="expr", requiredAttributes="expr",
         body=false)
+@Stateless
 public class ValueOfPlugin extends WebHarvestPlugin {
 
     private static final String ATTR_EXPRESSION = "expr";
@@ -9,6 +9,7 @@ import org.json.XML;
 import org.webharvest.annotation.Definition;
 import org.webharvest.exception.PluginException;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.processors.Stateless;
 import org.webharvest.runtime.processors.WebHarvestPlugin;
 import org.webharvest.runtime.variables.NodeVariable;
 import org.webharvest.runtime.variables.Variable;
@@ -19,6 +20,7 @@ import org.webharvest.runtime.variables.Variable;
 @Autoscanned
 @TargetNamespace({ XMLNS_CORE, XMLNS_CORE_10 })
 @Definition("xml-to-json")
+@Stateless
 public class XmlToJsonPlugin extends WebHarvestPlugin {
 
     public String getName() {
@@ -33,11 +33,14 @@
 
 package org.webharvest.runtime.processors.plugins.db;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
@@ -45,6 +48,8 @@ import java.util.List;
 import org.apache.commons.dbutils.DbUtils;
 import org.webharvest.exception.DatabaseException;
 import org.webharvest.exception.PluginException;
+import org.webharvest.runtime.Cancellable;
+import org.webharvest.runtime.Deadline;
 import org.webharvest.runtime.DynamicScopeContext;
 import org.webharvest.runtime.processors.WebHarvestPlugin;
 import org.webharvest.runtime.variables.EmptyVariable;
@@ -91,6 +96,7 @@ public abstract class AbstractDatabasePlugin extends WebHarvestPlugin {
 
         PreparedStatement statement = null;
         ResultSet resultSet = null;
+        Deadline.Registration registration = null;
         try {
             statement = conn.prepareStatement(sql,
                     ResultSet.TYPE_SCROLL_INSENSITIVE,
@@ -135,6 +141,12 @@ public abstract class AbstractDatabasePlugin extends WebHarvestPlugin {
                 }
             }
 
+            final Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                limitQueryTime(statement, deadline);
+            }
+            registration = Deadline.register(cancellableOf(statement));
+
             statement.execute();
             resultSet = statement.getResultSet();
 
@@ -201,6 +213,9 @@ public abstract class AbstractDatabasePlugin extends WebHarvestPlugin {
         } catch (SQLException e) {
             throw new DatabaseException(e);
         } finally {
+            if (registration != null) {
+                registration.remove();
+            }
             DbUtils.closeQuietly(resultSet);
             DbUtils.closeQuietly(statement);
             DbUtils.closeQuietly(conn);
@@ -208,6 +223,34 @@ public abstract class AbstractDatabasePlugin extends WebHarvestPlugin {
 
     }
 
+    private static void limitQueryTime(final Statement statement,
+            final Deadline deadline) {
+        try {
+            statement.setQueryTimeout(Math.max(1, (int) MILLISECONDS
+                    .toSeconds(deadline.getRemainingMillis())));
+        } catch (SQLException e) {
+            // not supported by the driver, cancellation is still in place
+        }
+    }
+
+    /**
+     * Statement is cancelled once the deadline of executing processor
+     * expires, so neither a long running query nor fetching of its results
+     * blocks the thread.
+     */
+    private static Cancellable cancellableOf(final Statement statement) {
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    throw new DatabaseException(e);
+                }
+            }
+        };
+    }
+
     void addDbParam(final Variable value, final String type) {
         if (dbParams == null) {
             dbParams = new ArrayList<DbParamInfo>();
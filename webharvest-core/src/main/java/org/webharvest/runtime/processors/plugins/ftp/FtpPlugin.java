@@ -9,6 +9,8 @@ import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPReply;
 import org.webharvest.annotation.Definition;
+import org.webharvest.runtime.Cancellable;
+import org.webharvest.runtime.Deadline;
 import org.webharvest.runtime.DynamicScopeContext;
 import org.webharvest.runtime.processors.WebHarvestPlugin;
 import org.webharvest.runtime.processors.plugins.Autoscanned;
@@ -46,6 +48,9 @@ public class FtpPlugin extends WebHarvestPlugin {
         setProperty("Remote Dir", remoteDir);
 
         ftpClient = new FTPClient();
+        // closing the connection releases the thread blocked on transfer
+        final Deadline.Registration registration =
+            Deadline.register(disconnectOf(ftpClient));
 
         try {
             int reply;
@@ -73,6 +78,7 @@ public class FtpPlugin extends WebHarvestPlugin {
         } catch (IOException e) {
             throw new FtpPluginException(e);
         } finally {
+            registration.remove();
             if (ftpClient.isConnected()) {
                 try {
                     ftpClient.disconnect();
@@ -84,6 +90,19 @@ public class FtpPlugin extends WebHarvestPlugin {
         }
     }
 
+    private static Cancellable disconnectOf(final FTPClient client) {
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                try {
+                    client.disconnect();
+                } catch (IOException e) {
+                    throw new FtpPluginException(e);
+                }
+            }
+        };
+    }
+
     public String[] getValidAttributes() {
         return new String[] {"server", "port", "username", "password", "account", "remotedir"};
     }
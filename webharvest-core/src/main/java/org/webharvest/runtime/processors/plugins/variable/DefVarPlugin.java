@@ -42,6 +42,7 @@ import static org.webharvest.WHConstants.XMLNS_CORE;
 
 import org.webharvest.annotation.Definition;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.processors.Stateless;
 import org.webharvest.runtime.processors.plugins.Autoscanned;
 import org.webharvest.runtime.processors.plugins.TargetNamespace;
 import org.webharvest.runtime.variables.Variable;
@@ -53,6 +54,7 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace(XMLNS_CORE)
 @Definition(value="def", validAttributes={"var", "value", "default"},
         requiredAttributes="var")
+@Stateless
 public class DefVarPlugin extends AbstractVariableModifierPlugin {
 
     @Override
@@ -45,6 +45,7 @@ import java.text.MessageFormat;
 import org.webharvest.annotation.Definition;
 import org.webharvest.exception.VariableException;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.processors.Stateless;
 import org.webharvest.runtime.processors.WebHarvestPlugin;
 import org.webharvest.runtime.processors.plugins.Autoscanned;
 import org.webharvest.runtime.processors.plugins.TargetNamespace;
@@ -54,6 +55,7 @@ import org.webharvest.runtime.variables.Variable;
 @TargetNamespace(XMLNS_CORE)
 @Definition(value="get", validAttributes={"var"},
         requiredAttributes="var", body=false)
+@Stateless
 public class GetVarPlugin extends WebHarvestPlugin {
 
     private static final String ATTR_VAR = "var";
@@ -33,6 +33,8 @@
 
 package org.webharvest.runtime.scripting;
 
+import java.util.Collection;
+
 /**
  * Factory creating {@link ScriptEngine} instances capable of executing
  * provided {@link ScriptSource}. Along with {@link ScriptEngine} interface
@@ -57,4 +59,18 @@ public interface ScriptEngineFactory {
      *         {@link ScriptSource}.
      */
     ScriptEngine getEngine(ScriptSource scriptSource);
+
+    /**
+     * Prepares engines capable of executing provided scripts ahead of their
+     * execution, so the first evaluation of each script does not pay engine
+     * bootstrap cost. Implementations are free to precompile scripts, if the
+     * underlying engine supports it. Problems with particular scripts must not
+     * be reported by exception - scripts are evaluated (and possibly fail)
+     * later on anyway.
+     *
+     * @param scripts
+     *            not {@code null} collection of scripts expected to be
+     *            executed
+     */
+    void prepare(Collection<ScriptSource> scripts);
 }
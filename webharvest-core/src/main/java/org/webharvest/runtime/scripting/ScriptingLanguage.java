@@ -50,10 +50,19 @@ public enum ScriptingLanguage {
 
     BEANSHELL,
     JAVASCRIPT,
-    GROOVY;
+    GROOVY,
+
+    /**
+     * Groovy with static type checking and compilation. Scripts are compiled
+     * to cached classes and access context variables through the typed
+     * accessors of {@link org.webharvest.runtime.scripting.groovy.TypedScript}.
+     * Specified in configuration as {@code groovy-static}.
+     */
+    GROOVY_STATIC;
 
     public static ScriptingLanguage recognize(String name) {
-        name = StringUtils.upperCase(StringUtils.trimToNull(name));
+        name = StringUtils.replaceChars(
+                StringUtils.upperCase(StringUtils.trimToNull(name)), '-', '_');
         if (name == null) {
             return null;
         }
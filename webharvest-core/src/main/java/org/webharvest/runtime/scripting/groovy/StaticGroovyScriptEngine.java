@@ -0,0 +1,160 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.scripting.groovy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.transform.CompileStatic;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.webharvest.exception.ScriptEngineException;
+import org.webharvest.exception.ScriptException;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.scripting.ScriptEngine;
+import org.webharvest.runtime.scripting.ScriptSource;
+
+/**
+ * {@link ScriptEngine} executing groovy scripts compiled statically (with
+ * {@link CompileStatic} applied to the whole script). Each distinct source
+ * code is compiled only once; compiled classes are kept in bounded LRU cache.
+ * Scripts extend {@link TypedScript}, which gives typed access to scraper's
+ * context variables.
+ * <p/>
+ * Unlike JSR-223 engines, this engine is thread-safe: new script instance is
+ * created for each evaluation, so there is no state shared between scripts
+ * other than scraper's context.
+ *
+ * @see TypedScript
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class StaticGroovyScriptEngine implements ScriptEngine {
+
+    /**
+     * Default maximum number of cached script classes.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private final CompilerConfiguration configuration;
+
+    private final AtomicLong scriptCounter = new AtomicLong();
+
+    private final Map<String, Class<? extends TypedScript>> cache;
+
+    public StaticGroovyScriptEngine() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public StaticGroovyScriptEngine(final int cacheSize) {
+        this.configuration = new CompilerConfiguration();
+        configuration.setScriptBaseClass(TypedScript.class.getName());
+        configuration.addCompilationCustomizers(
+                new ASTTransformationCustomizer(CompileStatic.class));
+        this.cache = new LinkedHashMap<String, Class<? extends TypedScript>>(
+                16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String,
+                    Class<? extends TypedScript>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object evaluate(final DynamicScopeContext context,
+            final ScriptSource script) {
+        final TypedScript instance;
+        try {
+            instance = compile(script.getSourceCode()).newInstance();
+        } catch (InstantiationException e) {
+            throw new ScriptEngineException(e);
+        } catch (IllegalAccessException e) {
+            throw new ScriptEngineException(e);
+        }
+        instance.setContext(context);
+        try {
+            return instance.run();
+        } catch (RuntimeException e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    /**
+     * Returns class of the given script, compiling it if not cached yet.
+     *
+     * @param sourceCode
+     *            groovy source code
+     * @return compiled script class
+     * @throws ScriptException
+     *             if the script does not compile (including type checking
+     *             errors)
+     */
+    public Class<? extends TypedScript> compile(final String sourceCode) {
+        synchronized (cache) {
+            final Class<? extends TypedScript> scriptClass =
+                cache.get(sourceCode);
+            if (scriptClass != null) {
+                return scriptClass;
+            }
+        }
+
+        // Separate class loader per script makes classes evicted from the
+        // cache eligible for garbage collection
+        final GroovyClassLoader classLoader = new GroovyClassLoader(
+                TypedScript.class.getClassLoader(), configuration);
+        final Class<? extends TypedScript> scriptClass;
+        try {
+            scriptClass = classLoader.parseClass(sourceCode, "WebHarvestScript"
+                    + scriptCounter.incrementAndGet() + ".groovy")
+                    .asSubclass(TypedScript.class);
+        } catch (CompilationFailedException e) {
+            throw new ScriptException(e);
+        }
+
+        synchronized (cache) {
+            cache.put(sourceCode, scriptClass);
+        }
+        return scriptClass;
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.scripting.groovy;
+
+import java.util.Collections;
+import java.util.List;
+
+import groovy.lang.Script;
+
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.variables.Variable;
+
+/**
+ * Base class of all scripts executed in
+ * {@link org.webharvest.runtime.scripting.ScriptingLanguage#GROOVY_STATIC}
+ * mode. Since statically compiled code can not refer to dynamic binding
+ * variables, scraper's context variables are accessed through typed accessors
+ * declared here, e.g.
+ *
+ * <pre>
+ * String url = string('url')
+ * for (Variable item : list('items')) { ... }
+ * set('count', list('items').size())
+ * </pre>
+ *
+ * @see StaticGroovyScriptEngine
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public abstract class TypedScript extends Script {
+
+    private DynamicScopeContext context;
+
+    /**
+     * Returns scraper's context the script is executed within.
+     */
+    public DynamicScopeContext getContext() {
+        return context;
+    }
+
+    void setContext(final DynamicScopeContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns variable of the given name or {@code null} if not defined.
+     */
+    public Variable var(final String name) {
+        return context.getVar(name);
+    }
+
+    /**
+     * Returns string value of the given variable or {@code null} if not
+     * defined.
+     */
+    public String string(final String name) {
+        final Variable variable = var(name);
+        return variable == null ? null : variable.toString();
+    }
+
+    /**
+     * Returns object wrapped by the given variable or {@code null} if not
+     * defined.
+     */
+    public Object object(final String name) {
+        final Variable variable = var(name);
+        return variable == null ? null : variable.getWrappedObject();
+    }
+
+    /**
+     * Returns items of the given variable or empty list if not defined.
+     */
+    public List<Variable> list(final String name) {
+        final Variable variable = var(name);
+        if (variable == null) {
+            return Collections.emptyList();
+        }
+        return variable.toList();
+    }
+
+    /**
+     * Returns value of the given variable converted to {@code int}.
+     */
+    public int integer(final String name) {
+        return var(name).toInt();
+    }
+
+    /**
+     * Returns value of the given variable converted to {@code long}.
+     */
+    public long longValue(final String name) {
+        return var(name).toLong();
+    }
+
+    /**
+     * Returns value of the given variable converted to {@code double}.
+     */
+    public double doubleValue(final String name) {
+        return var(name).toDouble();
+    }
+
+    /**
+     * Returns value of the given variable converted to {@code boolean};
+     * {@code false} if not defined.
+     */
+    public boolean bool(final String name) {
+        final Variable variable = var(name);
+        return variable != null && variable.toBoolean();
+    }
+
+    /**
+     * Sets local variable in the scraper's context.
+     */
+    public void set(final String name, final Object value) {
+        context.setLocalVar(name, value);
+    }
+
+}
@@ -38,6 +38,7 @@ import org.webharvest.exception.ScriptException;
 import org.webharvest.runtime.DynamicScopeContext;
 import org.webharvest.runtime.scripting.ScriptEngine;
 import org.webharvest.runtime.scripting.ScriptSource;
+import org.webharvest.runtime.scripting.ScriptingLanguage;
 import org.webharvest.runtime.variables.ScriptingVariable;
 import org.webharvest.runtime.variables.Variable;
 import org.webharvest.utils.KeyValuePair;
@@ -49,11 +50,13 @@ import org.webharvest.utils.KeyValuePair;
  * is universal for all scripting language implementations supporting JSR-223
  * specification.
  * <p/>
- * It is important to bear in mind that this implementation is not thread-safe,
- * that is, {@link javax.script.ScriptEngine} being adapted can not be shared
- * between multiple threads. Bindings from scraper's {@link DynamicScopeContext}
- * are copied directly to the {@link ScriptEngine}. This is performance
- * trade-off, since currently creation of brand new
+ * It is important to bear in mind that {@link javax.script.ScriptEngine} is
+ * never evaluated by multiple threads at a time, so it does not have to be
+ * locked: adapter of scraping scope checks engine out of the
+ * {@link ScriptEngineLease} for each evaluation, whereas adapted engine is
+ * confined to a single thread out of scraping scope. Bindings from scraper's
+ * {@link DynamicScopeContext} are copied directly to the {@link ScriptEngine}.
+ * This is performance trade-off, since currently creation of brand new
  * {@link javax.script.ScriptContext} instances each time script is evaluated is
  * quite expensive.
  *
@@ -67,9 +70,14 @@ public final class JSRScriptEngineAdapter implements ScriptEngine {
 
     private javax.script.ScriptEngine adaptee;
 
+    private ScriptEngineLease lease;
+
+    private ScriptingLanguage language;
+
     /**
      * {@link JSRScriptEngineAdapter} constructor accepting reference to the
-     * not-{@code null} {@link javax.script.ScriptEngine} delegate.
+     * not-{@code null} {@link javax.script.ScriptEngine} delegate, which must
+     * not be used by other threads.
      *
      * @param adaptee
      *            adaptee reference; mandatory, must not be {@code null}
@@ -82,21 +90,55 @@ public final class JSRScriptEngineAdapter implements ScriptEngine {
         this.adaptee = adaptee;
     }
 
+    /**
+     * {@link JSRScriptEngineAdapter} constructor accepting reference to the
+     * not-{@code null} {@link ScriptEngineLease} the delegate is checked out
+     * from for each evaluation.
+     *
+     * @param lease
+     *            lease of engines; mandatory, must not be {@code null}
+     * @param language
+     *            scripting language of the delegate
+     */
+    public JSRScriptEngineAdapter(final ScriptEngineLease lease,
+            final ScriptingLanguage language) {
+        if (lease == null) {
+            throw new IllegalArgumentException(
+                    "Script engine lease must not be null");
+        }
+        this.lease = lease;
+        this.language = language;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public Object evaluate(final DynamicScopeContext context,
             final ScriptSource script) {
+        if (lease == null) {
+            return evaluate(adaptee, context, script);
+        }
+        final javax.script.ScriptEngine engine = lease.checkOut(language);
+        try {
+            return evaluate(engine, context, script);
+        } finally {
+            lease.checkIn(language, engine);
+        }
+    }
+
+    private static Object evaluate(final javax.script.ScriptEngine engine,
+            final DynamicScopeContext context, final ScriptSource script) {
         try {
-            copyVariables(context);
-            return adaptee.eval(script.getSourceCode());
+            copyVariables(engine, context);
+            return engine.eval(script.getSourceCode());
         } catch (javax.script.ScriptException e) {
             throw new ScriptException(e);
         }
     }
 
-    private void copyVariables(final DynamicScopeContext context) {
+    private static void copyVariables(final javax.script.ScriptEngine engine,
+            final DynamicScopeContext context) {
         for (KeyValuePair<Variable> pair : context) {
             final Variable value = pair.getValue();
 
@@ -107,7 +149,7 @@ public final class JSRScriptEngineAdapter implements ScriptEngine {
             // however it would be neat if we just had value.getWrappedObject()
             // invocation; this way we could use in scripts wrapped objects
             // directly instead of manually unwrapping them...
-            adaptee.put(pair.getKey(), (value instanceof ScriptingVariable)
+            engine.put(pair.getKey(), (value instanceof ScriptingVariable)
                             ? value.getWrappedObject() : value);
         }
     }
@@ -33,52 +33,191 @@
 
 package org.webharvest.runtime.scripting.jsr;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.script.Compilable;
 import javax.script.ScriptEngineManager;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.webharvest.Cache;
+import org.webharvest.Harvester;
+import org.webharvest.ScrapingAware;
 import org.webharvest.ThreadLocalCache;
-import org.webharvest.exception.ConfigurationException;
 import org.webharvest.runtime.scripting.ScriptEngine;
 import org.webharvest.runtime.scripting.ScriptEngineFactory;
 import org.webharvest.runtime.scripting.ScriptSource;
 import org.webharvest.runtime.scripting.ScriptingLanguage;
+import org.webharvest.runtime.scripting.groovy.StaticGroovyScriptEngine;
+
+import com.google.inject.Inject;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.Provider;
 
 /**
  * {@link ScriptEngineFactory} implementation that creates script engines based
  * on JSR-223 specification. Under the hood, factory uses
  * {@link ScriptEngineManager}, so all available scripting language
  * implementations supporting JSR-223 spec should be detected automatically.
+ * <p/>
+ * Within scraping scope engines are checked out, for each evaluation, from
+ * the {@link ScriptEngineLease} bound to the current scraping, which in turn
+ * borrows them from the shared, bounded {@link ScriptEnginePool}. Leased
+ * engines are given back to the pool as soon as the scraping is over (the
+ * factory is {@link ScrapingAware} for that purpose).
+ * <p/>
+ * The only exception is {@link ScriptingLanguage#GROOVY_STATIC} which has no
+ * JSR-223 counterpart; such scripts are executed by the single, thread-safe
+ * {@link StaticGroovyScriptEngine}.
  *
  * @see ScriptEngine
  * @see ScriptEngineFactory
+ * @see ScriptEnginePool
  *
  * @author Michał Amerek
  * @author Piotr Dyraga
  * @since 2.1.0-SNAPSHOT
  * @version %I%, %G%
  */
-public final class JSRScriptEngineFactory implements ScriptEngineFactory {
+public final class JSRScriptEngineFactory implements ScriptEngineFactory,
+        ScrapingAware {
+
+    private static final Logger LOG = LoggerFactory
+            .getLogger(JSRScriptEngineFactory.class);
 
     /**
      * Despite of declarations, some script engines are not really thread safe
      * (for example bsh script engine storing stateful interpreter instance
-     * as a class field). To overcome this problem we have to cache script
-     * engines per thread. Storing script engines 'globally' may cause
-     * serious issues in the multithreaded environment.
+     * as a class field). Out of scraping scope (e.g. when the factory is used
+     * directly, without IoC container) we have to cache script engines per
+     * thread, just like before the pool was introduced.
      */
     private final Cache<ScriptingLanguage, javax.script.ScriptEngine> cache =
         new ThreadLocalCache<ScriptingLanguage, javax.script.ScriptEngine>();
 
-    private final ScriptEngineManager manager = new ScriptEngineManager();
+    private final ScriptEnginePool pool;
+
+    private final StaticGroovyScriptEngine staticGroovyEngine =
+        new StaticGroovyScriptEngine();
+
+    private final Provider<ScriptEngineLease> leaseProvider;
+
+    /**
+     * Creates factory working without scraping scope. Engines are kept per
+     * thread.
+     */
+    public JSRScriptEngineFactory() {
+        this(new ScriptEnginePool(), null);
+    }
+
+    /**
+     * Creates factory taking engines from scraping scope's
+     * {@link ScriptEngineLease}.
+     *
+     * @param pool
+     *            pool creating engines used out of scraping scope
+     * @param leaseProvider
+     *            provider of the current scraping's {@link ScriptEngineLease}
+     */
+    @Inject
+    public JSRScriptEngineFactory(final ScriptEnginePool pool,
+            final Provider<ScriptEngineLease> leaseProvider) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Script engine pool is required");
+        }
+        this.pool = pool;
+        this.leaseProvider = leaseProvider;
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
     public ScriptEngine getEngine(final ScriptSource scriptSource) {
+        if (scriptSource.getLanguage() == ScriptingLanguage.GROOVY_STATIC) {
+            return staticGroovyEngine;
+        }
+        final ScriptEngineLease lease = getCurrentLease();
+        if (lease != null) {
+            return new JSRScriptEngineAdapter(lease,
+                    scriptSource.getLanguage());
+        }
         return new JSRScriptEngineAdapter(getJSRScriptEngine(scriptSource));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Makes sure there is an idle engine in the pool for each language used
+     * by provided scripts and compiles the scripts with it (for
+     * {@link Compilable} engines). Apart from early class loading, some
+     * engines (e.g. groovy) keep classes of compiled scripts, so subsequent
+     * evaluation of the same source code is much faster.
+     */
+    @Override
+    public void prepare(final Collection<ScriptSource> scripts) {
+        final Map<ScriptingLanguage, List<String>> sources =
+            new EnumMap<ScriptingLanguage, List<String>>(
+                    ScriptingLanguage.class);
+        for (ScriptSource script : scripts) {
+            List<String> languageSources = sources.get(script.getLanguage());
+            if (languageSources == null) {
+                languageSources = new ArrayList<String>();
+                sources.put(script.getLanguage(), languageSources);
+            }
+            if (script.getSourceCode().length() > 0) {
+                languageSources.add(script.getSourceCode());
+            }
+        }
+
+        final List<String> staticGroovySources =
+            sources.remove(ScriptingLanguage.GROOVY_STATIC);
+        if (staticGroovySources != null) {
+            for (String source : staticGroovySources) {
+                compileStatic(source);
+            }
+        }
+
+        for (Map.Entry<ScriptingLanguage, List<String>> entry
+                : sources.entrySet()) {
+            final ScriptingLanguage language = entry.getKey();
+            pool.prestart(language, 1);
+            final javax.script.ScriptEngine engine =
+                pool.borrowEngine(language);
+            try {
+                if (engine instanceof Compilable) {
+                    for (String source : entry.getValue()) {
+                        compile((Compilable) engine, language, source);
+                    }
+                }
+            } finally {
+                pool.returnEngine(language, engine);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onBeforeScraping(final Harvester harvester) {
+        // Engines are borrowed lazily, on first script evaluation
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onAfterScraping(final Harvester harvester) {
+        if (leaseProvider != null) {
+            leaseProvider.get().release();
+        }
+    }
+
     private javax.script.ScriptEngine getJSRScriptEngine(
             final ScriptSource scriptSource) {
         final ScriptingLanguage scriptingLanguage = scriptSource.getLanguage();
@@ -89,29 +228,41 @@ public final class JSRScriptEngineFactory implements ScriptEngineFactory {
             return scriptEngine;
         }
 
-        scriptEngine = createJSRScriptEngine(scriptingLanguage);
+        scriptEngine = pool.createEngine(scriptingLanguage);
         cache.put(scriptingLanguage, scriptEngine);
         return scriptEngine;
     }
 
-    /**
-     * Creates {@link ScriptEngine} with usage of {@link ScriptEngineManager}.
-     * Strongly depends on JSR 223 script engine providers. If no engine found
-     * for the given {@code engineType} using
-     * {@link ScriptEngineManager#getEngineByName(String)} then
-     * {@link ConfigurationException} is thrown indicating possibly missing
-     * engine provider.
-     */
-    private javax.script.ScriptEngine createJSRScriptEngine(
-            final ScriptingLanguage scriptingLanguage) {
-        final String engineType = scriptingLanguage.name().toLowerCase();
-        final javax.script.ScriptEngine engine = manager.getEngineByName(
-                engineType);
-
-        if (engine == null) {
-            throw new ConfigurationException("No script engine found for "
-                    + "name: '" + engineType + "'; Possibly missing provider");
+    private void compile(final Compilable engine,
+            final ScriptingLanguage language, final String source) {
+        try {
+            engine.compile(source);
+        } catch (javax.script.ScriptException e) {
+            LOG.warn("Could not precompile {} script: {}", language,
+                    e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.warn("Could not precompile {} script: {}", language,
+                    e.getMessage());
+        }
+    }
+
+    private void compileStatic(final String source) {
+        try {
+            staticGroovyEngine.compile(source);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not precompile {} script: {}",
+                    ScriptingLanguage.GROOVY_STATIC, e.getMessage());
+        }
+    }
+
+    private ScriptEngineLease getCurrentLease() {
+        if (leaseProvider == null) {
+            return null;
+        }
+        try {
+            return leaseProvider.get();
+        } catch (OutOfScopeException e) {
+            return null;
         }
-        return engine;
     }
 }
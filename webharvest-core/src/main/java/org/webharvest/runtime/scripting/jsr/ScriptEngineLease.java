@@ -0,0 +1,189 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.scripting.jsr;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.webharvest.runtime.scripting.ScriptingLanguage;
+
+import com.google.inject.Inject;
+
+/**
+ * Script engines checked out from {@link ScriptEnginePool} for the duration of
+ * a single scraping (single {@link org.webharvest.Harvester} execution), while
+ * concurrent harvests are fully isolated from each other.
+ * <p/>
+ * Each script evaluation checks an engine out of the lease with
+ * {@link #checkOut(ScriptingLanguage)} and gives it back with
+ * {@link #checkIn(ScriptingLanguage, javax.script.ScriptEngine)}, so an engine
+ * is used by a single thread at a time without any locking, and concurrently
+ * executed parallel branches or loop iterations evaluate their scripts with
+ * engines of their own. A thread gets back the engine it used last whenever
+ * that engine is idle, so scripts executed one after another by the same
+ * thread (e.g. all scripts of a sequential configuration) are evaluated by the
+ * same engine and variables and functions defined by one {@code script}
+ * element are visible in the subsequent ones.
+ * <p/>
+ * Engines are borrowed from the pool lazily, when no engine of the lease is
+ * idle, and given back to the pool by {@link #release()} when the scraping is
+ * over.
+ *
+ * @see ScriptEnginePool
+ * @see JSRScriptEngineFactory
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class ScriptEngineLease {
+
+    private final Map<ScriptingLanguage, List<LeasedEngine>> engines =
+        new EnumMap<ScriptingLanguage, List<LeasedEngine>>(
+                ScriptingLanguage.class);
+
+    // most recently checked in first
+    private final Map<ScriptingLanguage, LinkedList<LeasedEngine>> idle =
+        new EnumMap<ScriptingLanguage, LinkedList<LeasedEngine>>(
+                ScriptingLanguage.class);
+
+    private final ScriptEnginePool pool;
+
+    /**
+     * Creates lease of engines from the specified pool.
+     *
+     * @param pool
+     *            pool engines are borrowed from; must not be {@code null}
+     */
+    @Inject
+    public ScriptEngineLease(final ScriptEnginePool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Script engine pool is required");
+        }
+        this.pool = pool;
+        for (ScriptingLanguage language : ScriptingLanguage.values()) {
+            engines.put(language, new ArrayList<LeasedEngine>());
+            idle.put(language, new LinkedList<LeasedEngine>());
+        }
+    }
+
+    /**
+     * Checks out idle engine of the lease for the given language, preferably
+     * the one last used by the current thread, or borrows new one from the
+     * pool if all of them are in use. The engine is exclusively used by the
+     * calling thread until it is given back with
+     * {@link #checkIn(ScriptingLanguage, javax.script.ScriptEngine)}.
+     *
+     * @param language
+     *            scripting language of requested engine
+     * @return engine ready to evaluate scripts
+     */
+    public javax.script.ScriptEngine checkOut(
+            final ScriptingLanguage language) {
+        final Thread current = Thread.currentThread();
+        synchronized (this) {
+            final LinkedList<LeasedEngine> idleEngines = idle.get(language);
+            for (Iterator<LeasedEngine> it = idleEngines.iterator();
+                    it.hasNext();) {
+                final LeasedEngine leased = it.next();
+                if (leased.lastUser == current) {
+                    it.remove();
+                    return leased.engine;
+                }
+            }
+            if (!idleEngines.isEmpty()) {
+                return idleEngines.removeFirst().engine;
+            }
+        }
+        // waiting for the pool must not block engines being checked in
+        final javax.script.ScriptEngine engine = pool.borrowEngine(language);
+        synchronized (this) {
+            engines.get(language).add(new LeasedEngine(engine));
+        }
+        return engine;
+    }
+
+    /**
+     * Gives engine obtained from {@link #checkOut(ScriptingLanguage)} back to
+     * the lease, so it can be used by subsequent script evaluations.
+     *
+     * @param language
+     *            scripting language of the engine
+     * @param engine
+     *            engine to give back
+     */
+    public synchronized void checkIn(final ScriptingLanguage language,
+            final javax.script.ScriptEngine engine) {
+        for (LeasedEngine leased : engines.get(language)) {
+            if (leased.engine == engine) {
+                leased.lastUser = Thread.currentThread();
+                idle.get(language).addFirst(leased);
+                return;
+            }
+        }
+        // lease has been released while the engine was checked out
+        pool.returnEngine(language, engine);
+    }
+
+    /**
+     * Gives all borrowed engines back to the pool; engines still checked out
+     * go back once they are checked in. Lease can still be used afterwards,
+     * in which case engines are borrowed again.
+     */
+    public synchronized void release() {
+        for (Map.Entry<ScriptingLanguage, LinkedList<LeasedEngine>> entry
+                : idle.entrySet()) {
+            for (LeasedEngine leased : entry.getValue()) {
+                pool.returnEngine(entry.getKey(), leased.engine);
+            }
+            entry.getValue().clear();
+            engines.get(entry.getKey()).clear();
+        }
+    }
+
+    private static final class LeasedEngine {
+
+        private final javax.script.ScriptEngine engine;
+
+        private Thread lastUser;
+
+        LeasedEngine(final javax.script.ScriptEngine engine) {
+            this.engine = engine;
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.scripting.jsr;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngineManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.exception.ConfigurationException;
+import org.webharvest.exception.ScriptEngineException;
+import org.webharvest.runtime.scripting.ScriptingLanguage;
+
+/**
+ * Bounded pool of JSR-223 script engines with checkout/return semantics.
+ * Engines are kept separately for each {@link ScriptingLanguage}; at most
+ * {@code maxEngines} engines per language are checked out at the same time
+ * and callers exceeding that limit wait up to {@code maxWait} milliseconds
+ * for an engine to be returned.
+ * <p/>
+ * Engines are not bound to the thread which created them, so the pool can be
+ * used from thread pools and from any other kind of executor. However, a
+ * checked out engine must not be used by more than one thread at a time - see
+ * {@link ScriptEngineLease}.
+ * <p/>
+ * Before an engine goes back to the pool its engine scope bindings are
+ * replaced with fresh ones, so no state leaks from one borrower to another.
+ * Engines idle for longer than {@code maxIdleTime} milliseconds are evicted
+ * lazily, whenever an engine of the same language is borrowed or returned.
+ * Pool can be pre-warmed with {@link #prestart(ScriptingLanguage, int)}.
+ *
+ * @see JSRScriptEngineFactory
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class ScriptEnginePool {
+
+    private static final Logger LOG = LoggerFactory
+            .getLogger(ScriptEnginePool.class);
+
+    /**
+     * Default maximum number of engines checked out per scripting language.
+     */
+    public static final int DEFAULT_MAX_ENGINES = 32;
+
+    /**
+     * Default time (in milliseconds) after which unused engine is evicted.
+     */
+    public static final long DEFAULT_MAX_IDLE_TIME = 5 * 60 * 1000L;
+
+    /**
+     * Default time (in milliseconds) to wait for an engine when the pool is
+     * exhausted.
+     */
+    public static final long DEFAULT_MAX_WAIT = 60 * 1000L;
+
+    private final ScriptEngineManager manager = new ScriptEngineManager();
+
+    private final Map<ScriptingLanguage, LanguagePool> pools =
+        new EnumMap<ScriptingLanguage, LanguagePool>(ScriptingLanguage.class);
+
+    private final int maxEngines;
+
+    private final long maxIdleTime;
+
+    private final long maxWait;
+
+    /**
+     * Creates pool with default limits.
+     */
+    public ScriptEnginePool() {
+        this(DEFAULT_MAX_ENGINES, DEFAULT_MAX_IDLE_TIME, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Creates pool with the specified limits.
+     *
+     * @param maxEngines
+     *            maximum number of engines checked out per scripting language;
+     *            must be positive
+     * @param maxIdleTime
+     *            time in milliseconds after which idle engine is evicted
+     * @param maxWait
+     *            time in milliseconds to wait for an engine when all of them
+     *            are checked out
+     */
+    public ScriptEnginePool(final int maxEngines, final long maxIdleTime,
+            final long maxWait) {
+        if (maxEngines <= 0) {
+            throw new IllegalArgumentException(
+                    "Maximum number of engines must be positive");
+        }
+        this.maxEngines = maxEngines;
+        this.maxIdleTime = maxIdleTime;
+        this.maxWait = maxWait;
+        for (ScriptingLanguage language : ScriptingLanguage.values()) {
+            pools.put(language, new LanguagePool());
+        }
+    }
+
+    /**
+     * Checks out script engine for the given language. Idle engine is reused
+     * if available, otherwise new one is created. The engine must be given
+     * back with {@link #returnEngine(ScriptingLanguage,
+     * javax.script.ScriptEngine)} once it is no longer needed.
+     *
+     * @param language
+     *            scripting language of requested engine
+     * @return engine ready to evaluate scripts
+     * @throws ScriptEngineException
+     *             if no engine became available within configured wait time
+     *             or waiting thread has been interrupted
+     */
+    public javax.script.ScriptEngine borrowEngine(
+            final ScriptingLanguage language) {
+        final LanguagePool pool = pools.get(language);
+        try {
+            if (!pool.permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                throw new ScriptEngineException("No " + language
+                        + " script engine available within " + maxWait
+                        + " ms (" + maxEngines + " engines in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScriptEngineException(e);
+        }
+
+        javax.script.ScriptEngine engine = pool.poll(maxIdleTime);
+        if (engine == null) {
+            try {
+                engine = createEngine(language);
+            } catch (RuntimeException e) {
+                pool.permits.release();
+                throw e;
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Gives previously borrowed engine back to the pool. Engine scope bindings
+     * are reset, so the next borrower gets engine without any state left by
+     * scripts evaluated so far.
+     *
+     * @param language
+     *            scripting language of the engine
+     * @param engine
+     *            engine obtained from {@link #borrowEngine(ScriptingLanguage)}
+     */
+    public void returnEngine(final ScriptingLanguage language,
+            final javax.script.ScriptEngine engine) {
+        final LanguagePool pool = pools.get(language);
+        try {
+            engine.setBindings(engine.createBindings(),
+                    ScriptContext.ENGINE_SCOPE);
+            pool.offer(engine, maxIdleTime);
+        } catch (RuntimeException e) {
+            LOG.warn("Discarding " + language + " script engine", e);
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    /**
+     * Pre-warms the pool by creating up to {@code count} idle engines for the
+     * given language, so the first borrowers do not pay engine bootstrap cost.
+     * Number of idle engines never exceeds the pool limit.
+     *
+     * @param language
+     *            scripting language of engines to create
+     * @param count
+     *            requested number of idle engines
+     */
+    public void prestart(final ScriptingLanguage language, final int count) {
+        final LanguagePool pool = pools.get(language);
+        final int missing = Math.min(count, maxEngines) - pool.size();
+        for (int i = 0; i < missing; i++) {
+            pool.offer(createEngine(language), maxIdleTime);
+        }
+    }
+
+    /**
+     * Returns number of idle engines available for the given language.
+     */
+    public int getIdleCount(final ScriptingLanguage language) {
+        return pools.get(language).size();
+    }
+
+    /**
+     * Creates {@link javax.script.ScriptEngine} with usage of
+     * {@link ScriptEngineManager}. Strongly depends on JSR 223 script engine
+     * providers. If no engine found for the given language using
+     * {@link ScriptEngineManager#getEngineByName(String)} then
+     * {@link ConfigurationException} is thrown indicating possibly missing
+     * engine provider.
+     * <p/>
+     * Engines created this way are not accounted by the pool.
+     */
+    javax.script.ScriptEngine createEngine(
+            final ScriptingLanguage language) {
+        final String engineType = language.name().toLowerCase();
+        final javax.script.ScriptEngine engine;
+        synchronized (manager) {
+            engine = manager.getEngineByName(engineType);
+        }
+
+        if (engine == null) {
+            throw new ConfigurationException("No script engine found for "
+                    + "name: '" + engineType + "'; Possibly missing provider");
+        }
+        LOG.debug("Created {} script engine", language);
+        return engine;
+    }
+
+    /**
+     * Idle engines and checkout permits of a single scripting language. Most
+     * recently returned engines are reused first, whereas the least recently
+     * used ones are evicted once idle for too long.
+     */
+    private final class LanguagePool {
+
+        private final Semaphore permits = new Semaphore(maxEngines, true);
+
+        private final Deque<IdleEngine> idle = new ArrayDeque<IdleEngine>();
+
+        synchronized javax.script.ScriptEngine poll(final long maxIdle) {
+            evict(maxIdle);
+            final IdleEngine entry = idle.pollFirst();
+            return (entry == null) ? null : entry.engine;
+        }
+
+        synchronized void offer(final javax.script.ScriptEngine engine,
+                final long maxIdle) {
+            idle.addFirst(new IdleEngine(engine));
+            evict(maxIdle);
+        }
+
+        synchronized int size() {
+            return idle.size();
+        }
+
+        private void evict(final long maxIdle) {
+            final long now = System.currentTimeMillis();
+            final Iterator<IdleEngine> oldest = idle.descendingIterator();
+            while (oldest.hasNext()
+                    && (now - oldest.next().since) > maxIdle) {
+                oldest.remove();
+            }
+        }
+    }
+
+    private static final class IdleEngine {
+
+        private final javax.script.ScriptEngine engine;
+
+        private final long since = System.currentTimeMillis();
+
+        IdleEngine(final javax.script.ScriptEngine engine) {
+            this.engine = engine;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.sink;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.commons.dbutils.DbUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.exception.DatabaseException;
+import org.webharvest.runtime.variables.Variable;
+
+/**
+ * {@link ResultSink} inserting result items into a database table by means of
+ * batched prepared statement. Every iteration of the loop makes single
+ * statement execution, with its result items bound to consecutive parameters
+ * of the statement. Iterations having no result are skipped. Batch is
+ * executed every time it reaches configured size and on {@link #flush()}.
+ * Unless connection is in auto-commit mode, every executed batch is committed,
+ * whereas {@link #abort()} rolls back the pending one.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class DatabaseResultSink implements ResultSink {
+
+    private static final Logger LOG = LoggerFactory
+            .getLogger(DatabaseResultSink.class);
+
+    private final Connection connection;
+
+    private final PreparedStatement statement;
+
+    private final int batchSize;
+
+    private int pending;
+
+    /**
+     * Prepares the statement the items are going to be inserted with.
+     *
+     * @param connection
+     *            database connection; it is not closed by the sink as it is
+     *            owned by the connection factory
+     * @param sql
+     *            parameterized SQL statement
+     * @param batchSize
+     *            number of items executed at once
+     */
+    public DatabaseResultSink(final Connection connection, final String sql,
+            final int batchSize) {
+        this.connection = connection;
+        this.batchSize = Math.max(1, batchSize);
+        try {
+            this.statement = connection.prepareStatement(sql);
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final Variable result) {
+        final List<Variable> params = result.toList();
+        if (params.isEmpty()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i).getWrappedObject());
+            }
+            statement.addBatch();
+            if (++pending >= batchSize) {
+                flush();
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() {
+        if (pending == 0) {
+            return;
+        }
+        try {
+            statement.executeBatch();
+            pending = 0;
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            DbUtils.closeQuietly(statement);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void abort() {
+        try {
+            if (pending > 0) {
+                statement.clearBatch();
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            }
+        } catch (SQLException e) {
+            LOG.warn("Error discarding pending batch of the sink", e);
+        } finally {
+            pending = 0;
+            DbUtils.closeQuietly(statement);
+        }
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.sink;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webharvest.exception.FileException;
+import org.webharvest.runtime.variables.Variable;
+
+/**
+ * {@link ResultSink} writing results to a file in one of supported
+ * {@link Format}s. Output is buffered and, optionally, gzip compressed on the
+ * fly.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class FileResultSink implements ResultSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String LINE_SEPARATOR = "\n";
+
+    /**
+     * Format of the file.
+     */
+    public enum Format {
+
+        /**
+         * Text of every result item followed by the delimiter, new line by
+         * default.
+         */
+        TEXT {
+            @Override
+            void write(final Writer writer, final List<Variable> items,
+                    final String charset, final String delimiter)
+                    throws IOException {
+                for (Variable item : items) {
+                    writer.write(item.toString(charset));
+                    writer.write(delimiter);
+                }
+            }
+        },
+
+        /**
+         * CSV (RFC 4180) with one record per iteration, whose result items
+         * make fields of the record.
+         */
+        CSV {
+            @Override
+            void write(final Writer writer, final List<Variable> items,
+                    final String charset, final String delimiter)
+                    throws IOException {
+                if (items.isEmpty()) {
+                    return;
+                }
+                for (int i = 0; i < items.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvField(items.get(i).toString(charset)));
+                }
+                writer.write(LINE_SEPARATOR);
+            }
+        },
+
+        /**
+         * JSON value per result item, one per line. Items being JSON objects
+         * or arrays are written in the compact form, any other item is
+         * written as JSON string.
+         */
+        JSONL {
+            @Override
+            void write(final Writer writer, final List<Variable> items,
+                    final String charset, final String delimiter)
+                    throws IOException {
+                for (Variable item : items) {
+                    writer.write(jsonValue(item.toString(charset)));
+                    writer.write(LINE_SEPARATOR);
+                }
+            }
+        };
+
+        abstract void write(Writer writer, List<Variable> items,
+                String charset, String delimiter) throws IOException;
+
+        private static String csvField(final String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        private static String jsonValue(final String text) {
+            final String trimmed = text.trim();
+            try {
+                if (trimmed.startsWith("{")) {
+                    return new JSONObject(trimmed).toString();
+                } else if (trimmed.startsWith("[")) {
+                    return new JSONArray(trimmed).toString();
+                }
+            } catch (JSONException e) {
+                // not a JSON document - written as a string
+            }
+            return JSONObject.quote(text);
+        }
+
+    }
+
+    private final File file;
+
+    private final Format format;
+
+    private final String charset;
+
+    private final String delimiter;
+
+    private final Writer writer;
+
+    /**
+     * Opens the sink, creating the file and its parent directories if they do
+     * not exist yet.
+     *
+     * @param file
+     *            destination file
+     * @param format
+     *            format of the written items
+     * @param charset
+     *            charset of the file
+     * @param delimiter
+     *            separator of the items written in {@link Format#TEXT} format;
+     *            if {@code null} items are written in separate lines
+     * @param gzip
+     *            whether the file should be gzip compressed
+     * @param append
+     *            whether the file should be appended rather than truncated;
+     *            compressed file gets appended with another gzip member
+     */
+    public FileResultSink(final File file, final Format format,
+            final String charset, final String delimiter, final boolean gzip,
+            final boolean append) {
+        this.file = file;
+        this.format = format;
+        this.charset = charset;
+        this.delimiter = (delimiter != null) ? delimiter : LINE_SEPARATOR;
+        OutputStream out = null;
+        try {
+            final File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            out = new FileOutputStream(file, append);
+            if (gzip) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            this.writer = new BufferedWriter(
+                    new OutputStreamWriter(out, charset), BUFFER_SIZE);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(out);
+            throw new FileException("Error opening sink file " + file, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final Variable result) {
+        try {
+            format.write(writer, result.toList(), charset, delimiter);
+        } catch (IOException e) {
+            throw new FileException("Error writing to sink file " + file, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new FileException("Error writing to sink file " + file, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        try {
+            // finishes gzip stream as well
+            writer.close();
+        } catch (IOException e) {
+            throw new FileException("Error closing sink file " + file, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Items of completed iterations, already written to the buffer, are kept.
+     */
+    @Override
+    public void abort() {
+        IOUtils.closeQuietly(writer);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.sink;
+
+import org.webharvest.runtime.variables.Variable;
+
+/**
+ * Streaming destination of results produced by a loop. Sink is opened once,
+ * before the first iteration of the loop, receives results of every iteration
+ * as soon as it finishes and is closed when the loop ends successfully, or
+ * aborted when the loop fails. It lets long running loops keep their memory
+ * footprint flat, as results are not accumulated in the loop's result list.
+ * <p/>
+ * Implementations are expected to buffer the written items and are not
+ * required to be thread-safe.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ * @see ResultSinkFactory
+ */
+public interface ResultSink {
+
+    /**
+     * Writes results of single iteration of the loop to the sink. Results may
+     * be buffered and reach their final destination not earlier than on
+     * {@link #flush()} or {@link #close()}.
+     *
+     * @param result
+     *            result of the iteration; must not be {@code null}
+     */
+    void write(Variable result);
+
+    /**
+     * Pushes all buffered items to the final destination of the sink.
+     */
+    void flush();
+
+    /**
+     * Flushes the sink and releases all resources held by it. Sink can not be
+     * used any longer once closed.
+     */
+    void close();
+
+    /**
+     * Releases all resources held by the sink after failure of the loop.
+     * Buffered items are discarded if the destination can take them back
+     * (e.g. not committed database batch). Unlike {@link #close()} it never
+     * throws, so the failure of the loop is not hidden. Sink can not be used
+     * any longer once aborted.
+     */
+    void abort();
+
+}
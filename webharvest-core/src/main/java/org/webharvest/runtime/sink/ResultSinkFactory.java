@@ -0,0 +1,155 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.sink;
+
+import java.io.File;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.webharvest.definition.SinkDef;
+import org.webharvest.exception.ConfigurationException;
+import org.webharvest.exception.DatabaseException;
+import org.webharvest.exception.FileException;
+import org.webharvest.ioc.WorkingDir;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.database.ConnectionFactory;
+import org.webharvest.runtime.templaters.BaseTemplater;
+import org.webharvest.utils.CommonUtil;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.name.Named;
+
+/**
+ * Opens {@link ResultSink}s described by {@link SinkDef} definitions. All
+ * attributes of the definition are templates evaluated against the context
+ * the sink is opened in.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public class ResultSinkFactory {
+
+    /**
+     * Default number of rows inserted into database in a single batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    @Inject(optional = true)
+    @WorkingDir
+    private String workingDir;
+
+    @Inject(optional = true)
+    @Named("standalone")
+    private Provider<ConnectionFactory> connectionFactory;
+
+    /**
+     * Opens new sink.
+     *
+     * @param sinkDef
+     *            definition of the sink
+     * @param context
+     *            context the definition is evaluated against
+     * @param append
+     *            whether the sink should append to the already existing
+     *            output, as when the loop is resumed from a checkpoint
+     * @return opened sink; it is up to the caller to close it
+     */
+    public ResultSink open(final SinkDef sinkDef,
+            final DynamicScopeContext context, final boolean append) {
+        final String format = evaluate(sinkDef.getFormat(), context);
+        if ("database".equalsIgnoreCase(format)) {
+            return openDatabaseSink(sinkDef, context);
+        }
+
+        final String path = evaluate(sinkDef.getPath(), context);
+        if (path == null || "".equals(path)) {
+            throw new FileException("Path of the sink file is not defined!");
+        }
+        String charset = evaluate(sinkDef.getCharset(), context);
+        if (charset == null) {
+            charset = context.getCharset();
+        }
+        final String compress = evaluate(sinkDef.getCompress(), context);
+
+        return new FileResultSink(
+                (workingDir == null) ? new File(path) : new File(
+                        CommonUtil.getAbsoluteFilename(workingDir, path)),
+                (format == null) ? FileResultSink.Format.TEXT
+                        : toFileFormat(format),
+                charset,
+                evaluate(sinkDef.getDelimiter(), context),
+                "gzip".equalsIgnoreCase(compress),
+                append);
+    }
+
+    private ResultSink openDatabaseSink(final SinkDef sinkDef,
+            final DynamicScopeContext context) {
+        if (connectionFactory == null) {
+            throw new DatabaseException(
+                    "No database connection factory is available!");
+        }
+        final String sql = evaluate(sinkDef.getSql(), context);
+        if (sql == null) {
+            throw new DatabaseException("SQL of the sink is not defined!");
+        }
+        return new DatabaseResultSink(
+                connectionFactory.get().getConnection(
+                        evaluate(sinkDef.getJdbcclass(), context),
+                        evaluate(sinkDef.getConnection(), context),
+                        evaluate(sinkDef.getUsername(), context),
+                        evaluate(sinkDef.getPassword(), context)),
+                sql,
+                NumberUtils.toInt(evaluate(sinkDef.getBatch(), context),
+                        DEFAULT_BATCH_SIZE));
+    }
+
+    private static FileResultSink.Format toFileFormat(final String format) {
+        try {
+            return FileResultSink.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            final StringBuilder valid = new StringBuilder();
+            for (FileResultSink.Format each : FileResultSink.Format.values()) {
+                valid.append(each.name().toLowerCase()).append(", ");
+            }
+            throw new ConfigurationException("Invalid sink format '" + format
+                    + "', valid formats are: " + valid + "database");
+        }
+    }
+
+    private static String evaluate(final String template,
+            final DynamicScopeContext context) {
+        return BaseTemplater.evaluateToString(template, null, context);
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.runtime.variables;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.type.Type;
+
+import org.webharvest.exception.VariableException;
+import org.webharvest.utils.CommonUtil;
+import org.webharvest.utils.XmlNodeWrapper;
+
+/**
+ * Lightweight record consisting of named fields, as produced by the
+ * {@code xpath} processor in record extraction mode (one record per row).
+ * Fields keep the order in which they are declared. String representation of
+ * the record is XML fragment having one element per field, e.g.
+ * {@code <record><title>...</title><price>...</price></record>}.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class RecordVariable extends NodeVariable {
+
+    private static final String RECORD_TAG_NAME = "record";
+
+    private final Map<String, Variable> fields;
+
+    /**
+     * Creates new record out of the specified field names and corresponding
+     * values.
+     *
+     * @param names
+     *            names of record's fields
+     * @param values
+     *            values of record's fields; must be of the same length as
+     *            names
+     */
+    public RecordVariable(final String[] names, final Variable[] values) {
+        this(toMap(names, values));
+    }
+
+    private RecordVariable(final Map<String, Variable> fields) {
+        super(fields);
+        this.fields = fields;
+    }
+
+    /**
+     * Returns value of the field with specified name.
+     *
+     * @param name
+     *            name of record's field
+     * @return value of the field
+     * @throws VariableException
+     *             if record has no such a field
+     */
+    public Variable get(final String name) {
+        final Variable value = fields.get(name);
+        if (value == null) {
+            throw new VariableException("Invalid record field name: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * @return names of record's fields in declaration order
+     */
+    public List<String> getFieldNames() {
+        return new ArrayList<String>(fields.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append('<').append(RECORD_TAG_NAME).append('>');
+        for (Map.Entry<String, Variable> field : fields.entrySet()) {
+            buffer.append('<').append(field.getKey()).append('>');
+            for (Variable item : field.getValue().toList()) {
+                if (isElement(item)) {
+                    buffer.append(item.toString());
+                } else {
+                    buffer.append(CommonUtil.escapeXml(item.toString()));
+                }
+            }
+            buffer.append("</").append(field.getKey()).append('>');
+        }
+        buffer.append("</").append(RECORD_TAG_NAME).append('>');
+        return buffer.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString(final String charset) {
+        return toString();
+    }
+
+    /**
+     * Record is empty if all its fields are empty.
+     */
+    @Override
+    public boolean isEmpty() {
+        for (Variable value : fields.values()) {
+            if (!value.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getWrappedObject() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    private static boolean isElement(final Variable variable) {
+        final Object wrapped = variable.getWrappedObject();
+        return wrapped instanceof XmlNodeWrapper
+                && ((XmlNodeWrapper) wrapped).getItem() instanceof NodeInfo
+                && ((NodeInfo) ((XmlNodeWrapper) wrapped).getItem())
+                        .getNodeKind() == Type.ELEMENT;
+    }
+
+    private static Map<String, Variable> toMap(final String[] names,
+            final Variable[] values) {
+        if (names.length != values.length) {
+            throw new IllegalArgumentException(
+                    "Number of record field names and values differ");
+        }
+        final Map<String, Variable> fields =
+            new LinkedHashMap<String, Variable>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            fields.put(names[i], values[i] == null
+                    ? EmptyVariable.INSTANCE : values[i]);
+        }
+        return fields;
+    }
+
+}
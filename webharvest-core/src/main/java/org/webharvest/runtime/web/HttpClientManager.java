@@ -56,6 +56,7 @@ import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethodBase;
 import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.NTCredentials;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.ProxyHost;
@@ -72,6 +73,7 @@ import org.apache.commons.httpclient.methods.multipart.MultipartRequestEntity;
 import org.apache.commons.httpclient.methods.multipart.Part;
 import org.apache.commons.httpclient.methods.multipart.StringPart;
 import org.apache.commons.httpclient.params.HttpClientParams;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.apache.commons.httpclient.params.HttpMethodParams;
 import org.apache.commons.httpclient.protocol.Protocol;
 import org.apache.commons.httpclient.protocol.ProtocolSocketFactory;
@@ -79,6 +81,7 @@ import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.webharvest.runtime.Deadline;
 import org.webharvest.runtime.variables.Variable;
 import org.webharvest.utils.CommonUtil;
 
@@ -94,6 +97,10 @@ public class HttpClientManager {
 
     public static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Windows; U; Windows NT 5.1; en-US; rv:1.8.0.1) Gecko/20060111 Firefox/1.5.0.1";
 
+    // Connection limits of the client shared by concurrently executed branches of a configuration
+    public static final int MAX_CONNECTIONS_PER_HOST = 10;
+    public static final int MAX_TOTAL_CONNECTIONS = 50;
+
     static {
         // registers default handling for https
         Protocol.registerProtocol("https", new Protocol("https", (ProtocolSocketFactory) new EasySSLProtocolSocketFactory(), 443));
@@ -104,7 +111,12 @@ public class HttpClientManager {
 
     @Inject
     public HttpClientManager(final ProxySettings proxySettings) {
-        this.client = new HttpClient();
+        final MultiThreadedHttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
+        final HttpConnectionManagerParams connectionParams = connectionManager.getParams();
+        connectionParams.setDefaultMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        connectionParams.setMaxTotalConnections(MAX_TOTAL_CONNECTIONS);
+
+        this.client = new HttpClient(connectionManager);
         this.httpInfo = new HttpInfo(client);
 
         final HttpClientParams clientParams = new HttpClientParams();
@@ -257,6 +269,8 @@ public class HttpClientManager {
             LOG.warn("HTTP Status: {}; URL: [{}]; Waiting for {} second(s) before retrying (attempt {} of {})...", new Object[]{
                     method.getStatusLine(), url, MILLISECONDS.toSeconds(delayBeforeRetry), retryAttempts - attemptsRemain + 1, retryAttempts});
 
+            // connection must go back to the pool before the method is reused
+            method.releaseConnection();
             Thread.sleep(delayBeforeRetry);
             attemptsRemain--;
         } while (true);
@@ -268,7 +282,7 @@ public class HttpClientManager {
     }
 
     private HttpMethodBase executeFollowingRedirects(HttpMethodBase method, String url, Boolean followRedirects) throws IOException {
-        final int statusCode = client.executeMethod(method);
+        final int statusCode = executeMethod(method);
         // POST method is not redirected automatically, so it's on our responsibility then.
         if (BooleanUtils.isTrue(followRedirects)
                 && ((statusCode == HttpStatus.SC_MOVED_TEMPORARILY) ||
@@ -282,7 +296,7 @@ public class HttpClientManager {
                     method.releaseConnection();
                     final GetMethod nextMethod = new GetMethod(CommonUtil.fullUrl(url, nextURI));
                     identifyAsDefaultBrowser(nextMethod);
-                    client.executeMethod(nextMethod);
+                    executeMethod(nextMethod);
                     return nextMethod;
                 }
             }
@@ -290,6 +304,19 @@ public class HttpClientManager {
         return method;
     }
 
+    /**
+     * Executes the method, aborting it if the current deadline expires in
+     * the meantime.
+     */
+    private int executeMethod(HttpMethodBase method) throws IOException {
+        final Deadline.Registration registration = HttpMethodAbort.register(method);
+        try {
+            return client.executeMethod(method);
+        } finally {
+            registration.remove();
+        }
+    }
+
     /**
      * Defines "User-Agent" HTTP header.
      *
@@ -38,6 +38,8 @@ package org.webharvest.runtime.web;
 
 import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpMethodBase;
+import org.webharvest.exception.HttpException;
+import org.webharvest.runtime.Deadline;
 import org.webharvest.utils.KeyValuePair;
 
 import java.io.ByteArrayInputStream;
@@ -107,16 +109,31 @@ public class HttpResponseWrapper {
     }
 
     public byte[] readBodyAsArray() {
+        final Deadline.Registration registration = HttpMethodAbort.register(httpMethod);
         try {
             return httpMethod.getResponseBody();
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            registration.remove();
         }
     }
 
+    /**
+     * Returns stream reading the body directly from the connection, so the
+     * body is never held in memory as a whole. The connection is released by
+     * {@link #close()}.
+     *
+     * @return stream of response's body
+     * @throws HttpException if the body can't be read from the connection
+     */
     public InputStream getBodyAsInputStream() {
-        // TODO: Fix this so a real stream is returned. DO NOT CACHE THE ENTIRE RESPONSE IN THE MEMORY!
-        return new ByteArrayInputStream(readBodyAsArray());
+        try {
+            final InputStream stream = httpMethod.getResponseBodyAsStream();
+            return (stream != null) ? stream : new ByteArrayInputStream(new byte[0]);
+        } catch (IOException e) {
+            throw new HttpException("Error reading response body", e);
+        }
     }
 
     public void close() {
@@ -36,9 +36,11 @@
 */
 package org.webharvest.utils;
 
+import net.sf.saxon.Configuration;
+import net.sf.saxon.event.PipelineConfiguration;
+import net.sf.saxon.event.TreeReceiver;
 import net.sf.saxon.om.Item;
 import net.sf.saxon.om.NodeInfo;
-import net.sf.saxon.query.QueryResult;
 import net.sf.saxon.trans.XPathException;
 import net.sf.saxon.type.Type;
 import org.apache.commons.lang.ObjectUtils;
@@ -66,6 +68,16 @@ public class CommonUtil {
         DEFAULT_OUTPUT_PROPERTIES.setProperty(OutputKeys.INDENT, "yes");
     }
 
+    // writers reused by serialization, unless they grew too big
+    private static final ThreadLocal<StringWriter> SERIALIZATION_WRITER = new ThreadLocal<StringWriter>() {
+        @Override
+        protected StringWriter initialValue() {
+            return new StringWriter();
+        }
+    };
+
+    private static final int MAX_REUSED_WRITER_CAPACITY = 1 << 20;
+
     /**
      * Contains pair of integer values
      */
@@ -390,25 +402,72 @@ public class CommonUtil {
     }
 
     /**
-     * Serializes item after XPath or XQuery processor execution using Saxon.
+     * Serializes item after XPath or XQuery processor execution using Saxon. XHTML namespace declarations are
+     * removed from serialized elements.
      */
     public static String serializeItem(Item item, Properties outputProperties) throws XPathException {
-        if (item instanceof NodeInfo) {
-            int type = ((NodeInfo) item).getNodeKind();
-            if (type == Type.DOCUMENT || type == Type.ELEMENT) {
+        if (isSerializedAsTree(item)) {
+            final StringWriter stringWriter = SERIALIZATION_WRITER.get();
+            try {
+                serializeNode((NodeInfo) item, outputProperties, stringWriter);
+                return stringWriter.toString();
+            } finally {
+                final StringBuffer buffer = stringWriter.getBuffer();
+                if (buffer.capacity() > MAX_REUSED_WRITER_CAPACITY) {
+                    SERIALIZATION_WRITER.remove();
+                } else {
+                    buffer.setLength(0);
+                }
+            }
+        }
+
+        return item.getStringValue();
+    }
 
+    /**
+     * Serializes item the same way as {@link #serializeItem(Item, Properties)} does, writing the text to the given
+     * writer instead of keeping it in memory. Writer failing with {@link IOException} stops the serialization, which
+     * is then reported as {@link XPathException}.
+     */
+    public static void serializeItem(Item item, Properties outputProperties, Writer writer)
+            throws XPathException, IOException {
+        if (isSerializedAsTree(item)) {
+            serializeNode((NodeInfo) item, outputProperties, writer);
+        } else {
+            writer.write(item.getStringValue());
+        }
+    }
 
-                final Properties props = new Properties(DEFAULT_OUTPUT_PROPERTIES);
-                props.putAll(outputProperties);
+    private static boolean isSerializedAsTree(Item item) {
+        if (item instanceof NodeInfo) {
+            final int type = ((NodeInfo) item).getNodeKind();
+            return type == Type.DOCUMENT || type == Type.ELEMENT;
+        }
+        return false;
+    }
 
-                StringWriter stringWriter = new java.io.StringWriter();
-                QueryResult.serialize((NodeInfo) item, new StreamResult(stringWriter), props);
-                stringWriter.flush();
-                return stringWriter.toString().replaceAll(" xmlns=\"http\\://www.w3.org/1999/xhtml\"", "");
-            }
+    private static void serializeNode(NodeInfo node, Properties outputProperties, Writer writer)
+            throws XPathException {
+        // output properties of queries are empty unless declared in the query
+        final Properties props;
+        if (outputProperties == null || outputProperties.isEmpty()) {
+            props = DEFAULT_OUTPUT_PROPERTIES;
+        } else {
+            props = new Properties(DEFAULT_OUTPUT_PROPERTIES);
+            props.putAll(outputProperties);
         }
 
-        return item.getStringValue();
+        final Configuration config = node.getConfiguration();
+        final PipelineConfiguration pipe = config.makePipelineConfiguration();
+        final XhtmlNamespaceFilter filter = new XhtmlNamespaceFilter();
+        filter.setUnderlyingReceiver(config.getSerializerFactory().getReceiver(
+                new StreamResult(writer), pipe, props));
+        filter.setPipelineConfiguration(pipe);
+        final TreeReceiver receiver = new TreeReceiver(filter);
+        receiver.setPipelineConfiguration(pipe);
+        receiver.open();
+        receiver.append(node, 0, NodeInfo.ALL_NAMESPACES);
+        receiver.close();
     }
 
     public static String readStringFromFile(File file, String encoding) throws IOException {
@@ -556,6 +615,23 @@ public class CommonUtil {
         return isLinkAbsolute ? pageUrl + link.substring(1) : pageUrl + link;
     }
 
+    /**
+     * Releases resources held by the lazily evaluated variable, e.g. stream read by xml-stream processor,
+     * once it is not consumed any more. Iteration over such variable may stop before reaching its end.
+     *
+     * @param variable
+     */
+    public static void closeQuietly(Variable variable) {
+        final Object wrappedObject = (variable != null) ? variable.getWrappedObject() : null;
+        if (wrappedObject instanceof Closeable) {
+            try {
+                ((Closeable) wrappedObject).close();
+            } catch (IOException e) {
+                // nothing more can be done
+            }
+        }
+    }
+
     /**
      * Creates appropriate AbstractVariable instance for the specified object.
      * For collections and arrays ListVariable instance is returned,
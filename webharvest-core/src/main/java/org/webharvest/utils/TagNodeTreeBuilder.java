@@ -0,0 +1,239 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.utils;
+
+import java.util.List;
+import java.util.Map;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.event.PipelineConfiguration;
+import net.sf.saxon.event.ReceivingContentHandler;
+import net.sf.saxon.om.NameChecker;
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.tinytree.TinyBuilder;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.htmlcleaner.CleanerProperties;
+import org.htmlcleaner.CommentNode;
+import org.htmlcleaner.ContentNode;
+import org.htmlcleaner.SimpleXmlSerializer;
+import org.htmlcleaner.TagNode;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Builds Saxon tree straight from the {@link TagNode} produced by HtmlCleaner,
+ * without serializing it to text and parsing the text back. The tree is
+ * exactly the one that would be obtained by parsing output of
+ * {@link SimpleXmlSerializer}: its escaping rules are reused and the text is
+ * normalized the way XML parser does it.
+ * <p/>
+ * If cleaned namespace aware, namespace declarations of the elements are
+ * reported to the tree as parser would report them, so unprefixed elements
+ * get the default namespace in scope. Trees which would not survive such
+ * round trip unchanged (prefixed or invalid names, namespace declarations
+ * kept as attributes, omitted HTML envelope) are not built; the caller falls
+ * back to serialization then.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class TagNodeTreeBuilder extends SimpleXmlSerializer {
+
+    private final CleanerProperties properties;
+
+    private final Configuration config;
+
+    private final boolean replaceNbspWithSp;
+
+    private final NameChecker nameChecker;
+
+    /**
+     * @param properties
+     *            properties the HTML has been cleaned with
+     * @param config
+     *            configuration the tree is built for
+     * @param replaceNbspWithSp
+     *            whether non-breaking spaces are replaced with spaces
+     */
+    public TagNodeTreeBuilder(final CleanerProperties properties,
+            final Configuration config, final boolean replaceNbspWithSp) {
+        super(properties);
+        this.properties = properties;
+        this.config = config;
+        this.replaceNbspWithSp = replaceNbspWithSp;
+        this.nameChecker = config.getNameChecker();
+    }
+
+    /**
+     * Builds document having the given node as its root element.
+     *
+     * @param rootNode
+     *            cleaned HTML
+     * @return document node or {@code null} if the tree could differ from
+     *         the one parsed from serialized text
+     * @throws SAXException
+     *             if the tree cannot be built
+     */
+    public NodeInfo build(final TagNode rootNode) throws SAXException {
+        if (properties.isOmitHtmlEnvelope() || !isConvertible(rootNode)) {
+            return null;
+        }
+
+        final PipelineConfiguration pipe = config.makePipelineConfiguration();
+        final TinyBuilder builder = new TinyBuilder();
+        builder.setPipelineConfiguration(pipe);
+        final ReceivingContentHandler handler = new ReceivingContentHandler();
+        handler.setPipelineConfiguration(pipe);
+        handler.setReceiver(builder);
+
+        handler.startDocument();
+        emit(rootNode, handler, "");
+        handler.endDocument();
+
+        return builder.getCurrentRoot();
+    }
+
+    private boolean isConvertible(final TagNode tagNode) {
+        if (!nameChecker.isValidNCName(tagNode.getName())) {
+            return false;
+        }
+        for (Object name : tagNode.getAttributes().keySet()) {
+            // serializers skip namespace declarations unless namespace aware
+            if (isNamespaceDeclaration((String) name)
+                    ? properties.isNamespacesAware()
+                    : !nameChecker.isValidNCName((String) name)) {
+                return false;
+            }
+        }
+        for (Object child : tagNode.getChildren()) {
+            if (child instanceof TagNode) {
+                if (!isConvertible((TagNode) child)) {
+                    return false;
+                }
+            } else if (!(child instanceof ContentNode)
+                    && !(child instanceof CommentNode)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void emit(final TagNode tagNode,
+            final ReceivingContentHandler handler, final String defaultUri)
+            throws SAXException {
+        final String name = tagNode.getName();
+
+        // namespace aware serializers write declarations of the element
+        final Map<String, String> declarations = properties.isNamespacesAware()
+            ? tagNode.getNamespaceDeclarations() : null;
+        String uri = defaultUri;
+        if (declarations != null) {
+            for (Map.Entry<String, String> declaration : declarations.entrySet()) {
+                handler.startPrefixMapping(declaration.getKey(),
+                        declaration.getValue());
+            }
+            if (declarations.containsKey("")) {
+                uri = declarations.get("");
+            }
+        }
+
+        final AttributesImpl attributes = new AttributesImpl();
+        for (Object entry : tagNode.getAttributes().entrySet()) {
+            final Map.Entry attribute = (Map.Entry) entry;
+            final String attributeName = (String) attribute.getKey();
+            // serializers skip namespace declarations unless namespace aware
+            if (!isNamespaceDeclaration(attributeName)) {
+                attributes.addAttribute("", attributeName, attributeName,
+                        "CDATA", attributeValue((String) attribute.getValue()));
+            }
+        }
+        handler.startElement(uri, name, name, attributes);
+
+        final boolean escaped = !dontEscape(tagNode);
+        for (Object child : (List) tagNode.getChildren()) {
+            if (child instanceof TagNode) {
+                emit((TagNode) child, handler, uri);
+            } else if (child instanceof ContentNode) {
+                // unescaped content is written as CDATA section
+                final String text = escaped ? text(child.toString())
+                    : nbsp(lineEnds(child.toString().replaceAll("]]>", "]]&gt;")));
+                handler.characters(text.toCharArray(), 0, text.length());
+            } else {
+                final String comment = nbsp(((CommentNode) child).getContent()
+                        .toString().replace("--",
+                                properties.getHyphenReplacementInComment()));
+                handler.comment(comment.toCharArray(), 0, comment.length());
+            }
+        }
+
+        handler.endElement(uri, name, name);
+        if (declarations != null) {
+            for (String prefix : declarations.keySet()) {
+                handler.endPrefixMapping(prefix);
+            }
+        }
+    }
+
+    /**
+     * Value of escaped attribute as reported by XML parser, which normalizes
+     * line ends and whitespace characters in attribute values.
+     */
+    private String attributeValue(final String value) {
+        return nbsp(StringEscapeUtils.unescapeXml(escapeXml(value)
+                .replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ')
+                .replace('\t', ' ')));
+    }
+
+    /**
+     * Escaped text content as reported by XML parser, which normalizes line
+     * ends.
+     */
+    private String text(final String content) {
+        return nbsp(StringEscapeUtils.unescapeXml(lineEnds(escapeXml(content))));
+    }
+
+    private static String lineEnds(final String text) {
+        return text.replace("\r\n", "\n").replace('\r', '\n');
+    }
+
+    private String nbsp(final String text) {
+        return replaceNbspWithSp ? text.replace('\u00A0', ' ') : text;
+    }
+
+    private static boolean isNamespaceDeclaration(final String name) {
+        return "xmlns".equals(name) || name.startsWith("xmlns:");
+    }
+
+}
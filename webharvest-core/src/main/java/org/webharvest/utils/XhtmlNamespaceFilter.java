@@ -0,0 +1,84 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.utils;
+
+import net.sf.saxon.event.ProxyReceiver;
+import net.sf.saxon.om.NamePool;
+import net.sf.saxon.om.NamespaceConstant;
+import net.sf.saxon.trans.XPathException;
+
+/**
+ * Receiver removing XHTML namespace from unprefixed elements on their way to
+ * the serializer, so serialized HTML has no
+ * {@code xmlns="http://www.w3.org/1999/xhtml"} declarations. Elements keep
+ * their (unprefixed) names; prefixed XHTML elements are left untouched.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+final class XhtmlNamespaceFilter extends ProxyReceiver {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void startElement(final int nameCode, final int typeCode,
+            final int locationId, final int properties) throws XPathException {
+        final NamePool pool = getNamePool();
+        if (NamespaceConstant.XHTML.equals(pool.getURI(nameCode))
+                && pool.getPrefix(nameCode).length() == 0) {
+            nextReceiver.startElement(pool.allocate("", "",
+                    pool.getLocalName(nameCode)), typeCode, locationId,
+                    properties);
+        } else {
+            nextReceiver.startElement(nameCode, typeCode, locationId,
+                    properties);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void namespace(final int namespaceCode, final int properties)
+            throws XPathException {
+        final NamePool pool = getNamePool();
+        if (!NamespaceConstant.XHTML.equals(
+                pool.getURIFromNamespaceCode(namespaceCode))
+                || pool.getPrefixFromNamespaceCode(namespaceCode).length() != 0) {
+            nextReceiver.namespace(namespaceCode, properties);
+        }
+    }
+
+}
@@ -1,10 +1,14 @@
 package org.webharvest.utils;
 
 import net.sf.saxon.om.Item;
+import net.sf.saxon.om.NodeInfo;
 import net.sf.saxon.trans.XPathException;
+import net.sf.saxon.type.Type;
 import org.apache.commons.lang.StringUtils;
 import org.webharvest.exception.ScraperXQueryException;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Properties;
 
 /**
@@ -22,10 +26,39 @@ public class XmlNodeWrapper {
         this.outputProperties = properties;
     }
 
+    /**
+     * @return wrapped item; XML processors query the tree it belongs to
+     *         directly instead of parsing serialized form of the item
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * Serializes the wrapped item; called once, the result is cached.
+     */
+    protected String serialize() throws XPathException {
+        return CommonUtil.serializeItem(item, outputProperties);
+    }
+
+    /**
+     * Serializes the wrapped item straight to the given writer. Text kept from
+     * previous serialization is written if there is any, otherwise the item is
+     * serialized without keeping the text, so the writer may stop it early by
+     * failing with {@link IOException}.
+     */
+    public void writeTo(Writer writer) throws XPathException, IOException {
+        if (stringValue != null) {
+            writer.write(stringValue);
+        } else {
+            CommonUtil.serializeItem(item, outputProperties, writer);
+        }
+    }
+
     private String asString() {
         if (stringValue == null) {
             try {
-                stringValue = CommonUtil.serializeItem(item, outputProperties);
+                stringValue = serialize();
             } catch (XPathException e) {
                 throw new ScraperXQueryException("Error serializing XML item!", e);
 
@@ -35,8 +68,25 @@ public class XmlNodeWrapper {
         return stringValue;
     }
 
+    /**
+     * Checks emptiness without serializing the item: serialized element is
+     * never empty, nor is non-empty document, while other items are
+     * serialized as their string values.
+     */
     public boolean isEmpty() {
-        return StringUtils.isEmpty(asString());
+        if (stringValue != null) {
+            return stringValue.length() == 0;
+        }
+        if (item instanceof NodeInfo) {
+            final NodeInfo node = (NodeInfo) item;
+            if (node.getNodeKind() == Type.ELEMENT) {
+                return false;
+            }
+            if (node.getNodeKind() == Type.DOCUMENT) {
+                return !node.hasChildNodes();
+            }
+        }
+        return StringUtils.isEmpty(item.getStringValue());
     }
 
     public String toString() {
@@ -0,0 +1,574 @@
+/*
+ Copyright (c) 2006-2012 the original author or authors.
+
+ Redistribution and use of this software in source and binary forms,
+ with or without modification, are permitted provided that the following
+ conditions are met:
+
+ * Redistributions of source code must retain the above
+   copyright notice, this list of conditions and the
+   following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the
+   following disclaimer in the documentation and/or other
+   materials provided with the distribution.
+
+ * The name of Web-Harvest may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package org.webharvest.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.event.PipelineConfiguration;
+import net.sf.saxon.event.ReceivingContentHandler;
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.tinytree.TinyBuilder;
+
+import org.webharvest.exception.ParserException;
+import org.webharvest.exception.ScraperXPathException;
+import org.webharvest.runtime.Deadline;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Iterates over elements of XML stream matching the given path, reading the
+ * stream incrementally. Every matching element is built as a separate small
+ * tree (document having the element as its root), so memory used does not
+ * depend on size of the input, but only on size of the largest match and
+ * depth of the document.
+ * <p/>
+ * Supported path is the subset of XPath consisting of child ({@code /}) and
+ * descendant ({@code //}) steps, each being an element name or {@code *},
+ * optionally followed by attribute predicates {@code [@name]} or
+ * {@code [@name='value']}, e.g. {@code /catalog/product},
+ * {@code //item[@type='book']} or {@code /rss//item}. Names are matched by
+ * their local part, regardless of namespace and prefix, so the paths need no
+ * namespace declarations. Elements nested in a match are not matched again.
+ * <p/>
+ * The stream is closed once the iteration ends or fails; iteration abandoned
+ * earlier must be {@link #close() closed} explicitly.
+ *
+ * @since 2.1.0-SNAPSHOT
+ * @version %I%, %G%
+ */
+public final class XmlStreamIterator implements Iterator<Variable>, Closeable {
+
+    private final InputStream input;
+
+    private final XMLStreamReader reader;
+
+    private final Step[] steps;
+
+    private final boolean hasPredicates;
+
+    private final Configuration config;
+
+    private final List<Frame> frames = new ArrayList<Frame>();
+
+    private Variable next;
+
+    private boolean finished;
+
+    /**
+     * Creates iterator over the given stream, which is closed when the
+     * iteration ends.
+     *
+     * @param input
+     *            XML stream
+     * @param charset
+     *            charset of the stream; if {@code null}, it is detected from
+     *            the stream itself
+     * @param path
+     *            path of matching elements
+     * @param config
+     *            Saxon configuration the trees are built for
+     * @throws ScraperXPathException
+     *             if path is not valid or not supported
+     * @throws ParserException
+     *             if the stream cannot be read
+     */
+    public XmlStreamIterator(final InputStream input, final String charset,
+            final String path, final Configuration config) {
+        this.input = input;
+        this.config = config;
+        try {
+            this.steps = parse(path);
+            this.hasPredicates = hasPredicates(steps);
+            this.reader = createReader(input, charset);
+        } catch (RuntimeException e) {
+            closeInput();
+            throw e;
+        }
+    }
+
+    private static XMLStreamReader createReader(final InputStream input,
+            final String charset) {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        factory.setProperty(
+                XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        try {
+            return (charset == null) ? factory.createXMLStreamReader(input)
+                    : factory.createXMLStreamReader(
+                            new InputStreamReader(input, charset));
+        } catch (XMLStreamException e) {
+            throw new ParserException("Error reading XML stream!", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new ParserException("Charset " + charset
+                    + " is not supported!", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Variable next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Variable result = next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stops the iteration and closes the stream.
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            finished = true;
+            next = null;
+            frames.clear();
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // the stream is closed anyway
+            } finally {
+                closeInput();
+            }
+        }
+    }
+
+    private void closeInput() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            // nothing more can be done
+        }
+    }
+
+    private Variable advance() {
+        Deadline.check();
+        boolean failed = true;
+        try {
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    frames.add(new Frame(reader, hasPredicates));
+                    if (matches(steps.length - 1, frames.size() - 1)) {
+                        final Variable match = new NodeVariable(
+                                new XmlNodeWrapper(buildMatch(),
+                                        new Properties()));
+                        frames.remove(frames.size() - 1);
+                        failed = false;
+                        return match;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    frames.remove(frames.size() - 1);
+                }
+            }
+            failed = false;
+            close();
+            return null;
+        } catch (XMLStreamException e) {
+            throw new ParserException("Error reading XML stream!", e);
+        } catch (SAXException e) {
+            throw new ParserException("Error building XML tree!", e);
+        } finally {
+            if (failed) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Checks whether element at the given depth matches the step of the given
+     * index, together with its ancestors matching the preceding steps.
+     */
+    private boolean matches(final int stepIndex, final int depth) {
+        final Step step = steps[stepIndex];
+        if (!step.matches(frames.get(depth))) {
+            return false;
+        }
+        if (stepIndex == 0) {
+            return step.descendant || depth == 0;
+        }
+        if (!step.descendant) {
+            return depth > 0 && matches(stepIndex - 1, depth - 1);
+        }
+        for (int ancestor = depth - 1; ancestor >= 0; ancestor--) {
+            if (matches(stepIndex - 1, ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds tree of the current element, reading the stream up to its end.
+     */
+    private NodeInfo buildMatch()
+            throws XMLStreamException, SAXException {
+        final PipelineConfiguration pipe = config.makePipelineConfiguration();
+        final TinyBuilder builder = new TinyBuilder();
+        builder.setPipelineConfiguration(pipe);
+        final ReceivingContentHandler handler = new ReceivingContentHandler();
+        handler.setPipelineConfiguration(pipe);
+        handler.setReceiver(builder);
+
+        handler.startDocument();
+
+        // namespaces declared by ancestors are still in scope of the match
+        final Map<String, String> namespaces =
+            new LinkedHashMap<String, String>();
+        for (Frame frame : frames) {
+            frame.collectNamespaces(namespaces);
+        }
+        for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+            handler.startPrefixMapping(namespace.getKey(),
+                    namespace.getValue());
+        }
+        startElement(handler);
+
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                    handler.startPrefixMapping(
+                            nvl(reader.getNamespacePrefix(i)),
+                            nvl(reader.getNamespaceURI(i)));
+                }
+                startElement(handler);
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                handler.endElement(nvl(reader.getNamespaceURI()),
+                        reader.getLocalName(), qName(reader.getPrefix(),
+                                reader.getLocalName()));
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                handler.characters(reader.getTextCharacters(),
+                        reader.getTextStart(), reader.getTextLength());
+                break;
+            case XMLStreamConstants.COMMENT:
+                handler.comment(reader.getTextCharacters(),
+                        reader.getTextStart(), reader.getTextLength());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                handler.processingInstruction(reader.getPITarget(),
+                        nvl(reader.getPIData()));
+                break;
+            default:
+                break;
+            }
+        }
+
+        handler.endDocument();
+        return builder.getCurrentRoot();
+    }
+
+    private void startElement(final ReceivingContentHandler handler)
+            throws SAXException {
+        final AttributesImpl attributes = new AttributesImpl();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String localName = reader.getAttributeLocalName(i);
+            attributes.addAttribute(nvl(reader.getAttributeNamespace(i)),
+                    localName, qName(reader.getAttributePrefix(i), localName),
+                    "CDATA", reader.getAttributeValue(i));
+        }
+        handler.startElement(nvl(reader.getNamespaceURI()),
+                reader.getLocalName(), qName(reader.getPrefix(),
+                        reader.getLocalName()), attributes);
+    }
+
+    private static String qName(final String prefix, final String localName) {
+        return (prefix == null || prefix.length() == 0) ? localName
+                : prefix + ':' + localName;
+    }
+
+    private static String nvl(final String value) {
+        return (value == null) ? "" : value;
+    }
+
+    /**
+     * Parses path of matching elements into steps.
+     */
+    private static Step[] parse(final String path) {
+        final String trimmed = (path == null) ? "" : path.trim();
+        final List<Step> steps = new ArrayList<Step>();
+        int pos = 0;
+        while (pos < trimmed.length()) {
+            boolean descendant = false;
+            if (trimmed.startsWith("//", pos)) {
+                descendant = true;
+                pos += 2;
+            } else if (trimmed.charAt(pos) == '/') {
+                pos++;
+            } else if (pos > 0) {
+                throw unsupported(path);
+            }
+            int end = pos;
+            int brackets = 0;
+            while (end < trimmed.length()
+                    && (brackets > 0 || trimmed.charAt(end) != '/')) {
+                final char ch = trimmed.charAt(end);
+                if (ch == '[') {
+                    brackets++;
+                } else if (ch == ']') {
+                    brackets--;
+                } else if (ch == '\'' || ch == '"') {
+                    end = trimmed.indexOf(ch, end + 1);
+                    if (end < 0) {
+                        throw unsupported(path);
+                    }
+                }
+                end++;
+            }
+            steps.add(Step.parse(descendant, trimmed.substring(pos, end),
+                    path));
+            pos = end;
+        }
+        if (steps.isEmpty()) {
+            throw unsupported(path);
+        }
+        return steps.toArray(new Step[steps.size()]);
+    }
+
+    private static boolean hasPredicates(final Step[] steps) {
+        for (Step step : steps) {
+            if (!step.predicates.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ScraperXPathException unsupported(final String path) {
+        return new ScraperXPathException("Unsupported streaming path: ["
+                + path + "]! Only child and descendant steps with element "
+                + "names and attribute predicates are supported.");
+    }
+
+    /**
+     * Step of the path: element name test and attribute predicates.
+     */
+    private static final class Step {
+
+        private final boolean descendant;
+
+        private final String localName;
+
+        // attribute name to required value, null if attribute only must exist
+        private final Map<String, String> predicates;
+
+        private Step(final boolean descendant, final String localName,
+                final Map<String, String> predicates) {
+            this.descendant = descendant;
+            this.localName = localName;
+            this.predicates = predicates;
+        }
+
+        static Step parse(final boolean descendant, final String text,
+                final String path) {
+            final int bracket = text.indexOf('[');
+            final String name = localPart(
+                    (bracket < 0 ? text : text.substring(0, bracket)).trim());
+            if (name.length() == 0 || !"*".equals(name)
+                    && !isName(name)) {
+                throw unsupported(path);
+            }
+            final Map<String, String> predicates =
+                new HashMap<String, String>();
+            int pos = bracket;
+            while (pos >= 0 && pos < text.length()) {
+                final int end = text.indexOf(']', pos);
+                if (text.charAt(pos) != '[' || end < 0) {
+                    throw unsupported(path);
+                }
+                parsePredicate(text.substring(pos + 1, end).trim(),
+                        predicates, path);
+                pos = end + 1;
+                while (pos < text.length()
+                        && Character.isWhitespace(text.charAt(pos))) {
+                    pos++;
+                }
+            }
+            return new Step(descendant, "*".equals(name) ? null : name,
+                    predicates);
+        }
+
+        private static void parsePredicate(final String predicate,
+                final Map<String, String> predicates, final String path) {
+            if (!predicate.startsWith("@")) {
+                throw unsupported(path);
+            }
+            final int eq = predicate.indexOf('=');
+            final String name = localPart(
+                    (eq < 0 ? predicate.substring(1)
+                            : predicate.substring(1, eq)).trim());
+            if (!isName(name)) {
+                throw unsupported(path);
+            }
+            String value = null;
+            if (eq >= 0) {
+                value = predicate.substring(eq + 1).trim();
+                if (value.length() < 2 || value.charAt(0) != '\''
+                        && value.charAt(0) != '"'
+                        || value.charAt(value.length() - 1) != value.charAt(0)) {
+                    throw unsupported(path);
+                }
+                value = value.substring(1, value.length() - 1);
+            }
+            predicates.put(name, value);
+        }
+
+        private static String localPart(final String name) {
+            return name.substring(name.indexOf(':') + 1);
+        }
+
+        private static boolean isName(final String name) {
+            if (name.length() == 0
+                    || !Character.isLetter(name.charAt(0))
+                    && name.charAt(0) != '_') {
+                return false;
+            }
+            for (int i = 1; i < name.length(); i++) {
+                final char ch = name.charAt(i);
+                if (!Character.isLetterOrDigit(ch) && ch != '_' && ch != '-'
+                        && ch != '.') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean matches(final Frame frame) {
+            if (localName != null && !localName.equals(frame.localName)) {
+                return false;
+            }
+            for (Map.Entry<String, String> predicate : predicates.entrySet()) {
+                final String value = frame.attributes.get(predicate.getKey());
+                if (value == null || predicate.getValue() != null
+                        && !predicate.getValue().equals(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    /**
+     * Element currently open in the stream.
+     */
+    private static final class Frame {
+
+        private final String localName;
+
+        // attributes by local name, kept only if the path has predicates
+        private final Map<String, String> attributes;
+
+        // prefix and URI pairs of namespaces declared by the element
+        private final String[] namespaces;
+
+        Frame(final XMLStreamReader reader, final boolean withAttributes) {
+            this.localName = reader.getLocalName();
+            if (withAttributes) {
+                attributes = new HashMap<String, String>();
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    attributes.put(reader.getAttributeLocalName(i),
+                            reader.getAttributeValue(i));
+                }
+            } else {
+                attributes = null;
+            }
+            final int count = reader.getNamespaceCount();
+            namespaces = new String[count * 2];
+            for (int i = 0; i < count; i++) {
+                namespaces[2 * i] = nvl(reader.getNamespacePrefix(i));
+                namespaces[2 * i + 1] = nvl(reader.getNamespaceURI(i));
+            }
+        }
+
+        void collectNamespaces(final Map<String, String> inScope) {
+            for (int i = 0; i < namespaces.length; i += 2) {
+                // redeclared prefix keeps its position, but gets new URI
+                inScope.put(namespaces[i], namespaces[i + 1]);
+            }
+        }
+
+    }
+
+}
@@ -7,7 +7,11 @@ import java.io.Writer;
 import java.net.URI;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -25,12 +29,16 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import net.sf.saxon.Configuration;
+import net.sf.saxon.om.Axis;
 import net.sf.saxon.om.Item;
+import net.sf.saxon.om.NodeInfo;
 import net.sf.saxon.om.SequenceIterator;
+import net.sf.saxon.pattern.NodeKindTest;
 import net.sf.saxon.query.DynamicQueryContext;
 import net.sf.saxon.query.StaticQueryContext;
 import net.sf.saxon.query.XQueryExpression;
 import net.sf.saxon.trans.XPathException;
+import net.sf.saxon.type.Type;
 
 import org.w3c.dom.Document;
 import org.webharvest.definition.validation.ResourcePathToURITransformer;
@@ -43,6 +51,7 @@ import org.webharvest.definition.validation.URIToSchemaSourceTransformer;
 import org.webharvest.runtime.RuntimeConfig;
 import org.webharvest.runtime.variables.ListVariable;
 import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
@@ -51,6 +60,8 @@ import org.xml.sax.SAXException;
  */
 public class XmlUtil {
 
+    private static final String XHTML_NAMESPACE = "http://www.w3.org/1999/xhtml";
+
     private static final Map<Integer, SAXParserFactory> saxParserFactoryMap;
 
     static {
@@ -98,25 +109,29 @@ public class XmlUtil {
         saxParserFactoryMap = Collections.unmodifiableMap(map);
     }
 
-    private static final ThreadLocal<DocumentBuilder> documentBuilderTL =
-            new ThreadLocal<DocumentBuilder>() {
-                @Override
-                protected DocumentBuilder initialValue() {
-                    try {
-                        return DocumentBuilderFactory.newInstance().newDocumentBuilder();
-                    } catch (ParserConfigurationException e) {
-                        throw new IllegalStateException(e);
-                    }
-                }
-            };
-
-    private static final ThreadLocal<XPath> xPathBuilderTL =
-            new ThreadLocal<XPath>() {
-                @Override
-                protected XPath initialValue() {
-                    return XPathFactory.newInstance().newXPath();
-                }
-            };
+    // Builders are not thread safe. Idle ones are shared by all threads instead of being kept per thread,
+    // so many short-lived threads (e.g. virtual threads) neither create nor retain builders of their own.
+    // Number of idle builders never exceeds the peak number of concurrent uses.
+    private static final Queue<DocumentBuilder> idleDocumentBuilders = new ConcurrentLinkedQueue<DocumentBuilder>();
+
+    private static final Queue<XPath> idleXPaths = new ConcurrentLinkedQueue<XPath>();
+
+    private static DocumentBuilder borrowDocumentBuilder() {
+        final DocumentBuilder documentBuilder = idleDocumentBuilders.poll();
+        if (documentBuilder != null) {
+            return documentBuilder;
+        }
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static XPath borrowXPath() {
+        final XPath xPath = idleXPaths.poll();
+        return xPath != null ? xPath : XPathFactory.newInstance().newXPath();
+    }
 
     public static void prettyPrintXml(Document doc, Writer writer) {
         try {
@@ -132,20 +147,28 @@ public class XmlUtil {
 
     @SuppressWarnings({"unchecked"})
     public static <T> T evaluateXPath(String xPathExpression, Document document) {
+        final XPath xPath = borrowXPath();
         try {
-            return (T) xPathBuilderTL.get().evaluate(xPathExpression, document);
+            return (T) xPath.evaluate(xPathExpression, document);
         } catch (XPathExpressionException e) {
             throw Assert.shouldNeverHappen(e);
+        } finally {
+            xPath.reset();
+            idleXPaths.offer(xPath);
         }
     }
 
     public static Document parse(InputSource is) {
+        final DocumentBuilder documentBuilder = borrowDocumentBuilder();
         try {
-            return documentBuilderTL.get().parse(is);
+            return documentBuilder.parse(is);
         } catch (SAXException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            documentBuilder.reset();
+            idleDocumentBuilders.offer(documentBuilder);
         }
     }
 
@@ -177,6 +200,66 @@ public class XmlUtil {
         return createListOfXmlNodes(exp, dynamicContext);
     }
 
+    /**
+     * Returns document to be queried for the specified variable. If the variable carries XML tree (result of
+     * html-to-xml, xpath or xquery processor) built with the same configuration, the tree is used directly,
+     * so the variable is neither serialized nor parsed again. Otherwise text of the variable is parsed.
+     *
+     * @param xml
+     * @param sqc
+     * @return Document node.
+     * @throws XPathException
+     */
+    public static NodeInfo buildDocument(Variable xml, StaticQueryContext sqc) throws XPathException {
+        final NodeInfo node = getXmlNode(xml);
+        if (node != null && node.getConfiguration() == sqc.getConfiguration() && !isXhtml(node)) {
+            if (node.getNodeKind() == Type.DOCUMENT) {
+                return node;
+            }
+            if (node.getNodeKind() == Type.ELEMENT) {
+                // element is copied to the new tree, becoming its root exactly as if it was parsed from text
+                return sqc.buildDocument(node);
+            }
+        }
+        return sqc.buildDocument(new StreamSource(new StringReader(xml.toString())));
+    }
+
+    /**
+     * Returns XML node carried by the specified variable, being either node variable or list of exactly
+     * one node variable.
+     *
+     * @param variable
+     * @return XML node or null if the variable doesn't carry one.
+     */
+    public static NodeInfo getXmlNode(Variable variable) {
+        Variable single = variable;
+        if (variable instanceof ListVariable) {
+            final List<Variable> list = variable.toList();
+            if (list.size() != 1) {
+                return null;
+            }
+            single = list.get(0);
+        }
+        final Object wrapped = (single != null) ? single.getWrappedObject() : null;
+        if (wrapped instanceof XmlNodeWrapper) {
+            final Item item = ((XmlNodeWrapper) wrapped).getItem();
+            return (item instanceof NodeInfo) ? (NodeInfo) item : null;
+        }
+        return null;
+    }
+
+    /**
+     * Serialized XML nodes are stripped of XHTML namespace declaration (see CommonUtil.serializeItem), so such
+     * trees are not reused - they would be queried in different namespace than their text.
+     */
+    private static boolean isXhtml(NodeInfo node) {
+        NodeInfo element = node;
+        if (node.getNodeKind() == Type.DOCUMENT) {
+            element = (NodeInfo) node.iterateAxis(Axis.CHILD, NodeKindTest.ELEMENT).next();
+        }
+        return element != null && XHTML_NAMESPACE.equals(element.getURI());
+    }
+
     /**
      * Creates list variable of resulting XML nodes.
      *
@@ -188,10 +271,11 @@ public class XmlUtil {
     public static ListVariable createListOfXmlNodes(XQueryExpression exp, DynamicQueryContext dynamicContext) throws XPathException {
         final SequenceIterator iter = exp.iterator(dynamicContext);
         final ListVariable listVariable = new ListVariable();
+        // shared by all items, not copied for each of them
+        final Properties outputProperties = exp.getExecutable().getDefaultOutputProperties();
 
         for (Item item = iter.next(); item != null; item = iter.next()) {
-            listVariable.addVariable(new NodeVariable(
-                    new XmlNodeWrapper(item, exp.getExecutable().getDefaultOutputProperties())));
+            listVariable.addVariable(new NodeVariable(new XmlNodeWrapper(item, outputProperties)));
         }
 
         return listVariable;
@@ -0,0 +1,129 @@
+package org.webharvest;
+
+import static org.testng.AssertJUnit.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.unitils.UnitilsTestNG;
+
+public class DiskCacheTest extends UnitilsTestNG {
+
+    private File directory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = File.createTempFile("diskcache", "");
+        directory.delete();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void lookupsCachedObject() {
+        final DiskCache<String, String> cache =
+            new DiskCache<String, String>(directory, 10, false);
+        cache.put("mykey", "value");
+
+        assertEquals("value", cache.lookup("mykey"));
+        assertNull(cache.lookup("other"));
+        assertEquals(1, cache.getStatistics().getHitCount());
+        assertEquals(1, cache.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void cachedObjectSurvivesReopening() {
+        new DiskCache<String, String>(directory, 10, true).put("mykey", "value");
+
+        final DiskCache<String, String> cache =
+            new DiskCache<String, String>(directory, 10, true);
+        assertEquals(1, cache.size());
+        assertEquals("value", cache.lookup("mykey"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedObject() {
+        final DiskCache<String, String> cache =
+            new DiskCache<String, String>(directory, 2, false);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.lookup("a");
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals(2, directory.list().length);
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    public void expiredObjectIsDiscarded() throws Exception {
+        final DiskCache<String, String> cache =
+            new DiskCache<String, String>(directory, 10, false);
+        cache.put("mykey", "value", 1);
+        Thread.sleep(10);
+
+        assertNull(cache.lookup("mykey"));
+        assertEquals(0, directory.list().length);
+        assertEquals(1, cache.getStatistics().getExpirationCount());
+    }
+
+    @Test
+    public void corruptedObjectIsDiscarded() throws Exception {
+        final DiskCache<String, String> cache =
+            new DiskCache<String, String>(directory, 10, false);
+        cache.put("mykey", "value");
+        FileUtils.writeStringToFile(directory.listFiles()[0], "garbage");
+
+        assertNull(cache.lookup("mykey"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void concurrentAccessToDifferentKeys() throws Exception {
+        final DiskCache<String, String> cache =
+            new DiskCache<String, String>(directory, 1000, true);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 50; i++) {
+                            final String key = thread + "-" + i;
+                            cache.put(key, "value " + key);
+                            if (!("value " + key).equals(cache.lookup(key))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(400, cache.size());
+        assertEquals(400, cache.getStatistics().getHitCount());
+    }
+
+}
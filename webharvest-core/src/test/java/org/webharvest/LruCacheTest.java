@@ -0,0 +1,63 @@
+package org.webharvest;
+
+import static org.testng.AssertJUnit.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.unitils.UnitilsTestNG;
+
+public class LruCacheTest extends UnitilsTestNG {
+
+    private LruCache<String, Object> cache;
+
+    @BeforeMethod
+    public void setUp() {
+        this.cache = new LruCache<String, Object>(2);
+    }
+
+    @Test
+    public void lookupsCachedObject() {
+        final Object cachedObject = new Object();
+        cache.put("mykey", cachedObject);
+        assertSame(cachedObject, cache.lookup("mykey"));
+        assertEquals(1, cache.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedObject() {
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.lookup("a");
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    public void expiredObjectIsNotAvailable() throws Exception {
+        cache.put("mykey", "value", 1);
+        Thread.sleep(10);
+
+        assertNull(cache.lookup("mykey"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getStatistics().getExpirationCount());
+        assertEquals(1, cache.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void objectIsNotAvailableAfterInvalidation() {
+        cache.put("mykey", "value");
+        cache.invalidate("mykey");
+        assertNull(cache.lookup("mykey"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void sizeMustBePositive() {
+        new LruCache<String, Object>(0);
+    }
+
+}
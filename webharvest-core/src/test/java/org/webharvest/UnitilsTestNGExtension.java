@@ -8,7 +8,13 @@ import org.unitils.UnitilsTestNG;
 import org.unitils.mock.Mock;
 import org.webharvest.ioc.DebugFileLogger;
 import org.webharvest.ioc.InjectorHelper;
+import org.webharvest.runtime.ExecutionBackend;
+import org.webharvest.runtime.PlatformThreadBackend;
 import org.webharvest.runtime.StatusHolder;
+import org.webharvest.runtime.checkpoint.Checkpointer;
+import org.webharvest.runtime.checkpoint.NoCheckpointer;
+import org.webharvest.runtime.debug.DebugSink;
+import org.webharvest.runtime.debug.LoggerDebugSink;
 import org.webharvest.runtime.scripting.ScriptEngineFactory;
 import org.webharvest.runtime.templaters.BaseTemplater;
 
@@ -98,6 +104,9 @@ public abstract class UnitilsTestNGExtension extends UnitilsTestNG {
             bind(EventBus.class).in(Singleton.class);
             bind(Logger.class).annotatedWith(DebugFileLogger.class).toInstance(
                     loggerMock.getMock());
+            bind(DebugSink.class).to(LoggerDebugSink.class);
+            bind(ExecutionBackend.class).to(PlatformThreadBackend.class);
+            bind(Checkpointer.class).to(NoCheckpointer.class);
 
             // ScriptProcessor dependecies
             bind(ScriptEngineFactory.class)
@@ -49,6 +49,23 @@ public class DefaultHandlerHolderTest extends UnitilsTestNG {
         holder.register(null);
     }
 
+    @Test(expectedExceptions=IllegalArgumentException.class)
+    public void testUnregisterWithoutListener() {
+        holder.unregister(null);
+    }
+
+    @Test
+    public void testUnregister() throws Exception {
+        expect(mockProvider.get()).andReturn(mockEventBus);
+        mockRegistry.bind(mockHarvester, mockEventBus);
+        expectLastCall();
+        EasyMockUnitils.replay();
+        holder.register(mockHandler);
+        assertTrue(holder.unregister(mockHandler));
+        assertFalse(holder.unregister(mockHandler));
+        holder.onBeforeScraping(mockHarvester);
+    }
+
     @Test
     public void testOnBeforeScraping() throws Exception {
         expect(mockProvider.get()).andReturn(mockEventBus);
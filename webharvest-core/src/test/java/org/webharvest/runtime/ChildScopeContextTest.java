@@ -0,0 +1,91 @@
+package org.webharvest.runtime;
+
+import static org.testng.AssertJUnit.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.KeyValuePair;
+
+public class ChildScopeContextTest {
+
+    private ScraperContext parent;
+
+    @BeforeMethod
+    public void setUp() {
+        parent = new ScraperContext();
+        parent.setLocalVar("x", "parent");
+    }
+
+    @Test
+    public void testParentVariableVisible() {
+        final ChildScopeContext child = new ChildScopeContext(parent);
+        assertEquals("parent", child.getVar("x").toString());
+        assertTrue(child.containsVar("x"));
+    }
+
+    @Test
+    public void testLocalVariableNotVisibleInParent() {
+        final ChildScopeContext child = new ChildScopeContext(parent);
+        child.setLocalVar("y", "child");
+        child.setLocalVar("x", "shadow");
+        assertEquals("shadow", child.getVar("x").toString());
+        child.mergeInto();
+        assertNull(parent.getVar("y"));
+        assertEquals("parent", parent.getVar("x").toString());
+    }
+
+    @Test
+    public void testParentWriteDeferredUntilMerge() {
+        final ChildScopeContext child = new ChildScopeContext(parent);
+        final Variable previous =
+            child.replaceExistingVar("x", new NodeVariable("child"));
+        assertEquals("parent", previous.toString());
+        assertEquals("child", child.getVar("x").toString());
+        assertEquals("parent", parent.getVar("x").toString());
+
+        child.mergeInto();
+        assertEquals("child", parent.getVar("x").toString());
+    }
+
+    @Test
+    public void testMergeInOrder() {
+        final ChildScopeContext first = new ChildScopeContext(parent);
+        final ChildScopeContext second = new ChildScopeContext(parent);
+        second.replaceExistingVar("x", new NodeVariable("second"));
+        first.replaceExistingVar("x", new NodeVariable("first"));
+        first.mergeInto();
+        second.mergeInto();
+        assertEquals("second", parent.getVar("x").toString());
+    }
+
+    @Test
+    public void testIteratorMergesScopes() {
+        final ChildScopeContext child = new ChildScopeContext(parent);
+        child.setLocalVar("y", "child");
+        child.replaceExistingVar("x", new NodeVariable("written"));
+        final Map<String, String> variables = new HashMap<String, String>();
+        for (KeyValuePair<Variable> pair : child) {
+            variables.put(pair.getKey(), pair.getValue().toString());
+        }
+        assertEquals(2, variables.size());
+        assertEquals("written", variables.get("x"));
+        assertEquals("child", variables.get("y"));
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testReplaceUnknownVariable() {
+        new ChildScopeContext(parent).replaceExistingVar("unknown",
+                new NodeVariable("value"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullParent() {
+        new ChildScopeContext(null);
+    }
+
+}
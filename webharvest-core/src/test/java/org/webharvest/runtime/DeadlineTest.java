@@ -0,0 +1,105 @@
+package org.webharvest.runtime;
+
+import static org.testng.AssertJUnit.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+import org.webharvest.exception.DeadlineExceededException;
+
+public class DeadlineTest {
+
+    @Test
+    public void testExpirationInterruptsThread() {
+        final Deadline deadline = Deadline.start(20);
+        try {
+            Thread.sleep(5000);
+            fail("Thread not interrupted");
+        } catch (InterruptedException e) {
+            assertTrue(deadline.isExpired());
+        } finally {
+            assertTrue(deadline.finish());
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void testFinishedBeforeExpiration() {
+        final Deadline deadline = Deadline.start(10000);
+        assertSame(deadline, Deadline.current());
+        assertFalse(deadline.finish());
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void testNestedDeadlineBoundedByEnclosing() {
+        final Deadline outer = Deadline.start(1000);
+        try {
+            final Deadline inner = Deadline.start(60000);
+            assertTrue(inner.getRemainingMillis() <= 1000);
+            inner.finish();
+            assertSame(outer, Deadline.current());
+        } finally {
+            outer.finish();
+        }
+    }
+
+    @Test
+    public void testCancelsRegisteredOperations() {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final Deadline deadline = Deadline.start(20);
+        try {
+            Deadline.register(new Cancellable() {
+                @Override
+                public void cancel() {
+                    cancelled.countDown();
+                }
+            });
+            // the thread gets interrupted before cancellation, so no waiting
+            final long limit = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(5);
+            while (cancelled.getCount() > 0 && System.nanoTime() < limit) {
+                Thread.yield();
+            }
+        } finally {
+            assertTrue(deadline.finish());
+        }
+        assertEquals(0, cancelled.getCount());
+    }
+
+    @Test(expectedExceptions = DeadlineExceededException.class)
+    public void testGuardedSequenceChecksDeadline() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append('a');
+        }
+        final Deadline deadline = Deadline.start(10);
+        try {
+            while (!deadline.isExpired()) {
+                Thread.yield();
+            }
+            final CharSequence guarded = Deadline.guard(text);
+            for (int i = 0; i < guarded.length(); i++) {
+                guarded.charAt(i);
+            }
+        } finally {
+            deadline.finish();
+        }
+    }
+
+    @Test
+    public void testNoDeadline() {
+        final String text = "text";
+        assertSame(text, Deadline.guard(text));
+        Deadline.register(new Cancellable() {
+            @Override
+            public void cancel() {
+                fail("Cancelled without deadline");
+            }
+        }).remove();
+        Deadline.check();
+    }
+
+}
@@ -21,8 +21,11 @@ import org.webharvest.events.EventHandler;
 import org.webharvest.events.EventSink;
 import org.webharvest.events.HandlerHolder;
 import org.webharvest.events.HarvesterEvent;
+import org.webharvest.events.ProcessorStartEvent;
 import org.webharvest.ioc.HarvesterFactory;
 
+import com.google.common.eventbus.Subscribe;
+
 public class DefaultHarvestTest extends UnitilsTestNG {
 
     @RegularMock
@@ -55,6 +58,9 @@ public class DefaultHarvestTest extends UnitilsTestNG {
     @RegularMock
     private IElementDef mockElementDef;
 
+    @RegularMock
+    private HarvestWarmUp mockWarmUp;
+
     private DefaultHarvest harvest;
 
     @BeforeMethod
@@ -87,6 +93,26 @@ public class DefaultHarvestTest extends UnitilsTestNG {
         assertSame(mockHarvester, harvester);
     }
 
+    @Test
+    public void testGetHarvesterWithWarmUp() throws IOException {
+        final List<IElementDef> emptyList = Collections.emptyList();
+        expect(mockConfigFactory.create(mockConfigSource)).andReturn(mockConfig);
+        expect(mockFactory.create(mockConfig)).
+            andReturn(mockHarvester);
+        mockConfig.reload();
+        expectLastCall();
+        expect(mockWarmUp.warmUp(mockConfig)).andReturn(10L);
+        expect(mockConfig.getElementDef()).andReturn(mockElementDef);
+        expect(mockElementDef.getElementDefs()).andReturn(emptyList);
+        mockLoadCallback.onSuccess(emptyList);
+        expectLastCall();
+        EasyMockUnitils.replay();
+        harvest.setWarmUp(mockWarmUp);
+        final Harvester harvester = harvest.getHarvester(mockConfigSource,
+                mockLoadCallback);
+        assertSame(mockHarvester, harvester);
+    }
+
     @Test
     public void testAddEventHandler() {
         final EventHandler<HarvesterEvent> handler =
@@ -104,6 +130,37 @@ public class DefaultHarvestTest extends UnitilsTestNG {
         harvest.addEventHandler(handler);
     }
 
+    @Test
+    public void testRemoveEventHandlerDetachesInstrumentation() {
+        final ProcessorInstrumentation instrumentation =
+                new ProcessorInstrumentation();
+        instrumentation.setEnabled(false);
+        final EventHandler<ProcessorStartEvent> handler =
+                new EventHandler<ProcessorStartEvent>() {
+
+                    @Override
+                    @Subscribe
+                    public void handle(final ProcessorStartEvent event) {
+                        // Do nothing
+                    }
+
+                };
+        mockHandlerHolder.register(handler);
+        expectLastCall();
+        expect(mockHandlerHolder.unregister(handler)).andReturn(true);
+        expect(mockHandlerHolder.unregister(handler)).andReturn(false);
+        EasyMockUnitils.replay();
+        harvest.setInstrumentation(instrumentation);
+
+        harvest.addEventHandler(handler);
+        assertTrue(instrumentation.isActive());
+        harvest.removeEventHandler(handler);
+        assertFalse(instrumentation.isActive());
+        // handler no longer registered
+        harvest.removeEventHandler(handler);
+        assertFalse(instrumentation.isActive());
+    }
+
     @Test
     public void testPostEvent() {
         mockEventSink.publish(mockEvent);
@@ -0,0 +1,143 @@
+package org.webharvest.runtime;
+
+import static org.testng.AssertJUnit.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.Harvester;
+
+public class HarvestRuntimeTest {
+
+    private AtomicInteger running;
+
+    private AtomicInteger maxRunning;
+
+    private CountDownLatch release;
+
+    private HarvestRuntime runtime;
+
+    @BeforeMethod
+    public void setUp() {
+        running = new AtomicInteger();
+        maxRunning = new AtomicInteger();
+        release = new CountDownLatch(1);
+        runtime = null;
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        release.countDown();
+        if (runtime != null) {
+            runtime.shutdown();
+            runtime.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testGlobalLimit() throws Exception {
+        runtime = new HarvestRuntime(2, 10);
+        final List<Future<DynamicScopeContext>> results = submit("job", 5);
+        waitForRunning(2);
+        Thread.sleep(50);
+        assertEquals(2, runtime.getActiveCount());
+        assertEquals(3, runtime.getWaitingCount());
+
+        release.countDown();
+        for (Future<DynamicScopeContext> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testPerJobLimit() throws Exception {
+        runtime = new HarvestRuntime(4, 1);
+        final List<Future<DynamicScopeContext>> results = submit("a", 3);
+        results.addAll(submit("b", 1));
+        waitForRunning(2);
+        Thread.sleep(50);
+        assertEquals(2, runtime.getActiveCount());
+
+        release.countDown();
+        for (Future<DynamicScopeContext> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testShutdownExecutesWaitingHarvests() throws Exception {
+        runtime = new HarvestRuntime(1, 1);
+        final List<Future<DynamicScopeContext>> results = submit("job", 3);
+        runtime.shutdown();
+        release.countDown();
+        assertTrue(runtime.awaitTermination(5, TimeUnit.SECONDS));
+        for (Future<DynamicScopeContext> result : results) {
+            assertTrue(result.isDone());
+            assertFalse(result.isCancelled());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testSubmitAfterShutdown() {
+        runtime = new HarvestRuntime();
+        runtime.shutdown();
+        submit("job", 1);
+    }
+
+    private List<Future<DynamicScopeContext>> submit(final String job,
+            final int count) {
+        final List<Future<DynamicScopeContext>> results =
+            new ArrayList<Future<DynamicScopeContext>>();
+        for (int i = 0; i < count; i++) {
+            results.add(runtime.submit(job, new BlockingHarvester(), null));
+        }
+        return results;
+    }
+
+    private void waitForRunning(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (running.get() < count
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private final class BlockingHarvester implements Harvester {
+
+        // of the test which submitted the harvest
+        private final AtomicInteger running = HarvestRuntimeTest.this.running;
+
+        private final AtomicInteger maxRunning =
+            HarvestRuntimeTest.this.maxRunning;
+
+        private final CountDownLatch release = HarvestRuntimeTest.this.release;
+
+        @Override
+        public DynamicScopeContext execute(
+                final ContextInitCallback callback) {
+            final int current = running.incrementAndGet();
+            synchronized (maxRunning) {
+                maxRunning.set(Math.max(maxRunning.get(), current));
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.webharvest.runtime;
+
+import static org.testng.AssertJUnit.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LimitedExecutorServiceTest {
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private final AtomicInteger executed = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = new LimitedExecutorService(
+                new PlatformThreadBackend().newExecutor("test"), 2);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLimitsConcurrency() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 6; i++) {
+            executor.execute(task(release));
+        }
+        Thread.sleep(100);
+        assertEquals(2, running.get());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(6, executed.get());
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testShutdownWithoutTasks() throws Exception {
+        executor.shutdown();
+        assertTrue(executor.isShutdown());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expectedExceptions = RejectedExecutionException.class)
+    public void testRejectsAfterShutdown() {
+        executor.shutdown();
+        executor.execute(task(new CountDownLatch(0)));
+    }
+
+    @Test
+    public void testVirtualThreadBackendAvailability() {
+        try {
+            final ExecutorService virtual =
+                new VirtualThreadBackend().newExecutor("test", 2);
+            assertTrue(VirtualThreadBackend.isSupported());
+            virtual.shutdown();
+        } catch (UnsupportedOperationException e) {
+            assertFalse(VirtualThreadBackend.isSupported());
+        }
+    }
+
+    private Runnable task(final CountDownLatch release) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                final int current = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), current));
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    executed.incrementAndGet();
+                }
+            }
+        };
+    }
+
+}
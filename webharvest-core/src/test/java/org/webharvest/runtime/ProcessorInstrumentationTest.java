@@ -0,0 +1,75 @@
+package org.webharvest.runtime;
+
+import static org.testng.AssertJUnit.*;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.events.EventHandler;
+import org.webharvest.events.ProcessorStopEvent;
+import org.webharvest.events.ScraperExecutionEndEvent;
+
+import com.google.common.eventbus.Subscribe;
+
+public class ProcessorInstrumentationTest {
+
+    private ProcessorInstrumentation instrumentation;
+
+    @BeforeMethod
+    public void setUp() {
+        instrumentation = new ProcessorInstrumentation();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        instrumentation = null;
+    }
+
+    @Test
+    public void testActiveByDefault() {
+        assertTrue(instrumentation.isActive());
+    }
+
+    @Test
+    public void testDisable() {
+        instrumentation.setEnabled(false);
+        assertFalse(instrumentation.isActive());
+        instrumentation.setEnabled(true);
+        assertTrue(instrumentation.isActive());
+    }
+
+    @Test
+    public void testProcessorEventHandlerActivates() {
+        final EventHandler<ProcessorStopEvent> handler =
+            new EventHandler<ProcessorStopEvent>() {
+                @Subscribe
+                @Override
+                public void handle(final ProcessorStopEvent event) {
+                }
+            };
+        instrumentation.setEnabled(false);
+        assertTrue(instrumentation.attach(handler));
+        assertTrue(instrumentation.isActive());
+        instrumentation.detach(handler);
+        assertFalse(instrumentation.isActive());
+    }
+
+    @Test
+    public void testOtherEventHandlerIgnored() {
+        instrumentation.setEnabled(false);
+        assertFalse(instrumentation.attach(
+                new EventHandler<ScraperExecutionEndEvent>() {
+                    @Subscribe
+                    @Override
+                    public void handle(final ScraperExecutionEndEvent event) {
+                    }
+                }));
+        assertFalse(instrumentation.isActive());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAttachNullHandler() {
+        instrumentation.attach(null);
+    }
+
+}
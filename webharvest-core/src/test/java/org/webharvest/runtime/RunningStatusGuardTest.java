@@ -54,4 +54,14 @@ public class RunningStatusGuardTest extends UnitilsTestNG {
         final boolean result = guard.isSatisfied();
         assertFalse("Unexpected result.", result);
     }
+
+    @Test
+    public void isSatisfiedIfStoppedStatus() throws Exception {
+        expect(mockHolder.getStatus()).andReturn(ScraperState.STOPPED);
+
+        EasyMockUnitils.replay();
+
+        final boolean result = guard.isSatisfied();
+        assertTrue("Unexpected result.", result);
+    }
 }
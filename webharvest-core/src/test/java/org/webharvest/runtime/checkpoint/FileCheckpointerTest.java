@@ -0,0 +1,140 @@
+package org.webharvest.runtime.checkpoint;
+
+import static org.easymock.EasyMock.*;
+import static org.testng.AssertJUnit.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.definition.IElementDef;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.NodeVariable;
+
+public class FileCheckpointerTest {
+
+    private File file;
+
+    private IElementDef outerLoop;
+
+    private IElementDef innerLoop;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        file = File.createTempFile("webharvest", ".checkpoint");
+        file.delete();
+        outerLoop = createLoopDef(5);
+        innerLoop = createLoopDef(6);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        file.delete();
+        file = null;
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        final ScraperContext context = new ScraperContext();
+        final FileCheckpointer checkpointer = createCheckpointer();
+        checkpointer.restore(context);
+        assertFalse(checkpointer.hasProgress());
+
+        final LoopCheckpoint outer = checkpointer.enterLoop(outerLoop);
+        assertEquals(0, outer.getCompletedIterations());
+        outer.beginIteration(1);
+        runInnerLoop(checkpointer, context, 0, 2);
+        context.setLocalVar("count", "2");
+        context.setLocalVar("pages", new ListVariable(Arrays.asList(
+                new NodeVariable("a"), new NodeVariable("b"))));
+        outer.endIteration(1, context);
+        outer.beginIteration(2);
+        runInnerLoop(checkpointer, context, 0, 1);
+        // harvest dies in the middle of the second iteration
+        outer.exit();
+        checkpointer.close();
+
+        final ScraperContext resumed = new ScraperContext();
+        final FileCheckpointer resuming = createCheckpointer();
+        assertTrue(resuming.hasProgress());
+        resuming.restore(resumed);
+        assertEquals("2", resumed.getVar("count").toString());
+        assertEquals(2, resumed.getVar("pages").toList().size());
+        assertEquals("b", resumed.getVar("pages").toList().get(1).toString());
+
+        final LoopCheckpoint resumedOuter = resuming.enterLoop(outerLoop);
+        assertEquals(1, resumedOuter.getCompletedIterations());
+        resumedOuter.beginIteration(2);
+        final LoopCheckpoint resumedInner = resuming.enterLoop(innerLoop);
+        assertEquals(1, resumedInner.getCompletedIterations());
+        resumedInner.exit();
+        resumedOuter.exit();
+
+        resuming.complete();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testIncompleteRecordIgnored() throws Exception {
+        final ScraperContext context = new ScraperContext();
+        final FileCheckpointer checkpointer = createCheckpointer();
+        checkpointer.restore(context);
+        final LoopCheckpoint loop = checkpointer.enterLoop(outerLoop);
+        loop.beginIteration(1);
+        loop.endIteration(1, context);
+        loop.exit();
+        checkpointer.close();
+
+        final FileOutputStream out = new FileOutputStream(file, true);
+        try {
+            out.write(new byte[] {'P', 0, 0});
+        } finally {
+            out.close();
+        }
+
+        final FileCheckpointer resuming = createCheckpointer();
+        resuming.restore(new ScraperContext());
+        assertEquals(1, resuming.enterLoop(outerLoop).getCompletedIterations());
+        resuming.close();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNotCheckpointFile() throws Exception {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write("not a checkpoint".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        createCheckpointer();
+    }
+
+    private void runInnerLoop(final FileCheckpointer checkpointer,
+            final ScraperContext context, final int from, final int to) {
+        final LoopCheckpoint inner = checkpointer.enterLoop(innerLoop);
+        assertEquals(from, inner.getCompletedIterations());
+        for (int i = from + 1; i <= to; i++) {
+            inner.beginIteration(i);
+            inner.endIteration(i, context);
+        }
+        inner.exit();
+    }
+
+    private FileCheckpointer createCheckpointer() throws IOException {
+        return new FileCheckpointer(file, Arrays.asList("count", "pages"), 10);
+    }
+
+    private static IElementDef createLoopDef(final int line) {
+        final IElementDef loopDef = createMock(IElementDef.class);
+        expect(loopDef.getLineNumber()).andReturn(line).anyTimes();
+        expect(loopDef.getColumnNumber()).andReturn(1).anyTimes();
+        replay(loopDef);
+        return loopDef;
+    }
+
+}
@@ -0,0 +1,111 @@
+package org.webharvest.runtime.debug;
+
+import static org.testng.AssertJUnit.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.transform.stream.StreamSource;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.om.NodeInfo;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.utils.XmlNodeWrapper;
+
+public class StreamingDebugSinkTest {
+
+    private StringWriter writer;
+
+    private StreamingDebugSink sink;
+
+    @BeforeMethod
+    public void setUp() {
+        writer = new StringWriter();
+        sink = new StreamingDebugSink(writer, 10, 2);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        sink.close();
+        sink = null;
+        writer = null;
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        sink.write("id1", new NodeVariable("abc"));
+        sink.close();
+
+        assertEquals("[id1]\nabc\n\n", writer.toString());
+    }
+
+    @Test
+    public void testWriteList() throws Exception {
+        final ListVariable list = new ListVariable();
+        list.addVariable(new NodeVariable("a"));
+        list.addVariable(new NodeVariable(""));
+        list.addVariable(new NodeVariable("b"));
+        sink.write("list", list);
+        sink.close();
+
+        assertEquals("[list]\na\nb\n\n", writer.toString());
+    }
+
+    @Test
+    public void testWriteTruncated() throws Exception {
+        final ListVariable list = new ListVariable();
+        list.addVariable(new NodeVariable("12345"));
+        list.addVariable(new NodeVariable("67890"));
+        list.addVariable(new NodeVariable("never serialized"));
+        sink.write("big", list);
+        sink.close();
+
+        assertEquals("[big]\n12345\n6789\n... [truncated at 10 characters]\n\n",
+                writer.toString());
+    }
+
+    @Test
+    public void testWriteXmlSerializedUpToLimit() throws Exception {
+        final NodeInfo document = new Configuration().buildDocument(
+                new StreamSource(new StringReader(
+                        "<a>1234567890123456789012345678901234567890</a>")));
+        sink.write("xml", new NodeVariable(new XmlNodeWrapper(document, null) {
+            @Override
+            protected String serialize() {
+                throw new AssertionError("Serialized as a whole");
+            }
+        }));
+        sink.close();
+
+        assertEquals("[xml]\n<a>1234567\n... [truncated at 10 characters]\n\n",
+                writer.toString());
+    }
+
+    @Test
+    public void testWriteManyEntries() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            sink.write("id" + i, new NodeVariable(i));
+        }
+        sink.close();
+
+        final String output = writer.toString();
+        assertTrue(output.startsWith("[id0]\n0\n\n[id1]\n1\n\n"));
+        assertTrue(output.endsWith("[id99]\n99\n\n"));
+    }
+
+    @Test
+    public void testDisabledWhenClosed() throws Exception {
+        assertTrue(sink.isEnabled());
+        sink.close();
+        assertFalse(sink.isEnabled());
+        sink.write("id", new NodeVariable("ignored"));
+
+        assertEquals("", writer.toString());
+    }
+
+}
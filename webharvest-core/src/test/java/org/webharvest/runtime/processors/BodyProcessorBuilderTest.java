@@ -34,6 +34,21 @@ public class BodyProcessorBuilderTest extends UnitilsTestNGExtension {
                 "Unexpected parent processor.");
         }
 
+        @Test
+        public void testBodyBuiltOncePerDefinition() {
+            final AbstractProcessor<?> owner = new EmptyProcessor();
+            final IElementDef def = new MockElementDef();
+
+            final BodyProcessor processor = owner.getBodyProcessor(def);
+
+            Assert.assertSame(owner.getBodyProcessor(def), processor,
+                "Body built again for the same definition.");
+            Assert.assertSame(processor.getParentProcessor(), owner,
+                "Unexpected parent processor.");
+            Assert.assertNotSame(owner.getBodyProcessor(new MockElementDef()),
+                processor, "Body shared by different definitions.");
+        }
+
         private class MockElementDef extends ElementDefProxy {
 
             protected MockElementDef() {
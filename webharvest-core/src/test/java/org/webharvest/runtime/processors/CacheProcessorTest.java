@@ -0,0 +1,83 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.scripting.ScriptEngineFactory;
+import org.webharvest.runtime.scripting.ScriptingLanguage;
+import org.webharvest.runtime.scripting.jsr.JSRScriptEngineFactory;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+
+public class CacheProcessorTest extends UnitilsTestNGExtension {
+
+    private ScraperContext context;
+
+    @BeforeMethod
+    public void before() {
+        context = new ScraperContext();
+        context.setScriptingLanguage(ScriptingLanguage.BEANSHELL);
+    }
+
+    @Override
+    protected ScriptEngineFactory getScriptEngineFactory() {
+        return new JSRScriptEngineFactory();
+    }
+
+    @Test
+    public void testMemoizesResult() throws Exception {
+        final String name = "test" + System.nanoTime();
+        assertEquals("first", cache("<cache key='k' name='" + name
+                + "'><text>first</text></cache>").run(context).toString());
+
+        final Variable result = cache("<cache key='k' name='" + name
+                + "'><get var='unknown'/></cache>").run(context);
+
+        assertEquals("first", result.toString());
+    }
+
+    @Test
+    public void testKeyIsTemplate() throws Exception {
+        final String name = "test" + System.nanoTime();
+        context.setLocalVar("id", new NodeVariable("1"));
+        cache("<cache key='k${id}' name='" + name
+                + "'><text>one</text></cache>").run(context);
+        context.setLocalVar("id", new NodeVariable("2"));
+
+        final Variable result = cache("<cache key='k${id}' name='" + name
+                + "'><text>two</text></cache>").run(context);
+
+        assertEquals("two", result.toString());
+    }
+
+    @Test
+    public void testDiskStore() throws Exception {
+        final File dir = File.createTempFile("cache", "");
+        dir.delete();
+        try {
+            final String xml = "<cache key='k' store='disk' compress='true' dir='"
+                + dir.getAbsolutePath() + "'>";
+            cache(xml + "<text>a</text><text>b</text></cache>").run(context);
+
+            final Variable result = cache(xml + "<get var='unknown'/></cache>").run(context);
+
+            assertEquals(2, result.toList().size());
+            assertEquals("b", result.toList().get(1).toString());
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private static Processor cache(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import org.apache.commons.lang.StringUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.variables.NodeVariable;
+
+public class CallProcessorTest extends UnitilsTestNGExtension {
+
+    private static final String WRAP =
+        "<function name='wrap'><return>[<get var='p'/>]</return></function>";
+
+    private ScraperContext context;
+
+    @BeforeMethod
+    public void before() {
+        context = new ScraperContext();
+    }
+
+    @Test
+    public void testReturnsFunctionResult() throws Exception {
+        run(WRAP);
+
+        assertEquals(lines("[", "a", "]"), run(
+                "<call name='wrap'><call-param name='p'>a</call-param></call>"));
+    }
+
+    @Test
+    public void testNestedCalls() throws Exception {
+        run(WRAP);
+
+        assertEquals(lines("[", "[", "a", "]", "]"), run(
+                "<call name='wrap'><call-param name='p'>"
+                + "<call name='wrap'><call-param name='p'>a</call-param></call>"
+                + "</call-param></call>"));
+    }
+
+    @Test
+    public void testRepeatedCalls() throws Exception {
+        run(WRAP);
+
+        assertEquals(lines("[", "a", "]", "[", "b", "]"), run(
+                "<loop item='x'><list><text>a</text><text>b</text></list><body>"
+                + "<call name='wrap'><call-param name='p'><get var='x'/></call-param></call>"
+                + "</body></loop>"));
+    }
+
+    @Test
+    public void testMemoizedFunction() throws Exception {
+        run("<function name='f' memoize='true'>"
+                + "<return><get var='p'/><get var='x'/></return></function>");
+        final Processor call = processor(
+                "<call name='f'><call-param name='p'>a</call-param></call>");
+
+        context.setLocalVar("x", new NodeVariable("1"));
+        assertEquals(lines("a", "1"), call.run(context).toString());
+        context.setLocalVar("x", new NodeVariable("2"));
+        assertEquals(lines("a", "1"), call.run(context).toString());
+    }
+
+    @Test
+    public void testMemoizedResultsNotSharedByContexts() throws Exception {
+        final Processor function = processor("<function name='f' memoize='true'>"
+                + "<return><get var='p'/><get var='x'/></return></function>");
+        final Processor call = processor(
+                "<call name='f'><call-param name='p'>a</call-param></call>");
+
+        function.run(context);
+        context.setLocalVar("x", new NodeVariable("1"));
+        assertEquals(lines("a", "1"), call.run(context).toString());
+
+        // e.g. another run of the same configuration
+        final ScraperContext other = new ScraperContext();
+        function.run(other);
+        other.setLocalVar("x", new NodeVariable("2"));
+        assertEquals(lines("a", "2"), call.run(other).toString());
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testUndefinedFunction() throws Exception {
+        run("<call name='undefined'/>");
+    }
+
+    // items of the results are joined by new lines, also in nested lists
+    private static String lines(final String... items) {
+        return StringUtils.join(items, '\n');
+    }
+
+    private String run(final String xml) throws InterruptedException {
+        return processor(xml).run(context).toString();
+    }
+
+    private static Processor processor(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.unitils.UnitilsTestNG;
+import org.unitils.mock.Mock;
+
+public class ExecutionFrameTest extends UnitilsTestNG {
+
+    private static final Map<String, Object> NO_PROPERTIES =
+        Collections.emptyMap();
+
+    private Mock<Processor> processor;
+
+    private Mock<Processor> parent;
+
+    private Mock<Processor> defaultParent;
+
+    @AfterMethod
+    public void tearDown() {
+        ExecutionFrame.clearNextParent();
+    }
+
+    @Test
+    public void enterUsesDefaultParent() {
+        final ExecutionFrame frame = ExecutionFrame.enter(
+                processor.getMock(), defaultParent.getMock(), NO_PROPERTIES);
+        try {
+            assertSame(defaultParent.getMock(), frame.getParentProcessor());
+            assertSame(frame, ExecutionFrame.find(processor.getMock()));
+        } finally {
+            frame.exit();
+        }
+        assertNull(ExecutionFrame.find(processor.getMock()));
+    }
+
+    @Test
+    public void enterConsumesNextParent() {
+        ExecutionFrame.setNextParent(parent.getMock());
+        final ExecutionFrame frame = ExecutionFrame.enter(
+                processor.getMock(), defaultParent.getMock(), NO_PROPERTIES);
+        try {
+            assertSame(parent.getMock(), frame.getParentProcessor());
+        } finally {
+            frame.exit();
+        }
+
+        final ExecutionFrame next = ExecutionFrame.enter(
+                processor.getMock(), defaultParent.getMock(), NO_PROPERTIES);
+        try {
+            assertSame(defaultParent.getMock(), next.getParentProcessor());
+        } finally {
+            next.exit();
+        }
+    }
+
+    @Test
+    public void findReturnsInnermostFrame() {
+        final ExecutionFrame outer = ExecutionFrame.enter(
+                processor.getMock(), null, NO_PROPERTIES);
+        final ExecutionFrame inner = ExecutionFrame.enter(
+                processor.getMock(), parent.getMock(), NO_PROPERTIES);
+        assertSame(inner, ExecutionFrame.find(processor.getMock()));
+        inner.exit();
+        assertSame(outer, ExecutionFrame.find(processor.getMock()));
+        outer.exit();
+        assertNull(ExecutionFrame.find(processor.getMock()));
+    }
+
+    @Test
+    public void framesHaveOwnProperties() {
+        final ExecutionFrame frame = ExecutionFrame.enter(processor.getMock(),
+                null, Collections.<String, Object>singletonMap("a", "b"));
+        try {
+            frame.getProperties().put("c", "d");
+            assertEquals(2, frame.getProperties().size());
+            assertEquals("b", frame.getProperties().get("a"));
+        } finally {
+            frame.exit();
+        }
+    }
+
+}
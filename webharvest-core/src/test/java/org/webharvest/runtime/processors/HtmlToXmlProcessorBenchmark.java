@@ -0,0 +1,173 @@
+package org.webharvest.runtime.processors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.ioc.DebugFileLogger;
+import org.webharvest.ioc.InjectorHelper;
+import org.webharvest.runtime.ExecutionBackend;
+import org.webharvest.runtime.PlatformThreadBackend;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.ScraperState;
+import org.webharvest.runtime.StatusHolder;
+import org.webharvest.runtime.checkpoint.Checkpointer;
+import org.webharvest.runtime.checkpoint.NoCheckpointer;
+import org.webharvest.runtime.debug.DebugSink;
+import org.webharvest.runtime.debug.LoggerDebugSink;
+import org.webharvest.runtime.scripting.ScriptEngineFactory;
+import org.webharvest.runtime.scripting.jsr.JSRScriptEngineFactory;
+import org.webharvest.runtime.templaters.BaseTemplater;
+import org.webharvest.runtime.variables.NodeVariable;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.Monitor;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+
+/**
+ * Micro-benchmark measuring per-page cost of {@link HtmlToXmlProcessor}
+ * executed for a definition with all attributes constant, whose cleaner
+ * settings are built once and shared, and for the same definition with one
+ * templated attribute, whose settings are evaluated and built for every page
+ * (as they were for every definition before). Cleaning of an empty page shows
+ * the bare overhead, cleaning of a small page puts it in proportion. Not a
+ * unit test, run it manually:
+ * <pre>
+ * java -cp ... org.webharvest.runtime.processors.HtmlToXmlProcessorBenchmark
+ * </pre>
+ */
+public final class HtmlToXmlProcessorBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int OPS_PER_ROUND = 5000;
+
+    // Same configuration for both definitions, most of the attributes set
+    private static final String ATTRIBUTES = "outputtype='compact'"
+        + " advancedxmlescape='true' usecdata='true' specialentities='true'"
+        + " unicodechars='true' omitunknowntags='false'"
+        + " useemptyelementtags='true' treatunknowntagsascontent='false'"
+        + " omitdeprtags='false' treatdeprtagsascontent='false'"
+        + " omitxmldecl='true' omitcomments='true' omithtmlenvelope='false'"
+        + " allowmultiwordattributes='true' allowhtmlinsideattributes='false'"
+        + " namespacesaware='false' hyphenreplacement='=' booleanatts='self'";
+
+    private static final String CONSTANT =
+        "<html-to-xml " + ATTRIBUTES + " prunetags='script,style'>"
+        + "<get var='page'/></html-to-xml>";
+
+    private static final String TEMPLATED =
+        "<html-to-xml " + ATTRIBUTES + " prunetags=\"${'script,style'}\">"
+        + "<get var='page'/></html-to-xml>";
+
+    private static final String EMPTY_PAGE = "";
+
+    private static final String SMALL_PAGE;
+
+    static {
+        final StringBuilder page = new StringBuilder(
+                "<html><head><title>page</title></head><body><table>");
+        for (int i = 0; i < 20; i++) {
+            page.append("<tr><td class=x>").append(i)
+                .append("&nbsp;&amp;<td><a href=/item?id=").append(i)
+                .append(">item <b>").append(i).append("</a>");
+        }
+        SMALL_PAGE = page.append("</table></body></html>").toString();
+    }
+
+    public static void main(final String[] args) throws Exception {
+        // installs the injector and script engine factory the processors
+        // look up statically
+        Guice.createInjector(new BenchmarkModule());
+
+        final Processor constant = processor(CONSTANT);
+        final Processor templated = processor(TEMPLATED);
+
+        for (String page : new String[] {EMPTY_PAGE, SMALL_PAGE}) {
+            final ScraperContext context = new ScraperContext();
+            context.setLocalVar("page", new NodeVariable(page));
+
+            System.out.println("page length: " + page.length());
+            report("  constant attributes ", constant, context);
+            report("  templated attribute ", templated, context);
+        }
+    }
+
+    private static Processor processor(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+    private static void report(final String name, final Processor processor,
+            final ScraperContext context) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            measure(processor, context);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            best = Math.min(best, measure(processor, context));
+        }
+        System.out.printf("%s %10.2f us/page%n", name,
+                (double) best / OPS_PER_ROUND / 1000);
+    }
+
+    // Returns wall time (ns) of OPS_PER_ROUND pages converted by the processor
+    private static long measure(final Processor processor,
+            final ScraperContext context) throws Exception {
+        int length = 0;
+        final long start = System.nanoTime();
+        for (int op = 0; op < OPS_PER_ROUND; op++) {
+            length += processor.run(context).toString().length();
+        }
+        final long time = System.nanoTime() - start;
+        if (length < 0) {
+            System.out.println(length);
+        }
+        return time;
+    }
+
+    /*
+     * Bindings needed by the processor and its decorators, as in processor
+     * tests, with script engines actually evaluating templated attributes.
+     */
+    private static final class BenchmarkModule extends AbstractModule {
+
+        @Override
+        protected void configure() {
+            bind(EventBus.class).in(Singleton.class);
+            bind(Logger.class).annotatedWith(DebugFileLogger.class).toInstance(
+                    LoggerFactory.getLogger(HtmlToXmlProcessorBenchmark.class));
+            bind(DebugSink.class).to(LoggerDebugSink.class);
+            bind(ExecutionBackend.class).to(PlatformThreadBackend.class);
+            bind(Checkpointer.class).to(NoCheckpointer.class);
+            bind(ScriptEngineFactory.class)
+                    .toInstance(new JSRScriptEngineFactory());
+            bind(Monitor.class).in(Singleton.class);
+            bind(StatusHolder.class).toInstance(new StatusHolder() {
+                @Override
+                public ScraperState getStatus() {
+                    return ScraperState.RUNNING;
+                }
+            });
+
+            requestStaticInjection(InjectorHelper.class);
+            requestStaticInjection(BaseTemplater.class);
+        }
+
+        @Inject
+        @Provides
+        public Monitor.Guard getMonitorGuard(final Monitor monitor) {
+            return new Monitor.Guard(monitor) {
+                @Override
+                public boolean isSatisfied() {
+                    return true;
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.XmlUtil;
+
+public class HtmlToXmlProcessorTest extends UnitilsTestNGExtension {
+
+    private ScraperContext context;
+
+    @BeforeMethod
+    public void before() {
+        context = new ScraperContext();
+        context.setLocalVar("page", new NodeVariable(
+                "<p class=\"a &amp; b\">one &amp; <b>x&lt;y</b><br>"));
+    }
+
+    @Test
+    public void testSimpleOutputCarriesTree() throws Exception {
+        final Variable result = processor("<html-to-xml outputtype='simple'>"
+                + "<get var='page'/></html-to-xml>").run(context);
+
+        assertNotNull(XmlUtil.getXmlNode(result));
+        assertTrue(result.toString().contains("<b>x&lt;y</b>"));
+    }
+
+    @Test
+    public void testTreeMatchesParsedText() throws Exception {
+        final String query = "<xpath expression='concat(//p/@class, \"|\", "
+            + "//p/text()[1], \"|\", //b)'>";
+
+        final String fromTree = processor(query
+                + "<html-to-xml outputtype='simple'><get var='page'/>"
+                + "</html-to-xml></xpath>").run(context).toString();
+        final String fromText = processor(query
+                + "<text><html-to-xml outputtype='simple'><get var='page'/>"
+                + "</html-to-xml></text></xpath>").run(context).toString();
+
+        assertTrue(fromTree.startsWith("a & b|"));
+        assertTrue(fromTree.endsWith("|x<y"));
+        assertEquals(fromText, fromTree);
+    }
+
+    @Test
+    public void testDefaultAttributesCarryTree() throws Exception {
+        // namespace aware cleaning by default
+        final Variable result = processor("<html-to-xml>"
+                + "<get var='page'/></html-to-xml>").run(context);
+
+        assertTrue(((NodeVariable) result).getWrappedObject()
+                instanceof HtmlToXmlProcessor.CleanedHtml);
+        assertTrue(result.toString().contains("<b>x&lt;y</b>"));
+    }
+
+    @Test
+    public void testDefaultNamespaceMatchesParsedText() throws Exception {
+        context.setLocalVar("page", new NodeVariable(
+                "<div xmlns=\"urn:x\"><p>one</p></div><p>two</p>"));
+        final String query = "<xpath expression='string-join(for $p in "
+            + "//*[local-name() = \"p\"] return concat(namespace-uri($p), "
+            + "\"=\", $p), \"|\")'>";
+
+        final Variable tree = processor("<html-to-xml><get var='page'/>"
+                + "</html-to-xml>").run(context);
+        final String fromTree = processor(query + "<html-to-xml>"
+                + "<get var='page'/></html-to-xml></xpath>").run(context)
+                .toString();
+        final String fromText = processor(query + "<text><html-to-xml>"
+                + "<get var='page'/></html-to-xml></text></xpath>")
+                .run(context).toString();
+
+        assertTrue(((NodeVariable) tree).getWrappedObject()
+                instanceof HtmlToXmlProcessor.CleanedHtml);
+        assertEquals("urn:x=one|=two", fromTree);
+        assertEquals(fromText, fromTree);
+    }
+
+    @Test
+    public void testCompactOutputIsText() throws Exception {
+        final Variable result = processor("<html-to-xml outputtype='compact'>"
+                + "<get var='page'/></html-to-xml>").run(context);
+
+        assertNull(XmlUtil.getXmlNode(result));
+    }
+
+    @Test
+    public void testConstantSettingsReusedAcrossPages() throws Exception {
+        final Processor processor = processor("<html-to-xml "
+                + "outputtype='compact' omitxmldecl='true' "
+                + "omithtmlenvelope='true'><get var='page'/></html-to-xml>");
+
+        final String first = processor.run(context).toString();
+        context.setLocalVar("page", new NodeVariable("<i>two</i>"));
+        final String second = processor.run(context).toString();
+
+        assertTrue(first.startsWith("<p class=\"a &amp; b\">"));
+        assertEquals("<i>two</i>", second.trim());
+    }
+
+    private static Processor processor(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.scripting.ScriptEngineFactory;
+import org.webharvest.runtime.scripting.jsr.JSRScriptEngineFactory;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.ScriptingVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.SystemUtilities;
+
+public class LoopProcessorParallelTest extends UnitilsTestNGExtension {
+
+    private ScraperContext context;
+
+    @BeforeMethod
+    public void before() {
+        context = new ScraperContext();
+        // as ScraperContext.initContext() does
+        context.setLocalVar("sys",
+                new ScriptingVariable(new SystemUtilities(context)));
+    }
+
+    @Override
+    protected ScriptEngineFactory getScriptEngineFactory() {
+        return new JSRScriptEngineFactory();
+    }
+
+    @Test
+    public void testSysBoundToIteration() throws Exception {
+        final Variable result = loop("<loop item='x' parallel='3'>"
+                + "<list><text>a</text><text>b</text><text>c</text>"
+                + "<text>d</text></list><body>"
+                + "<script language='groovy'>sys.defineVariable('y', "
+                + "sys.getVar('x').toString() + '!')</script>"
+                + "<get var='y'/></body></loop>").run(context);
+
+        final List<Variable> items = result.toList();
+        assertEquals(4, items.size());
+        assertEquals("a!", items.get(0).toString());
+        assertEquals("b!", items.get(1).toString());
+        assertEquals("c!", items.get(2).toString());
+        assertEquals("d!", items.get(3).toString());
+        // defined within iterations only
+        assertNull(context.getVar("y"));
+    }
+
+    @Test
+    public void testWindowsMergedInOrder() throws Exception {
+        context.setLocalVar("last", new NodeVariable("none"));
+        final StringBuilder list = new StringBuilder("<list>");
+        for (int i = 1; i <= 10; i++) {
+            list.append("<text>").append(i).append("</text>");
+        }
+        list.append("</list>");
+
+        final Variable result = loop("<loop item='x' index='i' parallel='3'>"
+                + list + "<body><set var='last'><get var='x'/></set>"
+                + "<get var='i'/></body></loop>").run(context);
+
+        final List<Variable> items = result.toList();
+        assertEquals(10, items.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(String.valueOf(i + 1), items.get(i).toString());
+        }
+        assertEquals("10", context.getVar("last").toString());
+        assertEquals("10", context.getVar("x").toString());
+    }
+
+    private static Processor loop(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
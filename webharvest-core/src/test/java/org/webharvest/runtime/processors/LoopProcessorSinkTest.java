@@ -0,0 +1,154 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.exception.ConfigurationException;
+import org.webharvest.exception.VariableException;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.scripting.ScriptEngineFactory;
+import org.webharvest.runtime.scripting.ScriptingLanguage;
+import org.webharvest.runtime.scripting.jsr.JSRScriptEngineFactory;
+import org.webharvest.runtime.variables.Variable;
+
+public class LoopProcessorSinkTest extends UnitilsTestNGExtension {
+
+    private static final String LIST =
+        "<list><text>a</text><text>b,\"c\"</text></list>";
+
+    private ScraperContext context;
+
+    private File file;
+
+    @BeforeMethod
+    public void before() throws Exception {
+        context = new ScraperContext();
+        context.setScriptingLanguage(ScriptingLanguage.BEANSHELL);
+        file = File.createTempFile("sink", ".out");
+    }
+
+    @Override
+    protected ScriptEngineFactory getScriptEngineFactory() {
+        return new JSRScriptEngineFactory();
+    }
+
+    @AfterMethod
+    public void after() {
+        file.delete();
+    }
+
+    @Test
+    public void testTextSink() throws Exception {
+        final Variable result = loop("<loop item='x' index='i'>" + LIST
+                + "<body><get var='i'/><get var='x'/></body>"
+                + sink("text") + "</loop>").run(context);
+
+        assertTrue(result.isEmpty());
+        assertEquals("1\na\n2\nb,\"c\"\n",
+                FileUtils.readFileToString(file, "UTF-8"));
+    }
+
+    @Test
+    public void testCsvSink() throws Exception {
+        loop("<loop item='x' index='i'>" + LIST
+                + "<body><get var='i'/><get var='x'/></body>"
+                + sink("csv") + "</loop>").run(context);
+
+        assertEquals("1,a\n2,\"b,\"\"c\"\"\"\n",
+                FileUtils.readFileToString(file, "UTF-8"));
+    }
+
+    @Test
+    public void testJsonLinesSink() throws Exception {
+        loop("<loop item='x'>"
+                + "<list><text>{ \"k\" : 1 }</text><text>a\"b</text></list>"
+                + "<body><get var='x'/></body>"
+                + sink("jsonl") + "</loop>").run(context);
+
+        assertEquals("{\"k\":1}\n\"a\\\"b\"\n",
+                FileUtils.readFileToString(file, "UTF-8"));
+    }
+
+    @Test
+    public void testGzipSinkInParallelLoop() throws Exception {
+        loop("<loop item='x' parallel='2'>" + LIST
+                + "<body><get var='x'/></body>"
+                + "<sink path='" + file.getAbsolutePath()
+                + "' compress='gzip' charset='UTF-8'/></loop>").run(context);
+
+        final InputStream in = new GZIPInputStream(new FileInputStream(file));
+        try {
+            assertEquals("a\nb,\"c\"\n", IOUtils.toString(in, "UTF-8"));
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testTextSinkInParallelLoopWritesWindowsInOrder()
+            throws Exception {
+        final StringBuilder list = new StringBuilder("<list>");
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 1; i <= 7; i++) {
+            list.append("<text>").append(i).append("</text>");
+            expected.append(i).append('\n');
+        }
+        list.append("</list>");
+
+        final Variable result = loop("<loop item='x' parallel='3'>" + list
+                + "<body><get var='x'/></body>" + sink("text")
+                + "</loop>").run(context);
+
+        assertTrue(result.isEmpty());
+        assertEquals(expected.toString(),
+                FileUtils.readFileToString(file, "UTF-8"));
+    }
+
+    @Test
+    public void testFailedLoopKeepsItsException() throws Exception {
+        try {
+            loop("<loop item='x' index='i'>" + LIST
+                    + "<body><case><if condition='${i.toString().equals(\"2\")}'>"
+                    + "<get var='unknown'/></if></case><get var='x'/></body>"
+                    + sink("text") + "</loop>").run(context);
+            fail("Failure of the loop expected");
+        } catch (VariableException e) {
+            // ok, failure of the body is not hidden by the sink
+        }
+        assertEquals("a\n", FileUtils.readFileToString(file, "UTF-8"));
+    }
+
+    @Test
+    public void testUnknownFormat() throws Exception {
+        try {
+            loop("<loop item='x'>" + LIST + "<body><get var='x'/></body>"
+                    + sink("xml") + "</loop>").run(context);
+            fail("ConfigurationException expected");
+        } catch (ConfigurationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(
+                    "text, csv, jsonl, database"));
+        }
+    }
+
+    private String sink(final String format) {
+        return "<sink path='" + file.getAbsolutePath() + "' format='" + format
+                + "' charset='UTF-8'/>";
+    }
+
+    private static Processor loop(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
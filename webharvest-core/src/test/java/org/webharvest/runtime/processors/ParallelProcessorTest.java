@@ -0,0 +1,100 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+
+public class ParallelProcessorTest extends UnitilsTestNGExtension {
+
+    private ScraperContext context;
+
+    @BeforeMethod
+    public void before() {
+        context = new ScraperContext();
+    }
+
+    @Test
+    public void testResultsInDeclarationOrder() throws Exception {
+        final Variable result = parallel("<parallel threads='2'>"
+                + "<text>a</text><text>b</text><text>c</text>"
+                + "</parallel>").run(context);
+
+        assertTrue(result instanceof ListVariable);
+        assertEquals(3, result.toList().size());
+        assertEquals("a", result.toList().get(0).toString());
+        assertEquals("b", result.toList().get(1).toString());
+        assertEquals("c", result.toList().get(2).toString());
+    }
+
+    @Test
+    public void testWritesMergedInDeclarationOrder() throws Exception {
+        context.setLocalVar("x", new NodeVariable("old"));
+
+        parallel("<parallel>"
+                + "<set var='x' value='first'/>"
+                + "<set var='x' value='second'/>"
+                + "<def var='y' value='local'/>"
+                + "</parallel>").run(context);
+
+        assertEquals("second", context.getVar("x").toString());
+        assertNull(context.getVar("y"));
+    }
+
+    @Test
+    public void testCollectSkipsFailedBranch() throws Exception {
+        final Variable result = parallel("<parallel on-error='collect'>"
+                + "<get var='unknown'/>"
+                + "<text>ok</text>"
+                + "</parallel>").run(context);
+
+        assertEquals("ok", result.toString());
+    }
+
+    @Test
+    public void testOneItemPerBranch() throws Exception {
+        final Variable result = parallel("<parallel on-error='collect'>"
+                + "<get var='unknown'/>"
+                + "<empty><text>none</text></empty>"
+                + "<tokenize delimiters=','>a,b</tokenize>"
+                + "<text>ok</text>"
+                + "</parallel>").run(context);
+
+        assertTrue(result instanceof ListVariable);
+        assertEquals(4, result.toList().size());
+        assertTrue(result.toList().get(0).isEmpty());
+        assertTrue(result.toList().get(1).isEmpty());
+        assertEquals(2, result.toList().get(2).toList().size());
+        assertEquals("ok", result.toList().get(3).toString());
+    }
+
+    @Test
+    public void testSingleBranchResultIsList() throws Exception {
+        final Variable result = parallel(
+                "<parallel><text>ok</text></parallel>").run(context);
+
+        assertTrue(result instanceof ListVariable);
+        assertEquals(1, result.toList().size());
+        assertEquals("ok", result.toList().get(0).toString());
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testFailFast() throws Exception {
+        parallel("<parallel>"
+                + "<get var='unknown'/>"
+                + "<text>ok</text>"
+                + "</parallel>").run(context);
+    }
+
+    private static Processor parallel(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
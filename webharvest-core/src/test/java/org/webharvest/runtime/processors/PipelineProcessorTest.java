@@ -0,0 +1,89 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.variables.Variable;
+
+public class PipelineProcessorTest extends UnitilsTestNGExtension {
+
+    private static final String LIST =
+        "<list><text>a</text><text>b</text><text>c</text></list>";
+
+    private ScraperContext context;
+
+    @BeforeMethod
+    public void before() {
+        context = new ScraperContext();
+    }
+
+    @Test
+    public void testItemsPassedThroughStages() throws Exception {
+        final Variable result = pipeline("<pipeline>" + LIST
+                + "<stage item='x'><text delimiter='-'><get var='x'/>1</text></stage>"
+                + "<stage item='y'><text delimiter='-'><get var='y'/>2</text></stage>"
+                + "</pipeline>").run(context);
+
+        assertEquals(3, result.toList().size());
+        assertEquals("a-1-2", result.toList().get(0).toString());
+        assertEquals("b-1-2", result.toList().get(1).toString());
+        assertEquals("c-1-2", result.toList().get(2).toString());
+    }
+
+    @Test
+    public void testEveryResultItemPassedToNextStage() throws Exception {
+        final Variable result = pipeline("<pipeline queue='1'>" + LIST
+                + "<stage item='x' threads='3'><get var='x'/><get var='x'/></stage>"
+                + "<stage item='y' threads='2'><get var='y'/></stage>"
+                + "</pipeline>").run(context);
+
+        assertEquals(6, result.toList().size());
+    }
+
+    @Test
+    public void testItemVariableNotVisibleOutside() throws Exception {
+        pipeline("<pipeline>" + LIST
+                + "<stage item='x'><def var='y' value='local'/></stage>"
+                + "</pipeline>").run(context);
+
+        assertNull(context.getVar("x"));
+        assertNull(context.getVar("y"));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final Variable result = pipeline("<pipeline empty='true'>" + LIST
+                + "<stage item='x'><get var='x'/></stage>"
+                + "</pipeline>").run(context);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testCollectDropsFailedItems() throws Exception {
+        final Variable result = pipeline("<pipeline on-error='collect'>" + LIST
+                + "<stage item='x'><get var='unknown'/></stage>"
+                + "<stage item='y'><get var='y'/></stage>"
+                + "</pipeline>").run(context);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testFailFast() throws Exception {
+        pipeline("<pipeline queue='1'>" + LIST
+                + "<stage item='x'><get var='unknown'/></stage>"
+                + "<stage item='y'><get var='y'/></stage>"
+                + "</pipeline>").run(context);
+    }
+
+    private static Processor pipeline(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.exception.DeadlineExceededException;
+import org.webharvest.runtime.ScraperContext;
+
+public class ProcessorTimeoutTest extends UnitilsTestNGExtension {
+
+    private ScraperContext context;
+
+    @BeforeMethod
+    public void before() {
+        context = new ScraperContext();
+    }
+
+    @Test
+    public void testCompletesWithinTimeout() throws Exception {
+        assertEquals("done", processor(
+                "<text timeout='10000'>done</text>").run(context).toString());
+    }
+
+    @Test(expectedExceptions = DeadlineExceededException.class)
+    public void testFailsOnTimeout() throws Exception {
+        processor("<sleep milliseconds='10000' timeout='50'/>").run(context);
+    }
+
+    @Test
+    public void testTimeoutCaughtByTry() throws Exception {
+        final long start = System.currentTimeMillis();
+
+        final String result = processor("<try><body>"
+                + "<sleep milliseconds='10000' timeout='50'/>"
+                + "</body><catch><text>timed out</text></catch></try>")
+                .run(context).toString();
+
+        assertEquals("timed out", result);
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    private static Processor processor(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
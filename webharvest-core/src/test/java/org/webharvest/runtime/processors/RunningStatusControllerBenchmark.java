@@ -0,0 +1,146 @@
+package org.webharvest.runtime.processors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.webharvest.definition.IElementDef;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.EventBasedStatusHolder;
+import org.webharvest.runtime.ScraperState;
+import org.webharvest.runtime.variables.EmptyVariable;
+import org.webharvest.runtime.variables.Variable;
+
+import com.google.common.util.concurrent.Monitor;
+import com.google.inject.util.Providers;
+
+/**
+ * Micro-benchmark measuring per-run overhead of {@link RunningStatusController}
+ * over a no-op processor, single- and multi-threaded, compared to the
+ * undecorated processor and to entering the {@link Monitor} on every run (the
+ * former behavior). Not a unit test, run it manually:
+ * <pre>
+ * java -cp ... org.webharvest.runtime.processors.RunningStatusControllerBenchmark [threads]
+ * </pre>
+ */
+public final class RunningStatusControllerBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int OPS_PER_ROUND = 5000000;
+
+    public static void main(final String[] args) throws Exception {
+        final int threads = (args.length > 0) ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+
+        final Monitor monitor = new Monitor();
+        final EventBasedStatusHolder statusHolder =
+            new EventBasedStatusHolder(monitor);
+        final Monitor.Guard runningGuard = new Monitor.Guard(monitor) {
+            @Override
+            public boolean isSatisfied() {
+                return statusHolder.getStatus() != ScraperState.PAUSED;
+            }
+        };
+
+        final Processor<IElementDef> bare = new NoopProcessor();
+        final Processor<IElementDef> decorated =
+            new RunningStatusController<IElementDef>(bare,
+                    Providers.of(monitor), Providers.of(runningGuard));
+        final Processor<IElementDef> locking = new NoopProcessor() {
+            @Override
+            public Variable run(final DynamicScopeContext context)
+                    throws InterruptedException {
+                monitor.enterWhen(runningGuard);
+                monitor.leave();
+                return super.run(context);
+            }
+        };
+
+        for (int n : new int[] {1, threads}) {
+            System.out.println("threads: " + n);
+            report("  bare processor     ", bare, n);
+            report("  status controller  ", decorated, n);
+            report("  monitor on each run", locking, n);
+        }
+    }
+
+    private static void report(final String name,
+            final Processor<?> processor, final int threads) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            measure(processor, threads);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            best = Math.min(best, measure(processor, threads));
+        }
+        System.out.printf("%s %8.2f ns/op%n", name,
+                (double) best / OPS_PER_ROUND);
+    }
+
+    // Returns wall time (ns) of OPS_PER_ROUND runs performed by every thread
+    private static long measure(final Processor<?> processor,
+            final int threads) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Callable<Object>> tasks =
+                new ArrayList<Callable<Object>>(threads);
+            for (int i = 0; i < threads; i++) {
+                tasks.add(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        Object last = null;
+                        for (int op = 0; op < OPS_PER_ROUND; op++) {
+                            last = processor.run(null);
+                        }
+                        return last;
+                    }
+                });
+            }
+            final long start = System.nanoTime();
+            for (Future<Object> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class NoopProcessor implements Processor<IElementDef> {
+
+        @Override
+        public void setElementDef(final IElementDef elementDef) {
+        }
+
+        @Override
+        public IElementDef getElementDef() {
+            return null;
+        }
+
+        @Override
+        public Variable run(final DynamicScopeContext context)
+                throws InterruptedException {
+            return EmptyVariable.INSTANCE;
+        }
+
+        @Override
+        public Processor getParentProcessor() {
+            return null;
+        }
+
+        @Override
+        public void setParentProcessor(final Processor parentProcessor) {
+        }
+
+        @Override
+        public int getRunningLevel() {
+            return 1;
+        }
+
+    }
+
+}
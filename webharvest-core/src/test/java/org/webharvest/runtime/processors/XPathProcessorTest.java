@@ -0,0 +1,86 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import net.sf.saxon.om.NodeInfo;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.WHConstants;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.variables.ListVariable;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.RecordVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.XmlUtil;
+
+public class XPathProcessorTest extends UnitilsTestNGExtension {
+
+    private ScraperContext context;
+
+    @BeforeMethod
+    public void before() {
+        context = new ScraperContext();
+        context.setLocalVar("doc", new NodeVariable(
+                "<r><a><b>1</b></a><b>2</b></r>"));
+    }
+
+    @Test
+    public void testResultCarriesTree() throws Exception {
+        final Variable result = xpath("<xpath expression='//a'>"
+                + "<get var='doc'/></xpath>").run(context);
+
+        final NodeInfo node = XmlUtil.getXmlNode(result);
+        assertNotNull(node);
+        assertEquals("a", node.getLocalPart());
+    }
+
+    @Test
+    public void testQueriesResultOfPreviousXPath() throws Exception {
+        final Variable result = xpath("<xpath expression='//b'>"
+                + "<xpath expression='//a'><get var='doc'/></xpath>"
+                + "</xpath>").run(context);
+
+        assertEquals("<b>1</b>", result.toString().trim());
+    }
+
+    @Test
+    public void testResultIsRootOfQueriedDocument() throws Exception {
+        final Variable result = xpath("<xpath expression='/a/b/text()'>"
+                + "<xpath expression='//a'><get var='doc'/></xpath>"
+                + "</xpath>").run(context);
+
+        assertEquals("1", result.toString());
+    }
+
+    @Test
+    public void testExtractsRecordPerRow() throws Exception {
+        context.setLocalVar("products", new NodeVariable("<r>"
+                + "<div class='product'><h2>A</h2><span>1</span></div>"
+                + "<div class='product'><h2>B</h2></div>"
+                + "<div class='other'><h2>C</h2></div></r>"));
+
+        final Variable result = xpath("<xpath xmlns:v='" + WHConstants.XMLNS_VAR
+                + "' rows=\"//div[@class='product']\" v:title='h2/text()'"
+                + " v:price='span/text()'><get var='products'/></xpath>").run(context);
+
+        assertTrue(result instanceof ListVariable);
+        assertEquals(2, result.toList().size());
+        final RecordVariable first = (RecordVariable) result.toList().get(0);
+        assertEquals("A", first.get("title").toString());
+        assertEquals("1", first.get("price").toString());
+        assertEquals("<record><title>A</title><price>1</price></record>",
+                first.toString());
+        final RecordVariable second = (RecordVariable) result.toList().get(1);
+        assertEquals("B", second.get("title").toString());
+        assertTrue(second.get("price").isEmpty());
+    }
+
+    private static Processor xpath(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
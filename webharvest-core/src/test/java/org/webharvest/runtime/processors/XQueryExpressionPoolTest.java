@@ -0,0 +1,51 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.query.StaticQueryContext;
+import net.sf.saxon.query.XQueryExpression;
+import net.sf.saxon.trans.XPathException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class XQueryExpressionPoolTest {
+
+    private StaticQueryContext sqc;
+
+    @BeforeMethod
+    public void before() {
+        sqc = new StaticQueryContext(new Configuration());
+    }
+
+    @Test
+    public void testReusesCompiledExpression() throws Exception {
+        final XQueryExpressionPool pool = new XQueryExpressionPool(sqc);
+
+        final XQueryExpression first = pool.getCompiledExpression("//a");
+        final XQueryExpression second = pool.getCompiledExpression("//a");
+
+        assertSame(first, second);
+        assertEquals(1, pool.getStatistics().hitCount());
+        assertEquals(1, pool.getStatistics().missCount());
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        final XQueryExpressionPool pool = new XQueryExpressionPool(sqc, 2);
+
+        for (int i = 0; i < 10; i++) {
+            pool.getCompiledExpression("//a[@id='" + i + "']");
+        }
+
+        assertTrue(pool.size() <= 2);
+        assertTrue(pool.getStatistics().evictionCount() >= 8);
+    }
+
+    @Test(expectedExceptions = XPathException.class)
+    public void testInvalidExpression() throws Exception {
+        new XQueryExpressionPool(sqc).getCompiledExpression("//a[");
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.UnitilsTestNGExtension;
+import org.webharvest.definition.XmlNodeTestUtils;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.variables.NodeVariable;
+import org.webharvest.runtime.variables.Variable;
+import org.webharvest.utils.XmlStreamIterator;
+
+public class XmlStreamProcessorTest extends UnitilsTestNGExtension {
+
+    private ScraperContext context;
+
+    private File file;
+
+    @BeforeMethod
+    public void before() throws Exception {
+        context = new ScraperContext();
+        file = File.createTempFile("stream", ".xml");
+        FileUtils.writeStringToFile(file, "<catalog>"
+                + "<product><name>A</name></product>"
+                + "<product><name>B</name></product>"
+                + "</catalog>", "UTF-8");
+    }
+
+    @AfterMethod
+    public void after() {
+        file.delete();
+    }
+
+    @Test
+    public void testLoopsOverMatchesOfFile() throws Exception {
+        final Variable result = processor("<loop item='p'><list>"
+                + "<xml-stream file='" + file.getAbsolutePath()
+                + "' path='/catalog/product'/></list><body>"
+                + "<xpath expression='/product/name/text()'><get var='p'/></xpath>"
+                + "</body></loop>").run(context);
+
+        assertEquals(2, result.toList().size());
+        assertEquals("A", result.toList().get(0).toString());
+        assertEquals("B", result.toList().get(1).toString());
+    }
+
+    @Test
+    public void testReadsBody() throws Exception {
+        context.setLocalVar("doc", new NodeVariable("<r><i>1</i><i>2</i></r>"));
+
+        final Variable result = processor("<loop item='i' maxloops='1'><list>"
+                + "<xml-stream path='//i'><get var='doc'/></xml-stream>"
+                + "</list><body><get var='i'/></body></loop>").run(context);
+
+        assertEquals("<i>1</i>", result.toString().trim());
+    }
+
+    @Test
+    public void testStreamClosedWhenLoopStoppedByMaxLoops() throws Exception {
+        processor("<set var='products'><xml-stream file='"
+                + file.getAbsolutePath() + "' path='/catalog/product'/>"
+                + "</set>").run(context);
+        final XmlStreamIterator products = (XmlStreamIterator) context
+                .getVar("products").getWrappedObject();
+
+        final Variable result = processor("<loop item='p' maxloops='1'>"
+                + "<list><get var='products'/></list><body>"
+                + "<xpath expression='/product/name/text()'><get var='p'/></xpath>"
+                + "</body></loop>").run(context);
+
+        assertEquals("A", result.toString().trim());
+        // second product not read, as the stream has been closed
+        assertFalse(products.hasNext());
+    }
+
+    private static Processor processor(final String xml) {
+        return ProcessorTestUtils.processor(XmlNodeTestUtils.createXmlNode(
+                xml, XmlNodeTestUtils.NAMESPACE_21));
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.webharvest.runtime.processors;
+
+import static org.testng.AssertJUnit.*;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+
+import net.sf.saxon.Configuration;
+
+import org.testng.annotations.Test;
+
+public class XsltTemplatesPoolTest {
+
+    private static final String STYLESHEET =
+        "<xsl:stylesheet version='2.0' xmlns:xsl='http://www.w3.org/1999/XSL/Transform'>"
+        + "<xsl:template match='/'><b><xsl:value-of select='/a'/></b></xsl:template>"
+        + "</xsl:stylesheet>";
+
+    @Test
+    public void testReusesCompiledStylesheet() throws Exception {
+        final XsltTemplatesPool pool = new XsltTemplatesPool(new Configuration());
+
+        final Templates first = pool.getTemplates(STYLESHEET);
+        final Templates second = pool.getTemplates("\n  " + STYLESHEET + "\n");
+
+        assertSame(first, second);
+        assertEquals(1, pool.getStatistics().hitCount());
+        assertEquals(1, pool.getStatistics().missCount());
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        final XsltTemplatesPool pool = new XsltTemplatesPool(new Configuration(), 2);
+
+        for (int i = 0; i < 5; i++) {
+            pool.getTemplates(STYLESHEET.replace("/a", "/a" + i));
+        }
+
+        assertTrue(pool.size() <= 2);
+    }
+
+    @Test(expectedExceptions = TransformerConfigurationException.class)
+    public void testInvalidStylesheet() throws Exception {
+        new XsltTemplatesPool(new Configuration()).getTemplates("<xsl:stylesheet");
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.webharvest.runtime.scripting.groovy;
+
+import static org.testng.AssertJUnit.*;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.exception.ScriptException;
+import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.scripting.ScriptSource;
+import org.webharvest.runtime.scripting.ScriptingLanguage;
+
+public class StaticGroovyScriptEngineTest {
+
+    private StaticGroovyScriptEngine engine;
+
+    private DynamicScopeContext context;
+
+    @BeforeMethod
+    public void setUp() {
+        this.engine = new StaticGroovyScriptEngine(2);
+        this.context = new ScraperContext();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.engine = null;
+        this.context = null;
+    }
+
+    @Test
+    public void recognizeLanguage() {
+        assertSame(ScriptingLanguage.GROOVY_STATIC,
+                ScriptingLanguage.recognize("groovy-static"));
+    }
+
+    @Test
+    public void evaluateWithTypedAccessors() {
+        context.setLocalVar("name", "web");
+        context.setLocalVar("count", "41");
+
+        final Object result = engine.evaluate(context, script(
+                "int next = integer('count') + 1\n"
+                + "set('next', next)\n"
+                + "string('name').toUpperCase() + next"));
+
+        assertEquals("WEB42", result);
+        assertEquals("42", context.getVar("next").toString());
+    }
+
+    @Test
+    public void compiledClassIsCached() {
+        final String source = "1 + 1";
+        assertSame(engine.compile(source), engine.compile(source));
+    }
+
+    @Test(expectedExceptions = ScriptException.class)
+    public void dynamicVariableIsRejected() {
+        engine.evaluate(context, script("undeclared.toString()"));
+    }
+
+    private ScriptSource script(final String sourceCode) {
+        return new ScriptSource(sourceCode, ScriptingLanguage.GROOVY_STATIC);
+    }
+
+}
@@ -1,6 +1,10 @@
 package org.webharvest.runtime.scripting.jsr;
 
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.util.Arrays;
 
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -45,4 +49,43 @@ public class JSRScriptEngineFactoryTest {
                 "var x = 123", ScriptingLanguage.JAVASCRIPT));
         assertNotNull("Null script engine", engine);
     }
+
+    @Test
+    public void prepareScripts() {
+        final ScriptEnginePool pool = new ScriptEnginePool();
+        final JSRScriptEngineFactory preparingFactory =
+            new JSRScriptEngineFactory(pool, null);
+
+        preparingFactory.prepare(Arrays.asList(
+                new ScriptSource("syntax error (", ScriptingLanguage.GROOVY),
+                new ScriptSource("def name = 'mashup'",
+                        ScriptingLanguage.GROOVY),
+                new ScriptSource("var x = 123", ScriptingLanguage.JAVASCRIPT)));
+
+        // syntax error is only logged, engines of both languages are ready
+        assertEquals(1, pool.getIdleCount(ScriptingLanguage.GROOVY));
+        assertEquals(1, pool.getIdleCount(ScriptingLanguage.JAVASCRIPT));
+        assertEquals(0, pool.getIdleCount(ScriptingLanguage.BEANSHELL));
+
+        // prepared engine is reused, not created again
+        final javax.script.ScriptEngine engine =
+            pool.borrowEngine(ScriptingLanguage.GROOVY);
+        assertEquals(0, pool.getIdleCount(ScriptingLanguage.GROOVY));
+        pool.returnEngine(ScriptingLanguage.GROOVY, engine);
+        assertSame(engine, pool.borrowEngine(ScriptingLanguage.GROOVY));
+    }
+
+    @Test
+    public void prepareScriptsTwiceKeepsSingleIdleEngine() {
+        final ScriptEnginePool pool = new ScriptEnginePool();
+        final JSRScriptEngineFactory preparingFactory =
+            new JSRScriptEngineFactory(pool, null);
+        final ScriptSource script =
+            new ScriptSource("def name = 'mashup'", ScriptingLanguage.GROOVY);
+
+        preparingFactory.prepare(Arrays.asList(script));
+        preparingFactory.prepare(Arrays.asList(script));
+
+        assertEquals(1, pool.getIdleCount(ScriptingLanguage.GROOVY));
+    }
 }
@@ -0,0 +1,89 @@
+package org.webharvest.runtime.scripting.jsr;
+
+import static org.testng.AssertJUnit.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.script.ScriptEngine;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.runtime.ScraperContext;
+import org.webharvest.runtime.scripting.ScriptSource;
+import org.webharvest.runtime.scripting.ScriptingLanguage;
+
+public class ScriptEngineLeaseTest {
+
+    private static final ScriptingLanguage LANG = ScriptingLanguage.JAVASCRIPT;
+
+    private ScriptEnginePool pool;
+
+    private ScriptEngineLease lease;
+
+    @BeforeMethod
+    public void setUp() {
+        this.pool = new ScriptEnginePool(2, 60000, 50);
+        this.lease = new ScriptEngineLease(pool);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.lease = null;
+        this.pool = null;
+    }
+
+    @Test
+    public void concurrentCheckOutsGetOwnEngines() {
+        final ScriptEngine first = lease.checkOut(LANG);
+        final ScriptEngine second = lease.checkOut(LANG);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void threadGetsBackItsLastEngine() throws Exception {
+        final ScriptEngine own = lease.checkOut(LANG);
+        final AtomicReference<ScriptEngine> other =
+            new AtomicReference<ScriptEngine>();
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                other.set(lease.checkOut(LANG));
+                lease.checkIn(LANG, other.get());
+            }
+        };
+        thread.start();
+        thread.join();
+        lease.checkIn(LANG, own);
+
+        assertNotSame(own, other.get());
+        assertSame(own, lease.checkOut(LANG));
+    }
+
+    @Test
+    public void releaseReturnsEnginesToPool() {
+        lease.checkIn(LANG, lease.checkOut(LANG));
+        lease.release();
+        assertEquals(1, pool.getIdleCount(LANG));
+    }
+
+    @Test
+    public void engineCheckedInAfterReleaseReturnsToPool() {
+        final ScriptEngine engine = lease.checkOut(LANG);
+        lease.release();
+        assertEquals(0, pool.getIdleCount(LANG));
+        lease.checkIn(LANG, engine);
+        assertEquals(1, pool.getIdleCount(LANG));
+        // both engines of the pool available again
+        assertNotSame(pool.borrowEngine(LANG), pool.borrowEngine(LANG));
+    }
+
+    @Test
+    public void adapterChecksEngineIn() throws Exception {
+        new JSRScriptEngineAdapter(lease, LANG).evaluate(new ScraperContext(),
+                new ScriptSource("var defined = 'yes'", LANG));
+
+        assertEquals("yes", lease.checkOut(LANG).get("defined"));
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.webharvest.runtime.scripting.jsr;
+
+import static org.testng.AssertJUnit.*;
+
+import javax.script.ScriptEngine;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.webharvest.exception.ScriptEngineException;
+import org.webharvest.runtime.scripting.ScriptingLanguage;
+
+public class ScriptEnginePoolTest {
+
+    private static final ScriptingLanguage LANG = ScriptingLanguage.JAVASCRIPT;
+
+    private ScriptEnginePool pool;
+
+    @BeforeMethod
+    public void setUp() {
+        this.pool = new ScriptEnginePool(2, 60000, 50);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.pool = null;
+    }
+
+    @Test
+    public void reusesReturnedEngine() {
+        final ScriptEngine engine = pool.borrowEngine(LANG);
+        assertNotNull("Null script engine", engine);
+        pool.returnEngine(LANG, engine);
+        assertEquals(1, pool.getIdleCount(LANG));
+        assertSame(engine, pool.borrowEngine(LANG));
+        assertEquals(0, pool.getIdleCount(LANG));
+    }
+
+    @Test
+    public void resetsEngineStateOnReturn() throws Exception {
+        final ScriptEngine engine = pool.borrowEngine(LANG);
+        engine.eval("var leaked = 'secret'");
+        assertEquals("secret", engine.get("leaked"));
+        pool.returnEngine(LANG, engine);
+
+        assertNull(pool.borrowEngine(LANG).get("leaked"));
+    }
+
+    @Test(expectedExceptions = ScriptEngineException.class)
+    public void failsWhenExhausted() {
+        pool.borrowEngine(LANG);
+        pool.borrowEngine(LANG);
+        pool.borrowEngine(LANG);
+    }
+
+    @Test
+    public void returnedEngineUnblocksBorrower() {
+        final ScriptEngine engine = pool.borrowEngine(LANG);
+        pool.borrowEngine(LANG);
+        pool.returnEngine(LANG, engine);
+        assertSame(engine, pool.borrowEngine(LANG));
+    }
+
+    @Test
+    public void prestartIsBounded() {
+        pool.prestart(LANG, 5);
+        assertEquals(2, pool.getIdleCount(LANG));
+        assertEquals(0, pool.getIdleCount(ScriptingLanguage.GROOVY));
+    }
+
+    @Test
+    public void evictsIdleEngines() throws Exception {
+        pool = new ScriptEnginePool(2, 1, 50);
+        final ScriptEngine first = pool.borrowEngine(LANG);
+        final ScriptEngine second = pool.borrowEngine(LANG);
+        pool.returnEngine(LANG, first);
+        Thread.sleep(20);
+        pool.returnEngine(LANG, second);
+        assertEquals(1, pool.getIdleCount(LANG));
+        assertSame(second, pool.borrowEngine(LANG));
+    }
+
+    @Test
+    public void leaseKeepsEnginePerLanguage() {
+        final ScriptEngineLease lease = new ScriptEngineLease(pool);
+        final ScriptEngine engine = lease.checkOut(LANG);
+        lease.checkIn(LANG, engine);
+        assertSame(engine, lease.checkOut(LANG));
+        lease.checkIn(LANG, engine);
+        lease.release();
+        assertEquals(1, pool.getIdleCount(LANG));
+    }
+
+}
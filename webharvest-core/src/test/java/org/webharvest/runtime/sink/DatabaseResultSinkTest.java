@@ -0,0 +1,58 @@
+package org.webharvest.runtime.sink;
+
+import static org.easymock.EasyMock.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import org.testng.annotations.Test;
+import org.unitils.UnitilsTestNG;
+import org.unitils.easymock.EasyMockUnitils;
+import org.unitils.easymock.annotation.RegularMock;
+import org.webharvest.runtime.variables.NodeVariable;
+
+public class DatabaseResultSinkTest extends UnitilsTestNG {
+
+    private static final String SQL = "insert into t values (?)";
+
+    @RegularMock
+    private Connection mockConnection;
+
+    @RegularMock
+    private PreparedStatement mockStatement;
+
+    @Test
+    public void testCloseCommitsPendingBatch() throws Exception {
+        expectWrite();
+        expect(mockStatement.executeBatch()).andReturn(new int[] {1});
+        expect(mockConnection.getAutoCommit()).andReturn(false);
+        mockConnection.commit();
+        mockStatement.close();
+        EasyMockUnitils.replay();
+
+        final ResultSink sink = new DatabaseResultSink(mockConnection, SQL, 10);
+        sink.write(new NodeVariable("a"));
+        sink.close();
+    }
+
+    @Test
+    public void testAbortRollsBackPendingBatch() throws Exception {
+        expectWrite();
+        mockStatement.clearBatch();
+        expect(mockConnection.getAutoCommit()).andReturn(false);
+        mockConnection.rollback();
+        mockStatement.close();
+        EasyMockUnitils.replay();
+
+        final ResultSink sink = new DatabaseResultSink(mockConnection, SQL, 10);
+        sink.write(new NodeVariable("a"));
+        sink.abort();
+    }
+
+    private void expectWrite() throws Exception {
+        expect(mockConnection.prepareStatement(SQL)).andReturn(mockStatement);
+        mockStatement.setObject(1, "a");
+        mockStatement.addBatch();
+    }
+
+}
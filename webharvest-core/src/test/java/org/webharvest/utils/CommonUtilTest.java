@@ -38,6 +38,14 @@
 
 package org.webharvest.utils;
 
+import java.io.StringReader;
+import java.util.Properties;
+
+import javax.xml.transform.stream.StreamSource;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.om.NodeInfo;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -57,4 +65,17 @@ public class CommonUtilTest {
         // FTP
         Assert.assertTrue(CommonUtil.isFullUrl("jar:file://my/path/to/images.jar!/path/in/classpath/image.png"));
     }
+
+    @Test
+    public void testSerializeItemStripsXhtmlNamespace() throws Exception {
+        final NodeInfo document = new Configuration().buildDocument(new StreamSource(new StringReader(
+                "<html xmlns='http://www.w3.org/1999/xhtml'><p>a xmlns=\"http://www.w3.org/1999/xhtml\"</p></html>")));
+
+        final String xml = CommonUtil.serializeItem(document, new Properties());
+
+        Assert.assertFalse(xml.contains("<html xmlns"));
+        Assert.assertTrue(xml.contains("<p>a xmlns=\"http://www.w3.org/1999/xhtml\"</p>"));
+        // serialization writer is reused
+        Assert.assertEquals(CommonUtil.serializeItem(document, new Properties()), xml);
+    }
 }
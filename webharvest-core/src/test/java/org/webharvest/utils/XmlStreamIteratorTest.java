@@ -0,0 +1,88 @@
+package org.webharvest.utils;
+
+import static org.testng.AssertJUnit.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.saxon.Configuration;
+
+import org.testng.annotations.Test;
+import org.webharvest.exception.ScraperXPathException;
+import org.webharvest.runtime.variables.Variable;
+
+public class XmlStreamIteratorTest {
+
+    private static final String CATALOG = "<?xml version='1.0'?>"
+        + "<catalog xmlns='urn:c' xmlns:p='urn:p'>"
+        + "<product type='book'><name>A</name><p:price>1</p:price></product>"
+        + "<group><product type='cd'><name>B</name></product></group>"
+        + "<product type='book'><name>C</name></product>"
+        + "</catalog>";
+
+    private final Configuration config = new Configuration();
+
+    @Test
+    public void testChildPath() throws Exception {
+        final List<String> matches = matches(CATALOG, "/catalog/product");
+
+        assertEquals(2, matches.size());
+        assertTrue(matches.get(0).contains("<name>A</name>"));
+        assertTrue(matches.get(0).contains("<p:price"));
+        assertTrue(matches.get(1).contains("<name>C</name>"));
+    }
+
+    @Test
+    public void testDescendantPathWithPredicate() throws Exception {
+        assertEquals(3, matches(CATALOG, "//product").size());
+        assertEquals(1, matches(CATALOG, "//*[@type='cd']").size());
+        assertEquals(2, matches(CATALOG, "/catalog//product[@type = \"book\"]/name").size());
+    }
+
+    @Test
+    public void testNestedMatchesAreNotRepeated() throws Exception {
+        assertEquals(1, matches("<a><a><a/></a></a>", "//a").size());
+    }
+
+    @Test
+    public void testStreamClosedAtEnd() throws Exception {
+        final boolean[] closed = new boolean[1];
+        final InputStream input = new ByteArrayInputStream(CATALOG.getBytes("UTF-8")) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+            }
+        };
+        final XmlStreamIterator iterator =
+            new XmlStreamIterator(input, null, "//name", config);
+
+        assertTrue(iterator.hasNext());
+        assertFalse(closed[0]);
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        assertTrue(closed[0]);
+    }
+
+    @Test(expectedExceptions = ScraperXPathException.class)
+    public void testUnsupportedPath() throws Exception {
+        matches(CATALOG, "//product[1]");
+    }
+
+    private List<String> matches(final String xml, final String path)
+            throws Exception {
+        final XmlStreamIterator iterator = new XmlStreamIterator(
+                new ByteArrayInputStream(xml.getBytes("UTF-8")), null, path,
+                config);
+        final List<String> result = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            final Variable match = iterator.next();
+            result.add(match.toString());
+        }
+        return result;
+    }
+
+}
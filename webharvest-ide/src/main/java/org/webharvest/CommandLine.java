@@ -36,21 +36,27 @@
 */
 package org.webharvest;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.SwingUtilities;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.log4j.FileAppender;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
-import org.apache.log4j.PatternLayout;
 import org.apache.log4j.PropertyConfigurator;
 import org.webharvest.definition.ConfigSource;
 import org.webharvest.definition.ConfigSourceFactory;
@@ -58,17 +64,28 @@ import org.webharvest.definition.DefinitionResolver;
 import org.webharvest.definition.IElementDef;
 import org.webharvest.exception.PluginException;
 import org.webharvest.gui.Ide;
-import org.webharvest.ioc.DebugFileLogger;
+import org.webharvest.ioc.CheckpointModule;
+import org.webharvest.ioc.DebugFileModule;
 import org.webharvest.ioc.HttpModule;
 import org.webharvest.ioc.ScraperModule;
+import org.webharvest.ioc.VirtualThreadModule;
+import org.webharvest.ioc.WarmUpModule;
 import org.webharvest.runtime.DynamicScopeContext;
+import org.webharvest.runtime.ExecutionBackend;
+import org.webharvest.runtime.HarvestRuntime;
+import org.webharvest.runtime.VirtualThreadBackend;
+import org.webharvest.runtime.ProcessorInstrumentation;
+import org.webharvest.runtime.checkpoint.FileCheckpointer;
 import org.webharvest.runtime.database.DefaultDriverManager;
 import org.webharvest.runtime.database.DriverManager;
+import org.webharvest.runtime.debug.StreamingDebugSink;
 import org.webharvest.runtime.web.HttpClientManager.ProxySettings;
 import org.webharvest.utils.CommonUtil;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
 
 /**
  * Startup class  for Web-Harvest.
@@ -129,11 +146,34 @@ public class CommandLine {
 
             final ProxySettings proxySettings = parseProxySettings(params);
 
-            final Injector injector = Guice.createInjector(
-                    new ScraperModule(workingDir),
-                    new HttpModule(proxySettings));
+            final StreamingDebugSink debugSink =
+                parseDebugModeSettings(params, workingDir);
 
-            parseDebugModeSettings(params, workingDir);
+            final FileCheckpointer checkpointer =
+                parseCheckpointSettings(params, configFilePath);
+
+            final List<Module> overrides = new ArrayList<Module>();
+            if (debugSink != null) {
+                overrides.add(new DebugFileModule(debugSink));
+            }
+            if (checkpointer != null) {
+                overrides.add(new CheckpointModule(checkpointer));
+            }
+            if (parseVirtualThreadsSettings(params)) {
+                overrides.add(new VirtualThreadModule());
+            }
+
+            final List<Module> modules = new ArrayList<Module>();
+            modules.add(Modules.override(new ScraperModule(workingDir)).with(overrides));
+            modules.add(new HttpModule(proxySettings));
+            if (CommonUtil.isBooleanTrue(params.get("warmup"))) {
+                modules.add(new WarmUpModule());
+            }
+            final Injector injector = Guice.createInjector(modules);
+
+            // headless runs have no processor event consumers, unless asked
+            injector.getInstance(ProcessorInstrumentation.class).setEnabled(
+                    CommonUtil.isBooleanTrue(params.get("instrument")));
 
             // register plugins if specified
             String pluginsString = params.get("plugins");
@@ -151,26 +191,7 @@ public class CommandLine {
 
             parseDatabaseDrivers(params);
 
-            final String configLowercase = configFilePath.toLowerCase();
-
-            final HarvestLoadCallback callback = new HarvestLoadCallback() {
-                @Override
-                public void onSuccess(final List<IElementDef> elements) {
-                    // TODO Auto-generated method stub
-
-                }
-            };
-
-            final ConfigSourceFactory configSourceFactory =
-                    injector.getInstance(ConfigSourceFactory.class);
-            final Harvest harvest = injector.getInstance(Harvest.class);
-            final ConfigSource configSource = (configLowercase.startsWith("http://") || configLowercase.startsWith("https://"))
-                    ? configSourceFactory.create(new URL(configFilePath))
-                    : configSourceFactory.create(new File(configFilePath));
-            // FIXME rbala although temporary solution it is duplicated (ConfigPanel)
-            final Harvester harvester = harvest.getHarvester(configSource, callback);
-
-            harvester.execute(new Harvester.ContextInitCallback() {
+            final Harvester.ContextInitCallback contextInit = new Harvester.ContextInitCallback() {
                 @Override
                 public void onSuccess(DynamicScopeContext context) {
                     // adds initial variables to the scraper's content, if any
@@ -184,21 +205,178 @@ public class CommandLine {
                     }
                 }
 
-            });
+            };
+
+            try {
+                if ("-".equals(configFilePath)) {
+                    runHarvestRuntime(injector, params, contextInit);
+                } else {
+                    loadHarvester(injector, configFilePath).execute(contextInit);
+                }
+            } finally {
+                if (checkpointer != null) {
+                    checkpointer.close();
+                }
+                if (debugSink != null) {
+                    debugSink.close();
+                }
+            }
+
+        }
+    }
+
+    private static Harvester loadHarvester(final Injector injector,
+            final String configFilePath) throws IOException {
+        final String configLowercase = configFilePath.toLowerCase();
+
+        final HarvestLoadCallback callback = new HarvestLoadCallback() {
+            @Override
+            public void onSuccess(final List<IElementDef> elements) {
+                // TODO Auto-generated method stub
+
+            }
+        };
+
+        final ConfigSourceFactory configSourceFactory =
+                injector.getInstance(ConfigSourceFactory.class);
+        final Harvest harvest = injector.getInstance(Harvest.class);
+        final ConfigSource configSource = (configLowercase.startsWith("http://") || configLowercase.startsWith("https://"))
+                ? configSourceFactory.create(new URL(configFilePath))
+                : configSourceFactory.create(new File(configFilePath));
+        // FIXME rbala although temporary solution it is duplicated (ConfigPanel)
+        return harvest.getHarvester(configSource, callback);
+    }
+
+    /**
+     * Executes configurations whose paths or URLs are read from the standard
+     * input, one per line, until the end of the input. All of them share
+     * this JVM and its injector; each line is executed as a separate harvest
+     * of the job named after the configuration.
+     */
+    private static void runHarvestRuntime(final Injector injector,
+            final Map<String, String> params,
+            final Harvester.ContextInitCallback contextInit) throws IOException {
+        final String maxJobs = params.get("maxjobs");
+        final String maxJobRuns = params.get("maxjobruns");
+        final HarvestRuntime runtime = new HarvestRuntime(
+                injector.getInstance(ExecutionBackend.class),
+                parsePositiveInt(maxJobs, "maximum number of jobs", HarvestRuntime.DEFAULT_MAX_CONCURRENT_HARVESTS),
+                parsePositiveInt(maxJobRuns, "maximum number of job runs", HarvestRuntime.DEFAULT_MAX_CONCURRENT_PER_JOB));
+
+        final List<Future<DynamicScopeContext>> submitted =
+            new ArrayList<Future<DynamicScopeContext>>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String configFilePath = line.trim();
+                if (configFilePath.length() > 0) {
+                    try {
+                        submitted.add(runtime.submit(configFilePath,
+                                loadHarvester(injector, configFilePath), contextInit));
+                    } catch (IOException e) {
+                        System.err.println("Cannot load configuration " + configFilePath + ": " + e.getMessage());
+                    }
+                }
+            }
+            for (Future<DynamicScopeContext> result : submitted) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runtime.shutdown();
+        }
+    }
+
+    /**
+     * Returns positive number given as value of the parameter, or the default
+     * value if the parameter is not specified or its value is invalid.
+     */
+    private static int parsePositiveInt(final String value, final String description,
+                                        final int defaultValue) {
+        if (CommonUtil.isEmpty(value)) {
+            return defaultValue;
+        }
+        final int number = NumberUtils.toInt(value.trim(), -1);
+        if (number <= 0) {
+            System.err.println("Invalid " + description + " '" + value + "', using default of "
+                    + defaultValue + ".");
+            return defaultValue;
+        }
+        return number;
+    }
+
+    private static boolean parseVirtualThreadsSettings(final Map<String, String> params) {
+        if (!"virtual".equalsIgnoreCase(params.get("threads"))) {
+            return false;
+        }
+        if (!VirtualThreadBackend.isSupported()) {
+            System.err.println("Virtual threads are not supported by this JVM, using platform threads.");
+            return false;
+        }
+        return true;
+    }
 
+    private static StreamingDebugSink parseDebugModeSettings(
+            final Map<String, String> params, final String workingDir)
+            throws IOException {
+        if (!CommonUtil.isBooleanTrue(params.get("debug"))) {
+            return null;
+        }
+        final String debugLimit = params.get("debuglimit");
+        int maxEntryLength = StreamingDebugSink.DEFAULT_MAX_ENTRY_LENGTH;
+        if (!CommonUtil.isEmpty(debugLimit)) {
+            final int limit = NumberUtils.toInt(debugLimit.trim(), -1);
+            if (limit <= 0) {
+                System.err.println("Invalid debug limit '" + debugLimit + "', using default of "
+                        + maxEntryLength + " characters.");
+            } else {
+                maxEntryLength = limit;
+            }
         }
+        return new StreamingDebugSink(
+                new FileWriter(new File(workingDir, "_DEBUG")),
+                maxEntryLength, StreamingDebugSink.DEFAULT_QUEUE_CAPACITY);
     }
 
-    private static void parseDebugModeSettings(final Map<String, String> params,
-            final String workingDir) throws IOException {
-        if (CommonUtil.isBooleanTrue(params.get("debug"))) {
-            final Logger logger = LogManager.getLogger(DebugFileLogger.NAME);
-            logger.setLevel(Level.TRACE);
-            logger.addAppender(new FileAppender(
-                    new PatternLayout(DebugFileLogger.LAYOUT),
-                    new File(workingDir, "_DEBUG").getPath(),
-                    false));
+    private static FileCheckpointer parseCheckpointSettings(
+            final Map<String, String> params, final String configFilePath)
+            throws IOException {
+        final String checkpointFile = params.get("checkpoint");
+        if (CommonUtil.isEmpty(checkpointFile)) {
+            return null;
+        }
+        if ("-".equals(configFilePath)) {
+            System.err.println("Checkpoint is not supported when configurations are read from the standard input, ignored.");
+            return null;
+        }
+        final String checkpointVars = params.get("checkpointvars");
+        final String checkpointInterval = params.get("checkpointinterval");
+        long interval = FileCheckpointer.DEFAULT_INTERVAL;
+        if (!CommonUtil.isEmpty(checkpointInterval)) {
+            final long seconds = NumberUtils.toLong(checkpointInterval.trim(), -1);
+            if (seconds <= 0) {
+                System.err.println("Invalid checkpoint interval '" + checkpointInterval + "', using default of "
+                        + (interval / 1000) + " seconds.");
+            } else {
+                interval = seconds * 1000;
+            }
+        }
+        final FileCheckpointer checkpointer = new FileCheckpointer(
+                new File(checkpointFile),
+                CommonUtil.isEmpty(checkpointVars)
+                        ? Collections.<String>emptyList()
+                        : Arrays.asList(CommonUtil.tokenize(checkpointVars, ",")),
+                interval);
+        if (checkpointer.hasProgress()) {
+            System.out.println("Resuming from checkpoint " + checkpointFile);
         }
+        return checkpointer;
     }
 
     private static void parseLoggingSettings(final Map<String, String> params) {
@@ -278,7 +456,10 @@ public class CommandLine {
         System.out.println("or just double-click webharvestXX.jar from the file manager.");
         System.out.println("");
         System.out.println("Command line use:");
-        System.out.println("   java -jar webharvestXX.jar [-h] config=<path> [workdir=<path>] [debug=yes|no]");
+        System.out.println("   java -jar webharvestXX.jar [-h] config=<path> [workdir=<path>] [debug=yes|no] [warmup=yes|no]");
+        System.out.println("             [instrument=yes|no] [debuglimit=<characters>]");
+        System.out.println("             [maxjobs=<number>] [maxjobruns=<number>] [threads=platform|virtual]");
+        System.out.println("             [checkpoint=<path> [checkpointvars=<name1>[,<name2>...]] [checkpointinterval=<seconds>]]");
         System.out.println("             [proxyhost=<proxy server> [proxyport=<proxy server port>]]");
         System.out.println("             [proxyuser=<proxy username> [proxypassword=<proxy password>]]");
         System.out.println("             [proxynthost=<NT host name>]");
@@ -291,8 +472,20 @@ public class CommandLine {
         System.out.println("");
         System.out.println("   -h            - shows this help.");
         System.out.println("   config        - path or URL of configuration (URL must begin with \"http://\" or \"https://\").");
+        System.out.println("                   If it is \"-\", paths or URLs are read from the standard input, one per line,");
+        System.out.println("                   and executed concurrently within this process until the end of the input.");
         System.out.println("   workdir       - path of the working directory (default is current directory).");
         System.out.println("   debug         - specify if Web-Harvest generates debugging output (default is no).");
+        System.out.println("   debuglimit    - maximum number of characters of single debugging output entry (default is 262144).");
+        System.out.println("   warmup        - specify if script engines are prepared before execution starts (default is no).");
+        System.out.println("   instrument    - specify if processor events, properties and per-processor logs are produced (default is no).");
+        System.out.println("   maxjobs       - maximum number of configurations executed at a time when read from the standard input (default is number of processors).");
+        System.out.println("   maxjobruns    - maximum number of executions of the same configuration at a time (default is 1).");
+        System.out.println("   checkpoint    - path of the file where progress of loops, checkpointed variables and cookies is recorded;");
+        System.out.println("                   if it exists, execution is resumed from it. It is deleted when execution completes.");
+        System.out.println("   checkpointvars - comma-separated list of names of variables recorded in the checkpoint.");
+        System.out.println("   checkpointinterval - number of seconds between writes of the checkpoint (default is 5).");
+        System.out.println("   threads       - kind of threads executing harvests and parallel branches; virtual threads require Java 21 (default is platform).");
         System.out.println("   proxyhost     - specify proxy server.");
         System.out.println("   proxyport     - specify port for proxy server.");
         System.out.println("   proxyuser     - specify proxy server username.");
@@ -50,6 +50,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
@@ -227,6 +228,10 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
     private Harvest harvest;
 
+    // event handlers of this panel registered to the harvest
+    private final List<EventHandler<?>> eventHandlers =
+        new ArrayList<EventHandler<?>>();
+
     private Harvester harvester;
 
     //TODO: ConfigPanel should not hold reference to DynamicScopeContext, but
@@ -404,6 +409,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
     }
 
     private Harvest createHarvest() {
+        releaseHarvest();
         // FIXME rbala although temporary solution it is duplicated (CommandLine)
         this.harvest = Guice.createInjector(Modules.override(
                         new ScraperModule(ide.getSettings().getWorkingPath())).
@@ -411,7 +417,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
                     new HttpModule(loadProxySettings()))
                 .getInstance(Harvest.class);
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ScraperExecutionStartEvent>() {
+        addEventHandler(new EventHandler<ScraperExecutionStartEvent>() {
 
             @Override
             @Subscribe
@@ -423,7 +429,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
         });
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ScraperExecutionPausedEvent>() {
+        addEventHandler(new EventHandler<ScraperExecutionPausedEvent>() {
 
             @Override
             @Subscribe
@@ -435,7 +441,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
         });
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ScraperExecutionContinuedEvent>() {
+        addEventHandler(new EventHandler<ScraperExecutionContinuedEvent>() {
 
             @Override
             @Subscribe
@@ -447,7 +453,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
         });
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ScraperExecutionEndEvent>() {
+        addEventHandler(new EventHandler<ScraperExecutionEndEvent>() {
 
             @Override
             @Subscribe
@@ -463,7 +469,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
         });
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ScraperExecutionStoppedEvent>() {
+        addEventHandler(new EventHandler<ScraperExecutionStoppedEvent>() {
 
             @Override
             @Subscribe
@@ -475,7 +481,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
         });
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ScraperExecutionExitEvent>() {
+        addEventHandler(new EventHandler<ScraperExecutionExitEvent>() {
 
             @Override
             @Subscribe
@@ -487,7 +493,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
         });
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ScraperExecutionErrorEvent>() {
+        addEventHandler(new EventHandler<ScraperExecutionErrorEvent>() {
 
             @Override
             @Subscribe
@@ -499,7 +505,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
         });
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ProcessorStartEvent>() {
+        addEventHandler(new EventHandler<ProcessorStartEvent>() {
 
             @Override
             @Subscribe
@@ -510,7 +516,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
 
         });
         // TODO rbala Possibly bind with Guice when finally created Swing module
-        harvest.addEventHandler(new EventHandler<ProcessorStopEvent>() {
+        addEventHandler(new EventHandler<ProcessorStopEvent>() {
 
             @Override
             @Subscribe
@@ -524,6 +530,25 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
         return harvest;
     }
 
+    private void addEventHandler(final EventHandler<?> handler) {
+        harvest.addEventHandler(handler);
+        eventHandlers.add(handler);
+    }
+
+    /**
+     * Unregisters event handlers of this panel from the harvest of the
+     * previous run, so they do not keep its processor instrumentation active.
+     */
+    private void releaseHarvest() {
+        if (harvest != null) {
+            for (EventHandler<?> handler : eventHandlers) {
+                harvest.removeEventHandler(handler);
+            }
+            eventHandlers.clear();
+            harvest = null;
+        }
+    }
+
     private ConfigDocument loadConfigDocument(String name) {
         // creates document for this configuration panel
         final ConfigDocument configDocument = new ConfigDocument(this, name);
@@ -1127,6 +1152,7 @@ public class ConfigPanel extends JPanel implements TreeSelectionListener, CaretL
         if (this.harvester != null) {
             this.harvester = null;
         }
+        releaseHarvest();
 
         this.xmlPane.removeCaretListener(this);
         this.tree.removeTreeSelectionListener(this);